@@ -0,0 +1,394 @@
+package com.example.lottos;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The app-wide thread pools for background work, split into priority lanes.
+ *
+ * Role: Background threads used to be created wherever they were needed, and some pools were
+ * created per adapter or per screen and never shut down. All such work now goes through one of
+ * the {@link Lane}s here:
+ * <ul>
+ *     <li>Each lane has a fixed number of threads running at its own thread priority, and a
+ *         bounded queue. A lane whose queue is full rejects new work, or for
+ *         {@link Lane#IMAGES} drops its oldest queued task, instead of growing without limit.</li>
+ *     <li>Work tied to a screen is submitted through a {@link Scope} bound to the screen's
+ *         view lifecycle. When the view is destroyed, the scope cancels its queued and running
+ *         tasks and drops any results they post back to the main thread.</li>
+ *     <li>Each lane records its queue depth, how long tasks waited before starting and how long
+ *         they ran, which can be read with {@link #stats(Lane)}.</li>
+ * </ul>
+ */
+public final class AppExecutors {
+
+    private static final String TAG = "AppExecutors";
+
+    private static AppExecutors instance;
+
+    /**
+     * The kinds of background work, from most to least urgent.
+     */
+    public enum Lane {
+        /** Work the user is waiting to see, such as QR codes and map clusters. */
+        UI_CRITICAL(2, 64, Process.THREAD_PRIORITY_DEFAULT, false),
+        /**
+         * Image downloads for views on screen. When the queue is full the oldest queued load is
+         * dropped, since its view has most likely been scrolled away; a view that is bound again
+         * starts a new load.
+         */
+        IMAGES(2, 32, Process.THREAD_PRIORITY_DEFAULT, true),
+        /** Short file and CPU work started by the user, such as password hashing and poster processing. */
+        IO(2, 32, Process.THREAD_PRIORITY_BACKGROUND, false),
+        /** Long-running exports, kept apart so that they never hold up a login or an upload. */
+        EXPORT(2, 16, Process.THREAD_PRIORITY_BACKGROUND, false);
+
+        final int threads;
+        final int queueCapacity;
+        final int threadPriority;
+        final boolean dropOldest;
+
+        Lane(int threads, int queueCapacity, int threadPriority, boolean dropOldest) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.threadPriority = threadPriority;
+            this.dropOldest = dropOldest;
+        }
+    }
+
+    /**
+     * A snapshot of a lane's activity since the app started.
+     */
+    public static final class Stats {
+        /** The number of tasks waiting in the queue. */
+        public final int queueDepth;
+        /** The number of tasks accepted. */
+        public final long submitted;
+        /** The number of tasks that finished running. */
+        public final long completed;
+        /** The number of tasks rejected or dropped because the queue was full. */
+        public final long rejected;
+        /** The average time tasks waited in the queue, in milliseconds. */
+        public final long averageWaitMs;
+        /** The longest time a task waited in the queue, in milliseconds. */
+        public final long maxWaitMs;
+        /** The average time tasks spent running, in milliseconds. */
+        public final long averageRunMs;
+
+        Stats(int queueDepth, long submitted, long completed, long rejected,
+              long averageWaitMs, long maxWaitMs, long averageRunMs) {
+            this.queueDepth = queueDepth;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.averageWaitMs = averageWaitMs;
+            this.maxWaitMs = maxWaitMs;
+            this.averageRunMs = averageRunMs;
+        }
+    }
+
+    private static final class LaneState {
+        final ThreadPoolExecutor executor;
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong totalWaitMs = new AtomicLong();
+        final AtomicLong maxWaitMs = new AtomicLong();
+        final AtomicLong totalRunMs = new AtomicLong();
+
+        LaneState(ThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+    }
+
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Creates the lanes. Package-private so tests can use an isolated instance;
+     * the app uses {@link #getInstance()}.
+     */
+    AppExecutors() {
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneState(newExecutor(lane)));
+        }
+    }
+
+    /**
+     * Returns the shared instance.
+     * @return The process-wide AppExecutors.
+     */
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    /**
+     * Runs a task on a lane. Use {@link #scope(LifecycleOwner)} instead for work that belongs to a screen.
+     *
+     * @param lane The lane to run the task on.
+     * @param task The task to run.
+     * @return true if the task was accepted, false if the lane's queue was full.
+     */
+    public boolean execute(Lane lane, Runnable task) {
+        return enqueue(lane, timedTask(lane, task, null));
+    }
+
+    /**
+     * Gets an {@link Executor} that runs tasks on a lane, for APIs that take one.
+     * Tasks rejected because the queue is full are counted, and {@code execute} throws a
+     * {@link RejectedExecutionException} so the caller can report the failure.
+     *
+     * @param lane The lane to run tasks on.
+     * @return The executor.
+     */
+    public Executor executor(Lane lane) {
+        return task -> {
+            if (!execute(lane, task)) {
+                throw new RejectedExecutionException(lane + " queue is full");
+            }
+        };
+    }
+
+    /**
+     * Creates a scope whose tasks are cancelled when the given lifecycle is destroyed.
+     * Fragments should pass {@link androidx.fragment.app.Fragment#getViewLifecycleOwner()}
+     * from {@code onViewCreated}.
+     *
+     * @param owner The lifecycle the scope's tasks belong to.
+     * @return The new scope.
+     */
+    public Scope scope(LifecycleOwner owner) {
+        Scope scope = new Scope();
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    scope.cancel();
+                }
+            }
+        });
+        return scope;
+    }
+
+    /**
+     * Gets a snapshot of a lane's metrics.
+     * @param lane The lane.
+     * @return The lane's current queue depth and its counts and timings so far.
+     */
+    public Stats stats(Lane lane) {
+        LaneState state = lanes.get(lane);
+        long completed = state.completed.get();
+        long runs = Math.max(completed, 1);
+        return new Stats(
+                state.executor.getQueue().size(),
+                state.submitted.get(),
+                completed,
+                state.rejected.get(),
+                state.totalWaitMs.get() / runs,
+                state.maxWaitMs.get(),
+                state.totalRunMs.get() / runs);
+    }
+
+    /**
+     * Stops every lane's threads. Only used by tests, which create their own instances.
+     */
+    void shutdownNow() {
+        for (LaneState state : lanes.values()) {
+            state.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Logs every lane's metrics, for diagnosing slow screens.
+     */
+    public void logStats() {
+        for (Lane lane : Lane.values()) {
+            Stats s = stats(lane);
+            Log.d(TAG, lane + ": queued=" + s.queueDepth + " submitted=" + s.submitted
+                    + " completed=" + s.completed + " rejected=" + s.rejected
+                    + " avgWaitMs=" + s.averageWaitMs + " maxWaitMs=" + s.maxWaitMs
+                    + " avgRunMs=" + s.averageRunMs);
+        }
+    }
+
+    /**
+     * Wraps a task so that the time it waits and runs is recorded on its lane.
+     * @param onDone Called once the task has finished or been cancelled, or null.
+     */
+    private FutureTask<Void> timedTask(Lane lane, Runnable task, Consumer<Future<?>> onDone) {
+        LaneState state = lanes.get(lane);
+        long queuedAt = SystemClock.elapsedRealtime();
+
+        return new FutureTask<Void>(() -> {
+            long startedAt = SystemClock.elapsedRealtime();
+            long waited = startedAt - queuedAt;
+            state.totalWaitMs.addAndGet(waited);
+            state.maxWaitMs.accumulateAndGet(waited, Math::max);
+            try {
+                task.run();
+            } finally {
+                state.totalRunMs.addAndGet(SystemClock.elapsedRealtime() - startedAt);
+                state.completed.incrementAndGet();
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                if (onDone != null) onDone.accept(this);
+            }
+        };
+    }
+
+    /**
+     * Queues a task on a lane.
+     * @return true if the task was accepted, false if the lane's queue was full.
+     */
+    private boolean enqueue(Lane lane, FutureTask<Void> task) {
+        LaneState state = lanes.get(lane);
+        try {
+            state.executor.execute(task);
+            state.submitted.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            state.rejected.incrementAndGet();
+            Log.w(TAG, lane + " queue is full; task dropped");
+            return false;
+        }
+    }
+
+    private ThreadPoolExecutor newExecutor(Lane lane) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                lane.threads, lane.threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(lane.queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(() -> {
+                        Process.setThreadPriority(lane.threadPriority);
+                        runnable.run();
+                    }, "lane-" + lane.name().toLowerCase() + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (rejected, pool) -> {
+                    if (lane.dropOldest && !pool.isShutdown()) {
+                        Runnable oldest = pool.getQueue().poll();
+                        if (oldest instanceof Future) ((Future<?>) oldest).cancel(false);
+                        lanes.get(lane).rejected.incrementAndGet();
+                        pool.execute(rejected);
+                        return;
+                    }
+                    throw new RejectedExecutionException(lane + " queue is full");
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A group of tasks that belong to one screen and are cancelled together.
+     *
+     * Tasks are cancelled with an interrupt, so long-running work should check
+     * {@link Thread#isInterrupted()}. Results posted with {@link #postToMain(Runnable)} are
+     * dropped once the scope is cancelled, so they never touch a destroyed view.
+     */
+    public final class Scope {
+        private final Set<Future<?>> tasks = new HashSet<>();
+        private boolean cancelled;
+
+        private Scope() {}
+
+        /**
+         * Runs a task on a lane, unless the scope has been cancelled.
+         *
+         * @param lane The lane to run the task on.
+         * @param task The task to run.
+         * @return true if the task was accepted.
+         */
+        public boolean execute(Lane lane, Runnable task) {
+            FutureTask<Void> future = timedTask(lane, task, this::forget);
+            synchronized (this) {
+                if (cancelled) return false;
+                // Tracked before it is queued, so a cancel() from here on reaches it.
+                tasks.add(future);
+            }
+            if (!enqueue(lane, future)) {
+                forget(future);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Gets an {@link Executor} that runs tasks on a lane within this scope, for APIs that take one.
+         *
+         * @param lane The lane to run tasks on.
+         * @return The executor.
+         */
+        public Executor executor(Lane lane) {
+            return task -> execute(lane, task);
+        }
+
+        /**
+         * Posts a result to the main thread, unless the scope is cancelled by the time it runs.
+         * @param action The action to run on the main thread.
+         */
+        public void postToMain(Runnable action) {
+            mainHandler.post(() -> {
+                if (!isCancelled()) action.run();
+            });
+        }
+
+        /**
+         * @return true if the scope's lifecycle has ended.
+         */
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Cancels every queued and running task and refuses new ones.
+         */
+        public void cancel() {
+            Set<Future<?>> pending;
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+                pending = new HashSet<>(tasks);
+                tasks.clear();
+            }
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+        }
+
+        private synchronized void forget(Future<?> future) {
+            tasks.remove(future);
+        }
+    }
+}
@@ -18,8 +18,6 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * A RecyclerView.Adapter for displaying a list of events.
@@ -126,7 +124,6 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.VH>
     private final List<EventItem> events;
     private final Listener listener;
     private int selectedPosition = RecyclerView.NO_POSITION;
-    private final ExecutorService imageExecutor = Executors.newFixedThreadPool(3);
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     /**
@@ -241,7 +238,7 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.VH>
 
     /**
      * Asynchronously loads an image from a URL into an ImageView.
-     * This is done on a background thread to avoid blocking the UI.
+     * This is done on the {@link AppExecutors.Lane#IMAGES} lane to avoid blocking the UI.
      * A placeholder is shown initially, and the final image is set on the main thread.
      * @param imageView The ImageView to load the image into.
      * @param urlString The URL of the image to download.
@@ -251,7 +248,7 @@ public class EventListAdapter extends RecyclerView.Adapter<EventListAdapter.VH>
         imageView.setTag(urlString);
         imageView.setImageResource(R.drawable.sample_event);
 
-        imageExecutor.execute(() -> {
+        AppExecutors.getInstance().execute(AppExecutors.Lane.IMAGES, () -> {
             Bitmap bmp = null;
             try {
                 URL url = new URL(urlString);
@@ -1,12 +1,17 @@
 package com.example.lottos;
 
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A repository class for managing CRUD (Create, Read, Update, Delete) operations for events.
@@ -17,10 +22,22 @@ import java.util.Map;
  * decouples the business logic (in managers or ViewModels) from the low-level
  * Firestore implementation details. This makes the code more modular, testable,
  * and easier to maintain.
+ *
+ * The {@code read...} methods go through a {@link SingleFlight} shared by every repository
+ * using the same Firestore instance, so identical reads issued at the same time by different
+ * screens and managers share one network call. Writes made through this class stop the affected
+ * reads from being shared. Transactions and batches that change events elsewhere, such as joining
+ * a waitlist or running the lottery, call {@link #invalidateEvent(String)} once they commit. A read
+ * started after any of these writes has completed never receives data from before it.
  */
 public class EventRepository {
+    private static final String ALL_EVENTS_KEY = "open events/*";
+    private static final String ORGANIZER_KEY_PREFIX = "open events?organizer=";
+    private static final Map<FirebaseFirestore, SingleFlight> FLIGHTS = new WeakHashMap<>();
+
     private final FirebaseFirestore db;
     private final CollectionReference eventsCollection;
+    private final SingleFlight flights;
 
     /**
      * Constructs an EventRepository.
@@ -30,6 +47,18 @@ public class EventRepository {
     public EventRepository(FirebaseFirestore db) {
         this.db = db;
         this.eventsCollection = db.collection("open events");
+        this.flights = flightsFor(db);
+    }
+
+    private static SingleFlight flightsFor(FirebaseFirestore db) {
+        synchronized (FLIGHTS) {
+            SingleFlight flights = FLIGHTS.get(db);
+            if (flights == null) {
+                flights = new SingleFlight();
+                FLIGHTS.put(db, flights);
+            }
+            return flights;
+        }
     }
 
     /**
@@ -42,6 +71,68 @@ public class EventRepository {
         return db.collection("open events").document(eventId);
     }
 
+    /**
+     * Reads an event document.
+     *
+     * @param eventId The unique identifier of the event.
+     * @return A future that completes with the event's snapshot, which may not exist.
+     *         See {@link TaskFutures} for composing it with other reads.
+     */
+    public CompletableFuture<DocumentSnapshot> fetchEvent(String eventId) {
+        return TaskFutures.of(readEvent(eventId));
+    }
+
+    /**
+     * Reads an event document, sharing the read with any identical one already in progress.
+     *
+     * @param eventId The unique identifier of the event.
+     * @return A task that completes with the event's snapshot, which may not exist.
+     */
+    public Task<DocumentSnapshot> readEvent(String eventId) {
+        return flights.run(eventKey(eventId), () -> getEvent(eventId).get());
+    }
+
+    /**
+     * Reads every event.
+     *
+     * @return A future that completes with all event documents.
+     *         See {@link TaskFutures} for composing it with other reads.
+     */
+    public CompletableFuture<QuerySnapshot> fetchAllEvents() {
+        return TaskFutures.of(readAllEvents());
+    }
+
+    /**
+     * Reads the events created by an organizer.
+     *
+     * @param organizer The username of the event organizer.
+     * @return A future that completes with the organizer's event documents.
+     *         See {@link TaskFutures} for composing it with other reads.
+     */
+    public CompletableFuture<QuerySnapshot> fetchEventsByOrganizer(String organizer) {
+        return TaskFutures.of(readEventsByOrganizer(organizer));
+    }
+
+    /**
+     * Reads every event, sharing the read with any identical one already in progress.
+     *
+     * @return A task that completes with all event documents.
+     */
+    public Task<QuerySnapshot> readAllEvents() {
+        return flights.run(ALL_EVENTS_KEY, () -> getAllEvents().get());
+    }
+
+    /**
+     * Reads the events created by an organizer, sharing the read with any identical one already
+     * in progress.
+     *
+     * @param organizer The username of the event organizer.
+     * @return A task that completes with the organizer's event documents.
+     */
+    public Task<QuerySnapshot> readEventsByOrganizer(String organizer) {
+        return flights.run(organizerKey(organizer), () -> getEventsByOrganizer(organizer).get());
+    }
+
     /**
      * Creates a Firestore {@link Query} to fetch all events created by a specific organizer.
      *
@@ -71,6 +162,7 @@ public class EventRepository {
      * @param onError A callback to handle any exceptions that occur.
      */
     public void createEvent(String eventId, Map<String, Object> data, Runnable onSuccess, OnError onError) {
+        forgetReads(eventId, (String) data.get("organizer"));
 
         db.collection("open events")
                 .document(eventId)
@@ -88,6 +180,7 @@ public class EventRepository {
      * @param onError A callback to handle any exceptions that occur.
      */
     public void updateEvent(String eventId, Map<String, Object> data,Runnable onSuccess, OnError onError) {
+        forgetReads(eventId, (String) data.get("organizer"));
 
         db.collection("open events")
                 .document(eventId)
@@ -104,6 +197,7 @@ public class EventRepository {
      * @param onError A callback to handle any exceptions that occur.
      */
     public void deleteEvent(String eventId, Runnable onSuccess, OnError onError) {
+        forgetReads(eventId, null);
 
         db.collection("open events")
                 .document(eventId)
@@ -112,6 +206,42 @@ public class EventRepository {
                 .addOnFailureListener(onError::run);
     }
 
+    /**
+     * Stops sharing in-progress reads of an event, and of the event lists that may contain it,
+     * after it was changed by a transaction or batch that does not go through this class.
+     * Call it once the write has committed, so that a read started while it ran is not shared
+     * with later callers.
+     *
+     * @param eventId The event that was written.
+     */
+    public void invalidateEvent(String eventId) {
+        forgetReads(eventId, null);
+        // The organizer is not known here, so every organizer's list is read again.
+        flights.forgetPrefix(ORGANIZER_KEY_PREFIX);
+    }
+
+    /**
+     * Stops sharing in-progress reads that a write to an event may change.
+     *
+     * @param eventId The event being written.
+     * @param organizer The event's organizer, if known.
+     */
+    private void forgetReads(String eventId, String organizer) {
+        flights.forget(eventKey(eventId));
+        flights.forget(ALL_EVENTS_KEY);
+        if (organizer != null) {
+            flights.forget(organizerKey(organizer));
+        }
+    }
+
+    private static String eventKey(String eventId) {
+        return "open events/" + eventId;
+    }
+
+    private static String organizerKey(String organizer) {
+        return ORGANIZER_KEY_PREFIX + organizer;
+    }
+
     /**
      * A functional interface for handling errors in asynchronous database operations.
      */
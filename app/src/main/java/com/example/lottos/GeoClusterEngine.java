@@ -0,0 +1,301 @@
+package com.example.lottos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A grid-based clustering engine for entrant locations shown on {@link GeoLocationMapScreen}.
+ *
+ * Role: Placing one marker per entrant becomes unusable once an event has thousands of
+ * check-ins. This class groups nearby points into clusters for a given map zoom level and
+ * returns only the clusters that fall inside the current viewport. Its key characteristics are:
+ * <ul>
+ *     <li>All coordinates are held in primitive {@code double[]} arrays; no per-point objects are created.</li>
+ *     <li>Points are projected once into normalized Web Mercator space, so grid assignment is a cheap multiply.</li>
+ *     <li>Clusters are computed lazily for each integer zoom level and cached, so panning at the same zoom
+ *         only costs a viewport filter.</li>
+ * </ul>
+ * The class contains no Android code and is safe to use from a background thread. Instances are
+ * not thread-safe, so callers should confine each engine to a single worker thread.
+ */
+public class GeoClusterEngine {
+
+    /**
+     * The width, in screen pixels, of one grid cell. Points closer than roughly this distance on screen
+     * are merged into a single cluster.
+     */
+    public static final int CELL_SIZE_PX = 64;
+
+    /**
+     * The highest zoom level for which clusters are cached. Deeper zoom levels reuse this grid.
+     */
+    public static final int MAX_ZOOM = 21;
+
+    private static final double TILE_SIZE_PX = 256.0;
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+
+    private final String[] userIds;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] worldX;
+    private final double[] worldY;
+    private final int size;
+
+    private final ZoomLevel[] levels = new ZoomLevel[MAX_ZOOM + 1];
+
+    /**
+     * A single cluster of one or more entrant locations.
+     * For a cluster of one, {@link #userId} identifies the entrant; otherwise it is the first
+     * entrant that fell into the cell.
+     */
+    public static class Cluster {
+        public final double latitude;
+        public final double longitude;
+        public final int count;
+        public final String userId;
+
+        /**
+         * Constructs a new Cluster.
+         * @param latitude The latitude of the cluster centroid.
+         * @param longitude The longitude of the cluster centroid.
+         * @param count The number of entrants in the cluster.
+         * @param userId The username of a representative entrant.
+         */
+        public Cluster(double latitude, double longitude, int count, String userId) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.userId = userId;
+        }
+    }
+
+    /**
+     * Pre-computed clusters for one zoom level, stored as parallel primitive arrays.
+     */
+    private static class ZoomLevel {
+        double[] lat;
+        double[] lon;
+        int[] count;
+        int[] firstIndex;
+        int size;
+    }
+
+    /**
+     * Constructs a clustering engine over the given points.
+     * The arrays are used as-is and must not be modified afterwards.
+     *
+     * @param userIds The username of each entrant.
+     * @param latitudes The latitude of each entrant.
+     * @param longitudes The longitude of each entrant.
+     * @param size The number of valid entries at the start of each array.
+     */
+    public GeoClusterEngine(String[] userIds, double[] latitudes, double[] longitudes, int size) {
+        this.userIds = userIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.size = size;
+        this.worldX = new double[size];
+        this.worldY = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            worldX[i] = projectX(longitudes[i]);
+            worldY[i] = projectY(latitudes[i]);
+        }
+    }
+
+    /**
+     * Returns the number of points held by this engine.
+     * @return The point count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Computes the bounding box of all points.
+     *
+     * @return An array of {south, west, north, east}, or null if there are no points.
+     */
+    public double[] getBounds() {
+        if (size == 0) return null;
+
+        double south = latitudes[0], north = latitudes[0];
+        double west = longitudes[0], east = longitudes[0];
+
+        for (int i = 1; i < size; i++) {
+            double lat = latitudes[i];
+            double lon = longitudes[i];
+            if (lat < south) south = lat;
+            if (lat > north) north = lat;
+            if (lon < west) west = lon;
+            if (lon > east) east = lon;
+        }
+        return new double[] {south, west, north, east};
+    }
+
+    /**
+     * Returns the clusters for a zoom level that lie inside the given viewport.
+     * If {@code west > east} the viewport is treated as crossing the antimeridian.
+     *
+     * @param south The southern edge of the viewport.
+     * @param west The western edge of the viewport.
+     * @param north The northern edge of the viewport.
+     * @param east The eastern edge of the viewport.
+     * @param zoom The current camera zoom; fractional values are rounded down.
+     * @return The visible clusters.
+     */
+    public List<Cluster> cluster(double south, double west, double north, double east, float zoom) {
+        ZoomLevel level = levelFor(zoom);
+        List<Cluster> visible = new ArrayList<>();
+
+        for (int c = 0; c < level.size; c++) {
+            double lat = level.lat[c];
+            double lon = level.lon[c];
+
+            if (lat < south || lat > north) continue;
+            if (!containsLongitude(west, east, lon)) continue;
+
+            visible.add(new Cluster(lat, lon, level.count[c], userIds[level.firstIndex[c]]));
+        }
+        return visible;
+    }
+
+    /**
+     * Returns the cached clusters for a zoom level, building them on first use.
+     * @param zoom The camera zoom level.
+     * @return The clusters for that level.
+     */
+    private ZoomLevel levelFor(float zoom) {
+        int z = (int) Math.floor(zoom);
+        if (z < 0) z = 0;
+        if (z > MAX_ZOOM) z = MAX_ZOOM;
+
+        if (levels[z] == null) {
+            levels[z] = buildLevel(z);
+        }
+        return levels[z];
+    }
+
+    /**
+     * Assigns every point to a grid cell for the given zoom level and accumulates
+     * the centroid of each occupied cell.
+     * @param z The integer zoom level.
+     * @return The clusters for that level.
+     */
+    private ZoomLevel buildLevel(int z) {
+        double cellsPerAxis = Math.max(1.0, Math.floor(TILE_SIZE_PX * Math.pow(2, z) / CELL_SIZE_PX));
+        long cellsPerRow = (long) cellsPerAxis;
+
+        CellIndex index = new CellIndex(size);
+        double[] sumLat = new double[Math.max(1, size)];
+        double[] sumLon = new double[Math.max(1, size)];
+        int[] count = new int[Math.max(1, size)];
+        int[] first = new int[Math.max(1, size)];
+        int clusters = 0;
+
+        for (int i = 0; i < size; i++) {
+            long cx = Math.min(cellsPerRow - 1, (long) (worldX[i] * cellsPerAxis));
+            long cy = Math.min(cellsPerRow - 1, (long) (worldY[i] * cellsPerAxis));
+            long key = cy * cellsPerRow + cx;
+
+            int slot = index.get(key);
+            if (slot < 0) {
+                slot = clusters++;
+                index.put(key, slot);
+                first[slot] = i;
+            }
+            sumLat[slot] += latitudes[i];
+            sumLon[slot] += longitudes[i];
+            count[slot]++;
+        }
+
+        ZoomLevel level = new ZoomLevel();
+        level.size = clusters;
+        level.lat = new double[clusters];
+        level.lon = new double[clusters];
+        level.count = Arrays.copyOf(count, clusters);
+        level.firstIndex = Arrays.copyOf(first, clusters);
+
+        for (int c = 0; c < clusters; c++) {
+            level.lat[c] = sumLat[c] / count[c];
+            level.lon[c] = sumLon[c] / count[c];
+        }
+        return level;
+    }
+
+    /**
+     * Checks whether a longitude lies within a west/east range, handling ranges that wrap
+     * across the antimeridian.
+     */
+    private static boolean containsLongitude(double west, double east, double lon) {
+        if (west <= east) {
+            return lon >= west && lon <= east;
+        }
+        return lon >= west || lon <= east;
+    }
+
+    /**
+     * Projects a longitude to a normalized Web Mercator x coordinate in [0, 1).
+     */
+    private static double projectX(double lon) {
+        double x = (lon + 180.0) / 360.0;
+        if (x < 0) return 0;
+        if (x >= 1) return Math.nextDown(1.0);
+        return x;
+    }
+
+    /**
+     * Projects a latitude to a normalized Web Mercator y coordinate in [0, 1).
+     */
+    private static double projectY(double lat) {
+        double clamped = Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        if (y < 0) return 0;
+        if (y >= 1) return Math.nextDown(1.0);
+        return y;
+    }
+
+    /**
+     * A minimal open-addressing map from a grid cell key to a cluster slot, used to avoid
+     * boxing a {@code Long} and an {@code Integer} for every point.
+     */
+    private static class CellIndex {
+        private static final long EMPTY = Long.MIN_VALUE;
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        CellIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int get(long key) {
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) return values[i];
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            int i = mix(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.lottos;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A utility class for encoding coordinates as geohashes and planning geohash range queries.
+ *
+ * Role: Firestore cannot filter on two numeric ranges at once, so a latitude/longitude box
+ * cannot be queried directly. A geohash interleaves both coordinates into one string whose
+ * prefixes describe nested grid cells, which turns a spatial lookup into a handful of
+ * single-field string range queries. This class provides:
+ * <ul>
+ *     <li>Encoding a coordinate into a base-32 geohash string.</li>
+ *     <li>Computing the small set of geohash prefixes that together cover a bounding box.</li>
+ *     <li>Bounding-box and great-circle distance helpers used to refine query results locally.</li>
+ * </ul>
+ * The methods are pure and thread-safe.
+ */
+public final class GeoHash {
+
+    /**
+     * The number of characters stored with each location. Precision 9 cells are roughly 5 m across.
+     */
+    public static final int STORED_PRECISION = 9;
+
+    /**
+     * The mean radius of the Earth in metres, used by {@link #distanceMeters} and {@link #boundsForRadius}.
+     */
+    public static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private GeoHash() {}
+
+    /**
+     * Encodes a coordinate as a geohash string.
+     *
+     * @param latitude The latitude, in degrees.
+     * @param longitude The longitude, in degrees.
+     * @param precision The number of characters to produce (1 to 12).
+     * @return The geohash string.
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Computes the geohash prefixes whose cells together cover a bounding box.
+     * The precision is chosen so that one cell is at least as large as the box, which means
+     * the box touches at most four cells. A box with {@code west > east} is treated as crossing
+     * the antimeridian and is split in two. Both halves use the same precision, so no returned
+     * prefix is a prefix of another and their ranges never overlap.
+     *
+     * @param south The southern edge of the box.
+     * @param west The western edge of the box.
+     * @param north The northern edge of the box.
+     * @param east The eastern edge of the box.
+     * @return The distinct prefixes to query, at most eight.
+     */
+    public static List<String> coveringPrefixes(double south, double west, double north, double east) {
+        south = clampLat(south);
+        north = clampLat(north);
+        Set<String> prefixes = new LinkedHashSet<>();
+        if (west > east) {
+            int precision = Math.min(precisionFor(north - south, 180 - west),
+                    precisionFor(north - south, east + 180));
+            addCoveringPrefixes(prefixes, precision, south, west, north, 180);
+            addCoveringPrefixes(prefixes, precision, south, -180, north, east);
+        } else {
+            addCoveringPrefixes(prefixes, precisionFor(north - south, east - west), south, west, north, east);
+        }
+        return new ArrayList<>(prefixes);
+    }
+
+    private static void addCoveringPrefixes(Set<String> out, int precision,
+                                            double south, double west, double north, double east) {
+        if (precision == 0) {
+            out.add("");
+            return;
+        }
+        out.add(encode(south, west, precision));
+        out.add(encode(south, east, precision));
+        out.add(encode(north, west, precision));
+        out.add(encode(north, east, precision));
+    }
+
+    /**
+     * Returns the longest precision whose cells are at least as tall and as wide as the given span.
+     * @param latSpan The height of the area, in degrees.
+     * @param lonSpan The width of the area, in degrees.
+     * @return A precision between 0 (the whole world) and {@link #STORED_PRECISION}.
+     */
+    static int precisionFor(double latSpan, double lonSpan) {
+        int precision = 0;
+        while (precision < STORED_PRECISION) {
+            int bits = (precision + 1) * 5;
+            double cellWidth = 360.0 / (1L << ((bits + 1) / 2));
+            double cellHeight = 180.0 / (1L << (bits / 2));
+            if (cellWidth < lonSpan || cellHeight < latSpan) break;
+            precision++;
+        }
+        return precision;
+    }
+
+    /**
+     * Computes a bounding box that contains a circle on the Earth's surface, on the same sphere
+     * as {@link #distanceMeters}. The circle's widest points lie poleward of the centre, so the
+     * longitude half-width is {@code asin(sin(d) / cos(lat))} for an angular radius {@code d},
+     * which is wider than {@code d / cos(lat)}. If the circle reaches a pole, the full longitude
+     * range is returned.
+     *
+     * @param latitude The latitude of the centre.
+     * @param longitude The longitude of the centre.
+     * @param radiusMeters The radius of the circle in metres.
+     * @return An array of {south, west, north, east}; west may exceed east across the antimeridian.
+     */
+    public static double[] boundsForRadius(double latitude, double longitude, double radiusMeters) {
+        double angularRadius = radiusMeters / EARTH_RADIUS_M;
+        double latDelta = Math.toDegrees(angularRadius);
+        double south = latitude - latDelta;
+        double north = latitude + latDelta;
+
+        if (south <= -90 || north >= 90) {
+            return new double[] {clampLat(south), -180, clampLat(north), 180};
+        }
+
+        double sinLonDelta = Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude));
+        if (sinLonDelta >= 1) {
+            return new double[] {south, -180, north, 180};
+        }
+        double lonDelta = Math.toDegrees(Math.asin(sinLonDelta));
+
+        return new double[] {south, wrapLon(longitude - lonDelta), north, wrapLon(longitude + lonDelta)};
+    }
+
+    /**
+     * Checks whether a coordinate lies inside a bounding box, handling boxes that cross the antimeridian.
+     *
+     * @return true if the point is inside the box.
+     */
+    public static boolean contains(double south, double west, double north, double east,
+                                   double latitude, double longitude) {
+        if (latitude < south || latitude > north) return false;
+        if (west <= east) return longitude >= west && longitude <= east;
+        return longitude >= west || longitude <= east;
+    }
+
+    /**
+     * Computes the great-circle distance between two coordinates using the haversine formula.
+     *
+     * @return The distance in metres.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static double clampLat(double lat) {
+        return Math.max(-90, Math.min(90, lat));
+    }
+
+    private static double wrapLon(double lon) {
+        if (lon < -180) return lon + 360;
+        if (lon > 180) return lon - 360;
+        return lon;
+    }
+}
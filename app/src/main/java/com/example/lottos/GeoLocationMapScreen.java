@@ -18,9 +18,11 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 
-import java.util.Map;
+import java.util.List;
 
 /**
  * Displays a map showing markers for all entrants who submitted geolocation.
@@ -34,8 +36,10 @@ import java.util.Map;
  *     <li>Retrieving an event ID from navigation arguments.</li>
  *     <li>Using the {@link OrganizerEventManager} to fetch the geolocation data
  *         for all entrants of that event.</li>
- *     <li>Plotting a marker on the map for each entrant at their recorded coordinates.</li>
- *     <li>Centering the map on the first available location marker.</li>
+ *     <li>Grouping nearby entrants into clusters with a {@link GeoClusterEngine} on the
+ *         {@link AppExecutors.Lane#UI_CRITICAL} lane, in a scope that is cancelled with the view,
+ *         and plotting one marker per cluster inside the visible region only.</li>
+ *     <li>Fitting the camera to all recorded locations and re-clustering whenever the camera settles.</li>
  *     <li>Providing simple UI feedback if no location data is available.</li>
  * </ul>
  * It implements the {@link OnMapReadyCallback} interface to handle the asynchronous
@@ -50,6 +54,13 @@ public class GeoLocationMapScreen extends Fragment implements OnMapReadyCallback
     private String userName;
     private OrganizerEventManager manager;
 
+    private static final int CAMERA_PADDING_PX = 100;
+    private AppExecutors.Scope clusterScope;
+    private GeoClusterEngine engine;
+    private int renderGeneration = 0;
+    private boolean mapLoaded;
+    private LatLngBounds pendingBounds;
+
     /**
      * Called to have the fragment instantiate its user interface view.
      * This method inflates the fragment's layout and initializes the view binding.
@@ -83,6 +94,7 @@ public class GeoLocationMapScreen extends Fragment implements OnMapReadyCallback
         }
 
         manager = new OrganizerEventManager();
+        clusterScope = AppExecutors.getInstance().scope(getViewLifecycleOwner());
 
         SupportMapFragment mapFragment = (SupportMapFragment)
                 getChildFragmentManager().findFragmentById(R.id.map_container);
@@ -141,7 +153,10 @@ public class GeoLocationMapScreen extends Fragment implements OnMapReadyCallback
     @Override
     public void onMapReady(GoogleMap googleMap) {
         mMap = googleMap;
+        mapLoaded = false;
+        mMap.setOnMapLoadedCallback(this::onMapLoaded);
         mMap.getUiSettings().setZoomControlsEnabled(true);
+        mMap.setOnMarkerClickListener(this::onMarkerClick);
 
         if (eventId == null) {
             toast("Missing event ID.");
@@ -151,16 +166,36 @@ public class GeoLocationMapScreen extends Fragment implements OnMapReadyCallback
         loadEntrantLocations();
     }
 
+    /**
+     * Fetches the entrants' coordinates and builds a {@link GeoClusterEngine} over them on the
+     * background lane. Once the engine is ready, the camera is fitted to all points and
+     * clusters are rendered for the visible region.
+     */
     private void loadEntrantLocations() {
         manager.getEntrantLocations(eventId, new OrganizerEventManager.LocationsCallback() {
             @Override
-            public void onSuccess(Map<String, Map<String, Double>> locations) {
-                if (locations.isEmpty()) {
+            public void onSuccess(OrganizerEventManager.EntrantPoints points) {
+                if (binding == null || mMap == null) return;
+
+                if (points.size == 0) {
                     toast("No location data recorded for entrants.");
                     mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(0, 0), 2));
                     return;
                 }
-                plotMarkers(locations);
+
+                clusterScope.execute(AppExecutors.Lane.UI_CRITICAL, () -> {
+                    GeoClusterEngine built = new GeoClusterEngine(
+                            points.userIds, points.latitudes, points.longitudes, points.size);
+                    double[] bounds = built.getBounds();
+
+                    clusterScope.postToMain(() -> {
+                        if (binding == null || mMap == null) return;
+                        engine = built;
+                        fitCameraToBounds(bounds);
+                        mMap.setOnCameraIdleListener(GeoLocationMapScreen.this::renderVisibleClusters);
+                        renderVisibleClusters();
+                    });
+                });
             }
 
             @Override
@@ -171,42 +206,106 @@ public class GeoLocationMapScreen extends Fragment implements OnMapReadyCallback
     }
 
     /**
-     * Iterates through a map of user locations and adds a marker to the map for each one.
-     * After plotting, it moves the camera to focus on the first valid location found.
-     *
-     * @param locations A map where the key is a username and the value is a map of their coordinates ("latitude", "longitude").
+     * Records that the map has been laid out, and fits the camera to bounds that arrived before it was.
      */
-    private void plotMarkers(Map<String, Map<String, Double>> locations) {
-        LatLng firstLocation = null;
+    private void onMapLoaded() {
+        mapLoaded = true;
+        if (mMap != null && pendingBounds != null) {
+            mMap.moveCamera(CameraUpdateFactory.newLatLngBounds(pendingBounds, CAMERA_PADDING_PX));
+        }
+        pendingBounds = null;
+    }
 
-        for (Map.Entry<String, Map<String, Double>> entry : locations.entrySet()) {
-            String user = entry.getKey();
-            Map<String, Double> coords = entry.getValue();
+    /**
+     * Moves the camera so that every entrant location is visible.
+     * A single location (or a set of identical ones) is shown at a fixed street-level zoom instead.
+     * Fitting bounds needs the map's size, so if the map has not been laid out yet the bounds are
+     * applied once it has.
+     *
+     * @param bounds The {south, west, north, east} bounding box of all points.
+     */
+    private void fitCameraToBounds(double[] bounds) {
+        LatLng southWest = new LatLng(bounds[0], bounds[1]);
+        LatLng northEast = new LatLng(bounds[2], bounds[3]);
 
-            Double lat = coords.get("latitude");
-            Double lon = coords.get("longitude");
+        if (southWest.equals(northEast)) {
+            mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(southWest, 10));
+            return;
+        }
 
-            if (lat == null || lon == null) continue;
-            if (lat == 0.0 && lon == 0.0) continue;
+        LatLngBounds latLngBounds = new LatLngBounds(southWest, northEast);
+        if (mapLoaded) {
+            mMap.moveCamera(CameraUpdateFactory.newLatLngBounds(latLngBounds, CAMERA_PADDING_PX));
+        } else {
+            pendingBounds = latLngBounds;
+        }
+    }
 
-            LatLng userLatLng = new LatLng(lat, lon);
-            mMap.addMarker(new MarkerOptions().position(userLatLng).title(user));
+    /**
+     * Computes the clusters for the current camera position on the background lane and
+     * replaces the markers on the map with them. Only clusters inside the visible region are
+     * materialized as markers. Results from an outdated camera position are discarded.
+     */
+    private void renderVisibleClusters() {
+        if (engine == null || mMap == null) return;
+
+        GeoClusterEngine current = engine;
+        LatLngBounds visible = mMap.getProjection().getVisibleRegion().latLngBounds;
+        float zoom = mMap.getCameraPosition().zoom;
+        int generation = ++renderGeneration;
+
+        clusterScope.execute(AppExecutors.Lane.UI_CRITICAL, () -> {
+            List<GeoClusterEngine.Cluster> clusters = current.cluster(
+                    visible.southwest.latitude, visible.southwest.longitude,
+                    visible.northeast.latitude, visible.northeast.longitude,
+                    zoom);
+
+            clusterScope.postToMain(() -> {
+                if (binding == null || mMap == null || generation != renderGeneration) return;
+                plotClusters(clusters);
+            });
+        });
+    }
 
-            if (firstLocation == null) {
-                firstLocation = userLatLng;
+    /**
+     * Replaces all markers on the map with one marker per cluster.
+     * Single entrants are labelled with their username; larger clusters show their size.
+     *
+     * @param clusters The clusters to display.
+     */
+    private void plotClusters(List<GeoClusterEngine.Cluster> clusters) {
+        mMap.clear();
+
+        for (GeoClusterEngine.Cluster cluster : clusters) {
+            LatLng position = new LatLng(cluster.latitude, cluster.longitude);
+            String title = cluster.count == 1
+                    ? cluster.userId
+                    : cluster.count + " entrants";
+
+            Marker marker = mMap.addMarker(new MarkerOptions().position(position).title(title));
+            if (marker != null) {
+                marker.setTag(cluster);
             }
         }
+    }
 
-        if (firstLocation != null) {
-            mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(firstLocation, 10));
-        } else {
-            toast("No valid geolocation found.");
-            mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(0, 0), 2));
+    /**
+     * Zooms into a cluster when its marker is tapped. Single-entrant markers keep the
+     * default behaviour of showing their info window.
+     *
+     * @param marker The tapped marker.
+     * @return true if the tap was consumed by zooming in, false otherwise.
+     */
+    private boolean onMarkerClick(Marker marker) {
+        Object tag = marker.getTag();
+        if (tag instanceof GeoClusterEngine.Cluster && ((GeoClusterEngine.Cluster) tag).count > 1) {
+            float zoom = mMap.getCameraPosition().zoom + 2;
+            mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(marker.getPosition(), zoom));
+            return true;
         }
+        return false;
     }
 
-
-
     /**
      * A utility method to display a long toast message, checking for a valid context.
      *
@@ -220,11 +319,18 @@ public class GeoLocationMapScreen extends Fragment implements OnMapReadyCallback
 
     /**
      * Called when the view previously created by onCreateView has been detached from the fragment.
-     * The view binding object is cleared here to prevent memory leaks.
+     * The view binding object is cleared here to prevent memory leaks; clustering work still in
+     * progress is cancelled by its {@link AppExecutors.Scope}.
      */
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        engine = null;
+        pendingBounds = null;
+        if (mMap != null) {
+            mMap.setOnCameraIdleListener(null);
+            mMap = null;
+        }
         binding = null;
     }
 }
@@ -6,23 +6,26 @@ import android.os.Handler;
 import android.os.Looper;
 import android.widget.ImageView;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * A utility class for asynchronously loading images from a URL into an ImageView.
  *
  * Role: This class provides a simple, static method to handle the boilerplate of
  * downloading an image from the internet on a background thread and then setting
- * it on an ImageView on the main UI thread. It uses a fixed-size thread pool
- * to manage concurrent image downloads. If the URL is null, empty, or if the
- * download fails, it sets a specified fallback drawable resource on the ImageView.
+ * it on an ImageView on the main UI thread. Downloads run on the
+ * {@link AppExecutors.Lane#IMAGES} lane, which drops its oldest queued load when a fast scroll
+ * fills it; a dropped load leaves its view unchanged, and the view starts a new load when it is
+ * bound again. If the URL is null, empty, or if the download fails, it sets a specified fallback
+ * drawable resource on the ImageView.
+ * Callers that display images in small cells can pass the cell size so the image is
+ * decoded with subsampling instead of at full resolution.
  */
 public class ImageLoader {
-    private static final ExecutorService executor = Executors.newFixedThreadPool(2);
 
     /**
      * Asynchronously downloads an image from a given URL and sets it on an ImageView.
@@ -39,12 +42,34 @@ public class ImageLoader {
      *                    to be used if the URL is invalid or the download fails.
      */
     public static void load(String url, ImageView target, int fallbackRes) {
+        load(url, target, fallbackRes, 0, 0);
+    }
+
+    /**
+     * Asynchronously downloads an image and decodes it at a reduced size suited to the
+     * target view, then sets it on the ImageView.
+     *
+     * The image is first decoded for its dimensions only, and then decoded again with
+     * the largest power-of-two sample size that keeps it at least as large as the requested
+     * size. This keeps grid thumbnails from holding full-resolution bitmaps in memory.
+     * The target is tagged with the URL, so a recycled view that has been rebound to
+     * another image in the meantime is left unchanged.
+     *
+     * @param url The string representation of the image URL to download.
+     * @param target The ImageView widget that will display the loaded image.
+     * @param fallbackRes The drawable resource ID to be used if the URL is invalid or the download fails.
+     * @param reqWidth The width the image will be displayed at, in pixels, or 0 to decode at full size.
+     * @param reqHeight The height the image will be displayed at, in pixels, or 0 to decode at full size.
+     */
+    public static void load(String url, ImageView target, int fallbackRes, int reqWidth, int reqHeight) {
+        target.setTag(url);
+
         if (url == null || url.trim().isEmpty()) {
             target.setImageResource(fallbackRes);
             return;
         }
 
-        executor.execute(() -> {
+        AppExecutors.getInstance().execute(AppExecutors.Lane.IMAGES, () -> {
             Bitmap bmp = null;
 
             try {
@@ -52,10 +77,21 @@ public class ImageLoader {
                 conn.setDoInput(true);
                 conn.connect();
 
+                byte[] data;
                 try (InputStream in = conn.getInputStream()) {
-                    // Decode the input stream into a Bitmap.
-                    bmp = BitmapFactory.decodeStream(in);
+                    data = readFully(in);
+                }
+
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                if (reqWidth > 0 && reqHeight > 0) {
+                    // Read only the dimensions first to choose a sample size.
+                    options.inJustDecodeBounds = true;
+                    BitmapFactory.decodeByteArray(data, 0, data.length, options);
+                    options.inSampleSize = calculateInSampleSize(
+                            options.outWidth, options.outHeight, reqWidth, reqHeight);
+                    options.inJustDecodeBounds = false;
                 }
+                bmp = BitmapFactory.decodeByteArray(data, 0, data.length, options);
 
             } catch (Exception ignored) {
 
@@ -63,6 +99,8 @@ public class ImageLoader {
 
             Bitmap result = bmp;
             new Handler(Looper.getMainLooper()).post(() -> {
+                if (!url.equals(target.getTag())) return;
+
                 if (result != null) {
                     // If download was successful, set the bitmap.
                     target.setImageBitmap(result);
@@ -73,4 +111,34 @@ public class ImageLoader {
             });
         });
     }
+
+    /**
+     * Calculates the largest power-of-two sample size that keeps both dimensions of the
+     * decoded image at or above the requested size.
+     *
+     * @param width The width of the source image.
+     * @param height The height of the source image.
+     * @param reqWidth The requested width.
+     * @param reqHeight The requested height.
+     * @return The sample size to use, at least 1.
+     */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) return inSampleSize;
+
+        while (width / (inSampleSize * 2) >= reqWidth && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
 }
@@ -0,0 +1,85 @@
+package com.example.lottos;
+
+import java.util.function.Function;
+
+/**
+ * The resized copies of an event poster that are stored alongside the original upload.
+ *
+ * Role: Posters are uploaded in several sizes so that screens can download only as many
+ * pixels as they display. Each variant defines:
+ * <ul>
+ *     <li>The maximum length of the image's longer edge, in pixels.</li>
+ *     <li>The JPEG quality it is compressed with.</li>
+ *     <li>The event field holding its download URL, and the suffix of its Storage file name.</li>
+ * </ul>
+ * Readers pick a variant with {@link #forWidth(int)} or use one directly, then read its URL with
+ * {@link #resolve(Function)}, which falls back to another variant for events created before
+ * variants existed.
+ */
+public enum PosterVariant {
+    /** A small image for thumbnails and compact rows. */
+    THUMB(320, 70, "posterThumbUrl", "_thumb"),
+    /** A medium image for event cards and grid cells. */
+    CARD(720, 80, "posterCardUrl", "_card"),
+    /** The largest image, for full-screen and detail views. Stored in the original poster field and path. */
+    FULL(1600, 85, "posterUrl", "");
+
+    /** The maximum length of the longer edge, in pixels. */
+    public final int maxEdge;
+    /** The JPEG compression quality, from 0 to 100. */
+    public final int quality;
+    /** The event document field holding this variant's download URL. */
+    public final String field;
+    /** The suffix added to the event ID in this variant's Storage file name. */
+    public final String fileSuffix;
+
+    PosterVariant(int maxEdge, int quality, String field, String fileSuffix) {
+        this.maxEdge = maxEdge;
+        this.quality = quality;
+        this.field = field;
+        this.fileSuffix = fileSuffix;
+    }
+
+    /**
+     * Gets the Storage path of this variant for an event.
+     *
+     * @param eventId The event ID.
+     * @return The path, such as "event_posters/abc_card.jpg".
+     */
+    public String storagePath(String eventId) {
+        return "event_posters/" + eventId + fileSuffix + ".jpg";
+    }
+
+    /**
+     * Reads this variant's URL from an event. If the event does not have this variant,
+     * the next larger one is used, and failing that the next smaller one.
+     *
+     * @param fields Looks up a string field of the event, e.g. {@code doc::getString}.
+     * @return The best available URL, or null if the event has no poster.
+     */
+    public String resolve(Function<String, String> fields) {
+        PosterVariant[] all = values();
+        for (int i = ordinal(); i < all.length; i++) {
+            String url = fields.apply(all[i].field);
+            if (url != null && !url.isEmpty()) return url;
+        }
+        for (int i = ordinal() - 1; i >= 0; i--) {
+            String url = fields.apply(all[i].field);
+            if (url != null && !url.isEmpty()) return url;
+        }
+        return null;
+    }
+
+    /**
+     * Picks the smallest variant that is at least as wide as a view.
+     *
+     * @param widthPx The width the poster is displayed at, in pixels.
+     * @return The smallest variant that fits, or {@link #FULL} for wider views.
+     */
+    public static PosterVariant forWidth(int widthPx) {
+        for (PosterVariant variant : values()) {
+            if (variant.maxEdge >= widthPx) return variant;
+        }
+        return FULL;
+    }
+}
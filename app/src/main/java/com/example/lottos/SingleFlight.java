@@ -0,0 +1,78 @@
+package com.example.lottos;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Merges identical reads that are in progress at the same time into one network call.
+ *
+ * Role: Several screens and managers often ask for the same data at the same moment, for example
+ * the home feed and the status updater both reading every event at start-up. Each read is given
+ * a key describing what it reads. While a read with that key is in progress, later callers receive
+ * the same {@link Task} instead of starting another one, and every listener they attach is called
+ * with its result. Once the task completes the key is released, so the next caller reads again;
+ * results are never kept after that.
+ */
+public final class SingleFlight {
+
+    private final Map<String, Task<?>> inFlight = new HashMap<>();
+
+    /**
+     * Returns the in-progress read for a key, or starts one.
+     *
+     * @param key A description of what is read, such as a document path. Reads with equal keys
+     *            must return the same data.
+     * @param read Starts the read. Only called if no read with this key is in progress.
+     * @param <T> The type of the read's result.
+     * @return The task shared by every caller until it completes.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> Task<T> run(String key, Supplier<Task<T>> read) {
+        Task<T> existing = (Task<T>) inFlight.get(key);
+        if (existing != null) return existing;
+
+        Task<T> task = read.get();
+        if (task.isComplete()) return task;
+
+        inFlight.put(key, task);
+        task.addOnCompleteListener(done -> release(key, task));
+        return task;
+    }
+
+    /**
+     * Stops sharing the in-progress read for a key, so the next caller starts a new one. Used
+     * after a write, so that readers do not receive data read before it.
+     *
+     * @param key The key of the read.
+     */
+    public synchronized void forget(String key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Stops sharing every in-progress read whose key starts with a prefix, for writes that may
+     * change the results of reads whose exact keys are not known, such as filtered queries.
+     *
+     * @param prefix The start of the keys to forget.
+     */
+    public synchronized void forgetPrefix(String prefix) {
+        inFlight.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * @return The number of reads currently in progress.
+     */
+    synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private synchronized void release(String key, Task<?> task) {
+        // A newer read may have replaced this one after forget().
+        if (inFlight.get(key) == task) {
+            inFlight.remove(key);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.lottos;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Adapts Play Services {@link Task}s to {@link CompletableFuture}s so asynchronous reads can be composed.
+ *
+ * Role: Each manager reports results through its own callback interface, which makes it hard to
+ * run independent reads at the same time or combine their results without nesting listeners.
+ * This class provides:
+ * <ul>
+ *     <li>{@link #of(Task)}, which turns a Firestore or Storage task into a future, so results can be
+ *         joined with {@code thenCombine} or {@link #allOf(CompletableFuture[])}.</li>
+ *     <li>{@link #withTimeout(CompletableFuture, long)}, which fails a future that takes too long.</li>
+ *     <li>{@link #deliver(CompletableFuture, Consumer, Consumer)}, which hands the outcome to the
+ *         existing callback interfaces, so screens do not need to change.</li>
+ * </ul>
+ * Task listeners run on the main thread and timeouts are posted to it, so every future created
+ * here completes, and runs its non-async stages, on the main thread.
+ */
+public final class TaskFutures {
+
+    private static Handler mainHandler;
+
+    private TaskFutures() {}
+
+    /**
+     * Creates a future that completes with the result of a task.
+     *
+     * @param task The task to wait for.
+     * @param <T> The type of the task's result.
+     * @return A future that completes when the task succeeds or fails.
+     */
+    public static <T> CompletableFuture<T> of(Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnSuccessListener(future::complete);
+        task.addOnFailureListener(future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Fails a future with a {@link TimeoutException} if it has not completed in time.
+     *
+     * @param future The future to limit.
+     * @param timeoutMs The time allowed, in milliseconds.
+     * @param <T> The type of the future's result.
+     * @return The same future, for chaining.
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeoutMs) {
+        if (future.isDone()) return future;
+
+        Handler handler = mainHandler();
+        Runnable timeout = () -> future.completeExceptionally(
+                new TimeoutException("Timed out after " + timeoutMs + " ms"));
+        handler.postDelayed(timeout, timeoutMs);
+        future.whenComplete((result, error) -> handler.removeCallbacks(timeout));
+        return future;
+    }
+
+    /**
+     * Creates a future that completes when all of the given futures have completed.
+     *
+     * @param futures The futures to wait for.
+     * @return A future that fails if any of them fails.
+     */
+    public static CompletableFuture<Void> allOf(CompletableFuture<?>... futures) {
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Passes the outcome of a future to a pair of callbacks, unwrapping the exception that
+     * caused a failure so callers see the same errors a task listener would report.
+     *
+     * @param future The future to observe.
+     * @param onSuccess Called with the result.
+     * @param onError Called with the exception that caused the failure.
+     * @param <T> The type of the future's result.
+     */
+    public static <T> void deliver(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                onError.accept(unwrap(error));
+            } else {
+                onSuccess.accept(result);
+            }
+        });
+    }
+
+    /**
+     * Gets the exception that caused a future to fail.
+     *
+     * @param error The throwable passed to a completion stage, possibly wrapped by the stage.
+     * @return The original exception, or a new one wrapping an error that is not an exception.
+     */
+    public static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception ? (Exception) cause : new Exception(cause);
+    }
+
+    private static synchronized Handler mainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
+    }
+}
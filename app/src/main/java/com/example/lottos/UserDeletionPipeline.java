@@ -0,0 +1,313 @@
+package com.example.lottos;
+
+import android.util.Log;
+
+import com.example.lottos.auth.UserAuthenticator;
+import com.example.lottos.organizer.OrganizerEventDetailsManager;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Deletes a user and every reference to them, in small batches that can be resumed.
+ *
+ * Role: Deleting only the user document leaves the username behind in event participant
+ * lists, notifications, device links and location records. This class finds those references
+ * through the user's own event lists and dedicated queries instead of scanning collections,
+ * so the work is proportional to the user's activity. It runs in stages:
+ * <ul>
+ *     <li>Events: removes the user from each event's participant lists and deletes their
+ *         {@code geo_locations} entry, {@link #EVENT_CHUNK_SIZE} events per transaction.</li>
+ *     <li>Notifications: deletes notifications received by the user, {@link #PAGE_SIZE} per batch.</li>
+ *     <li>Devices: deletes the user's device sub-collection and the device lookup documents
+ *         pointing to the user.</li>
+ *     <li>Finalize: deletes the user document, their {@link UserDirectory} entry and their
+ *         username reservation, which frees the name for new signups.</li>
+ * </ul>
+ * Every batch and transaction also writes a checkpoint to {@code deletion_jobs/<userName>}, so
+ * a deletion that is interrupted picks up where it stopped the next time it is started. Events
+ * the user organized are kept; only the user's participation is removed.
+ */
+public class UserDeletionPipeline {
+
+    private static final String TAG = "UserDeletionPipeline";
+
+    /** The collection holding the checkpoints of unfinished deletions. */
+    public static final String JOBS_COLLECTION = "deletion_jobs";
+
+    /** The event lists in a user document that may reference events. */
+    static final String[] USER_EVENT_LISTS = {
+            "waitListedEvents", "selectedEvents", "notSelectedEvents", "enrolledEvents",
+            "declinedEvents", "closedEvents", "organizedEvents"
+    };
+    /** The participant lists in an event document that may reference users. */
+    static final String[] EVENT_USER_LISTS = {
+            "waitList", "selectedList", "notSelectedList", "cancelledList", "enrolledList"
+    };
+
+    /** The number of events read and cleaned per transaction. */
+    static final int EVENT_CHUNK_SIZE = 10;
+    /** The number of documents deleted per batch in the query-driven stages. */
+    static final int PAGE_SIZE = 200;
+
+    private static final String STAGE_EVENTS = "events";
+    private static final String STAGE_NOTIFICATIONS = "notifications";
+    private static final String STAGE_DEVICES = "devices";
+    private static final String STAGE_DEVICE_LOOKUPS = "deviceLookups";
+    private static final String STAGE_FINALIZE = "finalize";
+
+    private final FirebaseFirestore db;
+    private final EventRepository repo;
+    private final UserDirectory directory;
+
+    /**
+     * The state of one deletion in progress.
+     */
+    private static class Run {
+        final String userName;
+        final DocumentReference job;
+        final Runnable onComplete;
+        final EventRepository.OnError onError;
+
+        Run(String userName, DocumentReference job, Runnable onComplete, EventRepository.OnError onError) {
+            this.userName = userName;
+            this.job = job;
+            this.onComplete = onComplete;
+            this.onError = onError;
+        }
+    }
+
+    /**
+     * Constructs a UserDeletionPipeline.
+     *
+     * @param db The {@link FirebaseFirestore} instance to be used for all database operations.
+     */
+    public UserDeletionPipeline(FirebaseFirestore db) {
+        this.db = db;
+        this.repo = new EventRepository(db);
+        this.directory = new UserDirectory(db);
+    }
+
+    /**
+     * Deletes a user and all references to them, resuming from the last checkpoint if an
+     * earlier deletion of the same user was interrupted.
+     *
+     * @param userName The username of the account to delete.
+     * @param onComplete A callback to run once the user document itself has been deleted.
+     * @param onError A callback to handle any errors. Calling this method again resumes the deletion.
+     */
+    public void delete(String userName, Runnable onComplete, EventRepository.OnError onError) {
+        DocumentReference job = db.collection(JOBS_COLLECTION).document(userName);
+        Run run = new Run(userName, job, onComplete, onError);
+
+        job.get()
+                .addOnSuccessListener(snap -> {
+                    String stage = snap.exists() ? snap.getString("stage") : null;
+                    Long cursor = snap.exists() ? snap.getLong("eventCursor") : null;
+                    resume(run, stage != null ? stage : STAGE_EVENTS, cursor != null ? cursor.intValue() : 0);
+                })
+                .addOnFailureListener(onError::run);
+    }
+
+    private void resume(Run run, String stage, int eventCursor) {
+        Log.d(TAG, "Deleting " + run.userName + " from stage " + stage);
+        switch (stage) {
+            case STAGE_NOTIFICATIONS:
+                deleteNotifications(run);
+                break;
+            case STAGE_DEVICES:
+                deleteDevices(run);
+                break;
+            case STAGE_DEVICE_LOOKUPS:
+                deleteDeviceLookups(run);
+                break;
+            case STAGE_FINALIZE:
+                finish(run);
+                break;
+            default:
+                removeFromEvents(run, eventCursor);
+                break;
+        }
+    }
+
+    /**
+     * Reads the user's event lists and cleans the referenced events, starting at the given
+     * position in the sorted list of event IDs.
+     */
+    private void removeFromEvents(Run run, int start) {
+        db.collection("users").document(run.userName).get()
+                .addOnSuccessListener(userDoc -> {
+                    if (!userDoc.exists()) {
+                        deleteNotifications(run);
+                        return;
+                    }
+                    removeEventChunk(run, collectEventIds(userDoc), start);
+                })
+                .addOnFailureListener(run.onError::run);
+    }
+
+    private void removeEventChunk(Run run, List<String> eventIds, int start) {
+        if (start >= eventIds.size()) {
+            deleteNotifications(run);
+            return;
+        }
+
+        int end = Math.min(start + EVENT_CHUNK_SIZE, eventIds.size());
+        List<String> chunkIds = eventIds.subList(start, end);
+        List<DocumentReference> chunk = new ArrayList<>();
+        for (String eventId : chunkIds) {
+            chunk.add(repo.getEvent(eventId));
+        }
+
+        // The events are read inside the transaction, so the lists and the promotion pointer the
+        // removals are based on cannot be changed by a decline flush before they are written.
+        db.runTransaction(transaction -> {
+                    List<DocumentSnapshot> events = new ArrayList<>();
+                    for (DocumentReference ref : chunk) {
+                        events.add(transaction.get(ref));
+                    }
+
+                    for (int i = 0; i < chunk.size(); i++) {
+                        // Only events that still exist are touched; updating a deleted event would fail.
+                        if (!events.get(i).exists()) continue;
+                        Map<String, Object> removals = removals(events.get(i), run.userName);
+                        if (!removals.isEmpty()) {
+                            transaction.update(chunk.get(i), removals);
+                        }
+                        transaction.delete(chunk.get(i).collection("geo_locations").document(run.userName));
+                    }
+                    transaction.set(run.job, checkpoint(STAGE_EVENTS, end));
+                    return null;
+
+                }).addOnSuccessListener(v -> {
+                    for (String eventId : chunkIds) {
+                        repo.invalidateEvent(eventId);
+                    }
+                    removeEventChunk(run, eventIds, end);
+                })
+                .addOnFailureListener(run.onError::run);
+    }
+
+    private void deleteNotifications(Run run) {
+        deletePaged(run, STAGE_NOTIFICATIONS,
+                db.collection("notification").whereEqualTo("receiver", run.userName),
+                () -> deleteDevices(run));
+    }
+
+    private void deleteDevices(Run run) {
+        deletePaged(run, STAGE_DEVICES,
+                db.collection("users").document(run.userName).collection("devices"),
+                () -> deleteDeviceLookups(run));
+    }
+
+    private void deleteDeviceLookups(Run run) {
+        // Lookups are matched by owner, so a device that has since been linked to another user is left alone.
+        deletePaged(run, STAGE_DEVICE_LOOKUPS,
+                db.collection("devices").whereEqualTo("userName", run.userName),
+                () -> finish(run));
+    }
+
+    /**
+     * Deletes the documents matched by a query one page at a time until none are left,
+     * then runs the next stage.
+     */
+    private void deletePaged(Run run, String stage, Query query, Runnable next) {
+        query.limit(PAGE_SIZE).get()
+                .addOnSuccessListener(page -> {
+                    if (page.isEmpty()) {
+                        next.run();
+                        return;
+                    }
+
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot doc : page.getDocuments()) {
+                        batch.delete(doc.getReference());
+                    }
+                    batch.set(run.job, checkpoint(stage, 0));
+
+                    batch.commit()
+                            .addOnSuccessListener(v -> deletePaged(run, stage, query, next))
+                            .addOnFailureListener(run.onError::run);
+                })
+                .addOnFailureListener(run.onError::run);
+    }
+
+    private void finish(Run run) {
+        WriteBatch batch = db.batch();
+        batch.delete(db.collection("users").document(run.userName));
+        batch.delete(directory.entry(run.userName));
+        batch.delete(db.collection(UserAuthenticator.USERNAMES_COLLECTION).document(run.userName));
+        batch.delete(run.job);
+
+        batch.commit()
+                .addOnSuccessListener(v -> {
+                    Log.d(TAG, "Deleted user " + run.userName);
+                    run.onComplete.run();
+                })
+                .addOnFailureListener(run.onError::run);
+    }
+
+    private static Map<String, Object> checkpoint(String stage, int eventCursor) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("stage", stage);
+        data.put("eventCursor", eventCursor);
+        data.put("updatedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    /**
+     * Collects the IDs of every event referenced by a user's event lists.
+     * The result is sorted so that a saved cursor points to the same event on resume.
+     *
+     * @param userDoc The user document.
+     * @return The distinct event IDs, in sorted order.
+     */
+    static List<String> collectEventIds(DocumentSnapshot userDoc) {
+        TreeSet<String> ids = new TreeSet<>();
+        for (String list : USER_EVENT_LISTS) {
+            Object events = userDoc.get(list + ".events");
+            if (events instanceof List) {
+                for (Object id : (List<?>) events) {
+                    if (id instanceof String) ids.add((String) id);
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Builds the update that removes a user from every participant list of an event
+     * that contains them, moving the event's promotion pointer back if the user was
+     * removed from before it. The pointer is written as a value computed from the event
+     * as read, so the event must be read in the same transaction as the update.
+     *
+     * @param event The event document, as read in the transaction.
+     * @param userName The user to remove.
+     * @return A map of field paths to array removals, empty if the user is in no list.
+     */
+    static Map<String, Object> removals(DocumentSnapshot event, String userName) {
+        Map<String, Object> updates = new HashMap<>();
+        for (String list : EVENT_USER_LISTS) {
+            Object users = event.get(list + ".users");
+            if (users instanceof List && ((List<?>) users).contains(userName)) {
+                updates.put(list + ".users", FieldValue.arrayRemove(userName));
+                // Removing an already promoted user shifts the rest of the draw down by one.
+                String pointerField = OrganizerEventDetailsManager.CURRENT_POINTER;
+                int pointer = OrganizerEventDetailsManager.readPointer(event.get(pointerField));
+                if (list.equals("notSelectedList") && ((List<?>) users).indexOf(userName) < pointer) {
+                    updates.put(pointerField, pointer - 1);
+                }
+            }
+        }
+        return updates;
+    }
+}
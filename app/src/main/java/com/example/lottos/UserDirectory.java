@@ -0,0 +1,200 @@
+package com.example.lottos;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A repository for the denormalized "user_directory" collection used by the admin user list.
+ *
+ * Role: Every user document carries several nested event arrays, so listing users with their
+ * activity counts used to mean downloading the whole user base. This class maintains one small
+ * document per user holding only the username and two counters, and provides:
+ * <ul>
+ *     <li>The entry map written when a user registers, with both counters at zero.</li>
+ *     <li>Increment maps that writers merge into an entry when a user joins or creates an event.
+ *         "Joined" counts events the user enrolled in or was not selected for, matching the
+ *         admin screen's definition and the backfill. It changes only when one of those lists
+ *         does, in the same commit as the user's list: +1 when a draw leaves the user not
+ *         selected, -1 when they are later promoted, and +1 when a selected user accepts.</li>
+ *     <li>Paginated queries ordered by username for the admin screen.</li>
+ *     <li>A one-time backfill that builds the directory from the existing user documents.</li>
+ * </ul>
+ */
+public class UserDirectory {
+
+    /** The name of the directory collection. */
+    public static final String COLLECTION = "user_directory";
+    /** The counter of events the user enrolled in or was not selected for. */
+    public static final String JOINED_COUNT = "joinedEventCount";
+    /** The counter of events the user organized. */
+    public static final String CREATED_COUNT = "createdEventCount";
+    /** The number of entries loaded per page by the admin screen. */
+    public static final int PAGE_SIZE = 25;
+
+    private static final int BATCH_LIMIT = 450;
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs a UserDirectory.
+     *
+     * @param db The {@link FirebaseFirestore} instance to be used for all database operations.
+     */
+    public UserDirectory(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Gets a reference to a user's directory entry.
+     *
+     * @param userName The username.
+     * @return A DocumentReference pointing to the entry.
+     */
+    public DocumentReference entry(String userName) {
+        return db.collection(COLLECTION).document(userName);
+    }
+
+    /**
+     * Builds the entry written for a newly registered user.
+     *
+     * @param userName The username.
+     * @param joined The number of joined events.
+     * @param created The number of created events.
+     * @return The entry data.
+     */
+    public static Map<String, Object> newEntry(String userName, long joined, long created) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userName", userName);
+        data.put(JOINED_COUNT, joined);
+        data.put(CREATED_COUNT, created);
+        return data;
+    }
+
+    /**
+     * Builds a map that increments one counter when merged into an entry with
+     * {@link com.google.firebase.firestore.SetOptions#merge()}. Merging also creates the
+     * entry if it does not exist yet.
+     *
+     * @param userName The username.
+     * @param counter {@link #JOINED_COUNT} or {@link #CREATED_COUNT}.
+     * @param delta The amount to add.
+     * @return The merge data.
+     */
+    public static Map<String, Object> increment(String userName, String counter, long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userName", userName);
+        data.put(counter, FieldValue.increment(delta));
+        return data;
+    }
+
+    /**
+     * Creates a query for the first page of the directory, ordered by username.
+     *
+     * @return A query returning at most {@link #PAGE_SIZE} entries.
+     */
+    public Query firstPage() {
+        return db.collection(COLLECTION)
+                .orderBy(FieldPath.documentId())
+                .limit(PAGE_SIZE);
+    }
+
+    /**
+     * Creates a query for the page following a previously loaded entry.
+     *
+     * @param last The last entry of the previous page.
+     * @return A query returning at most {@link #PAGE_SIZE} entries.
+     */
+    public Query pageAfter(DocumentSnapshot last) {
+        return db.collection(COLLECTION)
+                .orderBy(FieldPath.documentId())
+                .startAfter(last)
+                .limit(PAGE_SIZE);
+    }
+
+    /**
+     * Builds the directory from the full users collection, once. A marker document records
+     * that the backfill has run, so later calls finish immediately. Counters written by
+     * {@link #increment} before the backfill are overwritten with values computed from the
+     * user documents, which already include those events.
+     *
+     * @param onDone A callback to run when the directory is ready.
+     * @param onError A callback to handle any errors.
+     */
+    public void backfillIfNeeded(Runnable onDone, EventRepository.OnError onError) {
+        DocumentReference marker = db.collection("app_meta").document(COLLECTION);
+
+        marker.get()
+                .addOnSuccessListener(markerSnap -> {
+                    if (markerSnap.exists()) {
+                        onDone.run();
+                        return;
+                    }
+
+                    db.collection("users").get()
+                            .addOnSuccessListener(users -> {
+                                WriteBatch batch = db.batch();
+                                int pending = 0;
+                                List<WriteBatch> batches = new ArrayList<>();
+
+                                for (QueryDocumentSnapshot doc : users) {
+                                    long joined = countEvents(doc, "enrolledEvents")
+                                            + countEvents(doc, "notSelectedEvents");
+                                    long created = countEvents(doc, "organizedEvents");
+                                    batch.set(entry(doc.getId()), newEntry(doc.getId(), joined, created));
+
+                                    if (++pending == BATCH_LIMIT) {
+                                        batches.add(batch);
+                                        batch = db.batch();
+                                        pending = 0;
+                                    }
+                                }
+
+                                Map<String, Object> markerData = new HashMap<>();
+                                markerData.put("backfilledAt", FieldValue.serverTimestamp());
+                                batch.set(marker, markerData);
+                                batches.add(batch);
+
+                                commitInOrder(batches, 0, onDone, onError);
+                            })
+                            .addOnFailureListener(onError::run);
+                })
+                .addOnFailureListener(onError::run);
+    }
+
+    /**
+     * Commits batches one after another, so the marker in the last batch is only written
+     * once every entry has been stored.
+     */
+    private void commitInOrder(List<WriteBatch> batches, int index, Runnable onDone, EventRepository.OnError onError) {
+        if (index >= batches.size()) {
+            onDone.run();
+            return;
+        }
+        batches.get(index).commit()
+                .addOnSuccessListener(v -> commitInOrder(batches, index + 1, onDone, onError))
+                .addOnFailureListener(onError::run);
+    }
+
+    /**
+     * Counts the entries of one of a user document's event lists.
+     *
+     * @param doc The user document.
+     * @param listKey The name of the list, such as "enrolledEvents".
+     * @return The number of events in the list.
+     */
+    static long countEvents(DocumentSnapshot doc, String listKey) {
+        Object list = doc.get(listKey + ".events");
+        return list instanceof List ? ((List<?>) list).size() : 0;
+    }
+}
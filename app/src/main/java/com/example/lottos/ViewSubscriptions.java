@@ -0,0 +1,204 @@
+package com.example.lottos;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ties the callbacks a screen attaches to Firestore and Storage work to the screen's view lifecycle.
+ *
+ * Role: A task keeps every listener attached to it until it completes, and those listeners capture
+ * the fragment and its view binding. A screen that is left while a slow query runs therefore stays
+ * in memory, and its callbacks have to check {@code isAdded()} or {@code getContext()} before
+ * touching the view. Listeners wrapped by this class instead forward to the screen's callback only
+ * while the view exists:
+ * <ul>
+ *     <li>When the view lifecycle is destroyed, every wrapper drops its callback, so the task holds
+ *         only an empty wrapper and the screen can be collected straight away. Callbacks that run
+ *         after that point are ignored.</li>
+ *     <li>Snapshot listener registrations passed to {@link #add(ListenerRegistration)} are removed
+ *         at the same time.</li>
+ * </ul>
+ * The tasks themselves are not cancelled, so writes still complete. Only wrap callbacks that
+ * update the screen; work that must finish, such as a write that follows a read, should be
+ * started from a callback that does not capture the fragment.
+ */
+public final class ViewSubscriptions {
+
+    /**
+     * Holds one callback until it is called or the view is destroyed.
+     */
+    private final class Slot<L> {
+        private L callback;
+
+        Slot(L callback) {
+            this.callback = callback;
+        }
+
+        /** @return The callback, or null if the view is gone. A callback is only called once. */
+        L take() {
+            synchronized (ViewSubscriptions.this) {
+                L current = callback;
+                callback = null;
+                slots.remove(this);
+                return current;
+            }
+        }
+
+        void clear() {
+            callback = null;
+        }
+    }
+
+    private final Set<Slot<?>> slots = new HashSet<>();
+    private final List<ListenerRegistration> registrations = new ArrayList<>();
+    private boolean cleared;
+
+    private ViewSubscriptions() {}
+
+    /**
+     * Creates subscriptions that are cleared when the given lifecycle is destroyed.
+     * Fragments should pass {@link androidx.fragment.app.Fragment#getViewLifecycleOwner()}
+     * from {@code onViewCreated}.
+     *
+     * @param owner The lifecycle the callbacks belong to.
+     * @return The new subscriptions.
+     */
+    public static ViewSubscriptions of(LifecycleOwner owner) {
+        ViewSubscriptions subscriptions = new ViewSubscriptions();
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    subscriptions.clear();
+                }
+            }
+        });
+        return subscriptions;
+    }
+
+    /**
+     * Wraps a success listener so it is only called while the view exists.
+     * @param listener The listener to wrap.
+     * @param <T> The type of the task's result.
+     * @return The listener to attach to the task.
+     */
+    public <T> OnSuccessListener<T> success(OnSuccessListener<T> listener) {
+        Slot<OnSuccessListener<T>> slot = track(listener);
+        return result -> {
+            OnSuccessListener<T> callback = slot.take();
+            if (callback != null) callback.onSuccess(result);
+        };
+    }
+
+    /**
+     * Wraps a failure listener so it is only called while the view exists.
+     * @param listener The listener to wrap.
+     * @return The listener to attach to the task.
+     */
+    public OnFailureListener failure(OnFailureListener listener) {
+        Slot<OnFailureListener> slot = track(listener);
+        return e -> {
+            OnFailureListener callback = slot.take();
+            if (callback != null) callback.onFailure(e);
+        };
+    }
+
+    /**
+     * Wraps a completion listener so it is only called while the view exists.
+     * @param listener The listener to wrap.
+     * @param <T> The type of the task's result.
+     * @return The listener to attach to the task.
+     */
+    public <T> OnCompleteListener<T> complete(OnCompleteListener<T> listener) {
+        Slot<OnCompleteListener<T>> slot = track(listener);
+        return task -> {
+            OnCompleteListener<T> callback = slot.take();
+            if (callback != null) callback.onComplete(task);
+        };
+    }
+
+    /**
+     * Wraps a callback passed to a manager so it is only called while the view exists.
+     * @param callback The callback to wrap.
+     * @return The callback to pass on.
+     */
+    public Runnable run(Runnable callback) {
+        Slot<Runnable> slot = track(callback);
+        return () -> {
+            Runnable current = slot.take();
+            if (current != null) current.run();
+        };
+    }
+
+    /**
+     * Wraps an error callback passed to a manager so it is only called while the view exists.
+     * @param callback The callback to wrap.
+     * @return The callback to pass on.
+     */
+    public EventRepository.OnError error(EventRepository.OnError callback) {
+        Slot<EventRepository.OnError> slot = track(callback);
+        return e -> {
+            EventRepository.OnError current = slot.take();
+            if (current != null) current.run(e);
+        };
+    }
+
+    /**
+     * Removes a snapshot listener when the view is destroyed.
+     * If the view is already gone, the listener is removed immediately.
+     * @param registration The registration returned by {@code addSnapshotListener}.
+     */
+    public void add(ListenerRegistration registration) {
+        synchronized (this) {
+            if (!cleared) {
+                registrations.add(registration);
+                return;
+            }
+        }
+        registration.remove();
+    }
+
+    /**
+     * @return true once the view has been destroyed.
+     */
+    public synchronized boolean isCleared() {
+        return cleared;
+    }
+
+    /**
+     * Drops every pending callback and removes every snapshot listener.
+     */
+    public void clear() {
+        List<ListenerRegistration> toRemove;
+        synchronized (this) {
+            if (cleared) return;
+            cleared = true;
+            for (Slot<?> slot : slots) slot.clear();
+            slots.clear();
+            toRemove = new ArrayList<>(registrations);
+            registrations.clear();
+        }
+        for (ListenerRegistration registration : toRemove) {
+            registration.remove();
+        }
+    }
+
+    private synchronized <L> Slot<L> track(L callback) {
+        Slot<L> slot = new Slot<>(cleared ? null : callback);
+        if (!cleared) slots.add(slot);
+        return slot;
+    }
+}
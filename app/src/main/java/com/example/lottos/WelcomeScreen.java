@@ -10,6 +10,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.example.lottos.auth.UserProfileCache;
 import com.example.lottos.auth.UserSession;
 import com.example.lottos.databinding.FragmentWelcomeScreenBinding;
 
@@ -63,6 +64,9 @@ public class WelcomeScreen extends Fragment {
         if (UserSession.isLoggedIn(requireContext())) {
             String user = UserSession.getUser(requireContext());
 
+            // Serve the cached profile right away while the device check runs.
+            UserProfileCache.getInstance().start(requireContext(), user);
+
             // Verify the current device installation ID against the user's document in Firestore.
             // This is a security measure to ensure the session is still valid on this specific device.
             com.google.firebase.installations.FirebaseInstallations.getInstance().getId()
@@ -5,6 +5,7 @@ import android.util.Log;
 import androidx.annotation.NonNull; // Import this
 
 import com.example.lottos.auth.UserAuthenticator;
+import com.example.lottos.auth.UserProfileCache;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -85,11 +86,20 @@ public class UserProfileManager {
     }
 
     /**
-     * Asynchronously loads a user's profile information from Firestore.
+     * Asynchronously loads a user's profile information, from the {@link UserProfileCache}
+     * when it holds the user and from Firestore otherwise.
      * @param userName The username (document ID) of the user to load.
      * @param listener The callback listener to handle the result.
      */
     public void loadUserProfile(String userName, ProfileLoadListener listener) {
+        UserProfileCache.Record cached = UserProfileCache.getInstance().getForDisplay(userName);
+        if (cached != null && cached.getInfo("name") != null) {
+            listener.onProfileLoaded(cached.getInfo("name"),
+                    cached.getInfo("email") != null ? cached.getInfo("email") : "N/A",
+                    cached.getInfo("phoneNumber") != null ? cached.getInfo("phoneNumber") : "N/A");
+            return;
+        }
+
         DocumentReference ref = db.collection("users").document(userName);
 
         ref.get().addOnSuccessListener(snapshot -> {
@@ -156,8 +166,8 @@ public class UserProfileManager {
     }
 
     /**
-     * Deletes a user's account and associated device link from Firestore.
-     * This operation is delegated to the UserAuthenticator.
+     * Deletes a user's account, their device links, and their references in events
+     * and notifications from Firestore. This operation is delegated to the UserAuthenticator.
      * @param userName The username of the user to delete.
      * @param listener The callback listener to handle the result.
      */
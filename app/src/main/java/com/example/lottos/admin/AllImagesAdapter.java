@@ -21,6 +21,8 @@ import java.util.List;
  * Each item in the grid shows an event's poster, its name, the organizer's name,
  * and a delete button. This adapter is used in the admin section to manage all event images.
  * It uses an interface to delegate click and delete actions back to the hosting Fragment or Activity.
+ * Each cell downloads the smallest poster variant that fits it and decodes it at the cell's size;
+ * the full-size image is only loaded when opened.
  */
 public class AllImagesAdapter extends RecyclerView.Adapter<AllImagesAdapter.ImageViewHolder> {
 
@@ -43,15 +45,22 @@ public class AllImagesAdapter extends RecyclerView.Adapter<AllImagesAdapter.Imag
 
     private final List<EventImageData> eventImages;
     private final OnImageClickListener listener;
+    private final int thumbnailWidth;
+    private final int thumbnailHeight;
 
     /**
      * Constructs the adapter.
      * @param eventImages A list of EventImageData objects to be displayed.
      * @param listener The listener that will handle item click events.
+     * @param thumbnailWidth The width of a grid cell's image, in pixels, used to downsample posters.
+     * @param thumbnailHeight The height of a grid cell's image, in pixels, used to downsample posters.
      */
-    public AllImagesAdapter(List<EventImageData> eventImages, OnImageClickListener listener) {
+    public AllImagesAdapter(List<EventImageData> eventImages, OnImageClickListener listener,
+                            int thumbnailWidth, int thumbnailHeight) {
         this.eventImages = eventImages;
         this.listener = listener;
+        this.thumbnailWidth = thumbnailWidth;
+        this.thumbnailHeight = thumbnailHeight;
     }
 
     /**
@@ -79,7 +88,9 @@ public class AllImagesAdapter extends RecyclerView.Adapter<AllImagesAdapter.Imag
 
         holder.tvEventName.setText(currentItem.eventName);
         holder.tvOrganizerName.setText("by " + currentItem.organizerName);
-        ImageLoader.load(currentItem.posterUrl, holder.imageView, R.drawable.sample_event);
+        holder.imageView.setImageResource(R.drawable.sample_event);
+        ImageLoader.load(currentItem.urlForWidth(thumbnailWidth), holder.imageView, R.drawable.sample_event,
+                thumbnailWidth, thumbnailHeight);
 
 
         holder.imageView.setOnClickListener(v -> {
@@ -2,6 +2,7 @@ package com.example.lottos.admin;
 
 import android.app.AlertDialog;
 import android.os.Bundle;
+import android.util.DisplayMetrics;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,12 +13,19 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.lottos.EventRepository;
+import com.example.lottos.PosterVariant;
 import com.example.lottos.R;
+import com.example.lottos.ViewSubscriptions;
 import com.example.lottos.databinding.FragmentAllImagesBinding;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
@@ -26,17 +34,29 @@ import java.util.List;
 
 /**
  * A Fragment for administrators to view and manage all event posters in the system.
- * It displays posters in a grid format and provides functionality to delete them.
+ * It displays posters in a grid format, loading them a page at a time as thumbnails sized
+ * to the grid cells, and provides functionality to delete them.
  * Deleting a poster removes it from Firebase Storage and clears the poster URL field
  * in the corresponding event document in Firestore.
  */
 public class AllImagesFragment extends Fragment implements AllImagesAdapter.OnImageClickListener {
 
+    private static final int SPAN_COUNT = 2;
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 6;
+    /** The height of a grid cell's image, matching item_image.xml. */
+    private static final int THUMBNAIL_HEIGHT_DP = 180;
+
     private FragmentAllImagesBinding binding;
     private String userName;
     private AllImagesAdapter adapter;
     private final List<EventImageData> eventImageDataList = new ArrayList<>();
     private FirebaseFirestore db;
+    private DocumentSnapshot lastLoaded;
+    private boolean loading = false;
+    private boolean hasMore = true;
+    private int loadGeneration = 0;
+    private ViewSubscriptions subscriptions;
 
     /**
      * Called to have the fragment instantiate its user interface view.
@@ -62,6 +82,7 @@ public class AllImagesFragment extends Fragment implements AllImagesAdapter.OnIm
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        subscriptions = ViewSubscriptions.of(getViewLifecycleOwner());
 
         if (getArguments() != null) {
             userName = AllImagesFragmentArgs.fromBundle(getArguments()).getUserName();
@@ -74,11 +95,27 @@ public class AllImagesFragment extends Fragment implements AllImagesAdapter.OnIm
 
     /**
      * Initializes the RecyclerView with a GridLayoutManager and sets up the AllImagesAdapter.
+     * Posters are decoded at the size of a grid cell, and further pages are loaded as the
+     * administrator scrolls.
      */
     private void setupRecyclerView() {
-        adapter = new AllImagesAdapter(eventImageDataList, this);
-        binding.rvImages.setLayoutManager(new GridLayoutManager(getContext(), 2));
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        int thumbnailWidth = metrics.widthPixels / SPAN_COUNT;
+        int thumbnailHeight = Math.round(THUMBNAIL_HEIGHT_DP * metrics.density);
+
+        adapter = new AllImagesAdapter(eventImageDataList, this, thumbnailWidth, thumbnailHeight);
+        binding.rvImages.setLayoutManager(new GridLayoutManager(getContext(), SPAN_COUNT));
         binding.rvImages.setAdapter(adapter);
+
+        binding.rvImages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                GridLayoutManager lm = (GridLayoutManager) recyclerView.getLayoutManager();
+                if (lm != null && lm.findLastVisibleItemPosition() >= eventImageDataList.size() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
     }
 
     /**
@@ -99,40 +136,73 @@ public class AllImagesFragment extends Fragment implements AllImagesAdapter.OnIm
 
 
     /**
-     * Fetches event data from the "open events" collection in Firestore, extracts poster URLs
-     * and associated metadata, and populates the RecyclerView.
+     * Clears the grid and loads the first page of event posters.
      */
     private void fetchEventPosters() {
+        eventImageDataList.clear();
+        adapter.notifyDataSetChanged();
+        lastLoaded = null;
+        hasMore = true;
+        loading = false;
+        loadGeneration++;
+
         binding.progressBar.setVisibility(View.VISIBLE);
         binding.rvImages.setVisibility(View.GONE);
+        loadNextPage();
+    }
+
+    /**
+     * Fetches the next page of events that have a poster from the "open events" collection,
+     * ordered by poster URL, and appends them to the grid. Events without a poster are
+     * excluded by the query itself rather than downloaded and skipped.
+     */
+    private void loadNextPage() {
+        if (loading || !hasMore) return;
+        loading = true;
+        int generation = loadGeneration;
+
+        Query query = db.collection("open events")
+                .whereGreaterThan("posterUrl", "")
+                .orderBy("posterUrl")
+                .limit(PAGE_SIZE);
+        if (lastLoaded != null) {
+            query = query.startAfter(lastLoaded);
+        }
+
+        query.get().addOnCompleteListener(subscriptions.complete(task -> {
+            if (generation != loadGeneration) return;
+            loading = false;
+
+            binding.progressBar.setVisibility(View.GONE);
+            binding.rvImages.setVisibility(View.VISIBLE);
 
-        db.collection("open events").get()
-                .addOnCompleteListener(task -> {
-                    if (!isAdded()) return;
-
-                    binding.progressBar.setVisibility(View.GONE);
-                    if (task.isSuccessful()) {
-                        eventImageDataList.clear();
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            String eventId = document.getId();
-                            String url = document.getString("posterUrl");
-                            String eventName = document.getString("eventName");
-                            String organizer = document.getString("organizer");
-
-                            if (url != null && !url.isEmpty()) {
-                                eventImageDataList.add(new EventImageData(eventId, url, eventName, organizer));
-                            }
-                        }
-                        adapter.notifyDataSetChanged();
-                        binding.rvImages.setVisibility(View.VISIBLE);
-
-                        if (eventImageDataList.isEmpty()) {
-                            Toast.makeText(getContext(), "No event posters found.", Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        Toast.makeText(getContext(), "Error fetching images: " + task.getException().getMessage(), Toast.LENGTH_LONG).show();
-                    }
-                });
+            if (task.isSuccessful()) {
+                List<DocumentSnapshot> docs = task.getResult().getDocuments();
+                int insertAt = eventImageDataList.size();
+
+                for (DocumentSnapshot document : docs) {
+                    String eventId = document.getId();
+                    String url = document.getString("posterUrl");
+                    String cardUrl = document.getString("posterCardUrl");
+                    String thumbUrl = document.getString("posterThumbUrl");
+                    String eventName = document.getString("eventName");
+                    String organizer = document.getString("organizer");
+                    eventImageDataList.add(new EventImageData(eventId, url, cardUrl, thumbUrl, eventName, organizer));
+                }
+
+                if (!docs.isEmpty()) {
+                    lastLoaded = docs.get(docs.size() - 1);
+                }
+                hasMore = docs.size() == PAGE_SIZE;
+                adapter.notifyItemRangeInserted(insertAt, docs.size());
+
+                if (eventImageDataList.isEmpty()) {
+                    Toast.makeText(getContext(), "No event posters found.", Toast.LENGTH_SHORT).show();
+                }
+            } else {
+                Toast.makeText(getContext(), "Error fetching images: " + task.getException().getMessage(), Toast.LENGTH_LONG).show();
+            }
+        }));
     }
 
     /**
@@ -185,7 +255,8 @@ public class AllImagesFragment extends Fragment implements AllImagesAdapter.OnIm
 
     /**
      * Deletes the image file from Firebase Storage and then updates the event document in Firestore
-     * to remove the poster URL.
+     * to remove the poster URL. The resized variants are deleted along with it; a variant that is
+     * already missing does not stop the deletion.
      * @param eventData The data for the event whose poster is to be deleted.
      */
     private void deleteImageFromFirebase(EventImageData eventData) {
@@ -196,30 +267,42 @@ public class AllImagesFragment extends Fragment implements AllImagesAdapter.OnIm
 
         Toast.makeText(getContext(), "Deleting poster...", Toast.LENGTH_SHORT).show();
 
+        // Only the messages and the list update are tied to the view. The listeners that carry on
+        // the deletion capture none of the fragment, so it finishes even if the screen is left.
+        OnSuccessListener<Void> onDeleted = subscriptions.success(aVoid -> {
+            Toast.makeText(getContext(), "Poster deleted successfully.", Toast.LENGTH_SHORT).show();
+
+            int position = eventImageDataList.indexOf(eventData);
+            if (position != -1) {
+                eventImageDataList.remove(position);
+                adapter.notifyItemRemoved(position);
+            }
+        });
+        OnFailureListener onUpdateFailed = subscriptions.failure(e ->
+                Toast.makeText(getContext(), "Failed to update event document: " + e.getMessage(), Toast.LENGTH_LONG).show());
+        OnFailureListener onDeleteFailed = subscriptions.failure(e ->
+                Toast.makeText(getContext(), "Failed to delete image file: " + e.getMessage(), Toast.LENGTH_LONG).show());
+
+        FirebaseFirestore firestore = db;
         FirebaseStorage storage = FirebaseStorage.getInstance();
         StorageReference imageRef = storage.getReferenceFromUrl(eventData.posterUrl);
 
         imageRef.delete().addOnSuccessListener(aVoid -> {
-            DocumentReference eventDocRef = db.collection("open events").document(eventData.eventId);
-
-            eventDocRef.update("posterUrl", null).addOnSuccessListener(aVoid2 -> {
-                if (!isAdded()) return;
-                Toast.makeText(getContext(), "Poster deleted successfully.", Toast.LENGTH_SHORT).show();
-
-                int position = eventImageDataList.indexOf(eventData);
-                if (position != -1) {
-                    eventImageDataList.remove(position);
-                    adapter.notifyItemRemoved(position);
+            for (String variantUrl : new String[] {eventData.posterCardUrl, eventData.posterThumbUrl}) {
+                if (variantUrl != null && !variantUrl.isEmpty()) {
+                    storage.getReferenceFromUrl(variantUrl).delete();
                 }
+            }
 
-            }).addOnFailureListener(e -> {
-                if (!isAdded()) return;
-                Toast.makeText(getContext(), "Failed to update event document: " + e.getMessage(), Toast.LENGTH_LONG).show();
-            });
+            DocumentReference eventDocRef = firestore.collection("open events").document(eventData.eventId);
 
-        }).addOnFailureListener(e -> {
-            if (!isAdded()) return;
-            Toast.makeText(getContext(), "Failed to delete image file: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        });
+            eventDocRef.update(
+                    PosterVariant.FULL.field, null,
+                    PosterVariant.CARD.field, null,
+                    PosterVariant.THUMB.field, null
+            ).addOnSuccessListener(v -> new EventRepository(firestore).invalidateEvent(eventData.eventId))
+                    .addOnSuccessListener(onDeleted).addOnFailureListener(onUpdateFailed);
+
+        }).addOnFailureListener(onDeleteFailed);
     }
 }
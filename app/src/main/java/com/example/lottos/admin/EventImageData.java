@@ -1,5 +1,7 @@
 package com.example.lottos.admin;
 
+import com.example.lottos.PosterVariant;
+
 /**
  * A data model class that represents the essential information for an event's image.
  * This class is used to hold the data required for displaying and managing event posters
@@ -14,6 +16,14 @@ public class EventImageData {
      * The public URL of the event's poster image stored in Firebase Storage.
      */
     public final String posterUrl;
+    /**
+     * The URL of the card-sized poster variant, or null if the event only has the original.
+     */
+    public final String posterCardUrl;
+    /**
+     * The URL of the thumbnail-sized poster variant, or null if the event only has the original.
+     */
+    public final String posterThumbUrl;
     /**
      * The name of the event.
      */
@@ -32,9 +42,40 @@ public class EventImageData {
      * @param organizerName The name of the event's organizer.
      */
     public EventImageData(String eventId, String posterUrl, String eventName, String organizerName) {
+        this(eventId, posterUrl, null, null, eventName, organizerName);
+    }
+
+    /**
+     * Constructs a new EventImageData object with the resized poster variants.
+     *
+     * @param eventId        The unique ID of the event.
+     * @param posterUrl      The URL of the event's full-size poster.
+     * @param posterCardUrl  The URL of the card-sized poster, or null.
+     * @param posterThumbUrl The URL of the thumbnail-sized poster, or null.
+     * @param eventName      The name of the event.
+     * @param organizerName  The name of the event's organizer.
+     */
+    public EventImageData(String eventId, String posterUrl, String posterCardUrl, String posterThumbUrl,
+                          String eventName, String organizerName) {
         this.eventId = eventId;
         this.posterUrl = posterUrl;
+        this.posterCardUrl = posterCardUrl;
+        this.posterThumbUrl = posterThumbUrl;
         this.eventName = eventName;
         this.organizerName = organizerName;
     }
+
+    /**
+     * Gets the URL of the smallest poster variant that fits a view.
+     *
+     * @param widthPx The width the poster is displayed at, in pixels.
+     * @return The best available URL for that width.
+     */
+    public String urlForWidth(int widthPx) {
+        return PosterVariant.forWidth(widthPx).resolve(field -> {
+            if (PosterVariant.THUMB.field.equals(field)) return posterThumbUrl;
+            if (PosterVariant.CARD.field.equals(field)) return posterCardUrl;
+            return posterUrl;
+        });
+    }
 }
@@ -14,23 +14,35 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottos.R;
+import com.example.lottos.UserDeletionPipeline;
+import com.example.lottos.UserDirectory;
+import com.example.lottos.ViewSubscriptions;
 import com.example.lottos.databinding.FragmentViewUsersBinding;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * A Fragment for administrators to view and manage all users in the system.
- * It fetches a list of all registered users from Firestore and displays them in a RecyclerView.
- * For each user, it shows their username and statistics about their event activity.
+ * It pages through the {@link UserDirectory} in Firestore and displays the users in a RecyclerView,
+ * loading more entries as the administrator scrolls.
+ * For each user, it shows their username and statistics about their event activity, which are
+ * kept as counters in the directory instead of being computed from every user document.
  * It also provides functionality to delete users from the system.
  */
 public class ViewUsersScreen extends Fragment {
 
+    /**
+     * The number of rows from the end of the list at which the next page is requested.
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
     /**
      * The binding object for the fragment's layout (fragment_view_users.xml).
      */
@@ -47,14 +59,38 @@ public class ViewUsersScreen extends Fragment {
      * The instance of the Firebase Firestore database.
      */
     private FirebaseFirestore db;
+    /**
+     * The denormalized directory holding each user's event counts.
+     */
+    private UserDirectory directory;
+    /**
+     * The last directory entry loaded, used as the cursor for the next page.
+     */
+    private DocumentSnapshot lastLoaded;
+    /**
+     * Whether a page is currently being loaded.
+     */
+    private boolean loading = false;
+    /**
+     * Whether more pages may be available.
+     */
+    private boolean hasMore = true;
+    /**
+     * Incremented on every reload so that pages requested before the reload are discarded.
+     */
+    private int loadGeneration = 0;
     /**
      * The username of the currently logged-in administrator.
      */
     private String loggedInUserName;
+    /**
+     * Drops the callbacks of queries still running when the view is destroyed.
+     */
+    private ViewSubscriptions subscriptions;
 
     /**
      * Called to have the fragment instantiate its user interface view.
-     * Initializes view binding and the Firestore instance.
+     * Initializes view binding, the Firestore instance, and the user directory.
      * @param inflater The LayoutInflater object that can be used to inflate any views in the fragment.
      * @param container If non-null, this is the parent view that the fragment's UI should be attached to.
      * @param savedInstanceState If non-null, this fragment is being re-constructed from a previous saved state.
@@ -64,6 +100,7 @@ public class ViewUsersScreen extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         binding = FragmentViewUsersBinding.inflate(inflater, container, false);
         db = FirebaseFirestore.getInstance();
+        directory = new UserDirectory(db);
         return binding.getRoot();
     }
 
@@ -76,6 +113,7 @@ public class ViewUsersScreen extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        subscriptions = ViewSubscriptions.of(getViewLifecycleOwner());
 
         // Robustly get user credentials
         if (getArguments() != null) {
@@ -93,18 +131,30 @@ public class ViewUsersScreen extends Fragment {
 
         setupRecyclerView();
         setupNavButtons();
-        fetchUsernames();
+        reloadUsers();
     }
 
     /**
      * Initializes the RecyclerView, its LayoutManager, and the UserAdapter.
-     * The adapter is provided with a listener to handle delete actions.
+     * The adapter is provided with a listener to handle delete actions, and a scroll
+     * listener loads further pages as the administrator scrolls.
      */
     private void setupRecyclerView() {
         // Create the adapter and pass the listener for the delete action.
         userAdapter = new UserAdapter(userItemList, this::showDeleteConfirmationDialog);
         binding.rvUsers.setLayoutManager(new LinearLayoutManager(getContext()));
         binding.rvUsers.setAdapter(userAdapter);
+
+        // Load the next page once the last few rows come into view.
+        binding.rvUsers.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (lm != null && lm.findLastVisibleItemPosition() >= userItemList.size() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
     }
 
     /**
@@ -124,67 +174,87 @@ public class ViewUsersScreen extends Fragment {
     }
 
     /**
-     * Deletes a specified user's document from the "users" collection in Firestore.
-     * On success, it refreshes the user list. On failure, it shows an error toast.
+     * Deletes a specified user through the {@link UserDeletionPipeline}, which also removes them
+     * from event lists and deletes their notifications, device links and directory entry.
+     * On success, it removes the user from the list. On failure, it shows an error toast.
      * @param userItem The user item to be deleted.
      */
     private void deleteUserFromFirestore(UserAdapter.UserItem userItem) {
-        db.collection("users").document(userItem.userId)
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    if (getContext() == null) return;
+        new UserDeletionPipeline(db).delete(userItem.userId,
+                subscriptions.run(() -> {
                     Toast.makeText(getContext(), "User '" + userItem.userId + "' deleted successfully.", Toast.LENGTH_SHORT).show();
-                    fetchUsernames(); // Refresh the list after deletion
-                })
-                .addOnFailureListener(e -> {
-                    if (getContext() == null) return;
-                    Toast.makeText(getContext(), "Error deleting user: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+                    int index = userItemList.indexOf(userItem);
+                    if (index >= 0) {
+                        userItemList.remove(index);
+                        userAdapter.notifyItemRemoved(index);
+                    }
+                }),
+                subscriptions.error(e ->
+                        Toast.makeText(getContext(), "Error deleting user: " + e.getMessage(), Toast.LENGTH_LONG).show()));
     }
 
     /**
-     * Fetches all documents from the "users" collection in Firestore. For each user, it calculates
-     * the number of events they have joined and created, then populates the RecyclerView.
+     * Clears the list and loads the first page of the user directory, building the directory
+     * from the users collection first if it has never been built.
      */
-    private void fetchUsernames() {
-        db.collection("users").get().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                userItemList.clear();
-                for (QueryDocumentSnapshot document : task.getResult()) {
-                    UserAdapter.UserItem userItem = new UserAdapter.UserItem(document.getId());
+    private void reloadUsers() {
+        userItemList.clear();
+        userAdapter.notifyDataSetChanged();
+        lastLoaded = null;
+        hasMore = true;
+        loading = true;
+        int generation = ++loadGeneration;
 
-                    // --- LOGIC FOR COUNTING EVENTS ---
-                    Object enrolledMapObj = document.get("enrolledEvents");
-                    Object notSelectedMapObj = document.get("notSelectedEvents");
-                    Object organizedMapObj = document.get("organizedEvents");
+        directory.backfillIfNeeded(
+                subscriptions.run(() -> {
+                    if (generation != loadGeneration) return;
+                    loading = false;
+                    loadNextPage();
+                }),
+                subscriptions.error(e -> {
+                    if (generation != loadGeneration) return;
+                    loading = false;
+                    Toast.makeText(getContext(), "Failed to fetch users.", Toast.LENGTH_SHORT).show();
+                }));
+    }
 
-                    int joinedCount = 0;
-                    if (enrolledMapObj instanceof java.util.Map) {
-                        List<?> events = (List<?>) ((java.util.Map) enrolledMapObj).get("events");
-                        if (events != null) joinedCount += events.size();
-                    }
-                    if (notSelectedMapObj instanceof java.util.Map) {
-                        List<?> events = (List<?>) ((java.util.Map) notSelectedMapObj).get("events");
-                        if (events != null) joinedCount += events.size();
-                    }
-                    userItem.joinedEventCount = joinedCount;
+    /**
+     * Fetches the next page of the user directory and appends it to the RecyclerView.
+     * Each entry already holds the user's joined and created event counts, so no user
+     * documents are downloaded.
+     */
+    private void loadNextPage() {
+        if (loading || !hasMore) return;
+        loading = true;
+        int generation = loadGeneration;
 
-                    int createdCount = 0;
-                    if (organizedMapObj instanceof java.util.Map) {
-                        List<?> events = (List<?>) ((java.util.Map) organizedMapObj).get("events");
-                        if (events != null) createdCount = events.size();
-                    }
-                    userItem.createdEventCount = createdCount;
+        Query query = lastLoaded == null ? directory.firstPage() : directory.pageAfter(lastLoaded);
+        query.get().addOnCompleteListener(subscriptions.complete(task -> {
+            if (generation != loadGeneration) return;
+            loading = false;
+
+            if (task.isSuccessful() && task.getResult() != null) {
+                List<DocumentSnapshot> docs = task.getResult().getDocuments();
+                int insertAt = userItemList.size();
 
+                for (DocumentSnapshot document : docs) {
+                    UserAdapter.UserItem userItem = new UserAdapter.UserItem(document.getId());
+                    Long joined = document.getLong(UserDirectory.JOINED_COUNT);
+                    Long created = document.getLong(UserDirectory.CREATED_COUNT);
+                    userItem.joinedEventCount = joined != null ? joined.intValue() : 0;
+                    userItem.createdEventCount = created != null ? created.intValue() : 0;
                     userItemList.add(userItem);
                 }
-                userAdapter.notifyDataSetChanged();
-            } else {
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Failed to fetch users.", Toast.LENGTH_SHORT).show();
+
+                if (!docs.isEmpty()) {
+                    lastLoaded = docs.get(docs.size() - 1);
                 }
+                hasMore = docs.size() == UserDirectory.PAGE_SIZE;
+                userAdapter.notifyItemRangeInserted(insertAt, docs.size());
+            } else {
+                Toast.makeText(getContext(), "Failed to fetch users.", Toast.LENGTH_SHORT).show();
             }
-        });
+        }));
     }
 
     /**
@@ -205,7 +275,7 @@ public class ViewUsersScreen extends Fragment {
         binding.btnEventHistory.setImageResource(R.drawable.outline_article_person_24); // Stays as "View Users" icon
         binding.btnEventHistory.setOnClickListener(v -> {
             Toast.makeText(getContext(), "User list reloaded.", Toast.LENGTH_SHORT).show();
-            fetchUsernames();
+            reloadUsers();
         });
 
         binding.btnOpenEvents.setImageResource(R.drawable.outline_add_photo_alternate_24);
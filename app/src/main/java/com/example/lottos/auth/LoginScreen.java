@@ -56,7 +56,7 @@ public class LoginScreen extends Fragment {
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        authenticator = new UserAuthenticator();
+        authenticator = new UserAuthenticator(requireContext());
 
         binding.btnBack.setOnClickListener(v ->
                 NavHostFragment.findNavController(LoginScreen.this)
@@ -0,0 +1,274 @@
+package com.example.lottos.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Hashes and verifies user passwords with PBKDF2.
+ *
+ * Role: Passwords used to be stored and compared in plain text. This class:
+ * <ul>
+ *     <li>Derives a hash from each password with a random per-user salt, and stores it as
+ *         {@code pbkdf2$<iterations>$<saltHex>$<hashHex>} so the cost travels with the hash.</li>
+ *     <li>Verifies passwords with a constant-time comparison. Records still holding a plain-text
+ *         password are accepted, and {@link #needsRehash(String)} tells the caller to replace them.</li>
+ *     <li>Picks the iteration count for new hashes by benchmarking the device, so that one
+ *         derivation takes about {@link #TARGET_MILLIS}. The result is cached in SharedPreferences
+ *         for the build of the OS it was measured on.</li>
+ * </ul>
+ * All methods that derive keys block for up to the target latency and must be called off the main thread.
+ */
+public class PasswordHasher {
+
+    private static final String TAG = "PasswordHasher";
+
+    /** PBKDF2 with HMAC-SHA1 is the strongest variant available on every supported API level. */
+    static final String ALGORITHM = "PBKDF2WithHmacSHA1";
+    static final String PREFIX = "pbkdf2";
+
+    static final int SALT_BYTES = 16;
+    /**
+     * The length of the derived key, equal to one SHA-1 output. A longer key would make every
+     * derivation compute a second PBKDF2 block that an attacker never needs to check a guess,
+     * doubling our cost without raising theirs.
+     */
+    static final int KEY_BITS = 160;
+
+    /** The time one derivation should take on this device, in milliseconds. */
+    static final long TARGET_MILLIS = 150;
+    /** The lowest iteration count ever used, however slow the device. */
+    static final int MIN_ITERATIONS = 10_000;
+    /** The highest iteration count ever used, which bounds verification on slower devices. */
+    static final int MAX_ITERATIONS = 300_000;
+    /** The iteration count used for each benchmark run. */
+    static final int PROBE_ITERATIONS = 5_000;
+    private static final int PROBE_RUNS = 3;
+
+    private static final String PREFS = "PasswordHasher";
+    private static final String KEY_ITERATIONS = "iterations";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+
+    private static PasswordHasher deviceInstance;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructs a PasswordHasher that creates hashes with a fixed iteration count.
+     * @param iterations The number of PBKDF2 iterations for new hashes.
+     */
+    public PasswordHasher(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * Gets the hasher calibrated for this device, running the benchmark the first time it is
+     * needed after install or an OS update. Blocks while benchmarking.
+     *
+     * @param context The context used to open the SharedPreferences holding the cached result.
+     * @return The calibrated hasher.
+     */
+    public static synchronized PasswordHasher forDevice(Context context) {
+        if (deviceInstance != null) return deviceInstance;
+
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        int cached = prefs.getInt(KEY_ITERATIONS, 0);
+        if (cached > 0 && Build.FINGERPRINT.equals(prefs.getString(KEY_FINGERPRINT, null))) {
+            deviceInstance = new PasswordHasher(cached);
+            return deviceInstance;
+        }
+
+        int calibrated = benchmark(TARGET_MILLIS);
+        Log.d(TAG, "Calibrated PBKDF2 to " + calibrated + " iterations");
+        prefs.edit()
+                .putInt(KEY_ITERATIONS, calibrated)
+                .putString(KEY_FINGERPRINT, Build.FINGERPRINT)
+                .apply();
+        deviceInstance = new PasswordHasher(calibrated);
+        return deviceInstance;
+    }
+
+    /**
+     * Gets the hasher for this device without a context. Uses the calibrated hasher if
+     * {@link #forDevice(Context)} has already run in this process, and otherwise benchmarks
+     * once and keeps the result in memory only. Blocks while benchmarking.
+     *
+     * @return The hasher.
+     */
+    public static synchronized PasswordHasher getDefault() {
+        if (deviceInstance == null) {
+            deviceInstance = new PasswordHasher(benchmark(TARGET_MILLIS));
+        }
+        return deviceInstance;
+    }
+
+    /**
+     * @return The iteration count used for new hashes.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password The password to hash.
+     * @return The encoded hash, including the iteration count and salt.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] key = derive(password, salt, iterations);
+        return PREFIX + "$" + iterations + "$" + toHex(salt) + "$" + toHex(key);
+    }
+
+    /**
+     * Checks a password against a stored value, in time that does not depend on where they differ.
+     *
+     * @param password The password entered by the user.
+     * @param stored The stored hash, or a legacy plain-text password.
+     * @return true if the password matches.
+     */
+    public boolean verify(String password, String stored) {
+        if (stored == null) return false;
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = fromHex(parts[2]);
+            byte[] expected = fromHex(parts[3]);
+            byte[] actual = derive(password, salt, storedIterations, expected.length * 8);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Malformed password hash", e);
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a stored value should be replaced with a fresh hash after a successful login,
+     * either because it is a legacy plain-text password, because it uses fewer iterations than
+     * this device now would, or because its key is not {@link #KEY_BITS} long.
+     *
+     * @param stored The stored value.
+     * @return true if the caller should store {@link #hash(String)} of the password instead.
+     */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) return true;
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || parts[3].length() != KEY_BITS / 4) return true;
+        return parseIterations(stored) < iterations;
+    }
+
+    /**
+     * @param stored A stored password value.
+     * @return true if the value is a hash produced by this class rather than plain text.
+     */
+    static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    /**
+     * @param stored An encoded hash.
+     * @return Its iteration count, or 0 if it cannot be read.
+     */
+    static int parseIterations(String stored) {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return 0;
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Measures how long PBKDF2 takes on this device and picks the iteration count that meets a
+     * target latency. The fastest of several runs is used, after one warm-up run.
+     *
+     * @param targetMillis The time one derivation should take.
+     * @return The iteration count, between {@link #MIN_ITERATIONS} and {@link #MAX_ITERATIONS}.
+     */
+    static int benchmark(long targetMillis) {
+        byte[] salt = new byte[SALT_BYTES];
+        derive("warm-up", salt, PROBE_ITERATIONS);
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_RUNS; i++) {
+            long start = System.nanoTime();
+            derive("benchmark", salt, PROBE_ITERATIONS);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return iterationsForTarget(best, PROBE_ITERATIONS, targetMillis);
+    }
+
+    /**
+     * Scales a measured run to the iteration count that takes the target time, rounded down
+     * to a multiple of 1000 and kept within the allowed range.
+     *
+     * @param probeNanos The time the probe run took.
+     * @param probeIterations The iteration count of the probe run.
+     * @param targetMillis The time one derivation should take.
+     * @return The iteration count.
+     */
+    static int iterationsForTarget(long probeNanos, int probeIterations, long targetMillis) {
+        double perIteration = Math.max(1, probeNanos) / (double) probeIterations;
+        long scaled = (long) (targetMillis * 1_000_000L / perIteration);
+        scaled = scaled / 1000 * 1000;
+        return (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, scaled));
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        return derive(password, salt, iterations, KEY_BITS);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations, int keyBits) {
+        char[] chars = password.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, iterations, keyBits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) throw new IllegalArgumentException("Odd-length hex string");
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int hi = Character.digit(hex.charAt(2 * i), 16);
+            int lo = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) throw new IllegalArgumentException("Invalid hex digit");
+            bytes[i] = (byte) ((hi << 4) | lo);
+        }
+        return bytes;
+    }
+}
@@ -55,7 +55,7 @@ public class SignupScreen extends Fragment {
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        authenticator = new UserAuthenticator();
+        authenticator = new UserAuthenticator(requireContext());
 
         binding.btnBack.setOnClickListener(v ->
                 NavHostFragment.findNavController(SignupScreen.this)
@@ -1,10 +1,17 @@
 package com.example.lottos.auth;
 
+import android.content.Context;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.example.lottos.AppExecutors;
+import com.example.lottos.UserDeletionPipeline;
+import com.example.lottos.UserDirectory;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.*;
 import com.google.firebase.installations.FirebaseInstallations;
@@ -12,13 +19,16 @@ import com.google.firebase.installations.FirebaseInstallations;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * Manages user authentication and session management against a Firebase Firestore backend.
  * This class provides functionality for:
  * <ul>
  *     <li>User registration (signup) with a username and password.</li>
- *     <li>User login with credentials validation.</li>
+ *     <li>User login with credentials validation against salted password hashes.</li>
  *     <li>Linking a user's account to a specific device using Firebase Installations ID.</li>
  *     <li>Deleting user accounts and cleaning up associated device links.</li>
  * </ul>
@@ -27,8 +37,30 @@ import java.util.Map;
 public class UserAuthenticator {
 
     private static final String TAG = "UserAuthenticator";
+
+    /** The collection of username reservations, one document per username, used to keep usernames unique. */
+    public static final String USERNAMES_COLLECTION = "usernames";
+
+    /** The user document field holding the installation ID of the device the user last logged in on. */
+    static final String LINKED_DEVICE = "linkedDevice";
+
     private final FirebaseFirestore db;
     private final CollectionReference usersRef;
+    private final UserDirectory directory;
+    private final DeviceIdSource deviceIds;
+    private final Supplier<PasswordHasher> hashers;
+    private final Executor background;
+    private final Executor mainThread;
+
+    /**
+     * Supplies the installation ID of the current device.
+     */
+    public interface DeviceIdSource {
+        /**
+         * @return A task resolving to the device's installation ID.
+         */
+        Task<String> getId();
+    }
 
     /**
      * An interface to receive the results of an authentication-related operation.
@@ -50,8 +82,20 @@ public class UserAuthenticator {
      * Default constructor. Initializes a new instance of FirebaseFirestore.
      */
     public UserAuthenticator() {
-        db = FirebaseFirestore.getInstance();
-        usersRef = db.collection("users");
+        this(FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * Constructor used by the login and signup screens. Passwords are hashed with the
+     * {@link PasswordHasher} calibrated for this device, whose cost is cached in SharedPreferences.
+     * @param context The context used to read the cached hashing parameters.
+     */
+    public UserAuthenticator(Context context) {
+        this(FirebaseFirestore.getInstance(),
+                () -> FirebaseInstallations.getInstance().getId(),
+                () -> PasswordHasher.forDevice(context.getApplicationContext()),
+                AppExecutors.getInstance().executor(AppExecutors.Lane.IO),
+                new Handler(Looper.getMainLooper())::post);
     }
 
     /**
@@ -60,20 +104,54 @@ public class UserAuthenticator {
      * @param db The FirebaseFirestore instance to use.
      */
     public UserAuthenticator(FirebaseFirestore db) {
+        this(db, () -> FirebaseInstallations.getInstance().getId());
+    }
+
+    /**
+     * Constructor that accepts an existing FirebaseFirestore instance and a source of device IDs.
+     * @param db The FirebaseFirestore instance to use.
+     * @param deviceIds The source of the current device's installation ID.
+     */
+    public UserAuthenticator(FirebaseFirestore db, DeviceIdSource deviceIds) {
+        this(db, deviceIds, PasswordHasher::getDefault,
+                AppExecutors.getInstance().executor(AppExecutors.Lane.IO), new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * Constructor with every dependency explicit. Used for testing.
+     * @param db The FirebaseFirestore instance to use.
+     * @param deviceIds The source of the current device's installation ID.
+     * @param hashers Supplies the password hasher; called on the background executor, since it may benchmark.
+     * @param background The executor that runs password hashing, since key derivation is slow by design.
+     * @param mainThread The executor that results are delivered on.
+     */
+    public UserAuthenticator(FirebaseFirestore db, DeviceIdSource deviceIds, Supplier<PasswordHasher> hashers,
+                             Executor background, Executor mainThread) {
         this.db = db;
         this.usersRef = db.collection("users");
+        this.directory = new UserDirectory(db);
+        this.deviceIds = deviceIds;
+        this.hashers = hashers;
+        this.background = background;
+        this.mainThread = mainThread;
     }
 
     /**
      * Checks a user's login credentials against the Firestore database.
-     * If credentials are valid, it cleans up any previous device links for that user
-     * and creates a new link for the current device before signaling success.
+     * The password is verified against the stored {@link PasswordHasher} hash on a background thread.
+     * Accounts that still store a plain-text password, or a hash weaker than this device would
+     * create, have it replaced with a fresh hash once the password is confirmed.
+     * The current device's installation ID is fetched while the user document is being read.
+     * If the credentials are valid and the user document already records this device as the
+     * linked one, login succeeds without any further reads or writes. Otherwise the user's
+     * other device links are removed and this device is linked, in a single batch.
      * @param userName The username to check.
      * @param password The password to verify.
      * @param listener The callback to be invoked with the result.
      */
     public void checkUserLogin(@NonNull String userName, @NonNull String password, @NonNull AuthListener listener) {
 
+        Task<String> deviceIdTask = deviceIds.getId();
         DocumentReference userDoc = usersRef.document(userName);
         userDoc.get().addOnCompleteListener(task -> {
 
@@ -96,47 +174,95 @@ public class UserAuthenticator {
             }
 
             String storedPassword = userInfoMap.get("password").toString();
+            String linkedDevice = doc.getString(LINKED_DEVICE);
+
+            hashInBackground(listener, () -> {
+                PasswordHasher hasher = hashers.get();
+                boolean matches = hasher.verify(password, storedPassword);
+                String upgraded = matches && hasher.needsRehash(storedPassword) ? hasher.hash(password) : null;
+
+                mainThread.execute(() -> {
+                    if (!matches) {
+                        listener.onFailure("Incorrect password");
+                        return;
+                    }
+                    if (upgraded != null) {
+                        userDoc.update("userInfo.password", upgraded)
+                                .addOnFailureListener(e -> Log.w(TAG, "Failed to upgrade password hash", e));
+                    }
+                    completeLogin(userName, deviceIdTask, linkedDevice, listener);
+                });
+            });
+        });
+    }
 
-            if (storedPassword.equals(password)) {
-
-                usersRef.document(userName)
-                        .collection("devices")
-                        .get()
-                        .addOnSuccessListener(deviceQuery -> {
-
-                            WriteBatch batch = db.batch();
-
-                            for (DocumentSnapshot d : deviceQuery.getDocuments()) {
-                                batch.delete(d.getReference());
-                                batch.delete(db.collection("devices").document(d.getId()));
-                            }
-
-                            batch.commit()
-                                    .addOnSuccessListener(aVoid -> {
-                                        linkDeviceToUser(userName, () -> listener.onSuccess(userName));
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(TAG, "Failed removing old devices", e);
-                                        listener.onFailure("Device sync error. Try again.");
-                                    });
-
-                        })
-                        .addOnFailureListener(e -> {
-                            Log.e(TAG, "Failed to fetch device list", e);
-                            listener.onFailure("Device check failed. Try again.");
-                        });
-
+    /**
+     * Finishes a login whose password has been verified, relinking the device only if it changed.
+     * @param userName The user logging in.
+     * @param deviceIdTask The task fetching the current device's installation ID.
+     * @param linkedDevice The device recorded on the user document, or null.
+     * @param listener The callback to be invoked with the result.
+     */
+    private void completeLogin(String userName, Task<String> deviceIdTask, String linkedDevice, AuthListener listener) {
+        deviceIdTask.addOnCompleteListener(idTask -> {
+            if (!idTask.isSuccessful() || idTask.getResult() == null) {
+                Log.e(TAG, "Could not get Firebase Installation ID", idTask.getException());
+                listener.onSuccess(userName);
                 return;
             }
 
-            listener.onFailure("Incorrect password");
+            String deviceId = idTask.getResult();
+            if (deviceId.equals(linkedDevice)) {
+                listener.onSuccess(userName);
+                return;
+            }
+            relinkDevice(userName, deviceId, listener);
         });
     }
 
+    /**
+     * Makes the given device the only one linked to a user. Links to the user's other devices
+     * are deleted, and the new link is written, in the same batch.
+     * @param userName The user logging in.
+     * @param deviceId The installation ID of the current device.
+     * @param listener The callback to be invoked with the result.
+     */
+    private void relinkDevice(String userName, String deviceId, AuthListener listener) {
+        usersRef.document(userName)
+                .collection("devices")
+                .get()
+                .addOnSuccessListener(deviceQuery -> {
+
+                    WriteBatch batch = db.batch();
+
+                    for (DocumentSnapshot d : deviceQuery.getDocuments()) {
+                        if (d.getId().equals(deviceId)) continue;
+                        batch.delete(d.getReference());
+                        batch.delete(db.collection("devices").document(d.getId()));
+                    }
+                    addDeviceLink(batch, userName, deviceId);
+
+                    batch.commit()
+                            .addOnSuccessListener(aVoid -> listener.onSuccess(userName))
+                            .addOnFailureListener(e -> {
+                                Log.e(TAG, "Failed relinking devices", e);
+                                listener.onFailure("Device sync error. Try again.");
+                            });
+
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to fetch device list", e);
+                    listener.onFailure("Device check failed. Try again.");
+                });
+    }
+
     /**
      * Registers a new user in the Firestore database.
-     * It first checks if the username already exists. If not, it creates a new user
-     * document with the provided details and an initial empty structure for events.
+     * The username is claimed by creating its reservation document in {@link #USERNAMES_COLLECTION}
+     * in the same transaction that creates the user document and their {@link UserDirectory} entry,
+     * so concurrent signups for the same name cannot both succeed: the transaction that commits
+     * second is retried by Firestore and then sees the name as taken.
+     * The password is stored only as a {@link PasswordHasher} hash, computed on a background thread.
      * After creation, it links the current device to the new user.
      * @param userName The desired username (must be unique).
      * @param displayName The user's display name.
@@ -148,88 +274,99 @@ public class UserAuthenticator {
     public void registerUser(@NonNull String userName, @NonNull String displayName, @NonNull String password, @NonNull String email, String phoneNumber, @NonNull AuthListener listener) {
 
         DocumentReference userDoc = usersRef.document(userName);
+        DocumentReference reservation = db.collection(USERNAMES_COLLECTION).document(userName);
+
+        Map<String, Object> emptyEventsMap = new HashMap<>();
+        emptyEventsMap.put("events", new ArrayList<String>());
+
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("displayName", displayName);
+        userInfo.put("email", email);
+        userInfo.put("name", displayName);
+        userInfo.put("phoneNumber", phoneNumber);
+
+        Map<String, Object> userData = new HashMap<>();
+        userData.put("userName", userName);
+        userData.put("userInfo", userInfo);
+        userData.put("closedEvents", new HashMap<>(emptyEventsMap));
+        userData.put("declinedEvents", new HashMap<>(emptyEventsMap));
+        userData.put("enrolledEvents", new HashMap<>(emptyEventsMap));
+        userData.put("selectedEvents", new HashMap<>(emptyEventsMap));
+        userData.put("notSelectedEvents", new HashMap<>(emptyEventsMap));
+        userData.put("organizedEvents", new HashMap<>(emptyEventsMap));
+        userData.put("waitListedEvents", new HashMap<>(emptyEventsMap));
+
+        Map<String, Object> reservationData = new HashMap<>();
+        reservationData.put("userName", userName);
+        reservationData.put("reservedAt", FieldValue.serverTimestamp());
+
+        hashInBackground(listener, () -> {
+            userInfo.put("password", hashers.get().hash(password));
+            mainThread.execute(() -> createUser(userName, userDoc, reservation, reservationData, userData, listener));
+        });
+    }
 
-        userDoc.get().addOnSuccessListener(doc -> {
-
-            if (doc.exists()) {
-                listener.onFailure("Username already taken. Please choose another.");
-                return;
-            }
-
-            Map<String, Object> emptyEventsMap = new HashMap<>();
-            emptyEventsMap.put("events", new ArrayList<String>());
-
-            Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("displayName", displayName);
-            userInfo.put("email", email);
-            userInfo.put("name", displayName);
-            userInfo.put("password", password);
-            userInfo.put("phoneNumber", phoneNumber);
-
-            Map<String, Object> userData = new HashMap<>();
-            userData.put("userName", userName);
-            userData.put("userInfo", userInfo);
-            userData.put("closedEvents", new HashMap<>(emptyEventsMap));
-            userData.put("declinedEvents", new HashMap<>(emptyEventsMap));
-            userData.put("enrolledEvents", new HashMap<>(emptyEventsMap));
-            userData.put("selectedEvents", new HashMap<>(emptyEventsMap));
-            userData.put("notSelectedEvents", new HashMap<>(emptyEventsMap));
-            userData.put("organizedEvents", new HashMap<>(emptyEventsMap));
-            userData.put("waitListedEvents", new HashMap<>(emptyEventsMap));
-
-            userDoc.set(userData)
-                    .addOnSuccessListener(aVoid -> {
-                        Log.d(TAG, "User account created: " + userName);
-                        linkDeviceToUser(userName, () -> listener.onSuccess(userName));
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error creating user", e);
-                        listener.onFailure("Error creating account. Please try again.");
-                    });
+    /**
+     * Runs password hashing on the background executor, reporting a failure to the listener
+     * instead of throwing if the executor is too busy to accept it.
+     */
+    private void hashInBackground(AuthListener listener, Runnable task) {
+        try {
+            background.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Password hashing rejected", e);
+            listener.onFailure("The device is busy. Please try again.");
+        }
+    }
 
-        }).addOnFailureListener(e -> {
-            Log.e(TAG, "Error checking username", e);
-            listener.onFailure("Error checking username. Try again.");
-        });
+    /**
+     * Creates the reservation, user document and directory entry of a new user in one transaction,
+     * then links the current device.
+     */
+    private void createUser(String userName, DocumentReference userDoc, DocumentReference reservation,
+                            Map<String, Object> reservationData, Map<String, Object> userData, AuthListener listener) {
+        db.runTransaction(tx -> {
+                    // Accounts created before reservations existed only have a user document.
+                    if (tx.get(reservation).exists() || tx.get(userDoc).exists()) {
+                        throw new FirebaseFirestoreException("Username already taken",
+                                FirebaseFirestoreException.Code.ALREADY_EXISTS);
+                    }
+
+                    tx.set(reservation, reservationData);
+                    tx.set(userDoc, userData);
+                    tx.set(directory.entry(userName), UserDirectory.newEntry(userName, 0, 0));
+                    return null;
+
+                }).addOnSuccessListener(v -> {
+                    Log.d(TAG, "User account created: " + userName);
+                    linkDeviceToUser(userName, () -> listener.onSuccess(userName));
+                })
+                .addOnFailureListener(e -> {
+                    if (e instanceof FirebaseFirestoreException
+                            && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.ALREADY_EXISTS) {
+                        listener.onFailure("Username already taken. Please choose another.");
+                        return;
+                    }
+                    Log.e(TAG, "Error creating user", e);
+                    listener.onFailure("Error creating account. Please try again.");
+                });
     }
 
     /**
      * Links the current device to a specified user account.
-     * This involves creating two documents in a batch write: one in the user's "devices"
-     * sub-collection and another in the top-level "devices" collection for easy lookup.
      * @param userName The username to link the device to.
      * @param onComplete A callback to be run after the linking process completes (or fails).
      */
     private void linkDeviceToUser(String userName, Runnable onComplete) {
 
-        FirebaseInstallations.getInstance().getId()
+        deviceIds.getId()
                 .addOnSuccessListener(deviceId -> {
 
                     Log.d(TAG, "Device ID = " + deviceId);
 
-                    DocumentReference userDeviceRef =
-                            usersRef.document(userName)
-                                    .collection("devices")
-                                    .document(deviceId);
-
-                    DocumentReference deviceRef =
-                            db.collection("devices")
-                                    .document(deviceId);
-
-                    Map<String, Object> deviceData = new HashMap<>();
-                    deviceData.put("platform", "android");
-                    deviceData.put("model", Build.MODEL);
-                    deviceData.put("createdAt", Timestamp.now());
-                    deviceData.put("lastUsedAt", Timestamp.now());
-
-                    Map<String, Object> deviceLookup = new HashMap<>();
-                    deviceLookup.put("userName", userName);
-                    deviceLookup.put("linkedAt", Timestamp.now());
-
-                    db.runBatch(batch -> {
-                        batch.set(userDeviceRef, deviceData, SetOptions.merge());
-                        batch.set(deviceRef, deviceLookup, SetOptions.merge());
-                    }).addOnCompleteListener(task -> {
+                    WriteBatch batch = db.batch();
+                    addDeviceLink(batch, userName, deviceId);
+                    batch.commit().addOnCompleteListener(task -> {
                         if (!task.isSuccessful()) {
                             Log.e(TAG, "Device linking failed", task.getException());
                         }
@@ -243,40 +380,53 @@ public class UserAuthenticator {
     }
 
     /**
-     * Deletes a user's account and removes the associated link for the current device.
-     * This is performed in a single batch operation to ensure atomicity. It deletes
-     * the user document, the device lookup document, and the device document within the user's sub-collection.
-     * @param userName The username of the account to delete.
-     * @param onComplete A callback to be run on successful deletion.
-     * @param onError A callback to be run if the deletion fails.
+     * Adds the writes that link a device to a user to a batch. This involves a document in the
+     * user's "devices" sub-collection, another in the top-level "devices" collection for easy lookup,
+     * and the user's {@link #LINKED_DEVICE} field, which lets later logins skip relinking.
+     * @param batch The batch to add the writes to.
+     * @param userName The username to link the device to.
+     * @param deviceId The installation ID of the device.
      */
-    public void deleteUserAndDevice(@NonNull String userName, @NonNull Runnable onComplete, @NonNull Runnable onError) {
+    private void addDeviceLink(WriteBatch batch, String userName, String deviceId) {
+        DocumentReference userDeviceRef =
+                usersRef.document(userName)
+                        .collection("devices")
+                        .document(deviceId);
 
-        FirebaseInstallations.getInstance().getId()
-                .addOnSuccessListener(deviceId -> {
+        DocumentReference deviceRef =
+                db.collection("devices")
+                        .document(deviceId);
 
-                    DocumentReference userRef = usersRef.document(userName);
-                    DocumentReference deviceRef = db.collection("devices").document(deviceId);
-                    DocumentReference userDeviceRef =
-                            userRef.collection("devices").document(deviceId);
+        Map<String, Object> deviceData = new HashMap<>();
+        deviceData.put("platform", "android");
+        deviceData.put("model", Build.MODEL);
+        deviceData.put("createdAt", Timestamp.now());
+        deviceData.put("lastUsedAt", Timestamp.now());
 
-                    db.runBatch(batch -> {
-                        batch.delete(userDeviceRef);
-                        batch.delete(deviceRef);
-                        batch.delete(userRef);
-                    }).addOnCompleteListener(task -> {
-                        if (!task.isSuccessful()) {
-                            Log.e(TAG, "Delete failed", task.getException());
-                            onError.run();
-                        } else {
-                            onComplete.run();
-                        }
-                    });
+        Map<String, Object> deviceLookup = new HashMap<>();
+        deviceLookup.put("userName", userName);
+        deviceLookup.put("linkedAt", Timestamp.now());
 
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error retrieving device ID for deletion", e);
-                    onError.run();
-                });
+        Map<String, Object> linked = new HashMap<>();
+        linked.put(LINKED_DEVICE, deviceId);
+
+        batch.set(userDeviceRef, deviceData, SetOptions.merge());
+        batch.set(deviceRef, deviceLookup, SetOptions.merge());
+        batch.set(usersRef.document(userName), linked, SetOptions.merge());
+    }
+
+    /**
+     * Deletes a user's account along with every reference to it, including the device links
+     * of all of the user's devices. The work is delegated to a {@link UserDeletionPipeline},
+     * which runs in resumable batches; calling this again after a failure continues the deletion.
+     * @param userName The username of the account to delete.
+     * @param onComplete A callback to be run on successful deletion.
+     * @param onError A callback to be run if the deletion fails.
+     */
+    public void deleteUserAndDevice(@NonNull String userName, @NonNull Runnable onComplete, @NonNull Runnable onError) {
+        new UserDeletionPipeline(db).delete(userName, onComplete, e -> {
+            Log.e(TAG, "Delete failed", e);
+            onError.run();
+        });
     }
 }
@@ -0,0 +1,375 @@
+package com.example.lottos.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds a parsed copy of the logged-in user's document for the length of the session.
+ *
+ * Role: Most screens need the current user's profile or event lists, and each used to read the
+ * user document again on every visit. This class:
+ * <ul>
+ *     <li>Keeps a {@link Record} of the user's profile fields and event-membership sets in memory,
+ *         and persists it to SharedPreferences so the profile can be shown as soon as the app restarts.</li>
+ *     <li>Serves the membership sets only once the listener has delivered a snapshot from the server.
+ *         A persisted or offline copy may predate a draw or a removal made on another device, so
+ *         until then only its display fields are handed out.</li>
+ *     <li>Listens to the user document while the session is active, replacing the record whenever
+ *         the document changes, including the local writes made by this device.</li>
+ *     <li>Drops the record if the document is deleted or the listener fails, so readers fall back
+ *         to reading Firestore instead of serving data that is no longer being kept current.</li>
+ * </ul>
+ * {@link UserSession} starts the cache when a user logs in and clears it on logout. Managers that
+ * decide what a user may do read it through {@link #get(String)}, which returns null whenever they
+ * should fetch the document themselves; profile screens may use {@link #getForDisplay(String)}.
+ */
+public class UserProfileCache {
+
+    private static final String TAG = "UserProfileCache";
+    private static final String PREFS = "UserProfileCache";
+    private static final String KEY_RECORD = "record";
+
+    /** The user document fields that hold event-membership lists, each as a map with an "events" array. */
+    public static final String[] MEMBERSHIP_FIELDS = {
+            "waitListedEvents", "selectedEvents", "notSelectedEvents", "enrolledEvents",
+            "declinedEvents", "closedEvents", "organizedEvents"
+    };
+
+    /** The membership fields that make up a user's event history; organized events are shown elsewhere. */
+    private static final String[] HISTORY_FIELDS = {
+            "waitListedEvents", "selectedEvents", "notSelectedEvents", "enrolledEvents",
+            "declinedEvents", "closedEvents"
+    };
+
+    /**
+     * The "userInfo" fields kept in the record. Anything else, in particular the password hash,
+     * is left out so it is never persisted or handed to screens.
+     */
+    static final String[] INFO_FIELDS = {"name", "displayName", "email", "phoneNumber"};
+
+    private static final UserProfileCache instance = new UserProfileCache();
+
+    private String activeUser;
+    private Record record;
+    /** Whether {@link #record} came from a server snapshot received since {@link #start} was called. */
+    private boolean confirmed;
+    private SharedPreferences prefs;
+    private ListenerRegistration registration;
+
+    /**
+     * An immutable, parsed copy of a user document.
+     */
+    public static final class Record {
+        /** The username (document ID) this record belongs to. */
+        public final String userName;
+        private final Map<String, String> userInfo;
+        private final Map<String, Set<String>> memberships;
+
+        private Record(String userName, Map<String, String> userInfo, Map<String, Set<String>> memberships) {
+            this.userName = userName;
+            this.userInfo = userInfo;
+            this.memberships = memberships;
+        }
+
+        /**
+         * Parses a user document's data. Only the {@link #INFO_FIELDS} of "userInfo" are kept.
+         *
+         * @param userName The username (document ID).
+         * @param data The document data, as returned by {@code DocumentSnapshot.getData()}.
+         * @return The parsed record.
+         */
+        public static Record fromData(String userName, Map<String, Object> data) {
+            Map<String, String> info = new HashMap<>();
+            Object infoObj = data.get("userInfo");
+            if (infoObj instanceof Map) {
+                for (String key : INFO_FIELDS) {
+                    Object value = ((Map<?, ?>) infoObj).get(key);
+                    if (value instanceof String) {
+                        info.put(key, (String) value);
+                    }
+                }
+            }
+
+            Map<String, Set<String>> sets = new LinkedHashMap<>();
+            for (String field : MEMBERSHIP_FIELDS) {
+                Set<String> events = new LinkedHashSet<>();
+                Object parent = data.get(field);
+                if (parent instanceof Map) {
+                    Object list = ((Map<?, ?>) parent).get("events");
+                    if (list instanceof List) {
+                        for (Object id : (List<?>) list) {
+                            if (id instanceof String) events.add((String) id);
+                        }
+                    }
+                }
+                sets.put(field, Collections.unmodifiableSet(events));
+            }
+            return new Record(userName, Collections.unmodifiableMap(info), Collections.unmodifiableMap(sets));
+        }
+
+        /**
+         * Gets a field of the user's "userInfo" map.
+         * @param key The field, such as "name", "email" or "phoneNumber".
+         * @return The value, or null if it is not set.
+         */
+        public String getInfo(String key) {
+            return userInfo.get(key);
+        }
+
+        /**
+         * Gets the events in one of the user's membership lists.
+         * @param field One of {@link #MEMBERSHIP_FIELDS}, e.g. "selectedEvents".
+         * @return The event IDs, in the order stored on the document. Empty if the list is missing.
+         */
+        public Set<String> getEvents(String field) {
+            Set<String> events = memberships.get(field);
+            return events != null ? events : Collections.emptySet();
+        }
+
+        /**
+         * Checks whether an event is in one of the user's membership lists.
+         * @param field The membership field.
+         * @param eventId The event ID.
+         * @return true if the event is in the list.
+         */
+        public boolean isIn(String field, String eventId) {
+            return getEvents(field).contains(eventId);
+        }
+
+        /**
+         * Gets every event the user has joined or been drawn for, across all entrant lists.
+         * @return The event IDs of the user's history.
+         */
+        public Set<String> getHistoryEventIds() {
+            Set<String> ids = new LinkedHashSet<>();
+            for (String field : HISTORY_FIELDS) {
+                ids.addAll(getEvents(field));
+            }
+            return ids;
+        }
+
+        /**
+         * Rebuilds the record in the shape of the user document, for callers that read the raw data map.
+         * @return A map with "userName", "userInfo" and each membership field as {@code {events: [...]}}.
+         */
+        public Map<String, Object> toUserData() {
+            Map<String, Object> data = new HashMap<>();
+            data.put("userName", userName);
+            data.put("userInfo", new HashMap<>(userInfo));
+            for (Map.Entry<String, Set<String>> e : memberships.entrySet()) {
+                Map<String, Object> list = new HashMap<>();
+                list.put("events", new ArrayList<>(e.getValue()));
+                data.put(e.getKey(), list);
+            }
+            return data;
+        }
+
+        /**
+         * Serializes the record for storage.
+         * @return The record as a JSON string.
+         * @throws JSONException If the record cannot be written.
+         */
+        String toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("userName", userName);
+            json.put("userInfo", new JSONObject(userInfo));
+            JSONObject lists = new JSONObject();
+            for (Map.Entry<String, Set<String>> e : memberships.entrySet()) {
+                lists.put(e.getKey(), new JSONArray(e.getValue()));
+            }
+            json.put("memberships", lists);
+            return json.toString();
+        }
+
+        /**
+         * Reads a record written by {@link #toJson()}.
+         * @param text The JSON string.
+         * @return The record.
+         * @throws JSONException If the text is not a valid record.
+         */
+        static Record fromJson(String text) throws JSONException {
+            JSONObject json = new JSONObject(text);
+
+            Map<String, Object> data = new HashMap<>();
+            Map<String, Object> info = new HashMap<>();
+            JSONObject infoJson = json.getJSONObject("userInfo");
+            for (Iterator<String> keys = infoJson.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                info.put(key, infoJson.getString(key));
+            }
+            data.put("userInfo", info);
+
+            JSONObject lists = json.getJSONObject("memberships");
+            for (String field : MEMBERSHIP_FIELDS) {
+                JSONArray array = lists.optJSONArray(field);
+                if (array == null) continue;
+                List<Object> events = new ArrayList<>();
+                for (int i = 0; i < array.length(); i++) events.add(array.getString(i));
+                Map<String, Object> list = new HashMap<>();
+                list.put("events", events);
+                data.put(field, list);
+            }
+            return fromData(json.getString("userName"), data);
+        }
+    }
+
+    UserProfileCache() {}
+
+    /**
+     * @return The process-wide cache.
+     */
+    public static UserProfileCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts caching a user's document. Any record persisted for the same user is made available
+     * for display immediately, and a snapshot listener keeps it current from then on.
+     *
+     * @param context The context used to open the SharedPreferences.
+     * @param userName The logged-in user.
+     */
+    public void start(Context context, String userName) {
+        SharedPreferences prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        start(prefs, FirebaseFirestore.getInstance().collection("users").document(userName), userName);
+    }
+
+    /**
+     * Starts caching a user's document with explicit dependencies.
+     *
+     * @param prefs The SharedPreferences the record is persisted in.
+     * @param userDoc The user's document.
+     * @param userName The logged-in user.
+     */
+    synchronized void start(SharedPreferences prefs, DocumentReference userDoc, String userName) {
+        if (userName.equals(activeUser) && registration != null) return;
+
+        stopListening();
+        this.activeUser = userName;
+        this.prefs = prefs;
+        record = readPersisted(userName);
+        confirmed = false;
+
+        registration = userDoc.addSnapshotListener((snapshot, e) -> {
+            if (e != null) {
+                Log.w(TAG, "User listener failed; dropping cached profile", e);
+                invalidate(userName);
+                // A failed listener is not restarted by Firestore, so allow start() to attach a new one.
+                synchronized (this) {
+                    if (userName.equals(activeUser)) stopListening();
+                }
+                return;
+            }
+            if (snapshot == null || !snapshot.exists() || snapshot.getData() == null) {
+                invalidate(userName);
+                return;
+            }
+            update(Record.fromData(userName, snapshot.getData()), !snapshot.getMetadata().isFromCache());
+        });
+    }
+
+    /**
+     * Gets the cached record of a user, for callers that act on its event lists.
+     *
+     * @param userName The user to look up.
+     * @return The record, or null if the user is not the cached user or the server has not yet
+     *         confirmed the record in this session.
+     */
+    public synchronized Record get(String userName) {
+        return confirmed ? getForDisplay(userName) : null;
+    }
+
+    /**
+     * Gets the cached record of a user for showing profile fields, including a record restored from
+     * storage or read while offline. Its event lists may be out of date and should not be relied on.
+     *
+     * @param userName The user to look up.
+     * @return The record, or null if the user is not the cached user or nothing is cached yet.
+     */
+    public synchronized Record getForDisplay(String userName) {
+        return (record != null && record.userName.equals(userName)) ? record : null;
+    }
+
+    /**
+     * Stops listening and removes the cached record from memory and storage. Called on logout.
+     *
+     * @param context The context used to open the SharedPreferences.
+     */
+    public synchronized void clear(Context context) {
+        stopListening();
+        activeUser = null;
+        record = null;
+        confirmed = false;
+        context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                .edit().remove(KEY_RECORD).apply();
+        prefs = null;
+    }
+
+    /**
+     * Replaces the cached record and persists it. Ignored if the record is not for the active user,
+     * such as a snapshot delivered just after logout.
+     * @param updated The new record.
+     * @param fromServer Whether the record was read from the server rather than the local cache.
+     */
+    synchronized void update(Record updated, boolean fromServer) {
+        if (!updated.userName.equals(activeUser)) return;
+        record = updated;
+        // Once the server has confirmed the record, later local writes stay on top of that state.
+        confirmed |= fromServer;
+        if (prefs == null) return;
+        try {
+            prefs.edit().putString(KEY_RECORD, updated.toJson()).apply();
+        } catch (JSONException e) {
+            Log.w(TAG, "Could not persist cached profile", e);
+        }
+    }
+
+    /**
+     * Drops the cached record of a user, so readers fetch it from Firestore.
+     * @param userName The user whose record is no longer current.
+     */
+    synchronized void invalidate(String userName) {
+        if (record == null || !record.userName.equals(userName)) return;
+        record = null;
+        confirmed = false;
+        if (prefs != null) prefs.edit().remove(KEY_RECORD).apply();
+    }
+
+    private Record readPersisted(String userName) {
+        String text = prefs.getString(KEY_RECORD, null);
+        if (text == null) return null;
+        try {
+            Record persisted = Record.fromJson(text);
+            return persisted.userName.equals(userName) ? persisted : null;
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding unreadable cached profile", e);
+            return null;
+        }
+    }
+
+    private void stopListening() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+}
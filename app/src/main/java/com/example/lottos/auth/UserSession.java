@@ -14,7 +14,7 @@ public class UserSession {
 
     /**
      * Saves the username of the currently logged-in user to SharedPreferences.
-     * This establishes a user session.
+     * This establishes a user session and starts the {@link UserProfileCache} for the user.
      *
      * @param context  The application context, used to access SharedPreferences.
      * @param userName The username of the user to save.
@@ -22,6 +22,7 @@ public class UserSession {
     public static void saveUser(Context context, String userName) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
         prefs.edit().putString(KEY_USERNAME, userName).apply();
+        UserProfileCache.getInstance().start(context, userName);
     }
 
     /**
@@ -46,13 +47,14 @@ public class UserSession {
     }
 
     /**
-     * Clears the user session by removing the username from SharedPreferences.
-     * This effectively logs the user out.
+     * Clears the user session by removing the username from SharedPreferences
+     * and clearing the {@link UserProfileCache}. This effectively logs the user out.
      *
      * @param context The application context, used to access SharedPreferences.
      */
     public static void logout(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
         prefs.edit().remove(KEY_USERNAME).apply();
+        UserProfileCache.getInstance().clear(context);
     }
 }
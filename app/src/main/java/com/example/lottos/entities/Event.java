@@ -71,7 +71,8 @@ public class Event {
      */
     private UserList selectedList;
     /**
-     * A pointer used for selection logic, not currently implemented.
+     * The index of the next user in the 'not selected' list to promote when a selected user
+     * declines. Users before it have already been promoted.
      */
     private int currentPointer;
     /**
@@ -87,6 +88,14 @@ public class Event {
      * The URL for the event's promotional poster image.
      */
     private String posterUrl;
+    /**
+     * The URL of the card-sized copy of the poster, or null if only the original exists.
+     */
+    private String posterCardUrl;
+    /**
+     * The URL of the thumbnail-sized copy of the poster, or null if only the original exists.
+     */
+    private String posterThumbUrl;
 
     /**
      * A list of keywords used for filtering or categorization, not currently implemented.
@@ -395,6 +404,30 @@ public class Event {
      */
     public void setPosterUrl(String posterUrl) {this.posterUrl = posterUrl;}
 
+    /**
+     * Getter for the card-sized poster URL.
+     * @return The URL string of the card-sized poster, or null.
+     */
+    public String getPosterCardUrl() {return posterCardUrl;}
+
+    /**
+     * Setter for the card-sized poster URL.
+     * @param posterCardUrl The new URL string for the card-sized poster.
+     */
+    public void setPosterCardUrl(String posterCardUrl) {this.posterCardUrl = posterCardUrl;}
+
+    /**
+     * Getter for the thumbnail-sized poster URL.
+     * @return The URL string of the thumbnail-sized poster, or null.
+     */
+    public String getPosterThumbUrl() {return posterThumbUrl;}
+
+    /**
+     * Setter for the thumbnail-sized poster URL.
+     * @param posterThumbUrl The new URL string for the thumbnail-sized poster.
+     */
+    public void setPosterThumbUrl(String posterThumbUrl) {this.posterThumbUrl = posterThumbUrl;}
+
     /**
      * Getter for the list of filter words.
      * @return The list of filter word strings.
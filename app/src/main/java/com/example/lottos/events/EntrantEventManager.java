@@ -3,8 +3,12 @@ package com.example.lottos.events;
 import android.util.Log;
 
 import com.example.lottos.EventRepository;
+import com.example.lottos.PosterVariant;
+import com.example.lottos.TaskFutures;
+import com.example.lottos.auth.UserProfileCache;
 import com.google.firebase.Timestamp;import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -13,6 +17,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages the business logic for an entrant's interactions with events.
@@ -75,7 +80,7 @@ public class EntrantEventManager {
          * @param location The location of the event.
          * @param startTime A formatted string for the event's start time.
          * @param endTime A formatted string for the event's end time.
-         * @param posterUrl The URL of the event's poster image.
+         * @param posterUrl The URL of the event's poster image, preferring the card-sized variant.
          * @param filterWords A list of keywords for filtering.
          * @param startMillis The start time in milliseconds since the epoch.
          * @param endMillis The end time in milliseconds since the epoch.
@@ -121,7 +126,7 @@ public class EntrantEventManager {
      */
     public void loadAllOpenEvents(EventsCallback callback) {
 
-        repo.getAllEvents().get()
+        repo.readAllEvents()
                 .addOnSuccessListener(query -> {
                     List<EventModel> result = new ArrayList<>();
 
@@ -131,7 +136,7 @@ public class EntrantEventManager {
                         String name = doc.getString("eventName");
                         Boolean openFlag = doc.getBoolean("IsOpen");
                         String location = doc.getString("location");
-                        String posterUrl = doc.getString("posterUrl");
+                        String posterUrl = PosterVariant.CARD.resolve(doc::getString);
 
                         Timestamp startTs = doc.getTimestamp("startTime");
                         Timestamp endTs   = doc.getTimestamp("endTime");
@@ -179,7 +184,7 @@ public class EntrantEventManager {
      */
     public void loadOpenEventsForUser(String userName, EventsCallback callback) {
 
-        repo.getAllEvents().get()
+        repo.readAllEvents()
                 .addOnSuccessListener(query -> {
                     List<EventModel> result = new ArrayList<>();
 
@@ -189,7 +194,7 @@ public class EntrantEventManager {
                         String name = doc.getString("eventName");
                         Boolean openFlag = doc.getBoolean("IsOpen");
                         String location = doc.getString("location");
-                        String posterUrl = doc.getString("posterUrl");
+                        String posterUrl = PosterVariant.CARD.resolve(doc::getString);
 
                         Timestamp startTs = doc.getTimestamp("startTime");
                         Timestamp endTs   = doc.getTimestamp("endTime");
@@ -224,19 +229,42 @@ public class EntrantEventManager {
 
     /**
      * Loads all events that a user has interacted with. This includes events they are
-     * waitlisted for, selected for, enrolled in, declined, etc. It first fetches the user's
-     * document to get all associated event IDs and then retrieves the details for those events.
+     * waitlisted for, selected for, enrolled in, declined, etc. The user's event IDs and the
+     * events are read at the same time, and the callback is invoked once both have arrived.
+     * The IDs are taken from the {@link UserProfileCache} once the server has confirmed its
+     * record, and from the user's document otherwise.
      *
      * @param userName The username of the user whose history is being loaded.
      * @param callback The callback to be invoked with the list of historical events or an error.
      */
     public void loadEventsHistory(String userName, EventsCallback callback) {
+        CompletableFuture<List<String>> historyIds = readHistoryIds(userName);
+        CompletableFuture<QuerySnapshot> events = repo.fetchAllEvents();
 
-        db.collection("users").document(userName).get()
-                .addOnSuccessListener(userSnap -> {
+        CompletableFuture<List<EventModel>> history = TaskFutures.allOf(historyIds, events)
+                .thenApply(v -> toHistoryEvents(events.join(), historyIds.join()));
+
+        TaskFutures.deliver(history,
+                result -> callback.onSuccess(result, historyIds.join()),
+                callback::onError);
+    }
+
+    /**
+     * Reads the IDs of every event a user has interacted with.
+     *
+     * @param userName The username of the user.
+     * @return A future that completes with the event IDs, or an empty list if the user does not exist.
+     */
+    private CompletableFuture<List<String>> readHistoryIds(String userName) {
+        UserProfileCache.Record cached = UserProfileCache.getInstance().get(userName);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new ArrayList<>(cached.getHistoryEventIds()));
+        }
+
+        return TaskFutures.of(db.collection("users").document(userName).get())
+                .thenApply(userSnap -> {
                     if (!userSnap.exists()) {
-                        callback.onSuccess(new ArrayList<>(), new ArrayList<>());
-                        return;
+                        return new ArrayList<>();
                     }
 
                     List<String> waitlistedIds  = (List<String>) userSnap.get("waitListedEvents.events");
@@ -255,58 +283,60 @@ public class EntrantEventManager {
                     if (enrolledIds != null)     allIdsSet.addAll(enrolledIds);
                     if (notSelectedIds != null)  allIdsSet.addAll(notSelectedIds);
 
-                    List<String> allIds = new ArrayList<>(allIdsSet);
+                    return new ArrayList<>(allIdsSet);
+                });
+    }
 
-                    if (allIds.isEmpty()) {
-                        callback.onSuccess(new ArrayList<>(), allIds);
-                        return;
-                    }
+    /**
+     * Picks the events in a user's history out of all events.
+     *
+     * @param query All event documents.
+     * @param allIds The IDs of every event the user has interacted with.
+     * @return The matching events that have a name.
+     */
+    private List<EventModel> toHistoryEvents(QuerySnapshot query, List<String> allIds) {
+        List<EventModel> result = new ArrayList<>();
+        if (allIds.isEmpty()) {
+            return result;
+        }
 
-                    repo.getAllEvents().get()
-                            .addOnSuccessListener(query -> {
-                                List<EventModel> result = new ArrayList<>();
-
-                                for (QueryDocumentSnapshot doc : query) {
-                                    String id = doc.getId();
-
-                                    if (!allIds.contains(id)) continue;
-
-                                    String name = doc.getString("eventName");
-                                    Boolean openFlag = doc.getBoolean("IsOpen");
-                                    String location = doc.getString("location");
-                                    String posterUrl = doc.getString("posterUrl");
-
-                                    Timestamp startTs = doc.getTimestamp("startTime");
-                                    Timestamp endTs   = doc.getTimestamp("endTime");
-
-                                    String startStr = formatTimestamp(startTs);
-                                    String endStr   = formatTimestamp(endTs);
-
-                                    long startMillis = (startTs != null) ? startTs.toDate().getTime() : 0L;
-                                    long endMillis   = (endTs != null)   ? endTs.toDate().getTime()   : 0L;
-
-                                    List<String> filterWords = extractFilterWords(doc);
-
-                                    if (name != null) {
-                                        result.add(new EventModel(
-                                                id,
-                                                name,
-                                                openFlag != null ? openFlag : false,
-                                                location,
-                                                startStr,
-                                                endStr,
-                                                posterUrl,
-                                                filterWords,
-                                                startMillis,
-                                                endMillis
-                                        ));
-                                    }
-                                }
-                                callback.onSuccess(result, allIds);
-                            })
-                            .addOnFailureListener(callback::onError);
-                })
-                .addOnFailureListener(callback::onError);
+        for (QueryDocumentSnapshot doc : query) {
+            String id = doc.getId();
+
+            if (!allIds.contains(id)) continue;
+
+            String name = doc.getString("eventName");
+            Boolean openFlag = doc.getBoolean("IsOpen");
+            String location = doc.getString("location");
+            String posterUrl = PosterVariant.CARD.resolve(doc::getString);
+
+            Timestamp startTs = doc.getTimestamp("startTime");
+            Timestamp endTs   = doc.getTimestamp("endTime");
+
+            String startStr = formatTimestamp(startTs);
+            String endStr   = formatTimestamp(endTs);
+
+            long startMillis = (startTs != null) ? startTs.toDate().getTime() : 0L;
+            long endMillis   = (endTs != null)   ? endTs.toDate().getTime()   : 0L;
+
+            List<String> filterWords = extractFilterWords(doc);
+
+            if (name != null) {
+                result.add(new EventModel(
+                        id,
+                        name,
+                        openFlag != null ? openFlag : false,
+                        location,
+                        startStr,
+                        endStr,
+                        posterUrl,
+                        filterWords,
+                        startMillis,
+                        endMillis
+                ));
+            }
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,216 @@
+package com.example.lottos.events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the data last loaded for an entrant's view of an event for a short time.
+ *
+ * Role: After an entrant joins or leaves a waitlist or answers an invitation, the details screen
+ * used to read the event and user documents again just to redraw its buttons. The manager now
+ * stores each loaded view here, keyed by event and user, and applies the entrant's change to the
+ * stored copy as soon as the action starts, so the screen can redraw before the write completes.
+ * Each change returns a rollback action that the manager runs if the write fails.
+ * Entries expire after {@link #TTL_MS}, so changes made by other users are picked up by the next
+ * full load. Entries are never modified in place; each change produces a new entry with copies of
+ * the maps and lists it touches.
+ */
+class EventDetailsCache {
+
+    /** How long a loaded view may be reused, in milliseconds. */
+    static final long TTL_MS = 30_000;
+
+    /** Returned by the {@code apply} methods when there was no entry to change. */
+    static final Runnable NO_ROLLBACK = () -> {};
+
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * The data loaded for an entrant's view of an event.
+     */
+    static final class Entry {
+        final Map<String, Object> eventData;
+        final List<String> waitlistUsers;
+        final Map<String, Object> userData;
+        final long loadedAt;
+
+        Entry(Map<String, Object> eventData, List<String> waitlistUsers, Map<String, Object> userData, long loadedAt) {
+            this.eventData = eventData;
+            this.waitlistUsers = waitlistUsers;
+            this.userData = userData;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Constructs an EventDetailsCache.
+     * @param clock The source of the current time, in milliseconds.
+     */
+    EventDetailsCache(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Stores a freshly loaded view.
+     * @param eventId The ID of the event.
+     * @param userName The entrant viewing it.
+     * @param eventData The event document data.
+     * @param waitlistUsers The users on the event's waitlist.
+     * @param userData The entrant's user document data.
+     * @return The stored entry.
+     */
+    synchronized Entry put(String eventId, String userName, Map<String, Object> eventData,
+                           List<String> waitlistUsers, Map<String, Object> userData) {
+        Entry entry = new Entry(eventData, waitlistUsers, userData, clock.getAsLong());
+        entries.put(key(eventId, userName), entry);
+        return entry;
+    }
+
+    /**
+     * Gets a stored view that has not expired.
+     * @param eventId The ID of the event.
+     * @param userName The entrant viewing it.
+     * @return The entry, or null if there is none or it has expired.
+     */
+    synchronized Entry get(String eventId, String userName) {
+        String key = key(eventId, userName);
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (clock.getAsLong() - entry.loadedAt >= TTL_MS) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Drops a stored view, so the next request reads it again.
+     * @param eventId The ID of the event.
+     * @param userName The entrant viewing it.
+     */
+    synchronized void invalidate(String eventId, String userName) {
+        entries.remove(key(eventId, userName));
+    }
+
+    /**
+     * Records that the entrant joined the event's waitlist.
+     * @param eventId The ID of the event.
+     * @param userName The entrant.
+     * @return An action that undoes the change, or {@link #NO_ROLLBACK} if nothing was cached.
+     */
+    synchronized Runnable applyJoin(String eventId, String userName) {
+        Entry entry = get(eventId, userName);
+        if (entry == null) return NO_ROLLBACK;
+        List<String> waitlist = new ArrayList<>(entry.waitlistUsers);
+        if (!waitlist.contains(userName)) waitlist.add(userName);
+        return replace(eventId, userName, entry,
+                withListChange(entry.eventData, "waitList", "users", userName, true),
+                waitlist,
+                withListChange(entry.userData, "waitListedEvents", "events", eventId, true));
+    }
+
+    /**
+     * Records that the entrant left the event's waitlist.
+     * @param eventId The ID of the event.
+     * @param userName The entrant.
+     * @return An action that undoes the change, or {@link #NO_ROLLBACK} if nothing was cached.
+     */
+    synchronized Runnable applyLeave(String eventId, String userName) {
+        Entry entry = get(eventId, userName);
+        if (entry == null) return NO_ROLLBACK;
+        List<String> waitlist = new ArrayList<>(entry.waitlistUsers);
+        waitlist.remove(userName);
+        return replace(eventId, userName, entry,
+                withListChange(entry.eventData, "waitList", "users", userName, false),
+                waitlist,
+                withListChange(entry.userData, "waitListedEvents", "events", eventId, false));
+    }
+
+    /**
+     * Records that the entrant accepted their invitation.
+     * @param eventId The ID of the event.
+     * @param userName The entrant.
+     * @return An action that undoes the change, or {@link #NO_ROLLBACK} if nothing was cached.
+     */
+    synchronized Runnable applyAccept(String eventId, String userName) {
+        Entry entry = get(eventId, userName);
+        if (entry == null) return NO_ROLLBACK;
+        Map<String, Object> userData = withListChange(entry.userData, "selectedEvents", "events", eventId, false);
+        userData = withListChange(userData, "enrolledEvents", "events", eventId, true);
+        return replace(eventId, userName, entry,
+                withListChange(entry.eventData, "enrolledList", "users", userName, true),
+                entry.waitlistUsers,
+                userData);
+    }
+
+    /**
+     * Records that the entrant declined their invitation. The event document is updated later
+     * by the {@link com.example.lottos.organizer.DeclineQueue}, so only the user's lists change.
+     * @param eventId The ID of the event.
+     * @param userName The entrant.
+     * @return An action that undoes the change, or {@link #NO_ROLLBACK} if nothing was cached.
+     */
+    synchronized Runnable applyDecline(String eventId, String userName) {
+        Entry entry = get(eventId, userName);
+        if (entry == null) return NO_ROLLBACK;
+        Map<String, Object> userData = withListChange(entry.userData, "selectedEvents", "events", eventId, false);
+        userData = withListChange(userData, "declinedEvents", "events", eventId, true);
+        return replace(eventId, userName, entry, entry.eventData, entry.waitlistUsers, userData);
+    }
+
+    private Runnable replace(String eventId, String userName, Entry old, Map<String, Object> eventData,
+                             List<String> waitlistUsers, Map<String, Object> userData) {
+        String key = key(eventId, userName);
+        // A patched entry keeps its load time, so it still expires on schedule.
+        Entry patched = new Entry(eventData, waitlistUsers, userData, old.loadedAt);
+        entries.put(key, patched);
+
+        return () -> {
+            synchronized (this) {
+                if (entries.get(key) == patched) {
+                    entries.put(key, old);
+                } else {
+                    // The entry was reloaded or changed again since; the old copy can no longer
+                    // be trusted, so the next request reads it again.
+                    entries.remove(key);
+                }
+            }
+        };
+    }
+
+    /**
+     * Copies a document map with a value added to or removed from one nested array, such as
+     * {@code waitList.users}. The original map and its nested values are left untouched.
+     */
+    static Map<String, Object> withListChange(Map<String, Object> data, String field, String listKey,
+                                              String value, boolean add) {
+        Map<String, Object> copy = data != null ? new HashMap<>(data) : new HashMap<>();
+        Object parent = copy.get(field);
+        Map<String, Object> parentCopy = new HashMap<>();
+        if (parent instanceof Map) {
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) parent).entrySet()) {
+                parentCopy.put(String.valueOf(e.getKey()), e.getValue());
+            }
+        }
+        List<Object> list = new ArrayList<>();
+        if (parentCopy.get(listKey) instanceof List) {
+            list.addAll((List<?>) parentCopy.get(listKey));
+        }
+        if (add) {
+            if (!list.contains(value)) list.add(value);
+        } else {
+            list.remove(value);
+        }
+        parentCopy.put(listKey, list);
+        copy.put(field, parentCopy);
+        return copy;
+    }
+
+    private static String key(String eventId, String userName) {
+        return eventId + "/" + userName;
+    }
+}
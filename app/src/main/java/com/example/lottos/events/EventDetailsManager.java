@@ -1,17 +1,24 @@
 package com.example.lottos.events;
 
 import com.example.lottos.EventRepository;
+import com.example.lottos.TaskFutures;
+import com.example.lottos.UserDirectory;
+import com.example.lottos.auth.UserProfileCache;
 import com.example.lottos.lottery.LotterySystem;
-import com.example.lottos.organizer.OrganizerEventDetailsManager;
+import com.example.lottos.organizer.DeclineQueue;
 import com.example.lottos.organizer.OrganizerEventManager;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 /**
@@ -28,8 +35,14 @@ import java.util.function.Consumer;
  * It orchestrates database operations through Firestore transactions to ensure data consistency.
  */
 public class EventDetailsManager {
+
+    /** How long each read for the details page may take before it fails, in milliseconds. */
+    static final long READ_TIMEOUT_MS = 15_000;
+
     private final FirebaseFirestore db;
     private final EventRepository repo;
+    private final DeclineQueue declineQueue;
+    private final EventDetailsCache cache;
 
     /**
      * Default constructor that initializes its own FirebaseFirestore and EventRepository instances.
@@ -37,6 +50,8 @@ public class EventDetailsManager {
     public EventDetailsManager() {
         this.db = FirebaseFirestore.getInstance();
         this.repo = new EventRepository(this.db);
+        this.declineQueue = DeclineQueue.getInstance();
+        this.cache = new EventDetailsCache(System::currentTimeMillis);
     }
 
     /**
@@ -47,8 +62,28 @@ public class EventDetailsManager {
      * @param repo The EventRepository to use for data access.
      */
     public EventDetailsManager(FirebaseFirestore db, EventRepository repo) {
+        this(db, repo, new DeclineQueue(db, repo));
+    }
+
+    /**
+     * Constructor for dependency injection that also takes the queue declines are recorded in.
+     *
+     * @param db The FirebaseFirestore instance to use.
+     * @param repo The EventRepository to use for data access.
+     * @param declineQueue The queue that promotes replacements for declined invitations.
+     */
+    public EventDetailsManager(FirebaseFirestore db, EventRepository repo, DeclineQueue declineQueue) {
+        this(db, repo, declineQueue, new EventDetailsCache(System::currentTimeMillis));
+    }
+
+    /**
+     * Constructor for tests that also takes the cache of loaded views.
+     */
+    EventDetailsManager(FirebaseFirestore db, EventRepository repo, DeclineQueue declineQueue, EventDetailsCache cache) {
         this.db = db;
         this.repo = repo;
+        this.declineQueue = declineQueue;
+        this.cache = cache;
     }
 
     /**
@@ -73,29 +108,36 @@ public class EventDetailsManager {
 
     /**
      * Loads all necessary data for an entrant viewing an event's details page.
-     * It fetches the event document, its waitlist, and the user's document in parallel.
+     * The event document and the user's data are read at the same time, and the callback is
+     * invoked once both have arrived. The user's data is taken from the {@link UserProfileCache}
+     * once the server has confirmed its record and read from Firestore otherwise. Either read fails with a
+     * timeout after {@link #READ_TIMEOUT_MS}.
      *
      * @param eventName The name of the event to load.
      * @param userName The username of the entrant viewing the page.
      * @param cb The callback to be invoked with the results or an error.
      */
     public void loadEventForEntrant(String eventName, String userName, LoadCallback cb) {
-        DocumentReference eventDoc = repo.getEvent(eventName);
-        DocumentReference userDoc = db.collection("users").document(userName);
+        CompletableFuture<DocumentSnapshot> eventRead =
+                TaskFutures.withTimeout(repo.fetchEvent(eventName), READ_TIMEOUT_MS);
 
-        eventDoc.get().addOnSuccessListener(eventSnap -> {
+        UserProfileCache.Record cached = UserProfileCache.getInstance().get(userName);
+        CompletableFuture<Map<String, Object>> userRead = cached != null
+                ? CompletableFuture.completedFuture(cached.toUserData())
+                : TaskFutures.withTimeout(TaskFutures.of(db.collection("users").document(userName).get()),
+                        READ_TIMEOUT_MS).thenApply(DocumentSnapshot::getData);
+
+        TaskFutures.deliver(eventRead.thenCombine(userRead, (eventSnap, userData) -> {
             if (!eventSnap.exists()) {
-                cb.onError(new Exception("Event not found"));
-                return;
+                throw new CompletionException(new Exception("Event not found"));
             }
 
             Map<String, Object> eventData = eventSnap.getData();
             if (eventData == null) {
-                cb.onError(new Exception("Event data is null"));
-                return;
+                throw new CompletionException(new Exception("Event data is null"));
             }
 
-            final List<String> waitlistUsers = new ArrayList<>();
+            List<String> waitlistUsers = new ArrayList<>();
             Object mapObj = eventSnap.get("waitList");
 
             if (mapObj instanceof Map) {
@@ -104,13 +146,29 @@ public class EventDetailsManager {
                     waitlistUsers.addAll((List<String>) usersObj);
                 }
             }
+            return cache.put(eventName, userName, eventData, waitlistUsers, userData);
 
-            userDoc.get().addOnSuccessListener(userSnap -> {
-                Map<String, Object> userData = userSnap.getData();
-                cb.onSuccess(eventData, waitlistUsers, userData);
-            }).addOnFailureListener(cb::onError);
+        }), view -> cb.onSuccess(view.eventData, view.waitlistUsers, view.userData), cb::onError);
+    }
 
-        }).addOnFailureListener(cb::onError);
+    /**
+     * Shows an entrant's view of an event again, for example right after they joined its waitlist.
+     * If the view was loaded within {@link EventDetailsCache#TTL_MS}, the callback receives it
+     * straight away, including any action the entrant has started since, even while its write
+     * is still in progress; otherwise the event is loaded as in
+     * {@link #loadEventForEntrant(String, String, LoadCallback)}.
+     *
+     * @param eventName The name of the event to show.
+     * @param userName The username of the entrant viewing the page.
+     * @param cb The callback to be invoked with the results or an error.
+     */
+    public void refreshEventForEntrant(String eventName, String userName, LoadCallback cb) {
+        EventDetailsCache.Entry cached = cache.get(eventName, userName);
+        if (cached != null) {
+            cb.onSuccess(cached.eventData, cached.waitlistUsers, cached.userData);
+            return;
+        }
+        loadEventForEntrant(eventName, userName, cb);
     }
 
     /**
@@ -123,7 +181,10 @@ public class EventDetailsManager {
      */
     public void deleteEvent(String eventName, Runnable onSuccess, Consumer<Exception> onError) {
         repo.getEvent(eventName).delete()
-                .addOnSuccessListener(aVoid -> onSuccess.run())
+                .addOnSuccessListener(aVoid -> {
+                    repo.invalidateEvent(eventName);
+                    onSuccess.run();
+                })
                 .addOnFailureListener(onError::accept);
     }
 
@@ -132,6 +193,8 @@ public class EventDetailsManager {
      * This operation is performed in a transaction to ensure the event is still open and to
      * atomically update both the event's waitlist and the user's list of waitlisted events.
      * Also saves the user's geolocation if required by the event.
+     * The join is applied to the cached view as soon as this is called and undone if the
+     * transaction fails.
      *
      * @param eventName The name of the event to join.
      * @param userName The username of the entrant joining.
@@ -139,10 +202,13 @@ public class EventDetailsManager {
      * @param longitude The user's current longitude.
      * @param onSuccess A Runnable to be executed on success.
      * @param onError A callback to handle any exceptions.
+     * @return true if the cached view was updated, so it can be shown before the write completes.
      */
-    public void joinWaitlist(String eventName, String userName, double latitude, double longitude, Runnable onSuccess, EventRepository.OnError onError) {
+    public boolean joinWaitlist(String eventName, String userName, double latitude, double longitude, Runnable onSuccess, EventRepository.OnError onError) {
         DocumentReference eventDoc = repo.getEvent(eventName);
         DocumentReference userDoc = db.collection("users").document(userName);
+        Runnable rollback = cache.applyJoin(eventName, userName);
+        Runnable done = afterWrite(eventName, userName, rollback, onSuccess);
 
         db.runTransaction(tx -> {
                     Boolean open = tx.get(eventDoc).getBoolean("IsOpen");
@@ -156,101 +222,166 @@ public class EventDetailsManager {
                     return null;
 
                 }).addOnSuccessListener(v -> {
+                    repo.invalidateEvent(eventName);
                     OrganizerEventManager organizerManager = new OrganizerEventManager();
 
                     organizerManager.saveEntrantLocation(eventName, userName, latitude, longitude,
-                            () -> onSuccess.run(),
+                            () -> done.run(),
                             e -> {
                                 System.err.println("Warning: Failed to save geo location: " + e.getMessage());
-                                onSuccess.run();
+                                done.run();
                             });
 
                 })
-                .addOnFailureListener(e -> onError.run(e));
+                .addOnFailureListener(e -> {
+                    rollback.run();
+                    onError.run(e);
+                });
+        return rollback != EventDetailsCache.NO_ROLLBACK;
     }
 
     /**
      * Allows a user to leave the waitlist for a specific event.
      * This operation is performed in a transaction to atomically update both the event's
-     * waitlist and the user's list of waitlisted events.
+     * waitlist and the user's list of waitlisted events. The change is applied to the cached
+     * view straight away and undone if the transaction fails.
      *
      * @param eventName The name of the event to leave.
      * @param userName The username of the entrant leaving.
      * @param onSuccess A Runnable to be executed on success.
      * @param onError A callback to handle any exceptions.
+     * @return true if the cached view was updated, so it can be shown before the write completes.
      */
-    public void leaveWaitlist(String eventName, String userName, Runnable onSuccess, EventRepository.OnError onError) {
+    public boolean leaveWaitlist(String eventName, String userName, Runnable onSuccess, EventRepository.OnError onError) {
 
         DocumentReference eventDoc = repo.getEvent(eventName);
         DocumentReference userDoc = db.collection("users").document(userName);
+        Runnable rollback = cache.applyLeave(eventName, userName);
+        Runnable done = afterWrite(eventName, userName, rollback, onSuccess);
 
         db.runTransaction(tx -> {
                     tx.update(eventDoc, "waitList.users", FieldValue.arrayRemove(userName));
                     tx.update(userDoc, "waitListedEvents.events", FieldValue.arrayRemove(eventName));
                     return null;
 
-                }).addOnSuccessListener(v -> onSuccess.run())
-                .addOnFailureListener(e -> onError.run(e));
+                }).addOnSuccessListener(v -> {
+                    repo.invalidateEvent(eventName);
+                    done.run();
+                })
+                .addOnFailureListener(e -> {
+                    rollback.run();
+                    onError.run(e);
+                });
+        return rollback != EventDetailsCache.NO_ROLLBACK;
     }
 
     /**
      * Allows a user to accept an invitation to an event.
-     * This transactionally moves the user from the event's selected list to the enrolled list
-     * and updates the user's corresponding event lists.
+     * This transactionally moves the user from the event's selected list to the enrolled list,
+     * updates the user's corresponding event lists, and increments their joined-event count
+     * in the {@link UserDirectory}. The user document is read in the transaction: accepting an
+     * event the user is no longer selected for fails, and accepting one they are already
+     * enrolled in changes nothing. The change is applied to the cached view straight away and
+     * undone if the transaction fails.
      *
      * @param eventName The name of the event.
      * @param userName The username of the entrant accepting.
      * @param onSuccess A Runnable to be executed on success.
      * @param onError A callback to handle any exceptions.
+     * @return true if the cached view was updated, so it can be shown before the write completes.
      */
-    public void acceptInvite(String eventName, String userName, Runnable onSuccess, EventRepository.OnError onError) {
+    public boolean acceptInvite(String eventName, String userName, Runnable onSuccess, EventRepository.OnError onError) {
 
         DocumentReference eDoc = repo.getEvent(eventName);
         DocumentReference uDoc = db.collection("users").document(userName);
+        Runnable rollback = cache.applyAccept(eventName, userName);
+        Runnable done = afterWrite(eventName, userName, rollback, onSuccess);
 
         db.runTransaction(tx -> {
+                    DocumentSnapshot user = tx.get(uDoc);
+                    boolean enrolled = listContains(user.get("enrolledEvents.events"), eventName);
+                    if (!enrolled && !listContains(user.get("selectedEvents.events"), eventName)) {
+                        throw new FirebaseFirestoreException("This invitation is no longer available.",
+                                FirebaseFirestoreException.Code.ABORTED);
+                    }
+
                     tx.update(eDoc, "enrolledList.users", FieldValue.arrayUnion(userName));
                     tx.update(uDoc, "selectedEvents.events", FieldValue.arrayRemove(eventName));
                     tx.update(uDoc, "enrolledEvents.events", FieldValue.arrayUnion(eventName));
+                    // A repeated accept must not count the event twice.
+                    if (!enrolled) {
+                        tx.set(new UserDirectory(db).entry(userName),
+                                UserDirectory.increment(userName, UserDirectory.JOINED_COUNT, 1),
+                                SetOptions.merge());
+                    }
                     return null;
 
-                }).addOnSuccessListener(v -> onSuccess.run())
-                .addOnFailureListener(e -> onError.run(e));
+                }).addOnSuccessListener(v -> {
+                    repo.invalidateEvent(eventName);
+                    done.run();
+                })
+                .addOnFailureListener(e -> {
+                    rollback.run();
+                    onError.run(e);
+                });
+        return rollback != EventDetailsCache.NO_ROLLBACK;
     }
 
     /**
      * Allows a user to decline an invitation to an event.
-     * This transactionally moves the user from the event's selected list to the cancelled list
-     * and updates the user's corresponding event lists.
+     * This transactionally updates the user's event lists and records the decline in the
+     * {@link DeclineQueue}, without writing to the event document. The queue moves the user to
+     * the event's cancelled list and promotes a replacement shortly after, together with any
+     * other declines of the same event. If this app closes before then, the next selection sweep
+     * or organizer visit processes the decline instead. The user's lists in the cached view
+     * change straight away and are restored if the transaction fails.
      *
      * @param eventName The name of the event.
      * @param userName The username of the entrant declining.
-     * @param onSuccess A Runnable to be executed on success.
+     * @param onSuccess A Runnable to be executed once the decline is recorded.
      * @param onError A callback to handle any exceptions.
+     * @return true if the cached view was updated, so it can be shown before the write completes.
      */
-    public void declineInvite(String eventName, String userName, Runnable onSuccess, EventRepository.OnError onError) {
+    public boolean declineInvite(String eventName, String userName, Runnable onSuccess, EventRepository.OnError onError) {
 
-        DocumentReference eDoc = repo.getEvent(eventName);
         DocumentReference uDoc = db.collection("users").document(userName);
+        DocumentReference pending = declineQueue.pendingDecline(eventName, userName);
+        Runnable rollback = cache.applyDecline(eventName, userName);
+        Runnable done = afterWrite(eventName, userName, rollback, onSuccess);
 
         db.runTransaction(tx -> {
-            tx.update(eDoc, "cancelledList.users", FieldValue.arrayUnion(userName));
             tx.update(uDoc, "selectedEvents.events", FieldValue.arrayRemove(eventName));
             tx.update(uDoc, "declinedEvents.events", FieldValue.arrayUnion(eventName));
+            tx.set(pending, DeclineQueue.pendingEntry(userName));
             return null;
 
         }).addOnSuccessListener(v -> {
-            OrganizerEventDetailsManager organizerManager =
-                    new OrganizerEventDetailsManager(db, repo);
+            declineQueue.schedule(eventName);
+            done.run();
+
+        }).addOnFailureListener(e -> {
+            rollback.run();
+            onError.run(e);
+        });
+        return rollback != EventDetailsCache.NO_ROLLBACK;
+    }
 
-            organizerManager.replaceDeclinedUser(
-                    eventName,
-                    userName,
-                    onSuccess,
-                    onError::run
-            );
+    /** Checks whether a nested array field, such as {@code enrolledEvents.events}, holds a value. */
+    private static boolean listContains(Object list, String value) {
+        return list instanceof List && ((List<?>) list).contains(value);
+    }
 
-        }).addOnFailureListener(e -> onError.run(e));
+    /**
+     * Wraps an action's success callback. If the action found no cached view to update, a view
+     * may have been loaded while its write was running and would show the state from before it,
+     * so that view is dropped and the next request reads the event again.
+     */
+    private Runnable afterWrite(String eventName, String userName, Runnable rollback, Runnable onSuccess) {
+        if (rollback != EventDetailsCache.NO_ROLLBACK) return onSuccess;
+        return () -> {
+            cache.invalidate(eventName, userName);
+            onSuccess.run();
+        };
     }
 
     /**
@@ -262,7 +393,7 @@ public class EventDetailsManager {
      */
 
     public void getEventDetails(String eventName, Consumer<Map<String, Object>> onSuccess, Consumer<Exception> onError) {
-        repo.getEvent(eventName).get()
+        repo.readEvent(eventName)
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
                         onSuccess.accept(documentSnapshot.getData());
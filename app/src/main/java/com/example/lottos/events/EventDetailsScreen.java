@@ -6,7 +6,6 @@ import android.app.AlertDialog;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -20,6 +19,7 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 
+import com.example.lottos.AppExecutors;
 import com.example.lottos.ImageLoader;
 import com.example.lottos.TimeUtils;
 import com.example.lottos.databinding.FragmentEventDetailsScreenBinding;
@@ -30,8 +30,6 @@ import com.google.android.gms.location.LocationServices;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * A Fragment that displays the detailed information for a single event.
@@ -50,7 +48,7 @@ public class EventDetailsScreen extends Fragment {
     private EventDetailsManager manager;
 
     private boolean isGeolocationRequired = false;
-    private final ExecutorService imageExecutor = Executors.newSingleThreadExecutor();
+    private AppExecutors.Scope backgroundScope;
     private FusedLocationProviderClient fusedLocationClient;
 
     /**
@@ -116,6 +114,7 @@ public class EventDetailsScreen extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        backgroundScope = AppExecutors.getInstance().scope(getViewLifecycleOwner());
         setupNavButtons();
 
         if (isAdmin) {
@@ -148,22 +147,36 @@ public class EventDetailsScreen extends Fragment {
      * configure the UI and available actions.
      */
     private void loadEvent() {
-        manager.loadEventForEntrant(eventName, userName,
-                new EventDetailsManager.LoadCallback() {
-                    @Override
-                    public void onSuccess(Map<String, Object> eventData,
-                                          List<String> waitUsers,
-                                          Map<String, Object> userData) {
-
-                        renderEventData(eventData);
-                        updateUI(eventData, waitUsers, userData);
-                    }
+        manager.loadEventForEntrant(eventName, userName, entrantCallback());
+    }
 
-                    @Override
-                    public void onError(Exception e) {
-                        toast("Failed to load event: " + e.getMessage());
-                    }
-                });
+    /**
+     * Redraws the entrant's view after one of their own actions: once when the action starts,
+     * and again when its write succeeds or fails. The manager applies the action to the view it
+     * loaded a moment ago and undoes it on failure, so the view is only read again if it has
+     * expired.
+     */
+    private void refreshEvent() {
+        if (binding == null) return;
+        manager.refreshEventForEntrant(eventName, userName, entrantCallback());
+    }
+
+    private EventDetailsManager.LoadCallback entrantCallback() {
+        return new EventDetailsManager.LoadCallback() {
+            @Override
+            public void onSuccess(Map<String, Object> eventData,
+                                  List<String> waitUsers,
+                                  Map<String, Object> userData) {
+
+                renderEventData(eventData);
+                updateUI(eventData, waitUsers, userData);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                toast("Failed to load event: " + e.getMessage());
+            }
+        };
     }
     /**
      * Populates the UI fields with data retrieved from Firestore.
@@ -256,10 +269,11 @@ public class EventDetailsScreen extends Fragment {
 
         boolean isFull = capacity > 0 && currentWait >= capacity;
         String qrContent = userName + "_" + eventName;
-        Bitmap qr = QRCodeGenerator.generate(qrContent, 512);
-
         binding.imageQRCode.setVisibility(View.VISIBLE);
-        binding.imageQRCode.setImageBitmap(qr);
+        QRCodeGenerator.generateAsync(qrContent, 512, backgroundScope.executor(AppExecutors.Lane.UI_CRITICAL), qr -> {
+            if (binding == null) return;
+            binding.imageQRCode.setImageBitmap(qr);
+        });
 
 
 
@@ -396,48 +410,66 @@ public class EventDetailsScreen extends Fragment {
      * @param lon The user's longitude.
      */
     private void performJoinWaitlist(double lat, double lon) {
-        manager.joinWaitlist(eventName, userName, lat, lon,
+        boolean shown = manager.joinWaitlist(eventName, userName, lat, lon,
                 () -> {
                     toast("Joined waitlist");
-                    loadEvent();
+                    refreshEvent();
                 },
-                e -> toast("Join failed: " + e.getMessage()));
+                e -> {
+                    toast("Join failed: " + e.getMessage());
+                    refreshEvent();
+                });
+        // If the manager applied the action to the cached view, show it right away. Otherwise
+        // the view is loaded once the write has finished, so it cannot show the old state.
+        if (shown) refreshEvent();
     }
 
     /**
      * Handles the action of a user leaving an event's waitlist.
      */
     private void leaveWaitlist() {
-        manager.leaveWaitlist(eventName, userName,
+        boolean shown = manager.leaveWaitlist(eventName, userName,
                 () -> {
                     toast("Left waitlist");
-                    loadEvent();
+                    refreshEvent();
                 },
-                e -> toast("Leave failed: " + e.getMessage()));
+                e -> {
+                    toast("Leave failed: " + e.getMessage());
+                    refreshEvent();
+                });
+        if (shown) refreshEvent();
     }
 
     /**
      * Handles the action of a user accepting an invitation to an event.
      */
     private void acceptInvite() {
-        manager.acceptInvite(eventName, userName,
+        boolean shown = manager.acceptInvite(eventName, userName,
                 () -> {
                     toast("Accepted!");
-                    loadEvent();
+                    refreshEvent();
                 },
-                e -> toast("Failed: " + e.getMessage()));
+                e -> {
+                    toast("Failed: " + e.getMessage());
+                    refreshEvent();
+                });
+        if (shown) refreshEvent();
     }
 
     /**
      * Handles the action of a user declining an invitation to an event.
      */
     private void declineInvite() {
-        manager.declineInvite(eventName, userName,
+        boolean shown = manager.declineInvite(eventName, userName,
                 () -> {
                     toast("Declined invite.");
-                    loadEvent();
+                    refreshEvent();
                 },
-                e -> toast("Failed: " + e.getMessage()));
+                e -> {
+                    toast("Failed: " + e.getMessage());
+                    refreshEvent();
+                });
+        if (shown) refreshEvent();
     }
 
     /** ─────────────────────────────────────────────────────────────
@@ -518,12 +550,12 @@ public class EventDetailsScreen extends Fragment {
 
     /**
      * Cleans up resources when the view is destroyed.
-     * This includes nullifying the view binding and shutting down the executor service.
+     * This includes nullifying the view binding. Background work started for the view is
+     * cancelled by its {@link AppExecutors.Scope}.
      */
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        imageExecutor.shutdown();
         binding = null;
     }
 }
@@ -2,22 +2,55 @@ package com.example.lottos.events;
 
 import android.graphics.Bitmap;
 import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.MultiFormatWriter;
 import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
 
+import java.util.concurrent.Executor;
+
 /**
  * A utility class for generating QR (Quick Response) code images.
  * This class uses the ZXing (Zebra Crossing) library to encode a string
  * into a square QR code bitmap.
+ *
+ * Generated bitmaps are rendered through a single {@code int[]} pixel buffer and kept in a
+ * small in-memory cache keyed by content and size, so re-opening the same event does not
+ * encode the code again. Use {@link #generateAsync} to keep the encoding off the UI thread.
  */
 public class QRCodeGenerator {
 
+    /**
+     * The maximum total size of cached QR bitmaps, in kilobytes.
+     */
+    private static final int CACHE_SIZE_KB = 4 * 1024;
+
+    private static final LruCache<String, Bitmap> cache = new LruCache<String, Bitmap>(CACHE_SIZE_KB) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return Math.max(1, value.getByteCount() / 1024);
+        }
+    };
+
+    /**
+     * A callback interface for receiving a QR code generated in the background.
+     */
+    public interface OnGenerated {
+        /**
+         * Called on the main thread once the QR code is ready.
+         * @param bitmap The generated QR code, or null if encoding failed.
+         */
+        void onGenerated(Bitmap bitmap);
+    }
+
     /**
      * Generates a QR code bitmap from a given string content.
      * The generated QR code will have a black foreground and a white background.
+     * A cached bitmap is returned if the same content and size were generated before.
      *
      * @param content The string data to be encoded into the QR code.
      *                This is typically a URL, event ID, or other identifier.
@@ -27,6 +60,12 @@ public class QRCodeGenerator {
      *         {@link WriterException}.
      */
     public static Bitmap generate(String content, int size) {
+        String key = cacheKey(content, size);
+        Bitmap cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
             BitMatrix matrix = new MultiFormatWriter().encode(
                     content,
@@ -35,14 +74,13 @@ public class QRCodeGenerator {
                     size
             );
 
-            Bitmap bmp = Bitmap.createBitmap(size, size, Bitmap.Config.RGB_565);
+            int width = matrix.getWidth();
+            int height = matrix.getHeight();
 
-            for (int x = 0; x < size; x++) {
-                for (int y = 0; y < size; y++) {
-                    bmp.setPixel(x, y, matrix.get(x, y) ? Color.BLACK : Color.WHITE);
-                }
-            }
+            Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+            bmp.setPixels(toPixels(matrix), 0, width, 0, 0, width, height);
 
+            cache.put(key, bmp);
             return bmp;
 
         } catch (WriterException e) {
@@ -50,4 +88,60 @@ public class QRCodeGenerator {
             return null;
         }
     }
+
+    /**
+     * Generates a QR code on the given executor and delivers it on the main thread.
+     * If the code is already cached, the callback is posted without using the executor.
+     *
+     * @param content  The string data to be encoded into the QR code.
+     * @param size     The desired width and height of the QR code bitmap in pixels.
+     * @param executor The background executor to encode on.
+     * @param callback The callback to receive the bitmap on the main thread.
+     */
+    public static void generateAsync(String content, int size, Executor executor, OnGenerated callback) {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        Bitmap cached = cache.get(cacheKey(content, size));
+
+        if (cached != null) {
+            mainHandler.post(() -> callback.onGenerated(cached));
+            return;
+        }
+
+        executor.execute(() -> {
+            Bitmap bmp = generate(content, size);
+            mainHandler.post(() -> callback.onGenerated(bmp));
+        });
+    }
+
+    /**
+     * Converts a module matrix into a row-major ARGB pixel buffer suitable for
+     * {@link Bitmap#setPixels}.
+     *
+     * @param matrix The encoded QR matrix.
+     * @return An array of {@code width * height} colours.
+     */
+    static int[] toPixels(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int[] pixels = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                pixels[offset + x] = matrix.get(x, y) ? Color.BLACK : Color.WHITE;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Removes all cached QR bitmaps.
+     */
+    public static void clearCache() {
+        cache.evictAll();
+    }
+
+    private static String cacheKey(String content, int size) {
+        return size + ":" + content;
+    }
 }
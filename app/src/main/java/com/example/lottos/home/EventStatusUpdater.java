@@ -2,8 +2,9 @@ package com.example.lottos.home;
 
 import android.util.Log;
 
+import com.example.lottos.EventRepository;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 
@@ -21,7 +22,7 @@ import com.google.firebase.firestore.FirebaseFirestore;
 public class EventStatusUpdater {
 
     private static final String TAG = "EventStatusUpdater";
-    private final CollectionReference eventsRef;
+    private final EventRepository repo;
 
     /**
      * Constructs an EventStatusUpdater with a provided FirebaseFirestore instance.
@@ -29,7 +30,7 @@ public class EventStatusUpdater {
      * @param db The FirebaseFirestore instance to use for database operations.
      */
     public EventStatusUpdater(FirebaseFirestore db) {
-        this.eventsRef = db.collection("open events");
+        this.repo = new EventRepository(db);
     }
 
     /**
@@ -46,36 +47,51 @@ public class EventStatusUpdater {
          * @param errorMessage A message describing the failure.
          */
         void onUpdateFailure(String errorMessage);
+        /**
+         * Called before {@link #onUpdateSuccess(int)} with the number of documents that were
+         * read, for callers that record the cost of the run.
+         * @param scannedCount The number of event documents examined.
+         */
+        default void onScanned(int scannedCount) {}
+        /**
+         * Called for each event whose status is being changed, so callers can update what they display.
+         * @param eventId The ID of the event.
+         * @param isOpen The event's new open status.
+         */
+        default void onStatusChanged(String eventId, boolean isOpen) {}
     }
 
     /**
      * Default constructor that initializes its own connection to Firestore.
      */
     public EventStatusUpdater() {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        eventsRef = db.collection("open events");
+        this.repo = new EventRepository(FirebaseFirestore.getInstance());
     }
 
 
     /**
      * Initiates the process of checking and updating the status of all events.
      * It fetches all documents, compares their registration deadline with the current time,
-     * and updates the 'IsOpen' field if it's inconsistent.
+     * and updates the 'IsOpen' field if it's inconsistent. The read is shared with the home
+     * feed when both run at once.
      *
      * @param listener The listener to be notified of the operation's success or failure.
      */
     public void updateEventStatuses(UpdateListener listener) {
 
-        eventsRef.get().addOnSuccessListener(querySnapshot -> {
+        repo.readAllEvents().addOnSuccessListener(querySnapshot -> {
             if (querySnapshot.isEmpty()) {
+                listener.onScanned(0);
                 listener.onUpdateSuccess(0);
                 return;
             }
 
             Timestamp nowTs = Timestamp.now();
             int updated = 0;
+            int scanned = 0;
 
             for (DocumentSnapshot doc : querySnapshot) {
+                scanned++;
 
                 Timestamp registerEnd = doc.getTimestamp("registerEndTime");
                 if (registerEnd == null) continue;
@@ -84,13 +100,16 @@ public class EventStatusUpdater {
                 Boolean current = doc.getBoolean("IsOpen");
 
                 if (current == null || current != shouldBeOpen) {
-                    doc.getReference().update("IsOpen", shouldBeOpen)
-                            .addOnFailureListener(e ->
-                                    Log.e(TAG, "Failed updating event " + doc.getId(), e));
+                    Task<Void> write = doc.getReference().update("IsOpen", shouldBeOpen);
+                    write.addOnSuccessListener(v -> repo.invalidateEvent(doc.getId()));
+                    write.addOnFailureListener(e ->
+                            Log.e(TAG, "Failed updating event " + doc.getId(), e));
                     updated++;
+                    listener.onStatusChanged(doc.getId(), shouldBeOpen);
                 }
             }
 
+            listener.onScanned(scanned);
             listener.onUpdateSuccess(updated);
 
         }).addOnFailureListener(e -> {
@@ -20,10 +20,16 @@ import com.example.lottos.EventListAdapter;
 import com.example.lottos.R;
 import com.example.lottos.databinding.FragmentHomeScreenBinding;
 import com.example.lottos.events.EntrantEventManager;
+import com.example.lottos.organizer.DeclineQueue;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A Fragment representing the main home screen of the application.
@@ -32,7 +38,10 @@ import java.util.List;
  * <ul>
  *     <li>Differentiating between an Admin and a regular User to tailor the UI and data presentation.</li>
  *     <li>Initiating background tasks to automatically update the "IsOpen" status of events based on their deadlines.</li>
- *     <li>Triggering a global "sweep" to handle users who did not respond to event selections in time.</li>
+ *     <li>Triggering a global "sweep" to handle users who did not respond to event selections in time.
+ *         Both tasks go through a {@link MaintenanceCoordinator}, so only one client runs each per interval.
+ *         They run in the background while the event list loads, and status changes are patched into
+ *         the list once it is shown.</li>
  *     <li>Displaying a list of events (all events for admins, open events for regular users) in a RecyclerView.</li>
  *     <li>Providing UI for filtering events by keywords and date ranges.</li>
  *     <li>Handling navigation to other parts of the application, such as user profiles, notifications, and event details.</li>
@@ -43,6 +52,7 @@ public class HomeScreen extends Fragment {
     private FragmentHomeScreenBinding binding;
     private EventStatusUpdater eventUpdater;
     private UserStatusUpdater userUpdater;
+    private MaintenanceCoordinator maintenance;
     private EntrantEventManager manager;
     private String userName;
     private boolean isAdmin = false;
@@ -56,6 +66,9 @@ public class HomeScreen extends Fragment {
     private final List<EventListAdapter.EventItem> eventItems = new ArrayList<>();
     private EventListAdapter adapter;
 
+    /** The minimum time between two runs of each maintenance job across all clients. */
+    private static final long MAINTENANCE_INTERVAL_MS = 60 * 1000;
+
     // All possible keywords for filtering.
     private static final String[] FILTER_KEYWORDS = new String[] {
             "Sports",
@@ -114,50 +127,156 @@ public class HomeScreen extends Fragment {
 
         eventUpdater = new EventStatusUpdater();
         userUpdater = new UserStatusUpdater();
+        maintenance = new MaintenanceCoordinator();
         manager = new EntrantEventManager();
 
         setupRecycler();
         setupNavButtons();
 
-        eventUpdater.updateEventStatuses(new EventStatusUpdater.UpdateListener() {
-            @Override
-            public void onUpdateSuccess(int updatedCount) {
-                Log.d("HomeScreen", "eventUpdater.onUpdateSuccess, updatedCount=" + updatedCount);
-                runSelectionSweepThenLoadEvents();
-            }
+        // The feed does not depend on maintenance, so it is shown first and patched afterwards.
+        loadEventsBasedOnRole();
+        runEventStatusUpdate();
+        runSelectionSweep();
+    }
 
-            @Override
-            public void onUpdateFailure(String errorMessage) {
-                Log.d("HomeScreen", "eventUpdater.onUpdateFailure: " + errorMessage);
-                Toast.makeText(getContext(),
-                        "Status update failed: " + errorMessage,
-                        Toast.LENGTH_SHORT).show();
-                runSelectionSweepThenLoadEvents();
-            }
-        });
+    /**
+     * Updates the open status of events in the background, if no other client has done so
+     * within the maintenance interval, and patches any changed events into the displayed list.
+     */
+    private void runEventStatusUpdate() {
+        Map<String, Boolean> changes = new HashMap<>();
+
+        maintenance.runIfDue(MaintenanceCoordinator.EVENT_STATUS_JOB, MAINTENANCE_INTERVAL_MS,
+                reporter -> eventUpdater.updateEventStatuses(new EventStatusUpdater.UpdateListener() {
+                    private int scanned;
+
+                    @Override
+                    public void onScanned(int scannedCount) {
+                        scanned = scannedCount;
+                    }
+
+                    @Override
+                    public void onStatusChanged(String eventId, boolean isOpen) {
+                        changes.put(eventId, isOpen);
+                    }
+
+                    @Override
+                    public void onUpdateSuccess(int updatedCount) {
+                        reporter.onComplete(scanned, updatedCount);
+                    }
+
+                    @Override
+                    public void onUpdateFailure(String errorMessage) {
+                        reporter.onFailure(errorMessage);
+                    }
+                }),
+                new MaintenanceCoordinator.RunListener() {
+                    @Override
+                    public void onRan(int scanned, int written) {
+                        Log.d("HomeScreen", "eventUpdater ran, scanned=" + scanned + ", updated=" + written);
+                        patchEventStatuses(changes);
+                    }
+
+                    @Override
+                    public void onSkipped() {
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        Log.d("HomeScreen", "eventUpdater.onUpdateFailure: " + errorMessage);
+                        if (getContext() == null) return;
+                        Toast.makeText(getContext(),
+                                "Status update failed: " + errorMessage,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
     }
 
     /**
-     * Chains the global user sweep operation to run after event statuses are updated,
-     * and then proceeds to load the event list.
+     * Runs the global user sweep in the background, if no other client has run it within the
+     * maintenance interval. The sweep only changes selection lists, which the feed does not show.
+     * It first processes declines whose own flush never ran, for example because the declining
+     * app was closed, so their replacements are promoted before expired selections are cancelled.
      */
-    private void runSelectionSweepThenLoadEvents() {
-        userUpdater.sweepExpiredSelectedUsers(new UserStatusUpdater.UpdateListener() {
-            @Override
-            public void onUpdateSuccess(int updatedCount) {
-                Log.d("HomeScreen", "Sweep success. Affected users: " + updatedCount);
-                loadEventsBasedOnRole();
+    private void runSelectionSweep() {
+        maintenance.runIfDue(MaintenanceCoordinator.SELECTION_SWEEP_JOB, MAINTENANCE_INTERVAL_MS,
+                reporter -> DeclineQueue.getInstance().flushStale(() ->
+                        userUpdater.sweepExpiredSelectedUsers(new UserStatusUpdater.UpdateListener() {
+                            private int scanned;
+
+                            @Override
+                            public void onScanned(int scannedCount) {
+                                scanned = scannedCount;
+                            }
+
+                            @Override
+                            public void onUpdateSuccess(int updatedCount) {
+                                reporter.onComplete(scanned, updatedCount);
+                            }
+
+                            @Override
+                            public void onUpdateFailure(String errorMessage) {
+                                reporter.onFailure(errorMessage);
+                            }
+                        })),
+                new MaintenanceCoordinator.RunListener() {
+                    @Override
+                    public void onRan(int scanned, int written) {
+                        Log.d("HomeScreen", "Sweep success. Scanned events: " + scanned
+                                + ", affected users: " + written);
+                    }
+
+                    @Override
+                    public void onSkipped() {
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        Log.e("HomeScreen", "Sweep FAILED: " + errorMessage);
+                        if (getContext() == null) return;
+                        Toast.makeText(getContext(),
+                                "Selection cleanup failed: " + errorMessage,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    /**
+     * Applies open status changes made by the background status update to the events already
+     * loaded, keeping the active filters. Entrants only see open events, so closed events are
+     * removed from their feed, and the feed is reloaded if an event it does not hold has opened.
+     * @param changes The new open status of each changed event, by event ID.
+     */
+    private void patchEventStatuses(Map<String, Boolean> changes) {
+        if (binding == null || changes.isEmpty()) return;
+
+        Set<String> missing = new HashSet<>(changes.keySet());
+        boolean patched = false;
+
+        for (Iterator<EntrantEventManager.EventModel> it = allEvents.iterator(); it.hasNext(); ) {
+            EntrantEventManager.EventModel evt = it.next();
+            Boolean open = changes.get(evt.id);
+            if (open == null) continue;
+            missing.remove(evt.id);
+            if (evt.isOpen == open) continue;
+
+            if (!open && !isAdmin) {
+                it.remove();
+            } else {
+                evt.isOpen = open;
             }
+            patched = true;
+        }
 
-            @Override
-            public void onUpdateFailure(String errorMessage) {
-                Log.e("HomeScreen", "Sweep FAILED: " + errorMessage);
-                Toast.makeText(getContext(),
-                        "Selection cleanup failed: " + errorMessage,
-                        Toast.LENGTH_SHORT).show();
-                loadEventsBasedOnRole();
+        if (!isAdmin) {
+            for (String id : missing) {
+                if (changes.get(id)) {
+                    loadEventsBasedOnRole();
+                    return;
+                }
             }
-        });
+        }
+        if (patched) applyAllFiltersAndUpdate();
     }
 
     /**
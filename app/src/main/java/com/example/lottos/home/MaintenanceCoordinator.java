@@ -0,0 +1,226 @@
+package com.example.lottos.home;
+
+import android.util.Log;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Makes sure each database-wide maintenance job runs on at most one client per interval.
+ *
+ * Role: Every client that opens the home screen used to run the event status update and the
+ * selection sweep over the whole database, so busy periods repeated the same scans many times a
+ * minute and raced on the same writes. Before running a job, this class takes a lease on the
+ * job's document in the {@link #COLLECTION} collection:
+ * <ul>
+ *     <li>A transaction reads the lease and takes it only if no other client holds an unexpired
+ *         lease and the job has not started within its interval. Every other client skips the job.</li>
+ *     <li>The lease expires on its own after {@link #LEASE_MS}, so a client that is closed
+ *         mid-run does not block the job for good.</li>
+ *     <li>When the job finishes, the lease is released and the run's metrics are recorded on
+ *         the same document: duration, documents scanned, documents written and any error.</li>
+ * </ul>
+ * Lease times come from the client's clock, so clients with badly skewed clocks may run a job
+ * more often than its interval, but never two at once while the lease is valid.
+ */
+public class MaintenanceCoordinator {
+
+    private static final String TAG = "MaintenanceCoordinator";
+
+    /** The collection holding one lease document per maintenance job. */
+    public static final String COLLECTION = "maintenance";
+
+    /** The job that opens and closes event registration, run by {@link EventStatusUpdater}. */
+    public static final String EVENT_STATUS_JOB = "eventStatus";
+    /** The job that cancels unanswered selections, run by {@link UserStatusUpdater}. */
+    public static final String SELECTION_SWEEP_JOB = "selectionSweep";
+
+    /** How long a lease is held before other clients may take over the job, in milliseconds. */
+    static final long LEASE_MS = 5 * 60 * 1000;
+
+    private final FirebaseFirestore db;
+    private final LongSupplier clock;
+    private final String runnerId = UUID.randomUUID().toString();
+
+    /**
+     * A maintenance job that reports what it did.
+     */
+    public interface Job {
+        /**
+         * Runs the job once.
+         * @param reporter The reporter to call exactly once when the job finishes.
+         */
+        void run(Reporter reporter);
+    }
+
+    /**
+     * Receives the outcome of a {@link Job}.
+     */
+    public interface Reporter {
+        /**
+         * @param scanned The number of documents the job read.
+         * @param written The number of documents the job wrote.
+         */
+        void onComplete(int scanned, int written);
+        /**
+         * @param errorMessage A message describing the failure.
+         */
+        void onFailure(String errorMessage);
+    }
+
+    /**
+     * A callback interface to report whether and how a job ran.
+     */
+    public interface RunListener {
+        /**
+         * Called when this client ran the job.
+         * @param scanned The number of documents the job read.
+         * @param written The number of documents the job wrote.
+         */
+        void onRan(int scanned, int written);
+        /**
+         * Called when the job was skipped because another client holds the lease or it ran recently.
+         */
+        void onSkipped();
+        /**
+         * Called when the lease could not be read or the job failed.
+         * @param errorMessage A message describing the failure.
+         */
+        void onFailure(String errorMessage);
+    }
+
+    /**
+     * Default constructor that initializes its own connection to Firestore.
+     */
+    public MaintenanceCoordinator() {
+        this(FirebaseFirestore.getInstance(), System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a MaintenanceCoordinator with explicit dependencies.
+     * @param db The FirebaseFirestore instance to use for the lease documents.
+     * @param clock The source of the current time, in milliseconds.
+     */
+    public MaintenanceCoordinator(FirebaseFirestore db, LongSupplier clock) {
+        this.db = db;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs a job if no other client is running it and it has not started within its interval.
+     *
+     * @param jobName The job, such as {@link #EVENT_STATUS_JOB}. Also the ID of its lease document.
+     * @param intervalMs The minimum time between the starts of two runs, in milliseconds.
+     * @param job The job to run once the lease is taken.
+     * @param listener The listener to be notified of the outcome.
+     */
+    public void runIfDue(String jobName, long intervalMs, Job job, RunListener listener) {
+        DocumentReference lease = db.collection(COLLECTION).document(jobName);
+
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snap = transaction.get(lease);
+                    long now = clock.getAsLong();
+
+                    if (snap.exists() && !canAcquire(snap.getTimestamp("leaseUntil"),
+                            snap.getTimestamp("lastRunAt"), now, intervalMs)) {
+                        return false;
+                    }
+
+                    Map<String, Object> taken = new HashMap<>();
+                    taken.put("holder", runnerId);
+                    taken.put("leaseUntil", toTimestamp(now + LEASE_MS));
+                    taken.put("lastRunAt", toTimestamp(now));
+                    transaction.set(lease, taken, SetOptions.merge());
+                    return true;
+
+                }).addOnSuccessListener(acquired -> {
+                    if (!acquired) {
+                        Log.d(TAG, jobName + " skipped; another client ran it recently");
+                        listener.onSkipped();
+                        return;
+                    }
+                    runAndRelease(lease, jobName, job, listener);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Could not take lease for " + jobName, e);
+                    listener.onFailure("Could not schedule " + jobName + ".");
+                });
+    }
+
+    /**
+     * Checks whether a job's lease may be taken.
+     *
+     * @param leaseUntil When the current lease expires, or null if there is none.
+     * @param lastRunAt When the job last started, or null if it never has.
+     * @param nowMs The current time, in milliseconds.
+     * @param intervalMs The minimum time between the starts of two runs, in milliseconds.
+     * @return true if no lease is held and the interval has passed.
+     */
+    static boolean canAcquire(Timestamp leaseUntil, Timestamp lastRunAt, long nowMs, long intervalMs) {
+        if (leaseUntil != null && toMillis(leaseUntil) > nowMs) return false;
+        return lastRunAt == null || nowMs - toMillis(lastRunAt) >= intervalMs;
+    }
+
+    private void runAndRelease(DocumentReference lease, String jobName, Job job, RunListener listener) {
+        long started = clock.getAsLong();
+
+        job.run(new Reporter() {
+            @Override
+            public void onComplete(int scanned, int written) {
+                Map<String, Object> metrics = new HashMap<>();
+                metrics.put("lastScanned", scanned);
+                metrics.put("lastWritten", written);
+                metrics.put("lastError", null);
+                release(lease, jobName, started, metrics);
+                listener.onRan(scanned, written);
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                Map<String, Object> metrics = new HashMap<>();
+                metrics.put("lastError", errorMessage);
+                release(lease, jobName, started, metrics);
+                listener.onFailure(errorMessage);
+            }
+        });
+    }
+
+    /**
+     * Records a run's metrics and gives up the lease, unless it has expired and been taken by
+     * another client in the meantime.
+     */
+    private void release(DocumentReference lease, String jobName, long started, Map<String, Object> metrics) {
+        long finished = clock.getAsLong();
+        metrics.put("lastDurationMs", finished - started);
+        metrics.put("lastFinishedAt", toTimestamp(finished));
+        metrics.put("runs", FieldValue.increment(1));
+
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot snap = transaction.get(lease);
+                    if (runnerId.equals(snap.getString("holder"))) {
+                        metrics.put("leaseUntil", toTimestamp(finished));
+                    }
+                    transaction.set(lease, metrics, SetOptions.merge());
+                    return null;
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Could not release lease for " + jobName, e));
+    }
+
+    private static Timestamp toTimestamp(long millis) {
+        return new Timestamp(new Date(millis));
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+        return timestamp.toDate().getTime();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.lottos.home;
 
 import android.util.Log;
 
+import com.example.lottos.EventRepository;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
@@ -31,6 +32,7 @@ public class UserStatusUpdater {
     private static final String TAG = "UserStatusUpdater";
 
     private final FirebaseFirestore db;
+    private final EventRepository repo;
     private final CollectionReference eventsRef;
     private final CollectionReference notificationsRef;
 
@@ -39,6 +41,7 @@ public class UserStatusUpdater {
      */
     public UserStatusUpdater() {
         this.db = FirebaseFirestore.getInstance();
+        this.repo = new EventRepository(db);
         this.eventsRef = db.collection("open events");
         this.notificationsRef = db.collection("notification");
     }
@@ -50,6 +53,7 @@ public class UserStatusUpdater {
      */
     public UserStatusUpdater(FirebaseFirestore db) {
         this.db = db;
+        this.repo = new EventRepository(db);
         this.eventsRef = db.collection("open events");
         this.notificationsRef = db.collection("notification");
     }
@@ -68,6 +72,12 @@ public class UserStatusUpdater {
          * @param errorMessage A message describing the failure.
          */
         void onUpdateFailure(String errorMessage);
+        /**
+         * Called before {@link #onUpdateSuccess(int)} with the number of documents that were
+         * read, for callers that record the cost of the run.
+         * @param scannedCount The number of expired event documents examined.
+         */
+        default void onScanned(int scannedCount) {}
     }
 
     /**
@@ -96,6 +106,7 @@ public class UserStatusUpdater {
                 .get()
                 .addOnSuccessListener((QuerySnapshot querySnapshot) -> {
                     Log.d(TAG, "Expired events found: " + querySnapshot.size());
+                    if (listener != null) listener.onScanned(querySnapshot.size());
 
                     if (querySnapshot.isEmpty()) {
                         if (listener != null) listener.onUpdateSuccess(0);
@@ -104,6 +115,7 @@ public class UserStatusUpdater {
 
                     WriteBatch batch = db.batch();
                     int affectedUsersCount = 0;
+                    List<String> changedEvents = new ArrayList<>();
 
                     for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
                         DocumentReference eventDocRef = doc.getReference();
@@ -125,6 +137,7 @@ public class UserStatusUpdater {
 
                         Log.d(TAG, "Event " + doc.getId() +
                                 " has " + selectedUsers.size() + " selected users to move.");
+                        changedEvents.add(doc.getId());
 
 
                         batch.update(
@@ -172,6 +185,9 @@ public class UserStatusUpdater {
 
                     batch.commit()
                             .addOnSuccessListener(unused -> {
+                                for (String eventId : changedEvents) {
+                                    repo.invalidateEvent(eventId);
+                                }
                                 Log.d(TAG, "Sweep success. Moved " + finalAffectedUsers +
                                         " users from selected -> cancelled.");
                                 if (listener != null) listener.onUpdateSuccess(finalAffectedUsers);
@@ -14,7 +14,10 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 
+import com.example.lottos.ViewSubscriptions;
 import com.example.lottos.databinding.FragmentSendNotificationScreenBinding;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -50,6 +53,7 @@ public class SendNotificationScreen extends Fragment {
     private ArrayAdapter<String> eventAdapter;
     private final List<String> groups = List.of("waitList", "selectedList", "cancelledList");
     private ArrayAdapter<String> groupAdapter;
+    private ViewSubscriptions subscriptions;
 
     /**
      * Called to have the fragment instantiate its user interface view.
@@ -77,6 +81,7 @@ public class SendNotificationScreen extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        subscriptions = ViewSubscriptions.of(getViewLifecycleOwner());
 
         userName = SendNotificationScreenArgs.fromBundle(getArguments()).getUserName();
         db = FirebaseFirestore.getInstance();
@@ -120,7 +125,7 @@ public class SendNotificationScreen extends Fragment {
         }
 
         query.get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
+                .addOnSuccessListener(subscriptions.success(queryDocumentSnapshots -> {
                     eventIds.clear();
                     eventNames.clear();
 
@@ -145,11 +150,10 @@ public class SendNotificationScreen extends Fragment {
                     }
 
                     eventAdapter.notifyDataSetChanged();
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("Firestore", "Failed loading events", e);
-                    Toast.makeText(requireContext(), "Error loading events.", Toast.LENGTH_SHORT).show();
-                });
+                }))
+                .addOnFailureListener(e -> Log.e("Firestore", "Failed loading events", e))
+                .addOnFailureListener(subscriptions.failure(e ->
+                        Toast.makeText(requireContext(), "Error loading events.", Toast.LENGTH_SHORT).show()));
     }
 
 
@@ -178,6 +182,40 @@ public class SendNotificationScreen extends Fragment {
 
         binding.btnSendMessage.setEnabled(false);
 
+        sendToGroup(db, eventId, eventName, group, message, isAdmin ? "Admin" : userName,
+                subscriptions.success(sentCount -> {
+                    Toast.makeText(requireContext(),
+                            "Message sent to " + sentCount + " users.",
+                            Toast.LENGTH_SHORT
+                    ).show();
+
+                    binding.etMessageContent.setText("");
+                    binding.btnSendMessage.setEnabled(true);
+                }),
+                subscriptions.failure(e -> {
+                    Toast.makeText(requireContext(), e.getMessage(), Toast.LENGTH_SHORT).show();
+                    binding.btnSendMessage.setEnabled(true);
+                }));
+    }
+
+    /**
+     * Reads the members of a group of an event and writes a notification to each of them.
+     * This is static so that the read and the writes hold no reference to the screen; only the
+     * result listeners do, and those are bound to the view's lifecycle. The messages are
+     * therefore sent even if the screen is left while the group is being read.
+     *
+     * @param db The Firestore instance to use.
+     * @param eventId The ID of the event.
+     * @param eventName The name of the event, shown in each notification.
+     * @param group The list of the event to send to, such as "waitList".
+     * @param message The message content.
+     * @param sender The name shown as the sender.
+     * @param onSent Called with the number of notifications written.
+     * @param onFailure Called with an exception whose message can be shown to the user.
+     */
+    private static void sendToGroup(FirebaseFirestore db, String eventId, String eventName, String group,
+                                    String message, String sender,
+                                    OnSuccessListener<Integer> onSent, OnFailureListener onFailure) {
         db.collection("open events")
                 .document(eventId)
                 .get()
@@ -185,16 +223,14 @@ public class SendNotificationScreen extends Fragment {
                     Map<String, Object> groupData = (Map<String, Object>) doc.get(group);
 
                     if (groupData == null) {
-                        Toast.makeText(requireContext(), "This group does not exist for the selected event.", Toast.LENGTH_SHORT).show();
-                        binding.btnSendMessage.setEnabled(true);
+                        onFailure.onFailure(new Exception("This group does not exist for the selected event."));
                         return;
                     }
 
                     List<String> users = (List<String>) groupData.get("users");
 
                     if (users == null || users.isEmpty()) {
-                        Toast.makeText(requireContext(), "No users in this group.", Toast.LENGTH_SHORT).show();
-                        binding.btnSendMessage.setEnabled(true);
+                        onFailure.onFailure(new Exception("No users in this group."));
                         return;
                     }
 
@@ -204,7 +240,7 @@ public class SendNotificationScreen extends Fragment {
                         notif.put("content", message);
                         notif.put("eventName", eventName);
                         notif.put("receiver", receiver);
-                        notif.put("sender", isAdmin ? "Admin" : userName);
+                        notif.put("sender", sender);
                         notif.put("timestamp", FieldValue.serverTimestamp());
 
                         db.collection("notification")
@@ -214,18 +250,11 @@ public class SendNotificationScreen extends Fragment {
                         successCount++;
                     }
 
-                    Toast.makeText(requireContext(),
-                            "Message sent to " + successCount + " users.",
-                            Toast.LENGTH_SHORT
-                    ).show();
-
-                    binding.etMessageContent.setText("");
-                    binding.btnSendMessage.setEnabled(true);
-
+                    onSent.onSuccess(successCount);
                 })
                 .addOnFailureListener(e -> {
-                    Toast.makeText(requireContext(), "Error sending message.", Toast.LENGTH_SHORT).show();
-                    binding.btnSendMessage.setEnabled(true);
+                    Log.e("Firestore", "Failed reading group " + group + " of " + eventId, e);
+                    onFailure.onFailure(new Exception("Error sending message.", e));
                 });
     }
 
@@ -16,16 +16,16 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 
+import com.example.lottos.PosterVariant;
 import com.example.lottos.databinding.FragmentCreateEventScreenBinding;
 import com.example.lottos.entities.Event;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A Fragment that provides a form for organizers to create new events.
@@ -37,7 +37,7 @@ import java.util.List;
  *     <li>Using a helper class to facilitate date and time selection.</li>
  *     <li>Allowing the user to select a poster image from their device's gallery.</li>
  *     <li>Validating all user inputs to ensure data integrity.</li>
- *     <li>Uploading the selected poster image to Firebase Storage if one is provided.</li>
+ *     <li>Uploading resized variants of the selected poster image to Firebase Storage if one is provided.</li>
  *     <li>Using the OrganizerEventManager to create the event document in Firestore.</li>
  *     <li>Handling navigation to and from the screen.</li>
  * </ul>
@@ -278,7 +278,9 @@ public class CreateEventScreen extends Fragment {
 
     /**
      * Uploads the selected poster image to Firebase Storage and then proceeds to create the event.
-     * The image is stored in a path that includes the event's unique ID.
+     * The image is resized into thumbnail, card, and full variants off the UI thread, and the
+     * URL of each is stored on the event. Uploads are retried and resumed by the
+     * {@link PosterUploadManager}, and the create button shows their progress.
      *
      * @param event The Event object to be created.
      * @param regEnd The registration end time.
@@ -288,19 +290,38 @@ public class CreateEventScreen extends Fragment {
      */
     private void uploadPosterAndCreate(Event event, LocalDateTime regEnd, Integer waitCap, List<String> filterWords, boolean geolocationRequired) {
 
-        String path = "event_posters/" + event.getEventId() + ".jpg";
-        StorageReference ref = FirebaseStorage.getInstance().getReference(path);
-
-        ref.putFile(selectedPosterUri)
-                .addOnSuccessListener(task ->
-                        ref.getDownloadUrl().addOnSuccessListener(url -> {
-                            event.setPosterUrl(url.toString());
-                            finishCreate(event, regEnd, waitCap, filterWords, geolocationRequired);
-                        }))
-                .addOnFailureListener(e ->
+        CharSequence buttonLabel = binding.btnCreateEvent.getText();
+        binding.btnCreateEvent.setEnabled(false);
+
+        new PosterUploader(requireContext()).upload(selectedPosterUri, event.getEventId(),
+                new PosterUploader.UploadCallback() {
+                    @Override
+                    public void onProgress(long bytesUploaded, long totalBytes) {
+                        if (binding == null || totalBytes <= 0) return;
+                        binding.btnCreateEvent.setText("Uploading " + (int) (bytesUploaded * 100 / totalBytes) + "%");
+                    }
+
+                    @Override
+                    public void onSuccess(Map<String, Object> posterFields) {
+                        if (!isAdded() || binding == null) return;
+                        binding.btnCreateEvent.setText(buttonLabel);
+                        binding.btnCreateEvent.setEnabled(true);
+                        event.setPosterUrl((String) posterFields.get(PosterVariant.FULL.field));
+                        event.setPosterCardUrl((String) posterFields.get(PosterVariant.CARD.field));
+                        event.setPosterThumbUrl((String) posterFields.get(PosterVariant.THUMB.field));
+                        finishCreate(event, regEnd, waitCap, filterWords, geolocationRequired);
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        if (!isAdded() || binding == null) return;
+                        binding.btnCreateEvent.setText(buttonLabel);
+                        binding.btnCreateEvent.setEnabled(true);
                         Toast.makeText(requireContext(),
-                                "Poster upload failed: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show());
+                                "Poster upload failed: " + errorMessage,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
     }
 
     /**
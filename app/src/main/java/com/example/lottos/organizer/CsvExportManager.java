@@ -4,11 +4,22 @@ package com.example.lottos.organizer;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+
 import androidx.core.content.FileProvider;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,14 +27,44 @@ import java.util.Map;
  * Manages the creation and sharing of CSV files for event data.
  *
  * Role: This class is a utility responsible for taking raw event data,
- * extracting a specific list of users (e.g., enrolled users), formatting this
- * data into a CSV string, and saving it to a file in the app's external
- * storage. After creating the file, it automatically triggers a system "Share"
- * intent, allowing the user to send the CSV file to other apps like email or
- * cloud storage.
+ * extracting one of the event's user lists (waitlist, selected, not selected,
+ * cancelled, or enrolled), and streaming it to a CSV file in the app's external
+ * storage. The file starts with the event name, organizer and number of users,
+ * followed by the list itself. Rows are written through a {@link CsvWriter} as they are produced, and
+ * profile fields are joined by fetching user documents in small {@code whereIn}
+ * batches, so memory use does not grow with the size of the list. Exports run on
+ * the shared {@link ExportJobRunner}, which reports progress, supports cancellation,
+ * and only moves the file into place once it is complete. After creating
+ * the file, it automatically triggers a system "Share" intent, allowing the user
+ * to send the CSV file to other apps like email or cloud storage.
  */
 public class CsvExportManager {
 
+    /** The event field holding the waitlist. */
+    public static final String WAIT_LIST = "waitList";
+    /** The event field holding the users selected by the lottery. */
+    public static final String SELECTED_LIST = "selectedList";
+    /** The event field holding the users not selected by the lottery. */
+    public static final String NOT_SELECTED_LIST = "notSelectedList";
+    /** The event field holding the users who cancelled or declined. */
+    public static final String CANCELLED_LIST = "cancelledList";
+    /** The event field holding the users who accepted their invitation. */
+    public static final String ENROLLED_LIST = "enrolledList";
+
+    /**
+     * The number of user documents fetched per {@code whereIn} query when joining profile fields.
+     */
+    static final int PROFILE_BATCH_SIZE = 10;
+
+    private static final Map<String, String> LIST_LABELS = new HashMap<>();
+    static {
+        LIST_LABELS.put(WAIT_LIST, "Waitlisted");
+        LIST_LABELS.put(SELECTED_LIST, "Selected");
+        LIST_LABELS.put(NOT_SELECTED_LIST, "Not Selected");
+        LIST_LABELS.put(CANCELLED_LIST, "Cancelled");
+        LIST_LABELS.put(ENROLLED_LIST, "Enrolled");
+    }
+
     /**
      * A callback interface to report the outcome of the CSV export operation.
      */
@@ -34,68 +75,198 @@ public class CsvExportManager {
          */
         void onSuccess(String path);
         /**
-         * Called when an error occurs during the export process.
+         * Called when an error occurs during the export process, or when it is cancelled.
          * @param errorMessage A message describing the failure.
          */
         void onFailure(String errorMessage);
+        /**
+         * Called periodically while the export is being written.
+         * @param exported The number of users written so far.
+         * @param total The total number of users to write.
+         */
+        void onProgress(int exported, int total);
     }
 
     private final Context context;
+    private final FirebaseFirestore db;
+    private final ExportJobRunner runner;
 
     /**
      * Constructs a new CsvExportManager.
      * @param context The Android context, required for file operations and starting activities.
      */
     public CsvExportManager(Context context) {
+        this(context, FirebaseFirestore.getInstance(), ExportJobRunner.getInstance());
+    }
+
+    /**
+     * Constructs a new CsvExportManager with explicit dependencies.
+     * @param context The Android context, required for file operations and starting activities.
+     * @param db The Firestore instance used to look up user profiles.
+     * @param runner The runner that executes exports in the background.
+     */
+    public CsvExportManager(Context context, FirebaseFirestore db, ExportJobRunner runner) {
         this.context = context;
+        this.db = db;
+        this.runner = runner;
     }
 
     /**
-     * Exports the list of enrolled users for a given event to a CSV file.
-     * It extracts the enrolled users, builds a CSV-formatted string, saves it to a file,
-     * and then initiates a share action.
+     * Exports the list of enrolled users for a given event to a CSV file,
+     * including each user's profile details.
      *
      * @param eventData A map containing the data for the event, including the 'enrolledList'.
      * @param callback The callback to be invoked with the result of the operation.
+     * @return A handle to cancel or detach from the export, or null if there was nothing to export.
      */
-    public void exportEnrolledUsers(Map<String, Object> eventData, CsvExportCallback callback) {
-        // Extract enrolled users from event data
-        Map<String, Object> enrolled = (Map<String, Object>) eventData.get("enrolledList");
-        List<String> enrolledUsers = new ArrayList<>();
+    public ExportJobRunner.JobHandle exportEnrolledUsers(Map<String, Object> eventData, CsvExportCallback callback) {
+        return exportUserList(eventData, ENROLLED_LIST, true, callback);
+    }
 
-        if (enrolled != null && enrolled.get("users") instanceof List) {
-            enrolledUsers = (List<String>) enrolled.get("users");
-        }
+    /**
+     * Exports one of an event's user lists to a CSV file in the background through the
+     * {@link ExportJobRunner}, then initiates a share action. If the same list of the same
+     * event is already being exported, the callback is attached to that export instead.
+     * The callback is invoked on the main thread.
+     *
+     * @param eventData A map containing the data for the event.
+     * @param listKey The list to export, e.g. {@link #WAIT_LIST} or {@link #SELECTED_LIST}.
+     * @param includeProfiles Whether to add each user's display name, email, and phone number.
+     * @param callback The callback to be invoked with the result of the operation.
+     * @return A handle to cancel or detach from the export, or null if there was nothing to export.
+     */
+    public ExportJobRunner.JobHandle exportUserList(Map<String, Object> eventData, String listKey,
+                                                    boolean includeProfiles, CsvExportCallback callback) {
+        List<String> users = extractUsers(eventData, listKey);
 
-        if (enrolledUsers.isEmpty()) {
-            callback.onFailure("No enrolled users to export.");
-            return;
+        if (users.isEmpty()) {
+            callback.onFailure("No users to export.");
+            return null;
         }
 
-        // Build the CSV content
-        StringBuilder sb = new StringBuilder();
-        sb.append("Event Name,").append("Organizer,").append("Total Enrolled\n");
-        sb.append(safe(eventData.get("eventName"))).append(",").append(safe(eventData.get("organizer"))).append(",").append(enrolledUsers.size()).append("\n\n");
-        sb.append("Enrolled Users\n");
-        for (String user : enrolledUsers) {
-            sb.append(user).append("\n");
+        String eventName = safe(eventData.get("eventName"));
+        String fileName = eventName.replaceAll("[^a-zA-Z0-9.-]", "_") + "_" + listKey + ".csv";
+        File file = new File(context.getExternalFilesDir(null), fileName);
+        String jobKey = "csv:" + eventName + ":" + listKey + ":" + includeProfiles;
+
+        return runner.submit(jobKey, file,
+                (tempFile, progress) -> writeUserList(tempFile, eventData, listKey, users, includeProfiles, progress),
+                new ExportJobRunner.JobListener() {
+                    @Override
+                    public void onProgress(int done, int total) {
+                        callback.onProgress(done, total);
+                    }
+
+                    @Override
+                    public void onComplete(File completed) {
+                        callback.onSuccess(completed.getAbsolutePath());
+                        shareCsvFile(completed);
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        callback.onFailure(errorMessage);
+                    }
+
+                    @Override
+                    public void onCancelled() {
+                        callback.onFailure("Export cancelled.");
+                    }
+                });
+    }
+
+    /**
+     * Streams a user list to a CSV file, after a summary of the event. Must be called from
+     * a background thread, because profile lookups block on Firestore.
+     *
+     * @param file The destination file.
+     * @param eventData The event document data, for the event name and organizer.
+     * @param listKey The list being exported, which names the total and the user section.
+     * @param users The usernames to export, in output order.
+     * @param includeProfiles Whether to join profile fields from the users collection.
+     * @param progress Receives the number of users written after each batch, and aborts
+     *                 the export if it has been cancelled.
+     * @throws Exception If a write or a Firestore lookup fails, or the export is cancelled.
+     */
+    void writeUserList(File file, Map<String, Object> eventData, String listKey, List<String> users,
+                       boolean includeProfiles, ExportJobRunner.Progress progress) throws Exception {
+        int total = users.size();
+        String label = LIST_LABELS.containsKey(listKey) ? LIST_LABELS.get(listKey) : listKey;
+
+        try (CsvWriter csv = new CsvWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+
+            csv.writeRow("Event Name", "Organizer", "Total " + label);
+            csv.writeRow(safe(eventData.get("eventName")), safe(eventData.get("organizer")), String.valueOf(total));
+            csv.writeRow();
+            csv.writeRow(label + " Users");
+            csv.writeRow(includeProfiles
+                    ? new String[] {"User Name", "Display Name", "Email", "Phone Number"}
+                    : new String[] {"User Name"});
+
+            for (int start = 0; start < total; start += PROFILE_BATCH_SIZE) {
+                progress.update(start, total);
+                List<String> batch = users.subList(start, Math.min(start + PROFILE_BATCH_SIZE, total));
+
+                if (includeProfiles) {
+                    writeProfileBatch(csv, batch);
+                } else {
+                    for (String user : batch) {
+                        csv.writeRow(user);
+                    }
+                }
+            }
+            progress.update(total, total);
         }
+    }
 
-        String fileName = safe(eventData.get("eventName")).replaceAll("[^a-zA-Z0-9.-]", "_") + "_enrolled.csv";
-        try {
-            File file = new File(context.getExternalFilesDir(null), fileName);
-            FileWriter writer = new FileWriter(file);
-            writer.append(sb.toString());
-            writer.flush();
-            writer.close();
-            callback.onSuccess(file.getAbsolutePath());
+    /**
+     * Fetches the profiles of one batch of users and writes a row for each, in list order.
+     * Users without a profile document are still written with empty profile fields.
+     */
+    private void writeProfileBatch(CsvWriter csv, List<String> batch) throws Exception {
+        QuerySnapshot snapshot = Tasks.await(db.collection("users")
+                .whereIn(FieldPath.documentId(), new ArrayList<>(batch))
+                .get());
 
-            // Trigger the share intent
-            shareCsvFile(file);
+        Map<String, Map<String, Object>> profiles = new HashMap<>();
+        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+            Object info = doc.get("userInfo");
+            if (info instanceof Map) {
+                profiles.put(doc.getId(), (Map<String, Object>) info);
+            }
+        }
 
-        } catch (IOException e) {
-            callback.onFailure("Export failed: " + e.getMessage());
+        for (String user : batch) {
+            Map<String, Object> info = profiles.get(user);
+            if (info == null) {
+                csv.writeRow(user, "", "", "");
+            } else {
+                // Profile edits only update "name", so "displayName" keeps the name given at registration.
+                Object name = info.get("name") != null ? info.get("name") : info.get("displayName");
+                csv.writeRow(user, safe(name), safe(info.get("email")),
+                        safe(info.get("phoneNumber")));
+            }
+        }
+    }
+
+    /**
+     * Reads the "users" array of one of the event's user lists. The 'not selected' list
+     * leaves out users who have since been promoted to the selected list.
+     *
+     * @param eventData The event document data.
+     * @param listKey The name of the list field.
+     * @return The usernames in the list, or an empty list if it is missing.
+     */
+    static List<String> extractUsers(Map<String, Object> eventData, String listKey) {
+        if (NOT_SELECTED_LIST.equals(listKey)) {
+            return OrganizerEventDetailsManager.remainingNotSelected(eventData);
+        }
+        Object list = eventData.get(listKey);
+        if (list instanceof Map && ((Map<?, ?>) list).get("users") instanceof List) {
+            return (List<String>) ((Map<?, ?>) list).get("users");
         }
+        return new ArrayList<>();
     }
 
     /**
@@ -126,7 +297,7 @@ public class CsvExportManager {
      * @param o The object to convert.
      * @return The string value of the object, or "" if the object is null.
      */
-    private String safe(Object o) {
+    private static String safe(Object o) {
         return o == null ? "" : String.valueOf(o);
     }
 }
@@ -0,0 +1,73 @@
+package com.example.lottos.organizer;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A small RFC 4180 CSV writer that streams rows to an underlying {@link Writer}.
+ *
+ * Role: Used by {@link CsvExportManager} so exports are written row by row instead of
+ * being assembled in memory first. Fields containing commas, quotes, or line breaks are
+ * quoted, and embedded quotes are doubled. Rows are terminated with CRLF as the RFC requires.
+ * Callers should wrap the target in a {@link java.io.BufferedWriter} so rows are flushed in chunks.
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private final Writer out;
+
+    /**
+     * Constructs a CsvWriter over the given writer.
+     * @param out The writer to write rows to. It is closed when this writer is closed.
+     */
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a single row. Null fields are written as empty values.
+     *
+     * @param fields The field values of the row.
+     * @throws IOException If the underlying writer fails.
+     */
+    public void writeRow(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.write(',');
+            out.write(escape(fields[i]));
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Escapes a single field for CSV output.
+     * The field is quoted only if it contains a comma, a double quote, a line break,
+     * or leading/trailing whitespace.
+     *
+     * @param field The raw field value.
+     * @return The escaped value, or "" if the field is null.
+     */
+    public static String escape(String field) {
+        if (field == null || field.isEmpty()) return "";
+
+        boolean needsQuotes = Character.isWhitespace(field.charAt(0))
+                || Character.isWhitespace(field.charAt(field.length() - 1));
+        for (int i = 0; i < field.length() && !needsQuotes; i++) {
+            char c = field.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) return field;
+
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
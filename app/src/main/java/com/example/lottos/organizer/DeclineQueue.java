@@ -0,0 +1,255 @@
+package com.example.lottos.organizer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.lottos.EventRepository;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects declined invitations per event and promotes their replacements in batches.
+ *
+ * Role: When many selected entrants decline around a deadline, running one promotion
+ * transaction per decline makes them all contend on the same event document, retrying and
+ * serializing. Instead:
+ * <ul>
+ *     <li>A decline is recorded as its own document in the event's {@link #PENDING_COLLECTION}
+ *         sub-collection, which does not touch the event document.</li>
+ *     <li>A flush of the event is scheduled {@link #WINDOW_MS} later. Declines recorded in the
+ *         meantime, on this device or any other, are picked up by the same flush.</li>
+ *     <li>Each flush runs one transaction that promotes replacements for every pending decline
+ *         through {@link OrganizerEventDetailsManager#promoteReplacements}, writes the promotion
+ *         notifications, and deletes the pending documents it handled. This is the only path
+ *         by which a decline changes the event's lists.</li>
+ * </ul>
+ * Flushes from different devices may overlap. Each one re-reads the pending documents inside its
+ * transaction and skips any that another flush has already removed, so no decline is processed
+ * twice. The scheduled flush only runs while the declining app is alive, so declines left pending
+ * when it closes are picked up by {@link #flushStale(Runnable)}, which the periodic selection
+ * sweep runs on whichever client holds its lease, or when the organizer opens the event.
+ */
+public class DeclineQueue {
+
+    private static final String TAG = "DeclineQueue";
+
+    /** The sub-collection of an event holding declines that have not been processed yet. */
+    public static final String PENDING_COLLECTION = "pending_declines";
+
+    /** How long declines are collected before they are processed together, in milliseconds. */
+    static final long WINDOW_MS = 2000;
+    /** The most declines processed in one transaction, which keeps it well within Firestore's write limit. */
+    static final int MAX_PER_FLUSH = 50;
+    /** The most pending declines {@link #flushStale(Runnable)} reads to find the events to flush. */
+    static final int MAX_STALE_SCAN = 500;
+
+    private static DeclineQueue instance;
+
+    private final FirebaseFirestore db;
+    private final EventRepository repo;
+    private final Scheduler scheduler;
+    private final Set<String> scheduled = new HashSet<>();
+
+    /**
+     * Runs flushes after a delay.
+     */
+    public interface Scheduler {
+        /**
+         * @param task The task to run.
+         * @param delayMs The delay before running it, in milliseconds.
+         */
+        void schedule(Runnable task, long delayMs);
+    }
+
+    /**
+     * Constructs a DeclineQueue that schedules flushes on the main thread.
+     * @param db The Firestore instance to use.
+     * @param repo The repository for accessing event documents.
+     */
+    public DeclineQueue(FirebaseFirestore db, EventRepository repo) {
+        this(db, repo, new Handler(Looper.getMainLooper())::postDelayed);
+    }
+
+    /**
+     * Constructs a DeclineQueue with explicit dependencies.
+     * @param db The Firestore instance to use.
+     * @param repo The repository for accessing event documents.
+     * @param scheduler The scheduler that delays flushes.
+     */
+    public DeclineQueue(FirebaseFirestore db, EventRepository repo, Scheduler scheduler) {
+        this.db = db;
+        this.repo = repo;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @return The process-wide queue.
+     */
+    public static synchronized DeclineQueue getInstance() {
+        if (instance == null) {
+            FirebaseFirestore db = FirebaseFirestore.getInstance();
+            instance = new DeclineQueue(db, new EventRepository(db));
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the document that records a user's pending decline of an event.
+     * @param eventId The ID of the event.
+     * @param userName The user who declined.
+     * @return The pending decline document.
+     */
+    public DocumentReference pendingDecline(String eventId, String userName) {
+        return repo.getEvent(eventId).collection(PENDING_COLLECTION).document(userName);
+    }
+
+    /**
+     * Builds the contents of a pending decline document.
+     * @param userName The user who declined.
+     * @return The document data.
+     */
+    public static Map<String, Object> pendingEntry(String userName) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("userName", userName);
+        entry.put("declinedAt", Timestamp.now());
+        return entry;
+    }
+
+    /**
+     * Schedules a flush of an event's pending declines after the collection window, unless
+     * one is already scheduled on this device.
+     * @param eventId The ID of the event.
+     */
+    public void schedule(String eventId) {
+        synchronized (scheduled) {
+            if (!scheduled.add(eventId)) return;
+        }
+        scheduler.schedule(() -> {
+            synchronized (scheduled) {
+                scheduled.remove(eventId);
+            }
+            flush(eventId, null);
+        }, WINDOW_MS);
+    }
+
+    /**
+     * Flushes every event that has pending declines, whichever device recorded them. Declines
+     * whose own flush is still scheduled may be handled here first; the other flush then skips them.
+     * The scan reads the pending collections directly, so it needs no index.
+     *
+     * @param onDone Run once every flush started here has finished or failed, or the scan has failed.
+     */
+    public void flushStale(Runnable onDone) {
+        db.collectionGroup(PENDING_COLLECTION)
+                .limit(MAX_STALE_SCAN)
+                .get()
+                .addOnSuccessListener(pending -> {
+                    Set<String> eventIds = new LinkedHashSet<>();
+                    for (DocumentSnapshot doc : pending.getDocuments()) {
+                        DocumentReference event = doc.getReference().getParent().getParent();
+                        if (event != null) eventIds.add(event.getId());
+                    }
+                    if (eventIds.isEmpty()) {
+                        onDone.run();
+                        return;
+                    }
+
+                    AtomicInteger remaining = new AtomicInteger(eventIds.size());
+                    for (String eventId : eventIds) {
+                        flush(eventId, null, () -> {
+                            if (remaining.decrementAndGet() == 0) onDone.run();
+                        });
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Failed to scan pending declines", e);
+                    onDone.run();
+                });
+    }
+
+    /**
+     * Processes an event's pending declines now, in batches of up to {@link #MAX_PER_FLUSH}.
+     * @param eventId The ID of the event.
+     * @param onPromoted Run after each batch that handled at least one decline, or null.
+     */
+    public void flush(String eventId, Runnable onPromoted) {
+        flush(eventId, onPromoted, () -> {});
+    }
+
+    /**
+     * Processes an event's pending declines, running {@code onDone} once none are left or a batch fails.
+     */
+    private void flush(String eventId, Runnable onPromoted, Runnable onDone) {
+        DocumentReference eventRef = repo.getEvent(eventId);
+
+        eventRef.collection(PENDING_COLLECTION)
+                .orderBy("declinedAt")
+                .limit(MAX_PER_FLUSH)
+                .get()
+                .addOnSuccessListener(pending -> {
+                    if (pending.isEmpty()) {
+                        onDone.run();
+                        return;
+                    }
+
+                    List<DocumentReference> refs = new ArrayList<>();
+                    for (DocumentSnapshot doc : pending.getDocuments()) {
+                        refs.add(doc.getReference());
+                    }
+
+                    db.runTransaction(transaction -> {
+                                DocumentSnapshot event = transaction.get(eventRef);
+
+                                // Every read must come before the first write.
+                                List<DocumentReference> claimed = new ArrayList<>();
+                                List<String> declined = new ArrayList<>();
+                                for (DocumentReference ref : refs) {
+                                    DocumentSnapshot doc = transaction.get(ref);
+                                    if (!doc.exists()) continue;
+                                    claimed.add(ref);
+                                    String userName = doc.getString("userName");
+                                    declined.add(userName != null ? userName : ref.getId());
+                                }
+
+                                if (event.exists() && !declined.isEmpty()) {
+                                    new OrganizerEventDetailsManager(db, repo)
+                                            .promoteReplacements(transaction, eventRef, event, eventId, declined);
+                                }
+                                for (DocumentReference ref : claimed) {
+                                    transaction.delete(ref);
+                                }
+                                return claimed.size();
+
+                            }).addOnSuccessListener(handled -> {
+                                repo.invalidateEvent(eventId);
+                                if (handled > 0 && onPromoted != null) onPromoted.run();
+                                // A full batch may have left more declines behind.
+                                if (refs.size() == MAX_PER_FLUSH) {
+                                    flush(eventId, onPromoted, onDone);
+                                } else {
+                                    onDone.run();
+                                }
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.w(TAG, "Failed to process declines for " + eventId, e);
+                                onDone.run();
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Failed to read declines for " + eventId, e);
+                    onDone.run();
+                });
+    }
+}
@@ -17,13 +17,12 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.lottos.EventRepository;
 import com.example.lottos.ImageLoader;
+import com.example.lottos.PosterVariant;
 import com.example.lottos.databinding.FragmentEditEventScreenBinding;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -182,7 +181,7 @@ public class EditEventScreen extends Fragment {
                 if (reg != null)
                     binding.etRegisterEndTime.setText(timestampToLocal(reg).format(formatter));
 
-                String url = snapshot.getString("posterUrl");
+                String url = PosterVariant.CARD.resolve(snapshot::getString);
                 ImageLoader.load(url, binding.imgEventPoster, com.example.lottos.R.drawable.sample_event);
 
                 String existingKeywords = snapshot.getString("filterKeywords");
@@ -278,24 +277,45 @@ public class EditEventScreen extends Fragment {
     }
 
     /**
-     * If a new poster was selected, this method uploads it to Firebase Storage
-     * and then applies all other updates to the event document.
+     * If a new poster was selected, this method uploads its resized variants to Firebase Storage
+     * and then applies all other updates, including the variant URLs, to the event document.
+     * Uploads are retried and resumed by the {@link PosterUploadManager}, and the save button
+     * shows their progress.
      * @param updates The map of field updates to apply to the Firestore document.
      */
     private void uploadPosterAndUpdate(Map<String, Object> updates) {
-        String path = "event_posters/" + eventId + ".jpg";
-        StorageReference ref = FirebaseStorage.getInstance().getReference(path);
-
-        ref.putFile(selectedPosterUri)
-                .addOnSuccessListener(t ->
-                        ref.getDownloadUrl().addOnSuccessListener(uri -> {
-                            updates.put("posterUrl", uri.toString());
-                            applyUpdate(updates);
-                        }))
-                .addOnFailureListener(e ->
+        CharSequence buttonLabel = binding.btnSave.getText();
+        binding.btnSave.setEnabled(false);
+
+        new PosterUploader(requireContext()).upload(selectedPosterUri, eventId,
+                new PosterUploader.UploadCallback() {
+                    @Override
+                    public void onProgress(long bytesUploaded, long totalBytes) {
+                        if (binding == null || totalBytes <= 0) return;
+                        binding.btnSave.setText("Uploading " + (int) (bytesUploaded * 100 / totalBytes) + "%");
+                    }
+
+                    @Override
+                    public void onSuccess(Map<String, Object> posterFields) {
+                        if (binding != null) {
+                            binding.btnSave.setText(buttonLabel);
+                            binding.btnSave.setEnabled(true);
+                        }
+                        updates.putAll(posterFields);
+                        applyUpdate(updates);
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        if (binding != null) {
+                            binding.btnSave.setText(buttonLabel);
+                            binding.btnSave.setEnabled(true);
+                        }
                         Toast.makeText(getContext(),
-                                "Upload failed: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show());
+                                "Upload failed: " + errorMessage,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
     }
 
     /**
@@ -0,0 +1,270 @@
+package com.example.lottos.organizer;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.lottos.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs file export jobs on a background thread with progress reporting and cancellation.
+ *
+ * Role: Exports such as {@link CsvExportManager} may take a long time for large events, and
+ * must never block the organizer's screen. This class:
+ * <ul>
+ *     <li>Runs each job on the {@link AppExecutors.Lane#EXPORT} lane and delivers all listener callbacks
+ *         on the main thread.</li>
+ *     <li>Has each job write to a temporary ".part" file that is renamed over the target only when the
+ *         job completes, so a cancelled or failed export never leaves a half-written file behind.</li>
+ *     <li>Deduplicates jobs by key: submitting a job whose key is already running attaches the new
+ *         listener to the existing job instead of starting a second one.</li>
+ *     <li>Lets a screen detach its listener when it is destroyed without cancelling the job.</li>
+ * </ul>
+ * A single shared instance is used so deduplication works across screens.
+ */
+public class ExportJobRunner {
+
+    private static ExportJobRunner instance;
+
+    /**
+     * The work performed by an export job. Runs on a background thread.
+     */
+    public interface ExportJob {
+        /**
+         * Writes the export to the given temporary file.
+         * Implementations should call {@link Progress#update} periodically, which also
+         * throws if the job has been cancelled.
+         *
+         * @param tempFile The file to write to.
+         * @param progress The progress reporter for this job.
+         * @throws Exception If the export fails or is cancelled.
+         */
+        void run(File tempFile, Progress progress) throws Exception;
+    }
+
+    /**
+     * A callback interface for observing an export job. All methods are called on the main thread.
+     */
+    public interface JobListener {
+        /**
+         * Called when the job reports progress.
+         * @param done The number of items written so far.
+         * @param total The total number of items, or -1 if unknown.
+         */
+        void onProgress(int done, int total);
+        /**
+         * Called when the job has finished and its file is in place.
+         * @param file The completed export file.
+         */
+        void onComplete(File file);
+        /**
+         * Called when the job fails.
+         * @param errorMessage A message describing the failure.
+         */
+        void onFailure(String errorMessage);
+        /**
+         * Called when the job is cancelled.
+         */
+        void onCancelled();
+    }
+
+    /**
+     * The progress reporter handed to a running {@link ExportJob}.
+     */
+    public static class Progress {
+        private final Job job;
+
+        private Progress(Job job) {
+            this.job = job;
+        }
+
+        /**
+         * Publishes the job's progress to its listeners.
+         *
+         * @param done The number of items written so far.
+         * @param total The total number of items, or -1 if unknown.
+         * @throws CancellationException If the job has been cancelled.
+         */
+        public void update(int done, int total) {
+            if (job.cancelled || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException();
+            }
+            job.done = done;
+            job.total = total;
+            job.runner.mainHandler.post(() -> {
+                for (JobListener l : job.listeners) l.onProgress(done, total);
+            });
+        }
+    }
+
+    /**
+     * A handle to a submitted job, used to cancel it or stop listening to it.
+     */
+    public static class JobHandle {
+        private final Job job;
+        private final JobListener listener;
+
+        private JobHandle(Job job, JobListener listener) {
+            this.job = job;
+            this.listener = listener;
+        }
+
+        /**
+         * Cancels the job for every listener. The temporary file is deleted.
+         */
+        public void cancel() {
+            job.runner.cancel(job);
+        }
+
+        /**
+         * Stops delivering callbacks to this handle's listener. The job keeps running.
+         */
+        public void detach() {
+            job.listeners.remove(listener);
+        }
+    }
+
+    private static class Job {
+        final String key;
+        final ExportJobRunner runner;
+        final List<JobListener> listeners = new CopyOnWriteArrayList<>();
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        volatile boolean cancelled = false;
+        boolean started = false;
+        volatile int done = 0;
+        volatile int total = -1;
+        Future<?> future;
+
+        Job(String key, ExportJobRunner runner) {
+            this.key = key;
+            this.runner = runner;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Job> running = new HashMap<>();
+
+    /**
+     * Constructs a runner. Package-private so tests can use an isolated instance;
+     * the app uses {@link #getInstance()}.
+     */
+    ExportJobRunner() {
+    }
+
+    /**
+     * Returns the shared runner instance.
+     * @return The process-wide ExportJobRunner.
+     */
+    public static synchronized ExportJobRunner getInstance() {
+        if (instance == null) {
+            instance = new ExportJobRunner();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a job, or joins the running job with the same key.
+     *
+     * @param key A key identifying the export, such as the event and list name.
+     * @param target The final location of the export file.
+     * @param work The work to perform.
+     * @param listener The listener to notify on the main thread.
+     * @return A handle for cancelling or detaching from the job.
+     */
+    public synchronized JobHandle submit(String key, File target, ExportJob work, JobListener listener) {
+        Job existing = running.get(key);
+        if (existing != null) {
+            existing.listeners.add(listener);
+            int done = existing.done;
+            int total = existing.total;
+            mainHandler.post(() -> listener.onProgress(done, total));
+            return new JobHandle(existing, listener);
+        }
+
+        Job job = new Job(key, this);
+        job.listeners.add(listener);
+        running.put(key, job);
+        FutureTask<Void> future = new FutureTask<>(() -> execute(job, target, work), null);
+        job.future = future;
+        if (!AppExecutors.getInstance().execute(AppExecutors.Lane.EXPORT, future)) {
+            finish(job, l -> l.onFailure("Too many exports are running. Please try again later."));
+        }
+        return new JobHandle(job, listener);
+    }
+
+    /**
+     * Checks whether a job with the given key is currently running.
+     * @param key The job key.
+     * @return true if the job is running.
+     */
+    public synchronized boolean isRunning(String key) {
+        return running.containsKey(key);
+    }
+
+    private void execute(Job job, File target, ExportJob work) {
+        synchronized (this) {
+            if (job.cancelled) return;
+            job.started = true;
+        }
+        File temp = new File(target.getParentFile(), target.getName() + ".part");
+
+        try {
+            work.run(temp, new Progress(job));
+
+            if (job.cancelled) throw new CancellationException();
+            if (!temp.renameTo(target)) {
+                throw new IOException("Could not move export into place.");
+            }
+        } catch (Throwable t) {
+            temp.delete();
+            if (job.cancelled || t instanceof CancellationException || t instanceof InterruptedException) {
+                finish(job, JobListener::onCancelled);
+            } else {
+                String message = t.getMessage() != null ? t.getMessage() : t.toString();
+                finish(job, l -> l.onFailure(message));
+            }
+            return;
+        }
+
+        finish(job, l -> l.onComplete(target));
+    }
+
+    private synchronized void cancel(Job job) {
+        job.cancelled = true;
+        if (job.started) {
+            // The worker notices the interrupt, deletes its temp file, and reports the cancellation.
+            job.future.cancel(true);
+        } else {
+            if (job.future != null) job.future.cancel(false);
+            finish(job, JobListener::onCancelled);
+        }
+    }
+
+    /**
+     * Removes a job from the running set and notifies its listeners exactly once.
+     */
+    private void finish(Job job, Notification notification) {
+        if (!job.finished.compareAndSet(false, true)) return;
+
+        synchronized (this) {
+            running.remove(job.key);
+        }
+        mainHandler.post(() -> {
+            for (JobListener l : job.listeners) notification.send(l);
+        });
+    }
+
+    private interface Notification {
+        void send(JobListener listener);
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.lottos.organizer;
 
 import com.example.lottos.EventRepository;
+import com.example.lottos.UserDirectory;
 import com.example.lottos.lottery.LotterySystem;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
@@ -22,13 +26,25 @@ import java.util.Map;
  *     <li>Loading a complete snapshot of an event document from Firestore.</li>
  *     <li>Extracting and separating the lists of users (waitlisted, selected, enrolled, etc.) from the event data.</li>
  *     <li>Executing the lottery logic: it shuffles the waitlisted users, moves them to either the 'selected' or 'not selected' lists based on the event's capacity, and updates the event document.</li>
- *     <li>Updating the corresponding event lists in each affected user's personal document.</li>
+ *     <li>Updating the corresponding event lists in each affected user's personal document, and the
+ *         joined-event count of users who were not selected in the {@link UserDirectory}.</li>
  *     <li>Creating and sending notifications to all participants about the lottery results.</li>
  * </ul>
- * All lottery-related database modifications are performed in a single atomic Firestore WriteBatch to ensure data consistency.
+ * All lottery-related database modifications are performed in a single Firestore transaction to ensure data consistency.
+ * <p>
+ * The 'not selected' list is written once, in draw order, and doubles as the replacement queue.
+ * The event's {@link #CURRENT_POINTER} field holds the index of the next user in it to promote
+ * when a selected user declines, so a promotion only advances the pointer instead of rewriting
+ * the list. Users before the pointer have already been promoted and are no longer 'not selected'.
  */
 public class OrganizerEventDetailsManager {
 
+    /** The event field holding the index of the next user in the 'not selected' list to promote. */
+    public static final String CURRENT_POINTER = "currentPointer";
+
+    /** The most writes committed in one batch when applying a draw, below Firestore's limit of 500. */
+    static final int BATCH_LIMIT = 450;
+
     private final FirebaseFirestore db;
     private final EventRepository repo;
 
@@ -79,9 +95,7 @@ public class OrganizerEventDetailsManager {
      * @param cb The callback to be invoked with the loaded data or an error.
      */
     public void loadEvent(String eventId, LoadCallback cb) {
-        DocumentReference eventDoc = repo.getEvent(eventId);
-
-        eventDoc.get()
+        repo.readEvent(eventId)
                 .addOnSuccessListener(snap -> {
                     if (!snap.exists()) {
                         cb.onError(new Exception("Event not found"));
@@ -92,7 +106,7 @@ public class OrganizerEventDetailsManager {
 
                     List<String> waitlistUsers   = extractUserList(data, "waitList");
                     List<String> selectedUsers   = extractUserList(data, "selectedList");
-                    List<String> notSelectedUsers= extractUserList(data, "notSelectedList");
+                    List<String> notSelectedUsers= remainingNotSelected(data);
                     List<String> enrolledUsers   = extractUserList(data, "enrolledList");
                     List<String> cancelledUsers  = extractUserList(data, "cancelledList");
 
@@ -108,7 +122,7 @@ public class OrganizerEventDetailsManager {
      * @param key The key of the parent map (e.g., "waitList", "selectedList").
      * @return A list of usernames, or an empty list if the data is missing or malformed.
      */
-    private List<String> extractUserList(Map<String, Object> eventData, String key) {
+    private static List<String> extractUserList(Map<String, Object> eventData, String key) {
         List<String> result = new ArrayList<>();
         if (eventData == null) return result;
 
@@ -127,12 +141,37 @@ public class OrganizerEventDetailsManager {
     }
 
     /**
-     * Executes the lottery for a given event using the provided list of waitlisted users.
-     * This method shuffles the users, assigns them to 'selected' or 'not selected' lists,
-     * sends notifications, and updates all relevant documents in a single atomic batch.
+     * Gets the users who are still 'not selected', skipping those already promoted.
+     * @param eventData The main event data map.
+     * @return The users from {@link #CURRENT_POINTER} onwards, in draw order.
+     */
+    static List<String> remainingNotSelected(Map<String, Object> eventData) {
+        List<String> all = extractUserList(eventData, "notSelectedList");
+        int pointer = readPointer(eventData != null ? eventData.get(CURRENT_POINTER) : null);
+        return new ArrayList<>(all.subList(Math.min(pointer, all.size()), all.size()));
+    }
+
+    /**
+     * Reads the promotion pointer of an event. Events drawn before the pointer existed removed
+     * promoted users from the list instead, so a missing pointer means the start of the list.
+     * @param value The stored {@link #CURRENT_POINTER} value.
+     * @return The pointer, or 0 if it is missing or malformed.
+     */
+    public static int readPointer(Object value) {
+        return value instanceof Number ? Math.max(0, ((Number) value).intValue()) : 0;
+    }
+
+    /**
+     * Executes the lottery for a given event.
+     * This method shuffles the waitlisted users and records the 'selected' and 'not selected'
+     * lists on the event in a transaction. The waitlist is read again inside the transaction,
+     * so users drawn by an earlier run are never drawn a second time. Once it has committed,
+     * each drawn user's lists, {@link UserDirectory} entry and notification are written in
+     * batches of at most {@link #BATCH_LIMIT} writes, as a single commit could not hold them
+     * for a large waitlist.
      * @param eventId The ID of the event to run the lottery for.
-     * @param waitUsers The list of users currently on the waitlist.
-     * @param onSuccess A callback to run on successful completion of the batch write.
+     * @param waitUsers The list of users on the waitlist as shown to the organizer.
+     * @param onSuccess A callback to run once every write has committed.
      * @param onError A callback to handle any exceptions that occur.
      */
     public void runLottery(String eventId, List<String> waitUsers, Runnable onSuccess, java.util.function.Consumer<Exception> onError) {
@@ -144,11 +183,17 @@ public class OrganizerEventDetailsManager {
 
         DocumentReference eventRef = repo.getEvent(eventId);
 
-        eventRef.get()
-                .addOnSuccessListener(eventSnap -> {
+        db.runTransaction(transaction -> {
+                    DocumentSnapshot eventSnap = transaction.get(eventRef);
                     if (!eventSnap.exists()) {
-                        onError.accept(new Exception("Event not found"));
-                        return;
+                        throw new FirebaseFirestoreException("Event not found",
+                                FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+
+                    List<String> current = extractUsers(eventSnap, "waitList");
+                    if (current.isEmpty()) {
+                        throw new FirebaseFirestoreException("No users on waitlist to run lottery.",
+                                FirebaseFirestoreException.Code.ABORTED);
                     }
 
                     String eventName   = eventSnap.getString("eventName");
@@ -156,9 +201,9 @@ public class OrganizerEventDetailsManager {
                     Long selectionCapL = eventSnap.getLong("selectionCap");
                     int selectionCap   = (selectionCapL != null && selectionCapL > 0)
                             ? selectionCapL.intValue()
-                            : waitUsers.size();
+                            : current.size();
 
-                    List<String> shuffled = new ArrayList<>(waitUsers);
+                    List<String> shuffled = new ArrayList<>(current);
                     java.util.Collections.shuffle(shuffled);
 
                     List<String> selectedUsers    = new ArrayList<>();
@@ -172,8 +217,6 @@ public class OrganizerEventDetailsManager {
                         }
                     }
 
-                    WriteBatch batch = db.batch();
-
                     Map<String, Object> eventUpdates = new HashMap<>();
                     eventUpdates.put("IsLottery", true);
 
@@ -184,41 +227,103 @@ public class OrganizerEventDetailsManager {
                     Map<String, Object> notSelectedListMap = new HashMap<>();
                     notSelectedListMap.put("users", notSelectedUsers);
                     eventUpdates.put("notSelectedList", notSelectedListMap);
+                    eventUpdates.put(CURRENT_POINTER, 0);
 
                     Map<String, Object> waitListMap = new HashMap<>();
                     waitListMap.put("users", new ArrayList<String>());
                     eventUpdates.put("waitList", waitListMap);
 
-                    batch.update(eventRef, eventUpdates);
+                    transaction.update(eventRef, eventUpdates);
 
-                    String eventKeyForUser = eventId;
+                    return new Draw(eventName != null ? eventName : eventId, organizer,
+                            selectedUsers, notSelectedUsers);
 
-                    for (String userId : selectedUsers) {
-                        DocumentReference userRef = db.collection("users").document(userId);
-                        batch.update(userRef,
-                                "waitListedEvents.events", FieldValue.arrayRemove(eventKeyForUser),
-                                "selectedEvents.events",   FieldValue.arrayUnion(eventKeyForUser)
-                        );
-                    }
+                }).addOnSuccessListener(draw -> {
+                    repo.invalidateEvent(eventId);
+                    commitInOrder(drawBatches(eventId, draw), 0, onSuccess, onError);
+                })
+                .addOnFailureListener(onError::accept);
+    }
 
-                    for (String userId : notSelectedUsers) {
-                        DocumentReference userRef = db.collection("users").document(userId);
-                        batch.update(userRef,
-                                "waitListedEvents.events",  FieldValue.arrayRemove(eventKeyForUser),
-                                "notSelectedEvents.events", FieldValue.arrayUnion(eventKeyForUser)
-                        );
-                    }
+    /**
+     * The outcome of a draw, as recorded on the event.
+     */
+    private static final class Draw {
+        final String eventName;
+        final String organizer;
+        final List<String> selectedUsers;
+        final List<String> notSelectedUsers;
+        final com.google.firebase.Timestamp drawnAt = com.google.firebase.Timestamp.now();
+
+        Draw(String eventName, String organizer, List<String> selectedUsers, List<String> notSelectedUsers) {
+            this.eventName = eventName;
+            this.organizer = organizer;
+            this.selectedUsers = selectedUsers;
+            this.notSelectedUsers = notSelectedUsers;
+        }
+    }
+
+    /**
+     * Builds the per-user writes of a committed draw. Each user's list update, directory
+     * increment and notification are kept in the same batch.
+     */
+    private List<WriteBatch> drawBatches(String eventId, Draw draw) {
+        List<WriteBatch> batches = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int pending = 0;
+        // Moving from the waitlist to 'not selected' is the one way the draw adds a joined event.
+        UserDirectory directory = new UserDirectory(db);
+
+        for (String userId : draw.selectedUsers) {
+            if (pending + 2 > BATCH_LIMIT) {
+                batches.add(batch);
+                batch = db.batch();
+                pending = 0;
+            }
+            batch.update(db.collection("users").document(userId),
+                    "waitListedEvents.events", FieldValue.arrayRemove(eventId),
+                    "selectedEvents.events",   FieldValue.arrayUnion(eventId)
+            );
+            batch.set(db.collection("notification").document(), lotteryNotification(draw, userId,
+                    "You have been SELECTED for " + draw.eventName + "\ngo to event detail page to accept then invite"));
+            pending += 2;
+        }
 
-                    sendLotteryNotifications(batch, eventName != null ? eventName : eventId, organizer, selectedUsers, notSelectedUsers
-                    );
+        for (String userId : draw.notSelectedUsers) {
+            if (pending + 3 > BATCH_LIMIT) {
+                batches.add(batch);
+                batch = db.batch();
+                pending = 0;
+            }
+            batch.update(db.collection("users").document(userId),
+                    "waitListedEvents.events",  FieldValue.arrayRemove(eventId),
+                    "notSelectedEvents.events", FieldValue.arrayUnion(eventId)
+            );
+            batch.set(directory.entry(userId),
+                    UserDirectory.increment(userId, UserDirectory.JOINED_COUNT, 1),
+                    SetOptions.merge());
+            batch.set(db.collection("notification").document(), lotteryNotification(draw, userId,
+                    "You were NOT selected for " + draw.eventName));
+            pending += 3;
+        }
 
-                    batch.commit()
-                            .addOnSuccessListener(v -> onSuccess.run())
-                            .addOnFailureListener(onError::accept);
+        if (pending > 0) batches.add(batch);
+        return batches;
+    }
 
-                })
+    /**
+     * Commits batches one after another, so a failure stops the remaining writes.
+     */
+    private void commitInOrder(List<WriteBatch> batches, int index, Runnable onSuccess, java.util.function.Consumer<Exception> onError) {
+        if (index >= batches.size()) {
+            onSuccess.run();
+            return;
+        }
+        batches.get(index).commit()
+                .addOnSuccessListener(v -> commitInOrder(batches, index + 1, onSuccess, onError))
                 .addOnFailureListener(onError::accept);
     }
+
     private List<String> extractUsers(DocumentSnapshot snap, String key) {
         List<String> result = new ArrayList<>();
 
@@ -239,97 +344,87 @@ public class OrganizerEventDetailsManager {
         return result;
     }
 
-    public void replaceDeclinedUser(String eventId, String declinedUser, Runnable onSuccess, java.util.function.Consumer<Exception> onError) {
-
-        DocumentReference eventRef = repo.getEvent(eventId);
-
-        db.runTransaction(transaction -> {
-                    DocumentSnapshot snap = transaction.get(eventRef);
-
-                    if (!snap.exists()) {
-                        try {
-                            throw new Exception("Event not found");
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                    }
-
-                    List<String> selected = extractUsers(snap, "selectedList");
-                    List<String> notSelected = extractUsers(snap, "notSelectedList");
-
-                    selected.remove(declinedUser);
-
-                    String promoted = null;
-                    if (!notSelected.isEmpty()) {
-                        promoted = notSelected.remove(0);
-                        selected.add(promoted);
-                    }
-
-                    Map<String, Object> selectedMap = new HashMap<>();
-                    selectedMap.put("users", selected);
-
-                    Map<String, Object> notSelectedMap = new HashMap<>();
-                    notSelectedMap.put("users", notSelected);
-
-                    transaction.update(eventRef, "selectedList", selectedMap);
-                    transaction.update(eventRef, "notSelectedList", notSelectedMap);
+    /**
+     * Adds the writes that replace a group of declined users to a transaction, after the event
+     * has been read in it. Declined users who are no longer selected are ignored. The rest move
+     * from the selected to the cancelled list, the same number of users from
+     * {@link #CURRENT_POINTER} onwards are promoted and notified, and the pointer advances past
+     * them. Each promoted user's joined-event count in the {@link UserDirectory} drops by one,
+     * as the event is no longer 'not selected' for them. The 'not selected' list itself is never
+     * rewritten. Called by the {@link DeclineQueue}, which processes every decline.
+     *
+     * @param transaction The transaction to add the writes to.
+     * @param eventRef The event document.
+     * @param snap The event, as read in the transaction.
+     * @param eventId The ID of the event.
+     * @param declinedUsers The users who declined.
+     * @return The users who were promoted, in draw order.
+     */
+    List<String> promoteReplacements(Transaction transaction, DocumentReference eventRef, DocumentSnapshot snap,
+                                     String eventId, List<String> declinedUsers) {
+        List<String> selected = extractUsers(snap, "selectedList");
+        List<String> declined = new ArrayList<>();
+        for (String user : declinedUsers) {
+            if (selected.contains(user) && !declined.contains(user)) declined.add(user);
+        }
+        List<String> promoted = new ArrayList<>();
+        if (declined.isEmpty()) return promoted;
 
-                    transaction.update(eventRef, "cancelledList.users",
-                            FieldValue.arrayUnion(declinedUser));
+        List<String> notSelected = extractUsers(snap, "notSelectedList");
+        int pointer = readPointer(snap.get(CURRENT_POINTER));
+        int end = Math.min(pointer + declined.size(), notSelected.size());
+        if (pointer < end) promoted.addAll(notSelected.subList(pointer, end));
 
-                    if (promoted != null) {
-                        DocumentReference notifRef = db.collection("notification").document();
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("receiver", promoted);
-                        data.put("eventName", snap.getString("eventName"));
-                        data.put("content", "You have been selected after another user declined.");
-                        data.put("timestamp", com.google.firebase.Timestamp.now());
-                        data.put("sender", snap.getString("organizer"));
+        transaction.update(eventRef, "selectedList.users",
+                FieldValue.arrayRemove(declined.toArray()));
+        transaction.update(eventRef, "cancelledList.users",
+                FieldValue.arrayUnion(declined.toArray()));
 
-                        transaction.set(notifRef, data);
-                    }
+        if (promoted.isEmpty()) return promoted;
 
-                    return null;
+        transaction.update(eventRef,
+                "selectedList.users", FieldValue.arrayUnion(promoted.toArray()),
+                CURRENT_POINTER, end);
 
-                }).addOnSuccessListener(v -> onSuccess.run())
-                .addOnFailureListener(onError::accept);
-    }
-
-    /**
-     * Adds notification creation operations to the provided WriteBatch.
-     * It creates one notification for each user who was selected and one for each user who was not.
-     * @param batch The Firestore WriteBatch to add the notification operations to.
-     * @param eventName The name of the event.
-     * @param organizer The username of the event organizer.
-     * @param selectedUsers The list of users who were selected.
-     * @param notSelectedUsers The list of users who were not selected.
-     */
-    private void sendLotteryNotifications(WriteBatch batch, String eventName, String organizer, List<String> selectedUsers, List<String> notSelectedUsers) {
         com.google.firebase.Timestamp now = com.google.firebase.Timestamp.now();
-
-        for (String user : selectedUsers) {
-            Map<String, Object> notifData = new HashMap<>();
-            notifData.put("content", "You have been SELECTED for " + eventName + "\ngo to event detail page to accept then invite");
-            notifData.put("eventName", eventName);
-            notifData.put("receiver", user);
-            notifData.put("sender", organizer != null ? organizer : "System");
-            notifData.put("timestamp", now);
+        UserDirectory directory = new UserDirectory(db);
+        for (String user : promoted) {
+            transaction.update(db.collection("users").document(user),
+                    "notSelectedEvents.events", FieldValue.arrayRemove(eventId),
+                    "selectedEvents.events", FieldValue.arrayUnion(eventId));
+            // The event is no longer 'not selected' for this user; it counts again if they accept.
+            transaction.set(directory.entry(user),
+                    UserDirectory.increment(user, UserDirectory.JOINED_COUNT, -1),
+                    SetOptions.merge());
 
             DocumentReference notifRef = db.collection("notification").document();
-            batch.set(notifRef, notifData);
+            Map<String, Object> data = new HashMap<>();
+            data.put("receiver", user);
+            data.put("eventName", snap.getString("eventName"));
+            data.put("content", "You have been selected after another user declined.");
+            data.put("timestamp", now);
+            data.put("sender", snap.getString("organizer"));
+
+            transaction.set(notifRef, data);
         }
+        return promoted;
+    }
 
-        for (String user : notSelectedUsers) {
-            Map<String, Object> notifData = new HashMap<>();
-            notifData.put("content", "You were NOT selected for " + eventName);
-            notifData.put("eventName", eventName);
-            notifData.put("receiver", user);
-            notifData.put("sender", organizer != null ? organizer : "System");
-            notifData.put("timestamp", now);
-
-            DocumentReference notifRef = db.collection("notification").document();
-            batch.set(notifRef, notifData);
-        }
+    /**
+     * Builds the notification telling a user the outcome of a draw.
+     * @param draw The draw.
+     * @param user The user to notify.
+     * @param content The message shown to the user.
+     * @return The notification data.
+     */
+    private Map<String, Object> lotteryNotification(Draw draw, String user, String content) {
+        Map<String, Object> notifData = new HashMap<>();
+        notifData.put("content", content);
+        notifData.put("eventName", draw.eventName);
+        notifData.put("receiver", user);
+        notifData.put("sender", draw.organizer != null ? draw.organizer : "System");
+        notifData.put("timestamp", draw.drawnAt);
+        return notifData;
     }
 
 
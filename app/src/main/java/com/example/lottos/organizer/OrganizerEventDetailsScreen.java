@@ -1,5 +1,6 @@
 package com.example.lottos.organizer;
 
+import android.app.AlertDialog;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -35,7 +36,7 @@ import java.util.Map;
  *     <li>Displaying core event details like name, date, and location.</li>
  *     <li>Showing lists of users categorized by their status (waitlist, selected, enrolled, etc.).</li>
  *     <li>Providing UI controls for organizer-specific actions, such as running the lottery
- *         or exporting the list of enrolled users to a CSV file.</li>
+ *         or exporting any of the event's user lists to a CSV file.</li>
  *     <li>Controlling the visibility and state of UI elements based on the event's status
  *         (e.g., enabling the lottery button only after registration closes).</li>
  *     <li>Handling navigation to other parts of the app, including the user's profile and notifications.</li>
@@ -46,6 +47,7 @@ public class OrganizerEventDetailsScreen extends Fragment {
     private FragmentOrganizerEventDetailsScreenBinding binding;
     private OrganizerEventDetailsManager manager;
     private CsvExportManager csvExportManager;
+    private ExportJobRunner.JobHandle activeExport;
     private String userName;
     private String eventId;
 
@@ -84,6 +86,10 @@ public class OrganizerEventDetailsScreen extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         loadEvent();
+        // Declines still waiting to be processed would otherwise show as selected until the next one.
+        DeclineQueue.getInstance().flush(eventId, () -> {
+            if (binding != null) loadEvent();
+        });
         setupNavButtons();
         setupSectionToggles();
 
@@ -269,19 +275,13 @@ public class OrganizerEventDetailsScreen extends Fragment {
         if (isOrganizer) {
             binding.btnExportCsv.setVisibility(View.VISIBLE);
 
-            binding.btnExportCsv.setOnClickListener(v ->
-                    csvExportManager.exportEnrolledUsers(eventData,
-                            new CsvExportManager.CsvExportCallback() {
-                                @Override
-                                public void onSuccess(String path) {
-                                    toast("CSV exported successfully");
-                                }
-
-                                @Override
-                                public void onFailure(String errorMessage) {
-                                    toast("Export failed: " + errorMessage);
-                                }
-                            }));
+            binding.btnExportCsv.setOnClickListener(v -> {
+                if (activeExport != null) {
+                    activeExport.cancel();
+                } else {
+                    showExportDialog(eventData);
+                }
+            });
 
             if (!hasRunLottery && waitUsers != null && !waitUsers.isEmpty()) {
                 binding.btnLottery.setVisibility(View.VISIBLE);
@@ -349,6 +349,69 @@ public class OrganizerEventDetailsScreen extends Fragment {
                                 .actionOrganizerEventDetailsScreenToProfileScreen(userName)));
     }
 
+    /**
+     * Shows a dialog letting the organizer choose which user list to export,
+     * then exports it together with each user's profile details.
+     *
+     * @param eventData A map containing the event's data, including all user lists.
+     */
+    private void showExportDialog(Map<String, Object> eventData) {
+        String[] labels = {"Waiting List", "Selected", "Not Selected", "Cancelled", "Enrolled"};
+        String[] listKeys = {
+                CsvExportManager.WAIT_LIST,
+                CsvExportManager.SELECTED_LIST,
+                CsvExportManager.NOT_SELECTED_LIST,
+                CsvExportManager.CANCELLED_LIST,
+                CsvExportManager.ENROLLED_LIST
+        };
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Export to CSV")
+                .setItems(labels, (dialog, which) -> startExport(eventData, listKeys[which]))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Starts a background CSV export of one user list. While it runs, the export button
+     * shows the progress and can be tapped again to cancel the export.
+     *
+     * @param eventData A map containing the event's data, including all user lists.
+     * @param listKey The list to export.
+     */
+    private void startExport(Map<String, Object> eventData, String listKey) {
+        activeExport = csvExportManager.exportUserList(eventData, listKey, true,
+                new CsvExportManager.CsvExportCallback() {
+                    @Override
+                    public void onSuccess(String path) {
+                        finishExport();
+                        toast("CSV exported successfully");
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        finishExport();
+                        toast("Export failed: " + errorMessage);
+                    }
+
+                    @Override
+                    public void onProgress(int exported, int total) {
+                        if (binding == null || total <= 0) return;
+                        binding.btnExportCsv.setText("Cancel Export (" + (exported * 100 / total) + "%)");
+                    }
+                });
+    }
+
+    /**
+     * Clears the running export and restores the export button's label.
+     */
+    private void finishExport() {
+        activeExport = null;
+        if (binding != null) {
+            binding.btnExportCsv.setText("Export CSV");
+        }
+    }
+
     /**
      * A utility method to display a short toast message.
      * @param msg The message to display.
@@ -364,6 +427,10 @@ public class OrganizerEventDetailsScreen extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (activeExport != null) {
+            activeExport.detach();
+            activeExport = null;
+        }
         binding = null;
     }
 }
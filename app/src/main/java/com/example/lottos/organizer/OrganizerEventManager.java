@@ -1,17 +1,27 @@
 package com.example.lottos.organizer;
 
+import android.util.Log;
+
 import com.example.lottos.EventRepository;
+import com.example.lottos.GeoHash;
+import com.example.lottos.UserDirectory;
 import com.example.lottos.entities.Event;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,16 +34,21 @@ import java.util.Map;
  * <ul>
  *     <li>Constructing the full event document data map for creating new events.</li>
  *     <li>Delegating create, update, and delete operations to the EventRepository.</li>
- *     <li>Handling organizer-specific logic, such as updating an organizer's personal list of managed events.</li>
- *     <li>Fetching and saving event-specific geolocation data for attendees.</li>
+ *     <li>Handling organizer-specific logic, such as updating an organizer's personal list of managed events
+ *         and their created-event count in the {@link UserDirectory}.</li>
+ *     <li>Fetching and saving event-specific geolocation data for attendees, including
+ *         geohash-indexed radius and bounding-box queries.</li>
  *     <li>Providing helper methods for data conversion (e.g., LocalDateTime to Timestamp).</li>
  * </ul>
  */
 public class OrganizerEventManager {
 
+    private static final String TAG = "OrganizerEventManager";
+
     private final EventRepository repo;
     private final FirebaseFirestore db;
     private final FirebaseAuth auth;
+    private final UserDirectory directory;
 
     /**
      * Default no-argument constructor used by Fragments for easy instantiation.
@@ -44,6 +59,32 @@ public class OrganizerEventManager {
         this.db = dbInstance;
         this.repo = new EventRepository(dbInstance);
         this.auth = FirebaseAuth.getInstance();
+        this.directory = new UserDirectory(dbInstance);
+    }
+
+    /**
+     * The recorded locations of an event's entrants, stored as parallel primitive arrays
+     * so large events can be clustered without boxing every coordinate.
+     */
+    public static class EntrantPoints {
+        public final String[] userIds;
+        public final double[] latitudes;
+        public final double[] longitudes;
+        public final int size;
+
+        /**
+         * Constructs a new EntrantPoints holder.
+         * @param userIds The username of each entrant.
+         * @param latitudes The latitude of each entrant.
+         * @param longitudes The longitude of each entrant.
+         * @param size The number of valid entries at the start of each array.
+         */
+        public EntrantPoints(String[] userIds, double[] latitudes, double[] longitudes, int size) {
+            this.userIds = userIds;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.size = size;
+        }
     }
 
     /**
@@ -52,10 +93,9 @@ public class OrganizerEventManager {
     public interface LocationsCallback {
         /**
          * Called on successful retrieval of location data.
-         * @param locations A map where the key is the username and the value is another map
-         *                  containing "latitude" and "longitude" keys.
+         * @param points The entrants' usernames and coordinates as parallel arrays.
          */
-        void onSuccess(Map<String, Map<String, Double>> locations);
+        void onSuccess(EntrantPoints points);
         /**
          * Called when an error occurs during the data fetching.
          * @param e The exception that occurred.
@@ -66,42 +106,154 @@ public class OrganizerEventManager {
 
     /**
      * Retrieves the stored geographic locations of all entrants for a specific event.
-     * It reads from the `geo_locations` sub-collection of an event document.
+     * It reads from the `geo_locations` sub-collection of an event document and copies
+     * the coordinates straight into primitive arrays. Entries without coordinates, or with
+     * the (0, 0) placeholder used when geolocation is not required, are skipped.
      *
      * @param eventId The unique ID of the event for which to fetch locations.
-     * @param callback The callback to handle the successfully retrieved map of locations or an error.
+     * @param callback The callback to handle the successfully retrieved points or an error.
      */
     public void getEntrantLocations(String eventId, LocationsCallback callback) {
-        db.collection("open events").document(eventId).collection("geo_locations")
+        geoLocations(eventId)
                 .get()
                 .addOnSuccessListener(querySnapshot -> {
 
-                    Map<String, Map<String, Double>> results = new HashMap<>();
-
                     if (querySnapshot == null || querySnapshot.isEmpty()) {
-                        callback.onSuccess(results);
+                        callback.onSuccess(new EntrantPoints(new String[0], new double[0], new double[0], 0));
                         return;
                     }
 
-                    for (DocumentSnapshot doc : querySnapshot) {
-                        String userId = doc.getId();
-                        Double lat = doc.getDouble("latitude");
-                        Double lon = doc.getDouble("longitude");
+                    List<DocumentSnapshot> docs = querySnapshot.getDocuments();
+                    callback.onSuccess(collectPoints(docs, (lat, lon) -> true));
+                })
+                .addOnFailureListener(callback::onError);
+    }
 
-                        if (lat == null || lon == null) continue;
-                        if (lat == 0.0 && lon == 0.0) continue;
+    /**
+     * Retrieves the locations of entrants within a given distance of a point, such as the venue.
+     * Only the geohash cells around the circle are downloaded; the results are then filtered
+     * locally by great-circle distance. Entries saved without a geohash are not returned.
+     *
+     * @param eventId The unique ID of the event.
+     * @param latitude The latitude of the centre point.
+     * @param longitude The longitude of the centre point.
+     * @param radiusMeters The search radius in metres.
+     * @param callback The callback to handle the matching points or an error.
+     */
+    public void getEntrantLocationsWithinRadius(String eventId, double latitude, double longitude,
+                                                double radiusMeters, LocationsCallback callback) {
+        if (radiusMeters <= 0) {
+            callback.onError(new IllegalArgumentException("Radius must be positive."));
+            return;
+        }
 
-                        Map<String, Double> coords = new HashMap<>();
-                        coords.put("latitude", lat);
-                        coords.put("longitude", lon);
-                        results.put(userId, coords);
-                    }
+        double[] box = GeoHash.boundsForRadius(latitude, longitude, radiusMeters);
+        queryByGeohash(eventId, GeoHash.coveringPrefixes(box[0], box[1], box[2], box[3]),
+                (lat, lon) -> GeoHash.distanceMeters(latitude, longitude, lat, lon) <= radiusMeters,
+                callback);
+    }
+
+    /**
+     * Retrieves the locations of entrants inside a bounding box.
+     * If {@code west > east} the box is treated as crossing the antimeridian.
+     * Entries saved without a geohash are not returned.
+     *
+     * @param eventId The unique ID of the event.
+     * @param south The southern edge of the box.
+     * @param west The western edge of the box.
+     * @param north The northern edge of the box.
+     * @param east The eastern edge of the box.
+     * @param callback The callback to handle the matching points or an error.
+     */
+    public void getEntrantLocationsInBounds(String eventId, double south, double west, double north,
+                                            double east, LocationsCallback callback) {
+        if (south > north) {
+            callback.onError(new IllegalArgumentException("South edge must not be north of the north edge."));
+            return;
+        }
+
+        queryByGeohash(eventId, GeoHash.coveringPrefixes(south, west, north, east),
+                (lat, lon) -> GeoHash.contains(south, west, north, east, lat, lon),
+                callback);
+    }
+
+    /**
+     * A predicate over a coordinate, used to refine geohash query results.
+     */
+    private interface PointFilter {
+        boolean accept(double latitude, double longitude);
+    }
 
-                    callback.onSuccess(results);
+    /**
+     * Runs one range query per geohash prefix in parallel and merges the results.
+     * {@link GeoHash#coveringPrefixes} returns prefixes whose ranges do not overlap, but the
+     * merged documents are still de-duplicated by ID so no entrant is counted twice.
+     *
+     * @param eventId The unique ID of the event.
+     * @param prefixes The geohash prefixes covering the search area.
+     * @param filter The exact test each point must pass.
+     * @param callback The callback to handle the merged points or an error.
+     */
+    private void queryByGeohash(String eventId, List<String> prefixes, PointFilter filter, LocationsCallback callback) {
+        CollectionReference locations = geoLocations(eventId);
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+
+        for (String prefix : prefixes) {
+            queries.add(locations.orderBy("geohash")
+                    .startAt(prefix)
+                    .endAt(prefix + "\uf8ff")
+                    .get());
+        }
+
+        Tasks.whenAllSuccess(queries)
+                .addOnSuccessListener(results -> {
+                    Map<String, DocumentSnapshot> docs = new LinkedHashMap<>();
+                    for (Object result : results) {
+                        for (DocumentSnapshot doc : ((QuerySnapshot) result).getDocuments()) {
+                            docs.putIfAbsent(doc.getId(), doc);
+                        }
+                    }
+                    callback.onSuccess(collectPoints(new ArrayList<>(docs.values()), filter));
                 })
                 .addOnFailureListener(callback::onError);
     }
 
+    /**
+     * Copies the coordinates of the given location documents into an {@link EntrantPoints}.
+     * Documents without coordinates, with the (0, 0) placeholder, or rejected by the filter are skipped.
+     *
+     * @param docs The `geo_locations` documents.
+     * @param filter The test each point must pass.
+     * @return The accepted points.
+     */
+    private static EntrantPoints collectPoints(List<DocumentSnapshot> docs, PointFilter filter) {
+        int capacity = docs.size();
+        String[] userIds = new String[capacity];
+        double[] lats = new double[capacity];
+        double[] lons = new double[capacity];
+        int size = 0;
+
+        for (DocumentSnapshot doc : docs) {
+            Double lat = doc.getDouble("latitude");
+            Double lon = doc.getDouble("longitude");
+
+            if (lat == null || lon == null) continue;
+            if (lat == 0.0 && lon == 0.0) continue;
+            if (!filter.accept(lat, lon)) continue;
+
+            userIds[size] = doc.getId();
+            lats[size] = lat;
+            lons[size] = lon;
+            size++;
+        }
+
+        return new EntrantPoints(userIds, lats, lons, size);
+    }
+
+    private CollectionReference geoLocations(String eventId) {
+        return db.collection("open events").document(eventId).collection("geo_locations");
+    }
+
     /**
      * Full constructor for dependency injection, primarily used for testing.
      * Allows providing mock or custom instances of its dependencies.
@@ -113,6 +265,7 @@ public class OrganizerEventManager {
         this.repo = repo;
         this.db = db;
         this.auth = auth;
+        this.directory = new UserDirectory(db);
     }
 
     /**
@@ -146,6 +299,8 @@ public class OrganizerEventManager {
 
         map.put("geolocationRequired", geolocationRequired);
         map.put("posterUrl", event.getPosterUrl());
+        map.put("posterCardUrl", event.getPosterCardUrl());
+        map.put("posterThumbUrl", event.getPosterThumbUrl());
 
         if (waitListCapacity != null) {
             map.put("waitListCapacity", waitListCapacity);
@@ -168,7 +323,13 @@ public class OrganizerEventManager {
             db.collection("users")
                     .document(event.getOrganizer())
                     .update("organizedEvents.events", FieldValue.arrayUnion(eventId))
-                    .addOnSuccessListener(v -> onSuccess.run())
+                    .addOnSuccessListener(v -> {
+                        directory.entry(event.getOrganizer())
+                                .set(UserDirectory.increment(event.getOrganizer(), UserDirectory.CREATED_COUNT, 1),
+                                        SetOptions.merge())
+                                .addOnFailureListener(e -> Log.w(TAG, "Failed to update directory count", e));
+                        onSuccess.run();
+                    })
                     .addOnFailureListener(onError::run);
 
         }, onError);
@@ -236,7 +397,9 @@ public class OrganizerEventManager {
 
     /**
      * Saves an entrant's geographic location to a sub-collection within the event document.
-     * This is typically used for check-in purposes.
+     * This is typically used for check-in purposes. A geohash of the coordinate is stored
+     * alongside it so the location can be found by {@link #getEntrantLocationsWithinRadius}
+     * and {@link #getEntrantLocationsInBounds}.
      *
      * @param eventId The ID of the event the user is checking into.
      * @param userId The username of the entrant.
@@ -251,11 +414,10 @@ public class OrganizerEventManager {
         locationData.put("userId", userId);
         locationData.put("latitude", latitude);
         locationData.put("longitude", longitude);
+        locationData.put("geohash", GeoHash.encode(latitude, longitude, GeoHash.STORED_PRECISION));
         locationData.put("timestamp", Timestamp.now());
 
-        db.collection("open events")
-                .document(eventId)                // ✔ matches getEntrantLocations()
-                .collection("geo_locations")
+        geoLocations(eventId)
                 .document(userId)
                 .set(locationData)
                 .addOnSuccessListener(v -> onSuccess.run())
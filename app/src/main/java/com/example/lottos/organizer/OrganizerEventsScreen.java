@@ -13,6 +13,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.lottos.EventListAdapter;
 import com.example.lottos.EventRepository;
+import com.example.lottos.PosterVariant;
 import com.example.lottos.databinding.FragmentOrganizerEventsScreenBinding;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
@@ -35,6 +36,7 @@ import java.util.List;
  *             <li>{@link CreateEventScreen} to add a new event.</li>
  *             <li>{@link EditEventScreen} to modify the selected event.</li>
  *             <li>{@link OrganizerEventDetailsScreen} to view details and manage the selected event.</li>
+ *             <li>{@link QrSheetExporter} to export the QR codes of all events as one PDF.</li>
  *             <li>Standard navigation to profile, notifications, and home.</li>
  *         </ul>
  *     </li>
@@ -48,6 +50,7 @@ public class OrganizerEventsScreen extends Fragment {
     private final List<EventListAdapter.EventItem> events = new ArrayList<>();
     private EventListAdapter adapter;
     private String selectedEventId = null;
+    private QrSheetExporter qrSheetExporter;
 
     /**
      * Called to have the fragment instantiate its user interface view.
@@ -79,6 +82,7 @@ public class OrganizerEventsScreen extends Fragment {
         userName = OrganizerEventsScreenArgs.fromBundle(getArguments()).getUserName();
         FirebaseFirestore db = FirebaseFirestore.getInstance();
         repo = new EventRepository(db);
+        qrSheetExporter = new QrSheetExporter(requireContext(), repo);
 
         RecyclerView rv = binding.rvOrganizerEvents;
         rv.setLayoutManager(new LinearLayoutManager(requireContext()));
@@ -107,7 +111,7 @@ public class OrganizerEventsScreen extends Fragment {
      * It displays a toast message if no events are found or if an error occurs.
      */
     private void loadOrganizerEvents() {
-        repo.getEventsByOrganizer(userName).get()
+        repo.readEventsByOrganizer(userName)
                 .addOnSuccessListener(query -> {
                     events.clear();
 
@@ -123,7 +127,7 @@ public class OrganizerEventsScreen extends Fragment {
                         String startTimeText = startTs != null ? formatTimestamp(startTs) : "";
                         String endTimeText   = endTs != null ? formatTimestamp(endTs) : "";
 
-                        String posterUrl = doc.getString("posterUrl");
+                        String posterUrl = PosterVariant.CARD.resolve(doc::getString);
 
                         if (name != null) {
                             events.add(new EventListAdapter.EventItem(id, name, true, location, startTimeText, endTimeText, posterUrl
@@ -237,16 +241,46 @@ public class OrganizerEventsScreen extends Fragment {
             }
             openOrganizerEventDetailsScreen(selectedEventId);
         });
+
+        binding.btnExportQrSheet.setOnClickListener(v -> exportQrSheet());
+    }
+
+    /**
+     * Exports the QR codes of all of this organizer's events to a single PDF and opens the share sheet.
+     * The button is disabled while the export is running.
+     */
+    private void exportQrSheet() {
+        binding.btnExportQrSheet.setEnabled(false);
+
+        qrSheetExporter.exportOrganizerEvents(userName, new QrSheetExporter.QrSheetCallback() {
+            @Override
+            public void onSuccess(String path, int pageCount) {
+                if (binding == null) return;
+                binding.btnExportQrSheet.setEnabled(true);
+                Toast.makeText(getContext(),
+                        "Exported " + pageCount + " QR codes.", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                if (binding == null) return;
+                binding.btnExportQrSheet.setEnabled(true);
+                Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
 
     /**
      * Called when the view previously created by onCreateView has been detached from the fragment.
-     * The view binding object is cleared here to prevent memory leaks.
+     * The view binding object is cleared and any running QR export is stopped here to prevent memory leaks.
      */
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (qrSheetExporter != null) {
+            qrSheetExporter.shutdown();
+        }
         binding = null;
     }
 }
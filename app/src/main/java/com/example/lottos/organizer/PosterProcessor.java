@@ -0,0 +1,142 @@
+package com.example.lottos.organizer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import com.example.lottos.PosterVariant;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Produces the resized, compressed copies of a selected poster image before it is uploaded.
+ *
+ * Role: Organizers pick posters straight from the gallery, often at camera resolution. This class:
+ * <ul>
+ *     <li>Decodes the image with subsampling, so a large photo is never held in memory at full size.</li>
+ *     <li>Scales it down to each {@link PosterVariant}'s maximum edge, keeping the aspect ratio.
+ *         Images are never scaled up.</li>
+ *     <li>Compresses every variant as JPEG and writes it to the app's cache directory.</li>
+ * </ul>
+ * JPEG is used rather than WebP. {@code CompressFormat.WEBP} is lossy on every supported version,
+ * but from API 29 a quality of 100 makes it lossless, and it is deprecated from API 30 in favour of
+ * {@code WEBP_LOSSY}, which does not exist below that. JPEG behaves the same on every version.
+ * Processing blocks and must be run on a background thread.
+ */
+public class PosterProcessor {
+
+    private final Context context;
+
+    /**
+     * Constructs a PosterProcessor.
+     * @param context The context used to read the source image and locate the cache directory.
+     */
+    public PosterProcessor(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Creates every poster variant for an event. Must be called from a background thread.
+     *
+     * @param source The URI of the selected image.
+     * @param eventId The event ID, used to name the output files.
+     * @return The compressed file of each variant.
+     * @throws IOException If the image cannot be read or a file cannot be written.
+     */
+    public Map<PosterVariant, File> process(Uri source, String eventId) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = context.getContentResolver().openInputStream(source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("The selected file is not an image.");
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(Math.max(bounds.outWidth, bounds.outHeight), PosterVariant.FULL.maxEdge);
+
+        Bitmap decoded;
+        try (InputStream in = context.getContentResolver().openInputStream(source)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("The selected image could not be decoded.");
+        }
+
+        File dir = new File(context.getCacheDir(), "poster_uploads");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+
+        Map<PosterVariant, File> files = new EnumMap<>(PosterVariant.class);
+        try {
+            for (PosterVariant variant : PosterVariant.values()) {
+                int[] size = scaledSize(decoded.getWidth(), decoded.getHeight(), variant.maxEdge);
+                Bitmap scaled = (size[0] == decoded.getWidth() && size[1] == decoded.getHeight())
+                        ? decoded
+                        : Bitmap.createScaledBitmap(decoded, size[0], size[1], true);
+
+                File file = new File(dir, eventId + variant.fileSuffix + ".jpg");
+                try (OutputStream out = new FileOutputStream(file)) {
+                    if (!scaled.compress(Bitmap.CompressFormat.JPEG, variant.quality, out)) {
+                        throw new IOException("Could not compress the " + variant + " poster.");
+                    }
+                } finally {
+                    if (scaled != decoded) scaled.recycle();
+                }
+                files.put(variant, file);
+            }
+        } catch (IOException e) {
+            for (File file : files.values()) file.delete();
+            throw e;
+        } finally {
+            decoded.recycle();
+        }
+        return files;
+    }
+
+    /**
+     * Computes the largest power-of-two sample size that keeps the image's longer edge
+     * at or above the largest variant's size, so that variant is still scaled from enough pixels.
+     *
+     * @param longerEdge The longer edge of the source image.
+     * @param maxEdge The longer edge of the largest variant.
+     * @return The sample size to decode with, at least 1.
+     */
+    static int sampleSize(int longerEdge, int maxEdge) {
+        int sample = 1;
+        while (longerEdge / (sample * 2) >= maxEdge) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    /**
+     * Computes the size of an image scaled so its longer edge is at most {@code maxEdge},
+     * keeping the aspect ratio. Images that already fit are left unchanged.
+     *
+     * @param width The source width.
+     * @param height The source height.
+     * @param maxEdge The maximum length of the longer edge.
+     * @return The scaled width and height, each at least 1.
+     */
+    static int[] scaledSize(int width, int height, int maxEdge) {
+        int longer = Math.max(width, height);
+        if (longer <= maxEdge) {
+            return new int[] {width, height};
+        }
+        double scale = (double) maxEdge / longer;
+        return new int[] {
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))
+        };
+    }
+}
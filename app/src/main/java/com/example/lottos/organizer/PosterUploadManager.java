@@ -0,0 +1,337 @@
+package com.example.lottos.organizer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Uploads files to storage through resumable sessions, retrying with exponential backoff.
+ *
+ * Role: A single upload attempt on a poor connection often fails part way through, which used
+ * to fail event creation outright. This class:
+ * <ul>
+ *     <li>Starts each upload as a resumable session and saves the session URI in a {@link SessionStore}
+ *         as soon as the backend reports it. The default store is backed by SharedPreferences, so the
+ *         session survives process death.</li>
+ *     <li>Resumes from the saved session when the same file is uploaded to the same path again.
+ *         Sessions are keyed by path and file contents, so a different file never resumes another's session.</li>
+ *     <li>Retries failed attempts after exponentially growing delays, up to {@link #MAX_ATTEMPTS}.
+ *         A resumed session that is rejected is discarded and the upload restarts from the beginning.</li>
+ *     <li>Reports byte-level progress.</li>
+ * </ul>
+ * The storage service is reached through an {@link UploadBackend}, so the retry and resume logic
+ * can be tested against a local fake. The default backend uses Firebase Storage, whose resumable
+ * uploads already send the file in chunks.
+ */
+public class PosterUploadManager {
+
+    /** The maximum number of attempts made for one upload. */
+    static final int MAX_ATTEMPTS = 5;
+    /** The delay before the first retry. */
+    static final long BASE_DELAY_MS = 1000;
+    /** The longest delay between retries. */
+    static final long MAX_DELAY_MS = 30000;
+
+    private static final String PREFS_NAME = "PosterUploadSessions";
+
+    /**
+     * A storage service that supports resumable uploads.
+     */
+    public interface UploadBackend {
+        /**
+         * Starts an upload, or resumes it if a session URI is given.
+         *
+         * @param path The destination path in storage.
+         * @param file The file to upload.
+         * @param sessionUri The session to resume, or null to start a new one.
+         * @param listener The listener to notify as the upload proceeds.
+         */
+        void upload(String path, File file, String sessionUri, TransferListener listener);
+    }
+
+    /**
+     * Receives the events of a single upload attempt from an {@link UploadBackend}.
+     */
+    public interface TransferListener {
+        /**
+         * Called when the backend has a session URI that can be used to resume the upload.
+         * @param sessionUri The session URI.
+         */
+        void onSessionStarted(String sessionUri);
+        /**
+         * Called as bytes are transferred.
+         * @param bytesTransferred The number of bytes stored so far, including any sent in earlier attempts.
+         * @param totalBytes The size of the file.
+         */
+        void onProgress(long bytesTransferred, long totalBytes);
+        /**
+         * Called when the upload has completed.
+         * @param downloadUrl The download URL of the stored file.
+         */
+        void onSuccess(String downloadUrl);
+        /**
+         * Called when the attempt fails.
+         * @param e The cause of the failure.
+         * @param retryable Whether the failure is transient, such as a network error.
+         */
+        void onFailure(Exception e, boolean retryable);
+    }
+
+    /**
+     * Persists session URIs between attempts and across process restarts.
+     */
+    public interface SessionStore {
+        /**
+         * @param key The upload key.
+         * @return The saved session URI, or null.
+         */
+        String get(String key);
+        /**
+         * @param key The upload key.
+         * @param sessionUri The session URI to save.
+         */
+        void put(String key, String sessionUri);
+        /**
+         * @param key The upload key whose session should be forgotten.
+         */
+        void remove(String key);
+    }
+
+    /**
+     * Runs retries after a delay.
+     */
+    public interface Scheduler {
+        /**
+         * @param task The task to run.
+         * @param delayMs The delay before running it, in milliseconds.
+         */
+        void schedule(Runnable task, long delayMs);
+    }
+
+    /**
+     * A callback interface to report the outcome of an upload.
+     */
+    public interface UploadListener {
+        /**
+         * Called as bytes are transferred.
+         * @param bytesTransferred The number of bytes stored so far.
+         * @param totalBytes The size of the file.
+         */
+        void onProgress(long bytesTransferred, long totalBytes);
+        /**
+         * Called when the upload has completed.
+         * @param downloadUrl The download URL of the stored file.
+         */
+        void onSuccess(String downloadUrl);
+        /**
+         * Called when the upload has failed and will not be retried.
+         * @param errorMessage A message describing the last failure.
+         */
+        void onFailure(String errorMessage);
+    }
+
+    private final UploadBackend backend;
+    private final SessionStore store;
+    private final Scheduler scheduler;
+
+    /**
+     * Constructs a PosterUploadManager that uploads to Firebase Storage and keeps sessions
+     * in SharedPreferences.
+     * @param context The context used to open the SharedPreferences.
+     */
+    public PosterUploadManager(Context context) {
+        this(new FirebaseBackend(FirebaseStorage.getInstance()),
+                new PrefsSessionStore(context.getApplicationContext()
+                        .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)),
+                new Handler(Looper.getMainLooper())::postDelayed);
+    }
+
+    /**
+     * Constructs a PosterUploadManager with explicit dependencies.
+     * @param backend The storage service to upload to.
+     * @param store The store that keeps session URIs.
+     * @param scheduler The scheduler that runs retries.
+     */
+    public PosterUploadManager(UploadBackend backend, SessionStore store, Scheduler scheduler) {
+        this.backend = backend;
+        this.store = store;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Uploads a file, resuming a saved session for the same path and contents if there is one.
+     *
+     * @param path The destination path in storage.
+     * @param file The file to upload.
+     * @param listener The listener to notify of progress and the final result.
+     */
+    public void upload(String path, File file, UploadListener listener) {
+        String key;
+        try {
+            key = sessionKey(path, file);
+        } catch (IOException e) {
+            listener.onFailure(e.getMessage());
+            return;
+        }
+        attempt(key, path, file, listener, 0);
+    }
+
+    private void attempt(String key, String path, File file, UploadListener listener, int attempt) {
+        String sessionUri = store.get(key);
+
+        backend.upload(path, file, sessionUri, new TransferListener() {
+            @Override
+            public void onSessionStarted(String uri) {
+                store.put(key, uri);
+            }
+
+            @Override
+            public void onProgress(long bytesTransferred, long totalBytes) {
+                listener.onProgress(bytesTransferred, totalBytes);
+            }
+
+            @Override
+            public void onSuccess(String downloadUrl) {
+                store.remove(key);
+                listener.onSuccess(downloadUrl);
+            }
+
+            @Override
+            public void onFailure(Exception e, boolean retryable) {
+                if (!retryable) {
+                    if (sessionUri == null) {
+                        listener.onFailure(e.getMessage());
+                        return;
+                    }
+                    // The saved session may have expired; start over without it.
+                    store.remove(key);
+                }
+
+                if (attempt + 1 >= MAX_ATTEMPTS) {
+                    listener.onFailure(e.getMessage());
+                    return;
+                }
+                scheduler.schedule(() -> attempt(key, path, file, listener, attempt + 1),
+                        backoffDelay(attempt));
+            }
+        });
+    }
+
+    /**
+     * Computes the delay before a retry.
+     *
+     * @param attempt The zero-based number of the attempt that failed.
+     * @return The delay in milliseconds, doubling with every attempt up to {@link #MAX_DELAY_MS}.
+     */
+    static long backoffDelay(int attempt) {
+        long delay = BASE_DELAY_MS << Math.min(attempt, 20);
+        return Math.min(delay, MAX_DELAY_MS);
+    }
+
+    /**
+     * Builds the key a session is saved under, from the destination path and the file's contents.
+     *
+     * @param path The destination path.
+     * @param file The file being uploaded.
+     * @return The session key.
+     * @throws IOException If the file cannot be read.
+     */
+    static String sessionKey(String path, File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return path + "|" + file.length() + "|" + Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * A {@link SessionStore} backed by SharedPreferences.
+     */
+    static class PrefsSessionStore implements SessionStore {
+        private final SharedPreferences prefs;
+
+        PrefsSessionStore(SharedPreferences prefs) {
+            this.prefs = prefs;
+        }
+
+        @Override
+        public String get(String key) {
+            return prefs.getString(key, null);
+        }
+
+        @Override
+        public void put(String key, String sessionUri) {
+            prefs.edit().putString(key, sessionUri).apply();
+        }
+
+        @Override
+        public void remove(String key) {
+            prefs.edit().remove(key).apply();
+        }
+    }
+
+    /**
+     * An {@link UploadBackend} that uses Firebase Storage resumable uploads.
+     */
+    static class FirebaseBackend implements UploadBackend {
+        private final FirebaseStorage storage;
+
+        FirebaseBackend(FirebaseStorage storage) {
+            this.storage = storage;
+        }
+
+        @Override
+        public void upload(String path, File file, String sessionUri, TransferListener listener) {
+            StorageReference ref = storage.getReference(path);
+            Uri source = Uri.fromFile(file);
+
+            UploadTask task = sessionUri != null
+                    ? ref.putFile(source, new StorageMetadata.Builder().build(), Uri.parse(sessionUri))
+                    : ref.putFile(source);
+
+            boolean[] sessionReported = {false};
+            task.addOnProgressListener(snapshot -> {
+                        Uri session = snapshot.getUploadSessionUri();
+                        if (session != null && !sessionReported[0]) {
+                            sessionReported[0] = true;
+                            listener.onSessionStarted(session.toString());
+                        }
+                        listener.onProgress(snapshot.getBytesTransferred(), snapshot.getTotalByteCount());
+                    })
+                    .continueWithTask(t -> {
+                        if (!t.isSuccessful()) throw t.getException();
+                        return ref.getDownloadUrl();
+                    })
+                    .addOnSuccessListener(uri -> listener.onSuccess(uri.toString()))
+                    .addOnFailureListener(e -> listener.onFailure(e, isRetryable(e)));
+        }
+
+        private static boolean isRetryable(Exception e) {
+            if (e instanceof StorageException) {
+                StorageException se = (StorageException) e;
+                return se.getIsRecoverableException()
+                        || se.getErrorCode() == StorageException.ERROR_RETRY_LIMIT_EXCEEDED
+                        || se.getErrorCode() == StorageException.ERROR_UNKNOWN;
+            }
+            return e instanceof IOException;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.lottos.organizer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.lottos.AppExecutors;
+import com.example.lottos.PosterVariant;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uploads an event poster as a set of resized variants.
+ *
+ * Role: This class is used by the create and edit event screens in place of uploading the
+ * original image. It:
+ * <ul>
+ *     <li>Runs the {@link PosterProcessor} on the {@link AppExecutors.Lane#IO} lane to produce every
+ *         {@link PosterVariant}.</li>
+ *     <li>Uploads all variants to Firebase Storage in parallel through a {@link PosterUploadManager},
+ *         which resumes interrupted uploads and retries with backoff, and reports their combined progress.</li>
+ *     <li>Reports the download URL of each variant, keyed by the event field it belongs in,
+ *         so the caller can store them on the event in the same write as its other fields.</li>
+ * </ul>
+ * The full-size variant keeps the original {@code event_posters/<eventId>.jpg} path and
+ * {@code posterUrl} field, so existing readers continue to work.
+ */
+public class PosterUploader {
+
+    /** Processing one poster at a time bounds the memory used by decoded bitmaps. */
+    private static final Object PROCESS_LOCK = new Object();
+
+    /**
+     * A callback interface to report the outcome of a poster upload. Called on the main thread.
+     */
+    public interface UploadCallback {
+        /**
+         * Called when every variant has been uploaded.
+         * @param posterFields The event fields to store, mapping each variant's field to its download URL.
+         */
+        void onSuccess(Map<String, Object> posterFields);
+        /**
+         * Called as the variants are uploaded.
+         * @param bytesUploaded The number of bytes uploaded so far, across all variants.
+         * @param totalBytes The combined size of all variants.
+         */
+        void onProgress(long bytesUploaded, long totalBytes);
+        /**
+         * Called when processing or any upload fails.
+         * @param errorMessage A message describing the failure.
+         */
+        void onFailure(String errorMessage);
+    }
+
+    private final PosterProcessor processor;
+    private final PosterUploadManager uploadManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Constructs a PosterUploader using the default Firebase Storage instance.
+     * @param context The context used to read the selected image and store upload sessions.
+     */
+    public PosterUploader(Context context) {
+        this(new PosterProcessor(context), new PosterUploadManager(context));
+    }
+
+    /**
+     * Constructs a PosterUploader with explicit dependencies.
+     * @param processor The processor that creates the variants.
+     * @param uploadManager The manager that uploads each variant.
+     */
+    public PosterUploader(PosterProcessor processor, PosterUploadManager uploadManager) {
+        this.processor = processor;
+        this.uploadManager = uploadManager;
+    }
+
+    /**
+     * Processes and uploads a poster for an event.
+     *
+     * @param source The URI of the selected image.
+     * @param eventId The event the poster belongs to.
+     * @param callback The callback to be invoked on the main thread with the result.
+     */
+    public void upload(Uri source, String eventId, UploadCallback callback) {
+        boolean queued = AppExecutors.getInstance().execute(AppExecutors.Lane.IO, () -> {
+            Map<PosterVariant, File> files;
+            try {
+                synchronized (PROCESS_LOCK) {
+                    files = processor.process(source, eventId);
+                }
+            } catch (Exception e) {
+                mainHandler.post(() -> callback.onFailure(e.getMessage()));
+                return;
+            }
+            mainHandler.post(() -> uploadVariants(files, eventId, callback));
+        });
+
+        if (!queued) {
+            callback.onFailure("The device is busy. Please try again.");
+        }
+    }
+
+    private void uploadVariants(Map<PosterVariant, File> files, String eventId, UploadCallback callback) {
+        List<PosterVariant> variants = new ArrayList<>(files.keySet());
+        long[] transferred = new long[variants.size()];
+        long totalBytes = 0;
+        for (File file : files.values()) totalBytes += file.length();
+        long total = totalBytes;
+
+        Map<String, Object> fields = new HashMap<>();
+        int[] remaining = {variants.size()};
+        boolean[] failed = {false};
+
+        for (int i = 0; i < variants.size(); i++) {
+            int index = i;
+            PosterVariant variant = variants.get(i);
+            File file = files.get(variant);
+
+            uploadManager.upload(variant.storagePath(eventId), file, new PosterUploadManager.UploadListener() {
+                @Override
+                public void onProgress(long bytesTransferred, long totalBytes) {
+                    if (failed[0]) return;
+                    transferred[index] = bytesTransferred;
+                    long sum = 0;
+                    for (long t : transferred) sum += t;
+                    callback.onProgress(sum, total);
+                }
+
+                @Override
+                public void onSuccess(String downloadUrl) {
+                    file.delete();
+                    fields.put(variant.field, downloadUrl);
+                    if (--remaining[0] == 0 && !failed[0]) {
+                        callback.onSuccess(fields);
+                    }
+                }
+
+                @Override
+                public void onFailure(String errorMessage) {
+                    file.delete();
+                    if (failed[0]) return;
+                    failed[0] = true;
+                    callback.onFailure(errorMessage != null ? errorMessage : "Poster upload failed.");
+                }
+            });
+        }
+    }
+}
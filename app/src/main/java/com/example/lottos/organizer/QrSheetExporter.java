@@ -0,0 +1,208 @@
+package com.example.lottos.organizer;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.core.content.FileProvider;
+
+import com.example.lottos.AppExecutors;
+import com.example.lottos.EventRepository;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Exports the QR codes of all events run by an organizer into a single multi-page PDF.
+ *
+ * Role: Without this class an organizer has to open every event to get its QR code. This class:
+ * <ul>
+ *     <li>Fetches the organizer's events through {@link EventRepository#getEventsByOrganizer}.</li>
+ *     <li>Writes the sheet on the {@link AppExecutors.Lane#EXPORT} lane and encodes the QR codes
+ *         ahead of the writer on the same lane. A code that no worker has started yet is encoded
+ *         by the writer itself, so the export never waits on a busy lane.</li>
+ *     <li>Writes one page per event, in order, through {@link QrSheetPdfWriter}. Only a bounded
+ *         window of encoded codes is held at a time, so memory does not grow with the event count.</li>
+ *     <li>Shares the finished file through the app's FileProvider, like {@link CsvExportManager}.</li>
+ * </ul>
+ * Each QR code encodes the event ID. Call {@link #shutdown()} when the owning screen is destroyed.
+ */
+public class QrSheetExporter {
+
+    /** The most QR codes encoded ahead of the page being written. */
+    private static final int RENDER_WINDOW = 6;
+
+    /**
+     * A callback interface to report the outcome of the QR sheet export.
+     * Both methods are called on the main thread.
+     */
+    public interface QrSheetCallback {
+        /**
+         * Called when the PDF has been written.
+         * @param path The absolute path to the PDF file.
+         * @param pageCount The number of events exported.
+         */
+        void onSuccess(String path, int pageCount);
+        /**
+         * Called when an error occurs during the export process.
+         * @param errorMessage A message describing the failure.
+         */
+        void onFailure(String errorMessage);
+    }
+
+    private final Context context;
+    private final EventRepository repo;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AppExecutors executors = AppExecutors.getInstance();
+    private boolean shutdown;
+    private Future<?> writing;
+
+    /**
+     * Constructs a new QrSheetExporter.
+     * @param context The Android context, required for file operations and starting activities.
+     * @param repo The repository used to look up the organizer's events.
+     */
+    public QrSheetExporter(Context context, EventRepository repo) {
+        this.context = context.getApplicationContext();
+        this.repo = repo;
+    }
+
+    /**
+     * Exports the QR codes of every event organized by the given user and opens the share sheet.
+     *
+     * @param organizer The username of the organizer.
+     * @param callback The callback to be invoked with the result of the operation.
+     */
+    public void exportOrganizerEvents(String organizer, QrSheetCallback callback) {
+        repo.readEventsByOrganizer(organizer)
+                .addOnSuccessListener(query -> {
+                    List<String> ids = new ArrayList<>();
+                    List<String> names = new ArrayList<>();
+
+                    for (QueryDocumentSnapshot doc : query) {
+                        String name = doc.getString("eventName");
+                        ids.add(doc.getId());
+                        names.add(name != null ? name : doc.getId());
+                    }
+
+                    if (ids.isEmpty()) {
+                        callback.onFailure("No events to export.");
+                        return;
+                    }
+
+                    // The screen may have been left, and the exporter shut down, while the query ran.
+                    if (!startWriter(() -> writeSheet(organizer, ids, names, callback))) {
+                        callback.onFailure("Export cancelled.");
+                    }
+                })
+                .addOnFailureListener(e -> callback.onFailure("Export failed: " + e.getMessage()));
+    }
+
+    /**
+     * Queues the writer on the export lane, unless the exporter has been shut down.
+     * @return true if the writer was queued.
+     */
+    private synchronized boolean startWriter(Runnable write) {
+        if (shutdown) return false;
+        FutureTask<Void> task = new FutureTask<>(write, null);
+        if (!executors.execute(AppExecutors.Lane.EXPORT, task)) return false;
+        writing = task;
+        return true;
+    }
+
+    /**
+     * Encodes the QR codes ahead of the writer and writes them to the PDF in event order.
+     * Runs on the export lane.
+     */
+    private void writeSheet(String organizer, List<String> ids, List<String> names, QrSheetCallback callback) {
+        String fileName = organizer.replaceAll("[^a-zA-Z0-9.-]", "_") + "_event_qr_codes.pdf";
+        File file = new File(context.getExternalFilesDir(null), fileName);
+        Deque<FutureTask<BitMatrix>> pending = new ArrayDeque<>();
+        int next = 0;
+
+        try (QrSheetPdfWriter writer = new QrSheetPdfWriter(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+
+            while (next < ids.size() && pending.size() < RENDER_WINDOW) {
+                pending.add(submitEncode(ids.get(next++)));
+            }
+
+            for (int i = 0; i < ids.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                FutureTask<BitMatrix> encode = pending.removeFirst();
+                // Runs the encode here if no worker has picked it up yet; does nothing otherwise.
+                encode.run();
+                BitMatrix matrix = encode.get();
+                if (next < ids.size()) {
+                    pending.add(submitEncode(ids.get(next++)));
+                }
+                writer.addPage(names.get(i), "Event ID: " + ids.get(i), matrix);
+            }
+
+        } catch (Exception e) {
+            for (Future<BitMatrix> f : pending) f.cancel(true);
+            file.delete();
+            mainHandler.post(() -> callback.onFailure("Export failed: " + e.getMessage()));
+            return;
+        }
+
+        int pageCount = ids.size();
+        mainHandler.post(() -> {
+            callback.onSuccess(file.getAbsolutePath(), pageCount);
+            sharePdfFile(file);
+        });
+    }
+
+    private FutureTask<BitMatrix> submitEncode(String content) {
+        FutureTask<BitMatrix> task = new FutureTask<>(
+                () -> new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0));
+        // A full lane is not an error: the writer encodes the code itself when it gets to it.
+        executors.execute(AppExecutors.Lane.EXPORT, task);
+        return task;
+    }
+
+    /**
+     * Creates and starts an Intent to share the generated PDF.
+     * It uses a FileProvider to create a secure, shareable URI for the file.
+     *
+     * @param file The PDF file to be shared.
+     */
+    private void sharePdfFile(File file) {
+        Uri uri = FileProvider.getUriForFile(
+                context,
+                context.getPackageName() + ".provider",
+                file
+        );
+
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType("application/pdf");
+        intent.putExtra(Intent.EXTRA_STREAM, uri);
+        intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_ACTIVITY_NEW_TASK);
+
+        Intent chooser = Intent.createChooser(intent, "Share QR Codes");
+        chooser.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        context.startActivity(chooser);
+    }
+
+    /**
+     * Stops any export in progress. An export whose event query is still running reports
+     * {@code onFailure} when the query returns.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (writing != null) writing.cancel(true);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.lottos.organizer;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A minimal PDF writer that streams one QR code per page directly to an output stream.
+ *
+ * Role: Android's {@code PdfDocument} keeps the whole document in memory until it is written,
+ * which grows with every page. This writer emits each page as soon as it is added and only
+ * remembers the byte offset of every object for the final cross-reference table, so memory
+ * stays flat no matter how many events are exported. Its key characteristics are:
+ * <ul>
+ *     <li>QR codes are embedded as 1-bit greyscale images at one pixel per module and scaled
+ *         by the page transform, so each image is only a few hundred bytes.</li>
+ *     <li>Page titles use the built-in Helvetica font, so no font data is embedded.</li>
+ *     <li>Pages are A4 sized and laid out with the title, a subtitle, and a centred QR code.</li>
+ * </ul>
+ * Instances are not thread-safe; pages must be added from a single thread.
+ */
+class QrSheetPdfWriter implements Closeable {
+
+    private static final int PAGE_WIDTH = 595;
+    private static final int PAGE_HEIGHT = 842;
+    private static final int QR_DRAW_SIZE = 400;
+
+    private static final int CATALOG_ID = 1;
+    private static final int PAGES_ID = 2;
+    private static final int FONT_ID = 3;
+
+    private final OutputStream out;
+    private final List<Long> offsets = new ArrayList<>();
+    private final List<Integer> pageIds = new ArrayList<>();
+    private long position = 0;
+    private int nextId = FONT_ID + 1;
+    private boolean closed = false;
+
+    /**
+     * Constructs a writer and emits the PDF header and shared font object.
+     *
+     * @param out The stream to write to. It is closed when this writer is closed.
+     * @throws IOException If writing the header fails.
+     */
+    QrSheetPdfWriter(OutputStream out) throws IOException {
+        this.out = out;
+        offsets.add(0L);
+        write("%PDF-1.4\n%âãÏÓ\n");
+
+        beginObject(FONT_ID);
+        write("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+    }
+
+    /**
+     * Writes one page containing a title, a subtitle, and a QR code.
+     *
+     * @param title The large heading, such as the event name.
+     * @param subtitle The smaller line under the heading, such as the event ID.
+     * @param matrix The QR module matrix, one bit per module.
+     * @throws IOException If writing fails.
+     */
+    void addPage(String title, String subtitle, BitMatrix matrix) throws IOException {
+        int imageId = nextId++;
+        int contentId = nextId++;
+        int pageId = nextId++;
+
+        byte[] bits = packRows(matrix);
+        beginObject(imageId);
+        write("<< /Type /XObject /Subtype /Image /Width " + matrix.getWidth()
+                + " /Height " + matrix.getHeight()
+                + " /ColorSpace /DeviceGray /BitsPerComponent 1 /Length " + bits.length + " >>\nstream\n");
+        write(bits);
+        write("\nendstream\nendobj\n");
+
+        double qrX = (PAGE_WIDTH - QR_DRAW_SIZE) / 2.0;
+        double qrY = (PAGE_HEIGHT - QR_DRAW_SIZE) / 2.0 - 40;
+        String content = "BT /F1 22 Tf 50 780 Td (" + escape(title) + ") Tj ET\n"
+                + "BT /F1 12 Tf 50 758 Td (" + escape(subtitle) + ") Tj ET\n"
+                + "q " + QR_DRAW_SIZE + " 0 0 " + QR_DRAW_SIZE + " "
+                + String.format(Locale.US, "%.1f %.1f", qrX, qrY) + " cm /Im1 Do Q\n";
+        byte[] contentBytes = content.getBytes(StandardCharsets.ISO_8859_1);
+
+        beginObject(contentId);
+        write("<< /Length " + contentBytes.length + " >>\nstream\n");
+        write(contentBytes);
+        write("\nendstream\nendobj\n");
+
+        beginObject(pageId);
+        write("<< /Type /Page /Parent " + PAGES_ID + " 0 R /MediaBox [0 0 " + PAGE_WIDTH + " " + PAGE_HEIGHT + "]"
+                + " /Resources << /Font << /F1 " + FONT_ID + " 0 R >> /XObject << /Im1 " + imageId + " 0 R >> >>"
+                + " /Contents " + contentId + " 0 R >>\nendobj\n");
+
+        pageIds.add(pageId);
+    }
+
+    /**
+     * Returns the number of pages written so far.
+     * @return The page count.
+     */
+    int getPageCount() {
+        return pageIds.size();
+    }
+
+    /**
+     * Writes the page tree, catalog, cross-reference table, and trailer, then closes the stream.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            StringBuilder kids = new StringBuilder();
+            for (int id : pageIds) {
+                kids.append(id).append(" 0 R ");
+            }
+
+            beginObject(PAGES_ID);
+            write("<< /Type /Pages /Kids [" + kids.toString().trim() + "] /Count " + pageIds.size() + " >>\nendobj\n");
+
+            beginObject(CATALOG_ID);
+            write("<< /Type /Catalog /Pages " + PAGES_ID + " 0 R >>\nendobj\n");
+
+            long xrefOffset = position;
+            StringBuilder xref = new StringBuilder();
+            xref.append("xref\n0 ").append(offsets.size()).append("\n");
+            xref.append("0000000000 65535 f \n");
+            for (int i = 1; i < offsets.size(); i++) {
+                xref.append(String.format(Locale.US, "%010d 00000 n \n", offsets.get(i)));
+            }
+            xref.append("trailer\n<< /Size ").append(offsets.size())
+                    .append(" /Root ").append(CATALOG_ID).append(" 0 R >>\n")
+                    .append("startxref\n").append(xrefOffset).append("\n%%EOF\n");
+            write(xref.toString());
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Packs a module matrix into PDF 1-bit greyscale rows, where 0 is black and 1 is white.
+     * Each row is padded to a whole number of bytes.
+     *
+     * @param matrix The QR module matrix.
+     * @return The packed image data.
+     */
+    static byte[] packRows(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = (width + 7) / 8;
+        byte[] data = new byte[rowBytes * height];
+
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * rowBytes;
+            for (int x = 0; x < width; x++) {
+                if (!matrix.get(x, y)) {
+                    data[rowStart + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Escapes text for use inside a PDF literal string.
+     * Characters outside Latin-1 are replaced with '?', and control characters with spaces.
+     *
+     * @param text The text to escape.
+     * @return The escaped text.
+     */
+    static String escape(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == '(' || c == ')') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(' ');
+            } else if (c > 0xFF) {
+                sb.append('?');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void beginObject(int id) throws IOException {
+        while (offsets.size() <= id) {
+            offsets.add(0L);
+        }
+        offsets.set(id, position);
+        write(id + " 0 obj\n");
+    }
+
+    private void write(String s) throws IOException {
+        write(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.lottos;
+
+import android.os.Looper;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Unit tests for the AppExecutors class.
+ * Verifies that lanes run work and record metrics, that their queues are bounded, and that scoped work is cancelled with its lifecycle.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class AppExecutorsTest {
+
+    private AppExecutors executors;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        executors = new AppExecutors();
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executors.shutdownNow();
+    }
+
+    /**
+     * Occupies every thread of a lane until the test ends, so later tasks stay queued.
+     */
+    private void blockLane(AppExecutors.Lane lane) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(lane.threads);
+        for (int i = 0; i < lane.threads; i++) {
+            executors.execute(lane, () -> {
+                started.countDown();
+                awaitRelease();
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void execute_shouldRunTaskAndRecordIt() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+
+        assertTrue(executors.execute(AppExecutors.Lane.IO, ran::countDown));
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+
+        AppExecutors.Stats stats = executors.stats(AppExecutors.Lane.IO);
+        assertEquals(1, stats.submitted);
+        assertEquals(0, stats.rejected);
+    }
+
+    @Test
+    public void execute_shouldRejectWorkWhenQueueIsFull() throws InterruptedException {
+        AppExecutors.Lane lane = AppExecutors.Lane.EXPORT;
+        blockLane(lane);
+
+        for (int i = 0; i < lane.queueCapacity; i++) {
+            assertTrue(executors.execute(lane, () -> {}));
+        }
+        assertFalse("A full queue should not grow", executors.execute(lane, () -> {}));
+
+        AppExecutors.Stats stats = executors.stats(lane);
+        assertEquals(lane.queueCapacity, stats.queueDepth);
+        assertEquals(1, stats.rejected);
+    }
+
+    @Test
+    public void execute_imagesLane_shouldDropOldestQueuedTask() throws InterruptedException {
+        AppExecutors.Lane lane = AppExecutors.Lane.IMAGES;
+        blockLane(lane);
+
+        for (int i = 0; i < lane.queueCapacity; i++) {
+            executors.execute(lane, () -> {});
+        }
+        assertTrue("The newest load should replace the oldest", executors.execute(lane, () -> {}));
+
+        AppExecutors.Stats stats = executors.stats(lane);
+        assertEquals(lane.queueCapacity, stats.queueDepth);
+        assertEquals(1, stats.rejected);
+    }
+
+    @Test
+    public void executor_shouldThrowWhenQueueIsFull() throws InterruptedException {
+        AppExecutors.Lane lane = AppExecutors.Lane.IO;
+        blockLane(lane);
+        Executor executor = executors.executor(lane);
+
+        for (int i = 0; i < lane.queueCapacity; i++) {
+            executor.execute(() -> {});
+        }
+        try {
+            executor.execute(() -> {});
+            fail("A full lane should refuse the task, so the caller can report it");
+        } catch (RejectedExecutionException expected) {
+            assertEquals(1, executors.stats(lane).rejected);
+        }
+    }
+
+    @Test
+    public void scope_shouldCancelWorkWhenLifecycleIsDestroyed() throws InterruptedException {
+        LifecycleOwner owner = mock(LifecycleOwner.class);
+        LifecycleRegistry registry = LifecycleRegistry.createUnsafe(owner);
+        when(owner.getLifecycle()).thenReturn(registry);
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_RESUME);
+
+        AppExecutors.Scope scope = executors.scope(owner);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        scope.execute(AppExecutors.Lane.UI_CRITICAL, () -> {
+            started.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean delivered = new AtomicBoolean(false);
+        scope.postToMain(() -> delivered.set(true));
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertTrue("Running work should be interrupted", interrupted.await(5, TimeUnit.SECONDS));
+        assertFalse("Results should not reach a destroyed view", delivered.get());
+        assertTrue(scope.isCancelled());
+        assertFalse(scope.execute(AppExecutors.Lane.UI_CRITICAL, () -> fail("Should not run")));
+    }
+}
@@ -6,6 +6,7 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -21,7 +22,10 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -93,6 +97,51 @@ public class EventRepositoryTest {
     }
 
 
+    @Test
+    public void readEvent_sharesReadInProgressAcrossRepositories() {
+        when(mockDocRef.get()).thenReturn(mockGetTask);
+        EventRepository otherRepository = new EventRepository(mockDb);
+
+        Task<DocumentSnapshot> first = eventRepository.readEvent("testEvent123");
+        Task<DocumentSnapshot> second = otherRepository.readEvent("testEvent123");
+
+        assertSame(first, second);
+        verify(mockDocRef, times(1)).get();
+    }
+
+
+    @Test
+    public void updateEvent_stopsSharingReadStartedBeforeIt() {
+        when(mockDocRef.get()).thenReturn(mockGetTask);
+        when(mockDocRef.update(any(Map.class))).thenReturn(mockVoidTask);
+        when(mockVoidTask.addOnSuccessListener(any())).thenReturn(mockVoidTask);
+
+        eventRepository.readEvent("testEvent123");
+        eventRepository.updateEvent("testEvent123", new HashMap<>(), mockOnSuccess, mockOnError);
+        eventRepository.readEvent("testEvent123");
+
+        verify(mockDocRef, times(2)).get();
+    }
+
+
+    @Test
+    public void invalidateEvent_stopsSharingEventAndListReads() {
+        when(mockDocRef.get()).thenReturn(mockGetTask);
+        Task<QuerySnapshot> mockQueryTask = mock(Task.class);
+        when(mockCollection.whereEqualTo("organizer", "organizer-abc")).thenReturn(mockQuery);
+        when(mockQuery.get()).thenReturn(mockQueryTask);
+
+        eventRepository.readEvent("testEvent123");
+        eventRepository.readEventsByOrganizer("organizer-abc");
+        eventRepository.invalidateEvent("testEvent123");
+        eventRepository.readEvent("testEvent123");
+        eventRepository.readEventsByOrganizer("organizer-abc");
+
+        verify(mockDocRef, times(2)).get();
+        verify(mockQuery, times(2)).get();
+    }
+
+
     @Test
     public void createEvent_callsSetWithCorrectData() {
         String eventId = "newEventId";
@@ -0,0 +1,123 @@
+package com.example.lottos;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the GeoClusterEngine class.
+ * Verifies that nearby points are merged at low zoom, separated at high zoom,
+ * and that only clusters inside the viewport are returned.
+ */
+public class GeoClusterEngineTest {
+
+    private static GeoClusterEngine engine(double[][] points) {
+        String[] ids = new String[points.length];
+        double[] lats = new double[points.length];
+        double[] lons = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            ids[i] = "user" + i;
+            lats[i] = points[i][0];
+            lons[i] = points[i][1];
+        }
+        return new GeoClusterEngine(ids, lats, lons, points.length);
+    }
+
+    private static int totalCount(List<GeoClusterEngine.Cluster> clusters) {
+        int total = 0;
+        for (GeoClusterEngine.Cluster c : clusters) total += c.count;
+        return total;
+    }
+
+    @Test
+    public void cluster_shouldMergeNearbyPointsAtLowZoom() {
+        GeoClusterEngine engine = engine(new double[][] {
+                {53.5461, -113.4938},
+                {53.5462, -113.4939},
+                {53.5463, -113.4937}
+        });
+
+        List<GeoClusterEngine.Cluster> clusters = engine.cluster(-90, -180, 90, 180, 3f);
+
+        assertEquals("Close points should form a single cluster", 1, clusters.size());
+        assertEquals("Cluster should count every point", 3, clusters.get(0).count);
+        assertEquals("Centroid latitude should be the mean", 53.5462, clusters.get(0).latitude, 1e-9);
+    }
+
+    @Test
+    public void cluster_shouldSeparateDistantPoints() {
+        GeoClusterEngine engine = engine(new double[][] {
+                {53.5461, -113.4938},
+                {51.0447, -114.0719},
+                {43.6532, -79.3832}
+        });
+
+        List<GeoClusterEngine.Cluster> clusters = engine.cluster(-90, -180, 90, 180, 10f);
+
+        assertEquals("Distant points should stay separate at high zoom", 3, clusters.size());
+        for (GeoClusterEngine.Cluster c : clusters) {
+            assertEquals("Each singleton cluster should have a count of one", 1, c.count);
+        }
+    }
+
+    @Test
+    public void cluster_shouldOnlyReturnClustersInsideViewport() {
+        GeoClusterEngine engine = engine(new double[][] {
+                {53.5461, -113.4938},
+                {43.6532, -79.3832}
+        });
+
+        List<GeoClusterEngine.Cluster> clusters = engine.cluster(50, -120, 56, -110, 10f);
+
+        assertEquals("Only the Edmonton point should be visible", 1, clusters.size());
+        assertEquals("user0", clusters.get(0).userId);
+    }
+
+    @Test
+    public void cluster_shouldHandleViewportCrossingAntimeridian() {
+        GeoClusterEngine engine = engine(new double[][] {
+                {0, 179.5},
+                {0, -179.5},
+                {0, 0}
+        });
+
+        List<GeoClusterEngine.Cluster> clusters = engine.cluster(-10, 170, 10, -170, 10f);
+
+        assertEquals("Both points near the antimeridian should be visible", 2, totalCount(clusters));
+    }
+
+    @Test
+    public void cluster_shouldPreserveTotalCountAcrossZoomLevels() {
+        double[][] points = new double[500][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[] {(i % 50) * 1.5 - 40, (i / 50) * 3.0 - 120};
+        }
+        GeoClusterEngine engine = engine(points);
+
+        for (int z = 0; z <= GeoClusterEngine.MAX_ZOOM; z += 4) {
+            assertEquals("Every point should belong to exactly one cluster at zoom " + z,
+                    points.length, totalCount(engine.cluster(-90, -180, 90, 180, z)));
+        }
+    }
+
+    @Test
+    public void getBounds_shouldReturnNullForEmptyEngine() {
+        GeoClusterEngine engine = new GeoClusterEngine(new String[0], new double[0], new double[0], 0);
+
+        assertNull(engine.getBounds());
+        assertTrue(engine.cluster(-90, -180, 90, 180, 5f).isEmpty());
+    }
+
+    @Test
+    public void getBounds_shouldEncloseAllPoints() {
+        GeoClusterEngine engine = engine(new double[][] {
+                {10, 20},
+                {-5, 40},
+                {30, -10}
+        });
+
+        assertArrayEquals(new double[] {-5, -10, 30, 40}, engine.getBounds(), 0.0);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.lottos;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the GeoHash utility class.
+ * Verifies encoding against known values and that the covering prefixes returned for a
+ * bounding box match every point inside it.
+ */
+public class GeoHashTest {
+
+    private static boolean matchesAny(List<String> prefixes, String hash) {
+        for (String prefix : prefixes) {
+            if (hash.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static void assertNoOverlap(List<String> prefixes) {
+        for (String a : prefixes) {
+            assertEquals("Every prefix should use one precision", prefixes.get(0).length(), a.length());
+            for (String b : prefixes) {
+                if (a != b) assertFalse(a + " overlaps " + b, b.startsWith(a));
+            }
+        }
+    }
+
+    @Test
+    public void encode_shouldMatchKnownGeohash() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("c3x29", GeoHash.encode(53.5461, -113.4938, 5));
+    }
+
+    @Test
+    public void encode_shouldProducePrefixOfLongerHash() {
+        String longHash = GeoHash.encode(53.5461, -113.4938, 9);
+        String shortHash = GeoHash.encode(53.5461, -113.4938, 4);
+
+        assertTrue("Shorter geohash should be a prefix of the longer one", longHash.startsWith(shortHash));
+    }
+
+    @Test
+    public void coveringPrefixes_shouldMatchEveryPointInsideBox() {
+        double south = 53.40, west = -113.70, north = 53.70, east = -113.30;
+        List<String> prefixes = GeoHash.coveringPrefixes(south, west, north, east);
+        Random random = new Random(42);
+
+        assertTrue("A small box should need at most four prefixes", prefixes.size() <= 4);
+        for (int i = 0; i < 1000; i++) {
+            double lat = south + random.nextDouble() * (north - south);
+            double lon = west + random.nextDouble() * (east - west);
+            String hash = GeoHash.encode(lat, lon, GeoHash.STORED_PRECISION);
+            assertTrue("Point " + lat + "," + lon + " should be covered", matchesAny(prefixes, hash));
+        }
+    }
+
+    @Test
+    public void coveringPrefixes_shouldCoverBothSidesOfAntimeridian() {
+        List<String> prefixes = GeoHash.coveringPrefixes(-1, 179, 1, -179);
+
+        assertTrue(matchesAny(prefixes, GeoHash.encode(0, 179.5, GeoHash.STORED_PRECISION)));
+        assertTrue(matchesAny(prefixes, GeoHash.encode(0, -179.5, GeoHash.STORED_PRECISION)));
+        assertFalse(matchesAny(prefixes, GeoHash.encode(0, 0, GeoHash.STORED_PRECISION)));
+    }
+
+    @Test
+    public void coveringPrefixes_acrossAntimeridian_shouldNotOverlap() {
+        // Uneven halves: a narrow strip east of 180 and a wider one west of it.
+        List<String> narrow = GeoHash.coveringPrefixes(10, 179.99, 10.5, -178);
+        assertNoOverlap(narrow);
+        assertFalse("A small box should not fall back to the whole world", narrow.contains(""));
+        assertTrue(matchesAny(narrow, GeoHash.encode(10.2, 179.995, GeoHash.STORED_PRECISION)));
+        assertTrue(matchesAny(narrow, GeoHash.encode(10.2, -179, GeoHash.STORED_PRECISION)));
+
+        // The wide half needs the whole world, which must not be queried alongside the narrow half.
+        List<String> wide = GeoHash.coveringPrefixes(10, 179.9, 40, -120);
+        assertNoOverlap(wide);
+        assertTrue(matchesAny(wide, GeoHash.encode(20, 179.95, GeoHash.STORED_PRECISION)));
+        assertTrue(matchesAny(wide, GeoHash.encode(30, -150, GeoHash.STORED_PRECISION)));
+    }
+
+    @Test
+    public void boundsForRadius_shouldContainPointsWithinRadius() {
+        double lat = 53.5461, lon = -113.4938;
+        double[] box = GeoHash.boundsForRadius(lat, lon, 5_000);
+
+        assertTrue(GeoHash.contains(box[0], box[1], box[2], box[3], lat + 0.04, lon));
+        assertTrue(GeoHash.contains(box[0], box[1], box[2], box[3], lat, lon - 0.07));
+        assertFalse(GeoHash.contains(box[0], box[1], box[2], box[3], lat + 0.1, lon));
+    }
+
+    @Test
+    public void boundsForRadius_shouldSpanAllLongitudesNearPole() {
+        double[] box = GeoHash.boundsForRadius(89.99, 0, 10_000);
+
+        assertEquals(-180, box[1], 0.0);
+        assertEquals(180, box[3], 0.0);
+        assertEquals(90, box[2], 0.0);
+    }
+
+    /**
+     * Finds the point a given distance from a start point along an initial bearing.
+     * @return {latitude, longitude} in degrees.
+     */
+    private static double[] destination(double lat, double lon, double bearing, double meters) {
+        double d = meters / GeoHash.EARTH_RADIUS_M;
+        double phi = Math.toRadians(lat), theta = Math.toRadians(bearing);
+        double phi2 = Math.asin(Math.sin(phi) * Math.cos(d) + Math.cos(phi) * Math.sin(d) * Math.cos(theta));
+        double dLon = Math.atan2(Math.sin(theta) * Math.sin(d) * Math.cos(phi),
+                Math.cos(d) - Math.sin(phi) * Math.sin(phi2));
+        return new double[] {Math.toDegrees(phi2), lon + Math.toDegrees(dLon)};
+    }
+
+    @Test
+    public void boundsForRadius_shouldContainEastAndWestEdgesAtHighLatitude() {
+        double lat = 60, lon = 10, radius = 1_000_000;
+        double[] box = GeoHash.boundsForRadius(lat, lon, radius);
+
+        // The circle is widest north of the centre, about 18.22 degrees either side at this latitude.
+        assertTrue(box[3] - lon > 18.2);
+        assertTrue(lon - box[1] > 18.2);
+
+        // Walk the circle's edge, which includes its easternmost and westernmost points.
+        for (double bearing = 0; bearing < 360; bearing += 0.5) {
+            double[] edge = destination(lat, lon, bearing, radius * 0.9999);
+            assertTrue("Edge point at bearing " + bearing + " is outside the box",
+                    GeoHash.contains(box[0], box[1], box[2], box[3], edge[0], edge[1]));
+        }
+    }
+
+    @Test
+    public void distanceMeters_shouldMatchKnownDistance() {
+        double edmontonToCalgary = GeoHash.distanceMeters(53.5461, -113.4938, 51.0447, -114.0719);
+
+        assertEquals("Edmonton to Calgary should be about 280 km", 280_000, edmontonToCalgary, 5_000);
+        assertEquals(0, GeoHash.distanceMeters(10, 10, 10, 10), 1e-9);
+    }
+}
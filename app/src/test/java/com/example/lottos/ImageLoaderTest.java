@@ -0,0 +1,35 @@
+package com.example.lottos;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the ImageLoader class.
+ * Verifies the sample size chosen when decoding posters for small views.
+ */
+public class ImageLoaderTest {
+
+    @Test
+    public void calculateInSampleSize_shouldKeepFullSizeWhenNoSizeRequested() {
+        assertEquals(1, ImageLoader.calculateInSampleSize(4000, 3000, 0, 0));
+    }
+
+    @Test
+    public void calculateInSampleSize_shouldKeepFullSizeForSmallImages() {
+        assertEquals(1, ImageLoader.calculateInSampleSize(400, 300, 540, 473));
+    }
+
+    @Test
+    public void calculateInSampleSize_shouldPickLargestPowerOfTwoAboveRequestedSize() {
+        // 4000x3000 / 4 = 1000x750, / 8 = 500x375 which would be smaller than 540x473.
+        assertEquals(4, ImageLoader.calculateInSampleSize(4000, 3000, 540, 473));
+        assertEquals(8, ImageLoader.calculateInSampleSize(4096, 4096, 512, 512));
+    }
+
+    @Test
+    public void calculateInSampleSize_shouldBeLimitedByTheSmallerRatio() {
+        // A wide panorama is limited by its height.
+        assertEquals(2, ImageLoader.calculateInSampleSize(8000, 1000, 500, 500));
+    }
+}
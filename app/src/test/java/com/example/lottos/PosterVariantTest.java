@@ -0,0 +1,62 @@
+package com.example.lottos;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the PosterVariant enum.
+ * Verifies variant selection by width and the fallback used for events without every variant.
+ */
+public class PosterVariantTest {
+
+    @Test
+    public void forWidth_shouldPickSmallestVariantThatFits() {
+        assertEquals(PosterVariant.THUMB, PosterVariant.forWidth(200));
+        assertEquals(PosterVariant.THUMB, PosterVariant.forWidth(320));
+        assertEquals(PosterVariant.CARD, PosterVariant.forWidth(540));
+        assertEquals(PosterVariant.FULL, PosterVariant.forWidth(1080));
+        assertEquals(PosterVariant.FULL, PosterVariant.forWidth(4000));
+    }
+
+    @Test
+    public void resolve_shouldReturnRequestedVariantWhenPresent() {
+        Map<String, String> event = new HashMap<>();
+        event.put("posterUrl", "full");
+        event.put("posterCardUrl", "card");
+        event.put("posterThumbUrl", "thumb");
+
+        assertEquals("thumb", PosterVariant.THUMB.resolve(event::get));
+        assertEquals("card", PosterVariant.CARD.resolve(event::get));
+        assertEquals("full", PosterVariant.FULL.resolve(event::get));
+    }
+
+    @Test
+    public void resolve_shouldFallBackToOriginalForLegacyEvents() {
+        Map<String, String> event = new HashMap<>();
+        event.put("posterUrl", "full");
+
+        assertEquals("full", PosterVariant.THUMB.resolve(event::get));
+        assertEquals("full", PosterVariant.CARD.resolve(event::get));
+    }
+
+    @Test
+    public void resolve_shouldPreferLargerThenSmallerVariants() {
+        Map<String, String> event = new HashMap<>();
+        event.put("posterThumbUrl", "thumb");
+        event.put("posterUrl", "");
+
+        assertEquals("thumb", PosterVariant.FULL.resolve(event::get));
+        assertNull(PosterVariant.CARD.resolve(new HashMap<String, String>()::get));
+    }
+
+    @Test
+    public void storagePath_shouldKeepOriginalPathForFullVariant() {
+        assertEquals("event_posters/abc.jpg", PosterVariant.FULL.storagePath("abc"));
+        assertEquals("event_posters/abc_card.jpg", PosterVariant.CARD.storagePath("abc"));
+        assertEquals("event_posters/abc_thumb.jpg", PosterVariant.THUMB.storagePath("abc"));
+    }
+}
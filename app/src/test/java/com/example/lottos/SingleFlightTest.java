@@ -0,0 +1,112 @@
+package com.example.lottos;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the SingleFlight class.
+ * Verifies that identical reads in progress share one task, and that keys are released when the task completes or is forgotten.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class SingleFlightTest {
+
+    private SingleFlight flights;
+    private AtomicInteger reads;
+
+    @Before
+    public void setUp() {
+        flights = new SingleFlight();
+        reads = new AtomicInteger();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Task<String> startRead() {
+        reads.incrementAndGet();
+        return mock(Task.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void complete(Task<String> task) {
+        ArgumentCaptor<OnCompleteListener<String>> captor = ArgumentCaptor.forClass(OnCompleteListener.class);
+        verify(task).addOnCompleteListener(captor.capture());
+        captor.getValue().onComplete(task);
+    }
+
+    @Test
+    public void run_shouldShareReadInProgress() {
+        Task<String> first = flights.run("open events/e1", this::startRead);
+        Task<String> second = flights.run("open events/e1", this::startRead);
+
+        assertSame(first, second);
+        assertEquals("Only one read should be started", 1, reads.get());
+    }
+
+    @Test
+    public void run_shouldNotShareDifferentKeys() {
+        Task<String> first = flights.run("open events/e1", this::startRead);
+        Task<String> second = flights.run("open events/e2", this::startRead);
+
+        assertNotSame(first, second);
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void run_shouldStartNewReadAfterCompletion() {
+        Task<String> first = flights.run("open events/e1", this::startRead);
+        complete(first);
+
+        assertEquals(0, flights.inFlightCount());
+        assertNotSame(first, flights.run("open events/e1", this::startRead));
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void forget_shouldNotLetOldReadReleaseNewerOne() {
+        Task<String> first = flights.run("open events/e1", this::startRead);
+        flights.forget("open events/e1");
+        Task<String> second = flights.run("open events/e1", this::startRead);
+
+        complete(first);
+
+        assertSame("The newer read should still be shared", second, flights.run("open events/e1", this::startRead));
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void forgetPrefix_shouldOnlyForgetMatchingKeys() {
+        Task<String> byOrganizer = flights.run("open events?organizer=alice", this::startRead);
+        Task<String> event = flights.run("open events/e1", this::startRead);
+
+        flights.forgetPrefix("open events?organizer=");
+
+        assertNotSame(byOrganizer, flights.run("open events?organizer=alice", this::startRead));
+        assertSame(event, flights.run("open events/e1", this::startRead));
+        assertEquals(3, reads.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void run_completedTask_shouldNotBeShared() {
+        Task<String> done = mock(Task.class);
+        when(done.isComplete()).thenReturn(true);
+
+        assertSame(done, flights.run("open events/e1", () -> done));
+
+        assertEquals(0, flights.inFlightCount());
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.lottos;
+
+import android.os.Looper;
+
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Unit tests for the TaskFutures class.
+ * Verifies that task results and failures reach the future, that reads can be combined, and that timeouts fire.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class TaskFuturesTest {
+
+    /**
+     * A task whose outcome is chosen by the test after its listeners are attached.
+     */
+    private static class PendingTask<T> {
+        final Task<T> task = mock(Task.class);
+
+        @SuppressWarnings("unchecked")
+        void succeed(T result) {
+            ArgumentCaptor<OnSuccessListener<T>> captor = ArgumentCaptor.forClass(OnSuccessListener.class);
+            verify(task).addOnSuccessListener(captor.capture());
+            captor.getValue().onSuccess(result);
+        }
+
+        void fail(Exception e) {
+            ArgumentCaptor<OnFailureListener> captor = ArgumentCaptor.forClass(OnFailureListener.class);
+            verify(task).addOnFailureListener(captor.capture());
+            captor.getValue().onFailure(e);
+        }
+    }
+
+    @Test
+    public void of_shouldCompleteWithTaskResult() {
+        PendingTask<String> pending = new PendingTask<>();
+        CompletableFuture<String> future = TaskFutures.of(pending.task);
+
+        assertFalse(future.isDone());
+        pending.succeed("done");
+
+        assertEquals("done", future.join());
+    }
+
+    @Test
+    public void of_shouldFailWithTaskException() {
+        PendingTask<String> pending = new PendingTask<>();
+        Exception error = new Exception("Read failed");
+        List<Exception> errors = new ArrayList<>();
+
+        TaskFutures.deliver(TaskFutures.of(pending.task), result -> fail("Should not succeed"), errors::add);
+        pending.fail(error);
+
+        assertEquals("The original exception should reach the callback", error, errors.get(0));
+    }
+
+    @Test
+    public void thenCombine_shouldWaitForBothReadsStartedTogether() {
+        PendingTask<String> event = new PendingTask<>();
+        PendingTask<String> user = new PendingTask<>();
+        List<String> results = new ArrayList<>();
+
+        CompletableFuture<String> combined = TaskFutures.of(event.task)
+                .thenCombine(TaskFutures.of(user.task), (e, u) -> e + "+" + u);
+        TaskFutures.deliver(combined, results::add, e -> fail("Should not fail"));
+
+        // Both listeners are attached before either read returns.
+        verify(event.task).addOnSuccessListener(any());
+        verify(user.task).addOnSuccessListener(any());
+
+        user.succeed("user");
+        assertTrue(results.isEmpty());
+        event.succeed("event");
+
+        assertEquals("event+user", results.get(0));
+    }
+
+    @Test
+    public void allOf_shouldFailIfAnyFutureFails() {
+        CompletableFuture<String> ok = CompletableFuture.completedFuture("ok");
+        CompletableFuture<String> broken = new CompletableFuture<>();
+        broken.completeExceptionally(new IllegalStateException("broken"));
+        List<Exception> errors = new ArrayList<>();
+
+        TaskFutures.deliver(TaskFutures.allOf(ok, broken), v -> fail("Should not succeed"), errors::add);
+
+        assertTrue(errors.get(0) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void withTimeout_shouldFailFutureThatTakesTooLong() {
+        CompletableFuture<String> slow = TaskFutures.withTimeout(new CompletableFuture<>(), 1000);
+        List<Exception> errors = new ArrayList<>();
+        TaskFutures.deliver(slow, result -> fail("Should not succeed"), errors::add);
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(999));
+        assertTrue(errors.isEmpty());
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1));
+
+        assertTrue(errors.get(0) instanceof TimeoutException);
+    }
+
+    @Test
+    public void withTimeout_shouldNotAffectFutureThatCompletesInTime() {
+        CompletableFuture<String> future = TaskFutures.withTimeout(new CompletableFuture<>(), 1000);
+        future.complete("fast");
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(2000));
+
+        assertEquals("fast", future.join());
+    }
+
+    @Test
+    public void unwrap_shouldReturnOriginalException() {
+        Exception original = new Exception("Event not found");
+
+        assertSame(original, TaskFutures.unwrap(new CompletionException(new CompletionException(original))));
+        assertTrue(TaskFutures.unwrap(new AssertionError("boom")).getCause() instanceof AssertionError);
+    }
+}
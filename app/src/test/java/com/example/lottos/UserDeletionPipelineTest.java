@@ -0,0 +1,81 @@
+package com.example.lottos;
+
+import com.example.lottos.organizer.OrganizerEventDetailsManager;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the UserDeletionPipeline class.
+ * Verifies how the events referencing a user are found, and which participant lists are cleaned.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class UserDeletionPipelineTest {
+
+    @Test
+    public void collectEventIds_shouldMergeAllListsSortedWithoutDuplicates() {
+        DocumentSnapshot userDoc = mock(DocumentSnapshot.class);
+        when(userDoc.get("waitListedEvents.events")).thenReturn(Arrays.asList("e3", "e1"));
+        when(userDoc.get("enrolledEvents.events")).thenReturn(Collections.singletonList("e2"));
+        when(userDoc.get("organizedEvents.events")).thenReturn(Arrays.asList("e1", "e4"));
+
+        List<String> ids = UserDeletionPipeline.collectEventIds(userDoc);
+
+        assertEquals("IDs should be sorted so checkpoints stay valid",
+                Arrays.asList("e1", "e2", "e3", "e4"), ids);
+    }
+
+    @Test
+    public void collectEventIds_shouldIgnoreMissingLists() {
+        DocumentSnapshot userDoc = mock(DocumentSnapshot.class);
+
+        assertTrue(UserDeletionPipeline.collectEventIds(userDoc).isEmpty());
+    }
+
+    @Test
+    public void removals_shouldOnlyTouchListsContainingUser() {
+        DocumentSnapshot event = mock(DocumentSnapshot.class);
+        when(event.get("waitList.users")).thenReturn(Arrays.asList("alice", "bob"));
+        when(event.get("selectedList.users")).thenReturn(Collections.singletonList("carol"));
+        when(event.get("cancelledList.users")).thenReturn(Collections.singletonList("alice"));
+
+        Map<String, Object> updates = UserDeletionPipeline.removals(event, "alice");
+
+        assertEquals(2, updates.size());
+        assertTrue(updates.containsKey("waitList.users"));
+        assertTrue(updates.containsKey("cancelledList.users"));
+    }
+
+    @Test
+    public void removals_shouldBeEmptyWhenUserIsInNoList() {
+        DocumentSnapshot event = mock(DocumentSnapshot.class);
+        when(event.get("waitList.users")).thenReturn(Collections.singletonList("bob"));
+
+        assertTrue(UserDeletionPipeline.removals(event, "alice").isEmpty());
+    }
+
+    @Test
+    public void removals_shouldMovePointerBackOnlyForPromotedUsers() {
+        DocumentSnapshot event = mock(DocumentSnapshot.class);
+        when(event.get("notSelectedList.users")).thenReturn(Arrays.asList("alice", "bob", "carol"));
+        when(event.get(OrganizerEventDetailsManager.CURRENT_POINTER)).thenReturn(2L);
+
+        assertEquals("Alice was promoted, so the rest of the draw shifts down", 1,
+                UserDeletionPipeline.removals(event, "alice").get(OrganizerEventDetailsManager.CURRENT_POINTER));
+        assertFalse("Carol has not been reached yet",
+                UserDeletionPipeline.removals(event, "carol").containsKey(OrganizerEventDetailsManager.CURRENT_POINTER));
+    }
+}
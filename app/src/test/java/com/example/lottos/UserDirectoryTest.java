@@ -0,0 +1,154 @@
+package com.example.lottos;
+
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the UserDirectory class.
+ * Verifies the entry and increment maps and the one-time backfill from the users collection.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class UserDirectoryTest {
+
+    private UserDirectory directory;
+
+    @Mock private FirebaseFirestore mockDb;
+    @Mock private CollectionReference mockDirectoryCollection;
+    @Mock private CollectionReference mockUsersCollection;
+    @Mock private CollectionReference mockMetaCollection;
+    @Mock private DocumentReference mockMarkerRef;
+    @Mock private DocumentReference mockEntryRef;
+    @Mock private Task<DocumentSnapshot> mockMarkerTask;
+    @Mock private DocumentSnapshot mockMarkerSnap;
+    @Mock private Task<QuerySnapshot> mockUsersTask;
+    @Mock private QuerySnapshot mockUsers;
+    @Mock private WriteBatch mockBatch;
+    @Mock private Task<Void> mockCommitTask;
+    @Mock private Runnable mockOnDone;
+    @Mock private EventRepository.OnError mockOnError;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        directory = new UserDirectory(mockDb);
+
+        when(mockDb.collection(UserDirectory.COLLECTION)).thenReturn(mockDirectoryCollection);
+        when(mockDirectoryCollection.document(anyString())).thenReturn(mockEntryRef);
+        when(mockDb.collection("app_meta")).thenReturn(mockMetaCollection);
+        when(mockMetaCollection.document(UserDirectory.COLLECTION)).thenReturn(mockMarkerRef);
+        when(mockMarkerRef.get()).thenReturn(mockMarkerTask);
+        when(mockDb.collection("users")).thenReturn(mockUsersCollection);
+        when(mockUsersCollection.get()).thenReturn(mockUsersTask);
+        when(mockDb.batch()).thenReturn(mockBatch);
+        when(mockBatch.commit()).thenReturn(mockCommitTask);
+
+        simulateSuccess(mockMarkerTask, mockMarkerSnap);
+        simulateSuccess(mockUsersTask, mockUsers);
+        simulateSuccess(mockCommitTask, null);
+    }
+
+    private static <T> void simulateSuccess(Task<T> task, T result) {
+        when(task.addOnSuccessListener(any())).thenAnswer(invocation -> {
+            OnSuccessListener<T> listener = invocation.getArgument(0);
+            listener.onSuccess(result);
+            return task;
+        });
+        when(task.addOnFailureListener(any())).thenReturn(task);
+    }
+
+    private static QueryDocumentSnapshot userDoc(String id, List<String> enrolled, List<String> notSelected,
+                                                 List<String> organized) {
+        QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+        when(doc.getId()).thenReturn(id);
+        when(doc.get("enrolledEvents.events")).thenReturn(enrolled);
+        when(doc.get("notSelectedEvents.events")).thenReturn(notSelected);
+        when(doc.get("organizedEvents.events")).thenReturn(organized);
+        return doc;
+    }
+
+    @Test
+    public void newEntry_shouldHoldNameAndCounters() {
+        Map<String, Object> entry = UserDirectory.newEntry("alice", 3, 1);
+
+        assertEquals("alice", entry.get("userName"));
+        assertEquals(3L, entry.get(UserDirectory.JOINED_COUNT));
+        assertEquals(1L, entry.get(UserDirectory.CREATED_COUNT));
+    }
+
+    @Test
+    public void increment_shouldOnlyTouchOneCounter() {
+        Map<String, Object> update = UserDirectory.increment("alice", UserDirectory.JOINED_COUNT, 1);
+
+        assertEquals("alice", update.get("userName"));
+        assertTrue(update.get(UserDirectory.JOINED_COUNT) instanceof FieldValue);
+        assertFalse("The other counter should be left as stored", update.containsKey(UserDirectory.CREATED_COUNT));
+    }
+
+    @Test
+    public void backfill_markerPresent_shouldNotReadUsers() {
+        when(mockMarkerSnap.exists()).thenReturn(true);
+
+        directory.backfillIfNeeded(mockOnDone, mockOnError);
+
+        verify(mockOnDone).run();
+        verify(mockUsersCollection, never()).get();
+        verify(mockDb, never()).batch();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void backfill_shouldCountListsAndWriteMarker() {
+        when(mockMarkerSnap.exists()).thenReturn(false);
+        QueryDocumentSnapshot alice = userDoc("alice", Arrays.asList("e1"), Arrays.asList("e2", "e3"), null);
+        QueryDocumentSnapshot bob = userDoc("bob", null, null, Arrays.asList("e4"));
+        when(mockUsers.iterator()).thenReturn(Arrays.asList(alice, bob).iterator());
+
+        directory.backfillIfNeeded(mockOnDone, mockOnError);
+
+        ArgumentCaptor<Map<String, Object>> entries = ArgumentCaptor.forClass(Map.class);
+        verify(mockBatch, times(2)).set(eq(mockEntryRef), entries.capture());
+        assertEquals(3L, entries.getAllValues().get(0).get(UserDirectory.JOINED_COUNT));
+        assertEquals(0L, entries.getAllValues().get(0).get(UserDirectory.CREATED_COUNT));
+        assertEquals(0L, entries.getAllValues().get(1).get(UserDirectory.JOINED_COUNT));
+        assertEquals(1L, entries.getAllValues().get(1).get(UserDirectory.CREATED_COUNT));
+
+        verify(mockBatch).set(eq(mockMarkerRef), any(Map.class));
+        verify(mockBatch).commit();
+        verify(mockOnDone).run();
+        verify(mockOnError, never()).run(any());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.lottos;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the ViewSubscriptions class.
+ * Verifies that wrapped callbacks run only while the view exists and that snapshot listeners are removed with it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class ViewSubscriptionsTest {
+
+    private LifecycleRegistry registry;
+    private ViewSubscriptions subscriptions;
+
+    @Before
+    public void setUp() {
+        LifecycleOwner owner = mock(LifecycleOwner.class);
+        registry = LifecycleRegistry.createUnsafe(owner);
+        when(owner.getLifecycle()).thenReturn(registry);
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_RESUME);
+
+        subscriptions = ViewSubscriptions.of(owner);
+    }
+
+    @Test
+    public void success_shouldForwardResultWhileViewExists() {
+        List<String> results = new ArrayList<>();
+        OnSuccessListener<String> listener = subscriptions.success(results::add);
+
+        listener.onSuccess("loaded");
+
+        assertEquals(1, results.size());
+        assertEquals("loaded", results.get(0));
+    }
+
+    @Test
+    public void callbacks_shouldBeDroppedOnceViewIsDestroyed() {
+        List<String> results = new ArrayList<>();
+        OnSuccessListener<String> onSuccess = subscriptions.success(results::add);
+        OnFailureListener onFailure = subscriptions.failure(e -> results.add(e.getMessage()));
+        Runnable onDone = subscriptions.run(() -> results.add("done"));
+
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+        onSuccess.onSuccess("late");
+        onFailure.onFailure(new Exception("late failure"));
+        onDone.run();
+
+        assertTrue("Callbacks for a destroyed view should not run", results.isEmpty());
+        assertTrue(subscriptions.isCleared());
+    }
+
+    @Test
+    public void callbacksCreatedAfterDestroy_shouldNeverRun() {
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+        List<Exception> errors = new ArrayList<>();
+
+        subscriptions.error(errors::add).run(new Exception("late"));
+
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void add_shouldRemoveSnapshotListenerWithView() {
+        ListenerRegistration registration = mock(ListenerRegistration.class);
+        subscriptions.add(registration);
+
+        verify(registration, never()).remove();
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+
+        verify(registration).remove();
+    }
+
+    @Test
+    public void add_afterDestroy_shouldRemoveImmediately() {
+        registry.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+        ListenerRegistration registration = mock(ListenerRegistration.class);
+
+        subscriptions.add(registration);
+
+        verify(registration).remove();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.lottos.auth;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Unit tests for the PasswordHasher class.
+ * Verifies the hash format, verification of hashed and legacy passwords, and the choice of iteration count.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(PasswordHasher.MIN_ITERATIONS);
+
+    @Test
+    public void hash_shouldEncodeIterationsSaltAndKey() {
+        String hash = hasher.hash("secret");
+
+        String[] parts = hash.split("\\$");
+        assertEquals(4, parts.length);
+        assertEquals("pbkdf2", parts[0]);
+        assertEquals(String.valueOf(PasswordHasher.MIN_ITERATIONS), parts[1]);
+        assertEquals(PasswordHasher.SALT_BYTES * 2, parts[2].length());
+        assertEquals(PasswordHasher.KEY_BITS / 4, parts[3].length());
+        assertFalse("The password must not appear in the hash", hash.contains("secret"));
+    }
+
+    @Test
+    public void hash_shouldUseNewSaltEachTime() {
+        assertNotEquals(hasher.hash("secret"), hasher.hash("secret"));
+    }
+
+    @Test
+    public void verify_shouldAcceptOnlyTheHashedPassword() {
+        String hash = hasher.hash("secret");
+
+        assertTrue(hasher.verify("secret", hash));
+        assertFalse(hasher.verify("Secret", hash));
+        assertFalse(hasher.verify("", hash));
+    }
+
+    @Test
+    public void verify_shouldUseIterationsStoredWithHash() {
+        String hash = new PasswordHasher(PasswordHasher.MIN_ITERATIONS + 1000).hash("secret");
+
+        assertTrue("A hash made with another cost must still verify", hasher.verify("secret", hash));
+    }
+
+    @Test
+    public void verify_shouldAcceptLegacyPlainText() {
+        assertTrue(hasher.verify("secret", "secret"));
+        assertFalse(hasher.verify("secret", "other"));
+        assertFalse(hasher.verify("secret", null));
+    }
+
+    @Test
+    public void verify_shouldRejectMalformedHashes() {
+        assertFalse(hasher.verify("secret", "pbkdf2$abc$00$00"));
+        assertFalse(hasher.verify("secret", "pbkdf2$10000$zz$00"));
+        assertFalse(hasher.verify("secret", "pbkdf2$10000"));
+    }
+
+    @Test
+    public void needsRehash_shouldFlagPlainTextAndWeakerHashes() {
+        PasswordHasher stronger = new PasswordHasher(PasswordHasher.MIN_ITERATIONS * 2);
+
+        assertTrue(hasher.needsRehash("secret"));
+        assertFalse(hasher.needsRehash(hasher.hash("secret")));
+        assertTrue(stronger.needsRehash(hasher.hash("secret")));
+        assertFalse("Stronger hashes are kept", hasher.needsRehash(stronger.hash("secret")));
+    }
+
+    @Test
+    public void needsRehash_shouldFlagKeysLongerThanOneBlock() throws Exception {
+        byte[] salt = new byte[PasswordHasher.SALT_BYTES];
+        PBEKeySpec spec = new PBEKeySpec("secret".toCharArray(), salt, PasswordHasher.MIN_ITERATIONS, 256);
+        byte[] key = SecretKeyFactory.getInstance(PasswordHasher.ALGORITHM).generateSecret(spec).getEncoded();
+        String twoBlocks = "pbkdf2$" + PasswordHasher.MIN_ITERATIONS + "$"
+                + PasswordHasher.toHex(salt) + "$" + PasswordHasher.toHex(key);
+
+        assertTrue("Records made with the old key length must still verify", hasher.verify("secret", twoBlocks));
+        assertTrue(hasher.needsRehash(twoBlocks));
+    }
+
+    @Test
+    public void iterationsForTarget_shouldScaleMeasuredRunToTarget() {
+        // 5,000 iterations in 10 ms is 2 microseconds each, so 150 ms allows 75,000.
+        assertEquals(75_000, PasswordHasher.iterationsForTarget(10_000_000L, 5_000, 150));
+    }
+
+    @Test
+    public void iterationsForTarget_shouldStayWithinBounds() {
+        assertEquals(PasswordHasher.MIN_ITERATIONS,
+                PasswordHasher.iterationsForTarget(1_000_000_000L, 5_000, 150));
+        assertEquals(PasswordHasher.MAX_ITERATIONS,
+                PasswordHasher.iterationsForTarget(1L, 5_000, 150));
+    }
+
+    @Test
+    public void hex_shouldRoundTrip() {
+        byte[] bytes = {0, 1, (byte) 0x7f, (byte) 0x80, (byte) 0xff};
+        assertArrayEquals(bytes, PasswordHasher.fromHex(PasswordHasher.toHex(bytes)));
+        assertEquals("00017f80ff", PasswordHasher.toHex(bytes));
+    }
+}
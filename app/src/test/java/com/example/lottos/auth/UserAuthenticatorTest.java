@@ -8,6 +8,10 @@ import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -19,12 +23,22 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +48,8 @@ import static org.mockito.Mockito.when;
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 28)
 public class UserAuthenticatorTest {
+    private static final String DEVICE_ID = "device-1";
+
     @Mock
     private FirebaseFirestore mockFirestore;
     @Mock
@@ -41,27 +57,40 @@ public class UserAuthenticatorTest {
     @Mock
     private DocumentReference mockDocumentReference;
     @Mock
+    private CollectionReference mockDirectoryCollection;
+    @Mock
+    private DocumentReference mockDirectoryDocument;
+    @Mock
     private DocumentSnapshot mockDocumentSnapshot;
     @Mock
     private Task<DocumentSnapshot> mockGetTask;
     @Mock
-    private Task<Void> mockSetTask;
-    @Mock
     private UserAuthenticator.AuthListener mockAuthListener;
+    @Mock
+    private UserAuthenticator.DeviceIdSource mockDeviceIds;
+    @Mock
+    private CollectionReference mockUserDevices;
+    @Mock
+    private DocumentReference mockUserDeviceDoc;
+    @Mock
+    private CollectionReference mockDeviceLookups;
+    @Mock
+    private DocumentReference mockDeviceLookupDoc;
+    @Mock
+    private WriteBatch mockBatch;
+    @Mock
+    private CollectionReference mockUsernames;
+    @Mock
+    private DocumentReference mockReservationDoc;
+    @Mock
+    private Transaction mockTransaction;
 
     @Captor
     private ArgumentCaptor<OnCompleteListener<DocumentSnapshot>> getCompleteListenerCaptor;
     @Captor
-    private ArgumentCaptor<OnSuccessListener<DocumentSnapshot>> getSuccessListenerCaptor;
-    @Captor
-    private ArgumentCaptor<OnFailureListener> getFailureListenerCaptor;
-    @Captor
-    private ArgumentCaptor<OnSuccessListener<Void>> setSuccessListenerCaptor;
-    @Captor
-    private ArgumentCaptor<OnFailureListener> setFailureListenerCaptor;
-    @Captor
     private ArgumentCaptor<Map<String, Object>> userDataCaptor;
 
+    private final PasswordHasher hasher = new PasswordHasher(PasswordHasher.MIN_ITERATIONS);
     private UserAuthenticator userAuthenticator;
 
     @Before
@@ -69,15 +98,42 @@ public class UserAuthenticatorTest {
         MockitoAnnotations.initMocks(this);
 
         when(mockFirestore.collection("users")).thenReturn(mockCollectionReference);
+        when(mockFirestore.collection("user_directory")).thenReturn(mockDirectoryCollection);
+        when(mockDirectoryCollection.document(any(String.class))).thenReturn(mockDirectoryDocument);
 
-        userAuthenticator = new UserAuthenticator(mockFirestore);
+        Task<String> deviceIdTask = immediateTask(DEVICE_ID);
+        when(mockDeviceIds.getId()).thenReturn(deviceIdTask);
+        userAuthenticator = new UserAuthenticator(mockFirestore, mockDeviceIds, () -> hasher,
+                Runnable::run, Runnable::run);
 
         when(mockCollectionReference.document(any(String.class))).thenReturn(mockDocumentReference);
+        when(mockDocumentReference.collection("devices")).thenReturn(mockUserDevices);
+        when(mockUserDevices.document(any(String.class))).thenReturn(mockUserDeviceDoc);
+        when(mockFirestore.collection("devices")).thenReturn(mockDeviceLookups);
+        when(mockDeviceLookups.document(any(String.class))).thenReturn(mockDeviceLookupDoc);
+        when(mockFirestore.batch()).thenReturn(mockBatch);
+        Task<Void> commitTask = immediateTask(null);
+        when(mockBatch.commit()).thenReturn(commitTask);
+
+        when(mockFirestore.collection(UserAuthenticator.USERNAMES_COLLECTION)).thenReturn(mockUsernames);
+        when(mockUsernames.document(any(String.class))).thenReturn(mockReservationDoc);
+        doAnswer(invocation -> {
+            Transaction.Function<Void> function = invocation.getArgument(0);
+            try {
+                function.apply(mockTransaction);
+                return immediateTask(null);
+            } catch (Exception e) {
+                return failedTask(e);
+            }
+        }).when(mockFirestore).runTransaction(any(Transaction.Function.class));
+
+        // By default the user last logged in on this device.
+        when(mockDocumentSnapshot.getString(UserAuthenticator.LINKED_DEVICE)).thenReturn(DEVICE_ID);
+        Task<Void> updateTask = immediateTask(null);
+        when(mockDocumentReference.update(anyString(), any())).thenReturn(updateTask);
 
         when(mockGetTask.addOnSuccessListener(any())).thenReturn(mockGetTask);
         when(mockGetTask.addOnFailureListener(any())).thenReturn(mockGetTask);
-        when(mockSetTask.addOnSuccessListener(any())).thenReturn(mockSetTask);
-        when(mockSetTask.addOnFailureListener(any())).thenReturn(mockSetTask);
     }
 
     @Test
@@ -142,27 +198,23 @@ public class UserAuthenticatorTest {
     }
 
     @Test
-    public void registerUser_success_whenUsernameIsAvailable() {
+    public void registerUser_success_whenUsernameIsAvailable() throws Exception {
         // Arrange
         String userName = "newUser";
         String displayName = "New User";
         String password = "newPassword";
         String email = "new@example.com";
 
-        when(mockDocumentReference.get()).thenReturn(mockGetTask);
-        when(mockDocumentSnapshot.exists()).thenReturn(false); // Username is available
-
-        when(mockDocumentReference.set(any(Map.class))).thenReturn(mockSetTask);
+        DocumentSnapshot missing = mock(DocumentSnapshot.class);
+        when(missing.exists()).thenReturn(false);
+        when(mockTransaction.get(mockReservationDoc)).thenReturn(missing);
+        when(mockTransaction.get(mockDocumentReference)).thenReturn(missing);
 
         userAuthenticator.registerUser(userName, displayName, password, email, null, mockAuthListener);
 
-        verify(mockGetTask).addOnSuccessListener(getSuccessListenerCaptor.capture());
-        getSuccessListenerCaptor.getValue().onSuccess(mockDocumentSnapshot);
-
-        verify(mockDocumentReference).set(userDataCaptor.capture());
-        verify(mockSetTask).addOnSuccessListener(setSuccessListenerCaptor.capture());
-        setSuccessListenerCaptor.getValue().onSuccess(null);
-
+        verify(mockTransaction).set(eq(mockReservationDoc), any(Map.class));
+        verify(mockTransaction).set(eq(mockDocumentReference), userDataCaptor.capture());
+        verify(mockTransaction).set(eq(mockDirectoryDocument), any(Map.class));
         verify(mockAuthListener).onSuccess(userName);
 
         Map<String, Object> capturedData = userDataCaptor.getValue();
@@ -171,34 +223,174 @@ public class UserAuthenticatorTest {
         Map<String, Object> userInfo = (Map<String, Object>) capturedData.get("userInfo");
         assertNotNull(userInfo);
         assertEquals(displayName, userInfo.get("displayName"));
-        assertEquals(password, userInfo.get("password"));
+        String storedPassword = (String) userInfo.get("password");
+        assertNotEquals("The password must not be stored in plain text", password, storedPassword);
+        assertTrue(hasher.verify(password, storedPassword));
         assertEquals(email, userInfo.get("email"));
     }
 
     @Test
-    public void registerUser_failure_whenUsernameIsTaken() {
+    public void registerUser_failure_whenUsernameIsTaken() throws Exception {
         String userName = "existingUser";
-        when(mockDocumentReference.get()).thenReturn(mockGetTask);
-        when(mockDocumentSnapshot.exists()).thenReturn(true); // Username is taken
+        DocumentSnapshot reserved = mock(DocumentSnapshot.class);
+        when(reserved.exists()).thenReturn(true);
+        when(mockTransaction.get(mockReservationDoc)).thenReturn(reserved);
 
         userAuthenticator.registerUser(userName, "name", "pass", "email", null, mockAuthListener);
 
-        verify(mockGetTask).addOnSuccessListener(getSuccessListenerCaptor.capture());
-        getSuccessListenerCaptor.getValue().onSuccess(mockDocumentSnapshot);
+        verify(mockTransaction, never()).set(any(DocumentReference.class), any(Map.class));
+        verify(mockAuthListener).onFailure("Username already taken. Please choose another.");
+    }
+
+    @Test
+    public void registerUser_failure_whenLegacyUserHasNoReservation() throws Exception {
+        DocumentSnapshot missing = mock(DocumentSnapshot.class);
+        when(missing.exists()).thenReturn(false);
+        DocumentSnapshot existingUser = mock(DocumentSnapshot.class);
+        when(existingUser.exists()).thenReturn(true);
+        when(mockTransaction.get(mockReservationDoc)).thenReturn(missing);
+        when(mockTransaction.get(mockDocumentReference)).thenReturn(existingUser);
 
+        userAuthenticator.registerUser("oldUser", "name", "pass", "email", null, mockAuthListener);
+
+        verify(mockTransaction, never()).set(any(DocumentReference.class), any(Map.class));
         verify(mockAuthListener).onFailure("Username already taken. Please choose another.");
     }
 
     @Test
-    public void registerUser_failure_whenUsernameCheckFails() {
-        Exception exception = new Exception("Firestore error");
-        when(mockDocumentReference.get()).thenReturn(mockGetTask);
+    public void registerUser_failure_whenTransactionFails() throws Exception {
+        when(mockTransaction.get(mockReservationDoc)).thenThrow(new RuntimeException("Firestore error"));
 
         userAuthenticator.registerUser("user", "name", "pass", "email", null, mockAuthListener);
 
-        verify(mockGetTask).addOnFailureListener(getFailureListenerCaptor.capture());
-        getFailureListenerCaptor.getValue().onFailure(exception);
+        verify(mockAuthListener).onFailure("Error creating account. Please try again.");
+        verify(mockAuthListener, never()).onSuccess(any());
+    }
+
+    /**
+     * Creates a successful task that runs its listeners as soon as they are added.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Task<T> immediateTask(T result) {
+        Task<T> task = mock(Task.class);
+        when(task.isSuccessful()).thenReturn(true);
+        when(task.getResult()).thenReturn(result);
+        doAnswer(inv -> {
+            ((OnCompleteListener<T>) inv.getArgument(0)).onComplete(task);
+            return task;
+        }).when(task).addOnCompleteListener(any(OnCompleteListener.class));
+        doAnswer(inv -> {
+            ((OnSuccessListener<T>) inv.getArgument(0)).onSuccess(result);
+            return task;
+        }).when(task).addOnSuccessListener(any(OnSuccessListener.class));
+        when(task.addOnFailureListener(any(OnFailureListener.class))).thenReturn(task);
+        return task;
+    }
+
+    /**
+     * Creates a failed task that runs its failure listeners as soon as they are added.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Task<T> failedTask(Exception e) {
+        Task<T> task = mock(Task.class);
+        when(task.isSuccessful()).thenReturn(false);
+        when(task.getException()).thenReturn(e);
+        when(task.addOnSuccessListener(any(OnSuccessListener.class))).thenReturn(task);
+        doAnswer(inv -> {
+            ((OnFailureListener) inv.getArgument(0)).onFailure(e);
+            return task;
+        }).when(task).addOnFailureListener(any(OnFailureListener.class));
+        return task;
+    }
 
-        verify(mockAuthListener).onFailure("Error checking username. Try again.");
+    private void loginWithCorrectPassword(String userName, String password) {
+        loginWithStoredPassword(userName, password, password);
+    }
+
+    private void loginWithStoredPassword(String userName, String password, String storedPassword) {
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("password", storedPassword);
+
+        when(mockGetTask.isSuccessful()).thenReturn(true);
+        when(mockGetTask.getResult()).thenReturn(mockDocumentSnapshot);
+        when(mockDocumentSnapshot.exists()).thenReturn(true);
+        when(mockDocumentSnapshot.get("userInfo")).thenReturn(userInfo);
+        when(mockDocumentReference.get()).thenReturn(mockGetTask);
+
+        userAuthenticator.checkUserLogin(userName, password, mockAuthListener);
+
+        // The device ID is requested while the user document is still being read.
+        verify(mockDeviceIds).getId();
+
+        verify(mockGetTask).addOnCompleteListener(getCompleteListenerCaptor.capture());
+        getCompleteListenerCaptor.getValue().onComplete(mockGetTask);
+    }
+
+    @Test
+    public void checkUserLogin_sameDevice_skipsDeviceReadsAndWrites() {
+        loginWithCorrectPassword("testUser", "password123");
+
+        verify(mockAuthListener).onSuccess("testUser");
+        verify(mockUserDevices, never()).get();
+        verify(mockFirestore, never()).batch();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void checkUserLogin_newDevice_replacesOtherLinksInOneBatch() {
+        when(mockDocumentSnapshot.getString(UserAuthenticator.LINKED_DEVICE)).thenReturn("old-device");
+
+        DocumentReference oldDeviceRef = mock(DocumentReference.class);
+        DocumentSnapshot oldDevice = mock(DocumentSnapshot.class);
+        when(oldDevice.getId()).thenReturn("old-device");
+        when(oldDevice.getReference()).thenReturn(oldDeviceRef);
+        DocumentSnapshot currentDevice = mock(DocumentSnapshot.class);
+        when(currentDevice.getId()).thenReturn(DEVICE_ID);
+
+        QuerySnapshot devices = mock(QuerySnapshot.class);
+        when(devices.getDocuments()).thenReturn(Arrays.asList(oldDevice, currentDevice));
+        Task<QuerySnapshot> devicesTask = immediateTask(devices);
+        when(mockUserDevices.get()).thenReturn(devicesTask);
+
+        loginWithCorrectPassword("testUser", "password123");
+
+        verify(mockBatch).delete(oldDeviceRef);
+        verify(mockDeviceLookups).document("old-device");
+        verify(mockBatch, times(2)).delete(any(DocumentReference.class));
+        verify(mockBatch).set(eq(mockUserDeviceDoc), any(), any(SetOptions.class));
+        verify(mockBatch).set(eq(mockDocumentReference),
+                argThat(data -> DEVICE_ID.equals(((Map<String, Object>) data).get(UserAuthenticator.LINKED_DEVICE))),
+                any(SetOptions.class));
+        verify(mockBatch).commit();
+        verify(mockAuthListener).onSuccess("testUser");
+    }
+
+    @Test
+    public void checkUserLogin_legacyPlainText_isReplacedWithHash() {
+        loginWithStoredPassword("testUser", "password123", "password123");
+
+        ArgumentCaptor<Object> hashCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(mockDocumentReference).update(eq("userInfo.password"), hashCaptor.capture());
+        String upgraded = (String) hashCaptor.getValue();
+        assertTrue(upgraded.startsWith("pbkdf2$"));
+        assertTrue(hasher.verify("password123", upgraded));
+        verify(mockAuthListener).onSuccess("testUser");
+    }
+
+    @Test
+    public void checkUserLogin_hashedPassword_isVerifiedWithoutRewrite() {
+        loginWithStoredPassword("testUser", "password123", hasher.hash("password123"));
+
+        verify(mockDocumentReference, never()).update(anyString(), any());
+        verify(mockAuthListener).onSuccess("testUser");
+    }
+
+    @Test
+    public void checkUserLogin_hashedPassword_rejectsWrongPassword() {
+        loginWithStoredPassword("testUser", "wrongPassword", hasher.hash("password123"));
+
+        verify(mockAuthListener).onFailure("Incorrect password");
+        verify(mockAuthListener, never()).onSuccess(any());
+        verify(mockDocumentReference, never()).update(anyString(), any());
     }
 }
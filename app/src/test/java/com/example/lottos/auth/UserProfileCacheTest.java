@@ -0,0 +1,268 @@
+package com.example.lottos.auth;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.SnapshotMetadata;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the UserProfileCache class.
+ * Verifies parsing of user documents, persistence across restarts, that event lists are only served
+ * once the server has confirmed them, and invalidation by the snapshot listener.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class UserProfileCacheTest {
+
+    private Context context;
+    private SharedPreferences prefs;
+    private DocumentReference userDoc;
+    private ListenerRegistration registration;
+    private UserProfileCache cache;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        prefs = context.getSharedPreferences("UserProfileCache", Context.MODE_PRIVATE);
+        userDoc = mock(DocumentReference.class);
+        registration = mock(ListenerRegistration.class);
+        when(userDoc.addSnapshotListener(any(EventListener.class))).thenReturn(registration);
+        cache = new UserProfileCache();
+    }
+
+    @After
+    public void tearDown() {
+        cache.clear(context);
+    }
+
+    private static Map<String, Object> eventList(List<String> events) {
+        Map<String, Object> list = new HashMap<>();
+        list.put("events", events);
+        return list;
+    }
+
+    private static Map<String, Object> userData(String name, List<String> waitlisted, List<String> selected) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("name", name);
+        info.put("email", name.toLowerCase() + "@example.com");
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("userInfo", info);
+        data.put("waitListedEvents", eventList(waitlisted));
+        data.put("selectedEvents", eventList(selected));
+        data.put("organizedEvents", eventList(Arrays.asList("myEvent")));
+        return data;
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventListener<DocumentSnapshot> captureListener() {
+        ArgumentCaptor<EventListener<DocumentSnapshot>> captor = ArgumentCaptor.forClass(EventListener.class);
+        verify(userDoc).addSnapshotListener(captor.capture());
+        return captor.getValue();
+    }
+
+    private static DocumentSnapshot snapshot(Map<String, Object> data) {
+        return snapshot(data, false);
+    }
+
+    private static DocumentSnapshot snapshot(Map<String, Object> data, boolean fromCache) {
+        SnapshotMetadata metadata = mock(SnapshotMetadata.class);
+        when(metadata.isFromCache()).thenReturn(fromCache);
+        DocumentSnapshot snap = mock(DocumentSnapshot.class);
+        when(snap.exists()).thenReturn(data != null);
+        when(snap.getData()).thenReturn(data);
+        when(snap.getMetadata()).thenReturn(metadata);
+        return snap;
+    }
+
+    @Test
+    public void fromData_shouldParseProfileAndMemberships() {
+        UserProfileCache.Record record = UserProfileCache.Record.fromData("alice",
+                userData("Alice", Arrays.asList("e1", "e2"), Arrays.asList("e3")));
+
+        assertEquals("Alice", record.getInfo("name"));
+        assertTrue(record.isIn("waitListedEvents", "e2"));
+        assertFalse(record.isIn("selectedEvents", "e2"));
+        assertTrue("Missing lists should be empty", record.getEvents("enrolledEvents").isEmpty());
+        assertEquals("History should exclude organized events",
+                Arrays.asList("e1", "e2", "e3"), Arrays.asList(record.getHistoryEventIds().toArray()));
+    }
+
+    @Test
+    public void toUserData_shouldMatchDocumentShape() {
+        UserProfileCache.Record record = UserProfileCache.Record.fromData("alice",
+                userData("Alice", Arrays.asList("e1"), Arrays.asList()));
+
+        Map<String, Object> data = record.toUserData();
+        Map<?, ?> waitlisted = (Map<?, ?>) data.get("waitListedEvents");
+        assertEquals(Arrays.asList("e1"), waitlisted.get("events"));
+        assertEquals("Alice", ((Map<?, ?>) data.get("userInfo")).get("name"));
+    }
+
+    @Test
+    public void json_shouldRoundTrip() throws Exception {
+        UserProfileCache.Record record = UserProfileCache.Record.fromData("alice",
+                userData("Alice", Arrays.asList("e1", "e2"), Arrays.asList("e3")));
+
+        UserProfileCache.Record restored = UserProfileCache.Record.fromJson(record.toJson());
+
+        assertEquals("alice", restored.userName);
+        assertEquals("alice@example.com", restored.getInfo("email"));
+        assertEquals(record.getHistoryEventIds(), restored.getHistoryEventIds());
+        assertEquals(record.getEvents("organizedEvents"), restored.getEvents("organizedEvents"));
+    }
+
+    @Test
+    public void snapshot_shouldPopulateAndPersistRecord() {
+        cache.start(prefs, userDoc, "alice");
+        assertNull("Nothing should be cached before the first snapshot", cache.get("alice"));
+
+        captureListener().onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList())), null);
+
+        assertTrue(cache.get("alice").isIn("waitListedEvents", "e1"));
+        assertNull("Other users should never be served", cache.get("bob"));
+
+        // A new process can show the persisted profile before any snapshot arrives.
+        UserProfileCache restarted = new UserProfileCache();
+        restarted.start(prefs, mock(DocumentReference.class), "alice");
+        assertNotNull(restarted.getForDisplay("alice"));
+        assertEquals("Alice", restarted.getForDisplay("alice").getInfo("name"));
+    }
+
+    @Test
+    public void persistedRecord_shouldNotServeEventListsUntilServerSnapshot() {
+        cache.start(prefs, userDoc, "alice");
+        captureListener().onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList())), null);
+
+        DocumentReference restartedDoc = mock(DocumentReference.class);
+        when(restartedDoc.addSnapshotListener(any(EventListener.class))).thenReturn(registration);
+        UserProfileCache restarted = new UserProfileCache();
+        restarted.start(prefs, restartedDoc, "alice");
+        assertNull("The persisted lists may predate a draw", restarted.get("alice"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<EventListener<DocumentSnapshot>> captor = ArgumentCaptor.forClass(EventListener.class);
+        verify(restartedDoc).addSnapshotListener(captor.capture());
+        captor.getValue().onEvent(snapshot(userData("Alice", Arrays.asList(), Arrays.asList("e1"))), null);
+
+        assertTrue(restarted.get("alice").isIn("selectedEvents", "e1"));
+    }
+
+    @Test
+    public void cacheSnapshot_shouldOnlyServeDisplayFields() {
+        cache.start(prefs, userDoc, "alice");
+        EventListener<DocumentSnapshot> listener = captureListener();
+
+        listener.onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList()), true), null);
+
+        assertNull("An offline read should not be trusted for event lists", cache.get("alice"));
+        assertEquals("Alice", cache.getForDisplay("alice").getInfo("name"));
+
+        listener.onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList()), false), null);
+
+        assertTrue(cache.get("alice").isIn("waitListedEvents", "e1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void snapshot_shouldNeverCacheOrPersistPassword() {
+        Map<String, Object> data = userData("Alice", Arrays.asList("e1"), Arrays.asList());
+        ((Map<String, Object>) data.get("userInfo")).put("password", "pbkdf2$secret");
+
+        cache.start(prefs, userDoc, "alice");
+        captureListener().onEvent(snapshot(data), null);
+
+        UserProfileCache.Record record = cache.get("alice");
+        assertNull(record.getInfo("password"));
+        assertFalse(((Map<?, ?>) record.toUserData().get("userInfo")).containsKey("password"));
+        assertEquals("Alice", record.getInfo("name"));
+        String persisted = prefs.getString("record", "");
+        assertFalse("The password should not be written to storage", persisted.contains("password"));
+        assertFalse(persisted.contains("pbkdf2$secret"));
+    }
+
+    @Test
+    public void snapshot_shouldReplaceRecordWhenDocumentChanges() {
+        cache.start(prefs, userDoc, "alice");
+        EventListener<DocumentSnapshot> listener = captureListener();
+
+        listener.onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList())), null);
+        listener.onEvent(snapshot(userData("Alice", Arrays.asList(), Arrays.asList("e1"))), null);
+
+        assertFalse(cache.get("alice").isIn("waitListedEvents", "e1"));
+        assertTrue(cache.get("alice").isIn("selectedEvents", "e1"));
+    }
+
+    @Test
+    public void listenerError_shouldInvalidateRecord() {
+        cache.start(prefs, userDoc, "alice");
+        EventListener<DocumentSnapshot> listener = captureListener();
+        listener.onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList())), null);
+
+        listener.onEvent(null, mock(FirebaseFirestoreException.class));
+
+        assertNull("Readers should fall back to Firestore", cache.get("alice"));
+        assertNull("The stale record should not survive a restart", prefs.getString("record", null));
+    }
+
+    @Test
+    public void deletedDocument_shouldInvalidateRecord() {
+        cache.start(prefs, userDoc, "alice");
+        EventListener<DocumentSnapshot> listener = captureListener();
+        listener.onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList())), null);
+
+        listener.onEvent(snapshot(null), null);
+
+        assertNull(cache.get("alice"));
+    }
+
+    @Test
+    public void clear_shouldStopListeningAndIgnoreLateSnapshots() {
+        cache.start(prefs, userDoc, "alice");
+        EventListener<DocumentSnapshot> listener = captureListener();
+
+        cache.clear(context);
+        listener.onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList())), null);
+
+        verify(registration).remove();
+        assertNull(cache.get("alice"));
+        assertNull(prefs.getString("record", null));
+    }
+
+    @Test
+    public void start_shouldNotServePersistedRecordOfAnotherUser() {
+        cache.start(prefs, userDoc, "alice");
+        captureListener().onEvent(snapshot(userData("Alice", Arrays.asList("e1"), Arrays.asList())), null);
+
+        UserProfileCache other = new UserProfileCache();
+        other.start(prefs, mock(DocumentReference.class), "bob");
+
+        assertNull(other.getForDisplay("bob"));
+        assertNull(other.getForDisplay("alice"));
+    }
+}
@@ -3,6 +3,7 @@
 package com.example.lottos.events;
 
 import com.example.lottos.EventRepository;
+import com.example.lottos.TaskFutures;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
@@ -11,7 +12,6 @@ import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.QuerySnapshot;
 
@@ -50,7 +50,6 @@ public class EntrantEventManagerTest {
     @Mock private FirebaseFirestore mockDb;
     @Mock private EntrantEventManager.EventsCallback mockCallback;
 
-    @Mock private Query mockQuery;
     @Mock private Task<QuerySnapshot> mockEventQueryTask;
     @Mock private Task<DocumentSnapshot> mockUserDocTask;
     @Mock private DocumentSnapshot mockUserSnapshot;
@@ -69,8 +68,8 @@ public class EntrantEventManagerTest {
 
         entrantEventManager = new EntrantEventManager(mockRepo, mockDb);
 
-        when(mockRepo.getAllEvents()).thenReturn(mockQuery);
-        when(mockQuery.get()).thenReturn(mockEventQueryTask);
+        when(mockRepo.readAllEvents()).thenReturn(mockEventQueryTask);
+        when(mockRepo.fetchAllEvents()).thenAnswer(invocation -> TaskFutures.of(mockEventQueryTask));
         when(mockDb.collection("users")).thenReturn(mockUserCollectionRef);
         when(mockUserCollectionRef.document(anyString())).thenReturn(mockUserDocRef);
         when(mockUserDocRef.get()).thenReturn(mockUserDocTask);
@@ -158,6 +157,30 @@ public class EntrantEventManagerTest {
         assertTrue(capturedIds.containsAll(Arrays.asList("event1", "event3")));
     }
 
+    @Test
+    public void loadEventsHistory_shouldReadUserAndEventsTogether() {
+        // Neither read has completed yet.
+        entrantEventManager.loadEventsHistory("testUser", mockCallback);
+
+        verify(mockUserDocRef).get();
+        verify(mockRepo).fetchAllEvents();
+        verify(mockCallback, never()).onSuccess(any(), any());
+        verify(mockCallback, never()).onError(any());
+    }
+
+    @Test
+    public void loadEventsHistory_UserReadFails_CallsOnError() {
+        Exception testException = new Exception("User read failed!");
+        setupFailedTask(mockUserDocTask, testException);
+        setupSuccessfulEventTask(createMockEventSnapshots());
+
+        entrantEventManager.loadEventsHistory("testUser", mockCallback);
+
+        verify(mockCallback).onError(errorCaptor.capture());
+        assertEquals(testException, errorCaptor.getValue());
+        verify(mockCallback, never()).onSuccess(any(), any());
+    }
+
     private void setupSuccessfulEventTask(List<QueryDocumentSnapshot> documents) {
         doAnswer(invocation -> {
             OnSuccessListener<QuerySnapshot> listener = invocation.getArgument(0);
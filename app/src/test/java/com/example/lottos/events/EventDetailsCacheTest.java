@@ -0,0 +1,151 @@
+package com.example.lottos.events;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the EventDetailsCache class.
+ * Verifies that entries expire, that the entrant's own changes are applied to copies of the cached data,
+ * and that a failed change can be rolled back.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class EventDetailsCacheTest {
+
+    private long now;
+    private EventDetailsCache cache;
+
+    @Before
+    public void setUp() {
+        now = 1_000L;
+        cache = new EventDetailsCache(() -> now);
+    }
+
+    private static Map<String, Object> withList(String field, String listKey, String... values) {
+        Map<String, Object> list = new HashMap<>();
+        list.put(listKey, new ArrayList<>(Arrays.asList(values)));
+        Map<String, Object> data = new HashMap<>();
+        data.put(field, list);
+        return data;
+    }
+
+    private static List<?> nested(Map<String, Object> data, String field, String listKey) {
+        return (List<?>) ((Map<?, ?>) data.get(field)).get(listKey);
+    }
+
+    @Test
+    public void get_shouldExpireAfterTtl() {
+        cache.put("event1", "alice", new HashMap<>(), new ArrayList<>(), new HashMap<>());
+
+        now += EventDetailsCache.TTL_MS - 1;
+        assertNotNull(cache.get("event1", "alice"));
+        assertNull("Entries are kept per user", cache.get("event1", "bob"));
+
+        now += 1;
+        assertNull(cache.get("event1", "alice"));
+    }
+
+    @Test
+    public void applyJoinAndLeave_shouldUpdateWaitlistAndUserLists() {
+        Map<String, Object> eventData = withList("waitList", "users", "bob");
+        Map<String, Object> userData = withList("waitListedEvents", "events");
+        cache.put("event1", "alice", eventData, new ArrayList<>(Arrays.asList("bob")), userData);
+
+        cache.applyJoin("event1", "alice");
+        EventDetailsCache.Entry joined = cache.get("event1", "alice");
+
+        assertEquals(Arrays.asList("bob", "alice"), joined.waitlistUsers);
+        assertEquals(Arrays.asList("bob", "alice"), nested(joined.eventData, "waitList", "users"));
+        assertEquals(Arrays.asList("event1"), nested(joined.userData, "waitListedEvents", "events"));
+        assertEquals("The loaded data should not be modified", Arrays.asList("bob"),
+                nested(eventData, "waitList", "users"));
+
+        cache.applyLeave("event1", "alice");
+        EventDetailsCache.Entry left = cache.get("event1", "alice");
+
+        assertEquals(Arrays.asList("bob"), left.waitlistUsers);
+        assertTrue(nested(left.userData, "waitListedEvents", "events").isEmpty());
+    }
+
+    @Test
+    public void applyAccept_shouldMoveEventFromSelectedToEnrolled() {
+        Map<String, Object> userData = withList("selectedEvents", "events", "event1");
+        cache.put("event1", "alice", new HashMap<>(), new ArrayList<>(), userData);
+
+        cache.applyAccept("event1", "alice");
+        EventDetailsCache.Entry entry = cache.get("event1", "alice");
+
+        assertTrue(nested(entry.userData, "selectedEvents", "events").isEmpty());
+        assertEquals(Arrays.asList("event1"), nested(entry.userData, "enrolledEvents", "events"));
+        assertEquals(Arrays.asList("alice"), nested(entry.eventData, "enrolledList", "users"));
+    }
+
+    @Test
+    public void applyDecline_shouldLeaveEventDataUnchanged() {
+        Map<String, Object> eventData = withList("selectedList", "users", "alice");
+        Map<String, Object> userData = withList("selectedEvents", "events", "event1");
+        cache.put("event1", "alice", eventData, new ArrayList<>(), userData);
+
+        cache.applyDecline("event1", "alice");
+        EventDetailsCache.Entry entry = cache.get("event1", "alice");
+
+        assertSame(eventData, entry.eventData);
+        assertEquals(Arrays.asList("event1"), nested(entry.userData, "declinedEvents", "events"));
+    }
+
+    @Test
+    public void applyJoin_shouldNotExtendExpiryOrCreateEntries() {
+        cache.applyJoin("event1", "alice");
+        assertNull(cache.get("event1", "alice"));
+
+        cache.put("event1", "alice", new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        now += EventDetailsCache.TTL_MS / 2;
+        cache.applyJoin("event1", "alice");
+        now += EventDetailsCache.TTL_MS / 2;
+
+        assertNull(cache.get("event1", "alice"));
+    }
+
+    @Test
+    public void rollback_shouldRestoreEntryFromBeforeChange() {
+        Map<String, Object> userData = withList("selectedEvents", "events", "event1");
+        EventDetailsCache.Entry loaded = cache.put("event1", "alice", new HashMap<>(), new ArrayList<>(), userData);
+
+        Runnable rollback = cache.applyAccept("event1", "alice");
+        assertNotSame(loaded, cache.get("event1", "alice"));
+
+        rollback.run();
+
+        assertSame(loaded, cache.get("event1", "alice"));
+    }
+
+    @Test
+    public void rollback_shouldDropEntryChangedSince() {
+        cache.put("event1", "alice", new HashMap<>(), new ArrayList<>(), new HashMap<>());
+
+        Runnable rollback = cache.applyJoin("event1", "alice");
+        cache.applyLeave("event1", "alice");
+        rollback.run();
+
+        assertNull("A later change means the old copy is stale", cache.get("event1", "alice"));
+    }
+
+    @Test
+    public void rollback_withoutCachedEntry_shouldDoNothing() {
+        Runnable rollback = cache.applyJoin("event1", "alice");
+        rollback.run();
+
+        assertNull(cache.get("event1", "alice"));
+    }
+}
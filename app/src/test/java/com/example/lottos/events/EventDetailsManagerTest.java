@@ -1,6 +1,7 @@
 package com.example.lottos.events;
 
 import com.example.lottos.EventRepository;
+import com.example.lottos.organizer.DeclineQueue;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
@@ -10,6 +11,7 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
 import com.google.firebase.firestore.Transaction;
 
 import org.junit.Before;
@@ -20,8 +22,16 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -42,19 +52,26 @@ public class EventDetailsManagerTest {
     @Mock private DocumentReference mockEventDocRef;
     @Mock private DocumentReference mockUserDocRef;
     @Mock private CollectionReference mockUserCollectionRef;
+    @Mock private CollectionReference mockDirectoryCollectionRef;
+    @Mock private DocumentReference mockDirectoryDocRef;
     @Mock private Transaction mockTransaction;
     @Mock private Runnable mockOnSuccessRunnable;
     @Mock private Consumer<Exception> mockConsumerOnError;
     @Mock private EventRepository.OnError mockRepoOnError;
+    @Mock private DeclineQueue mockDeclineQueue;
+    @Mock private DocumentReference mockPendingDeclineRef;
 
     @Before
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        eventDetailsManager = new EventDetailsManager(mockDb, mockRepo);
+        eventDetailsManager = new EventDetailsManager(mockDb, mockRepo, mockDeclineQueue);
 
         when(mockRepo.getEvent(anyString())).thenReturn(mockEventDocRef);
         when(mockDb.collection("users")).thenReturn(mockUserCollectionRef);
         when(mockUserCollectionRef.document(anyString())).thenReturn(mockUserDocRef);
+        when(mockDb.collection("user_directory")).thenReturn(mockDirectoryCollectionRef);
+        when(mockDirectoryCollectionRef.document(anyString())).thenReturn(mockDirectoryDocRef);
+        when(mockDeclineQueue.pendingDecline(anyString(), anyString())).thenReturn(mockPendingDeclineRef);
     }
 
     private <T> void simulateSuccess(Task<T> task) {
@@ -135,19 +152,31 @@ public class EventDetailsManagerTest {
 
         verify(mockTransaction).update(eq(mockEventDocRef), eq("waitList.users"), any(FieldValue.class));
         verify(mockTransaction).update(eq(mockUserDocRef), eq("waitListedEvents.events"), any(FieldValue.class));
+        verify(mockRepo).invalidateEvent("testEvent");
         verify(mockOnSuccessRunnable).run();
         verify(mockRepoOnError, never()).run(any());
     }
 
+    private void givenUserLists(String selected, String enrolled) throws FirebaseFirestoreException {
+        DocumentSnapshot mockUserSnap = mock(DocumentSnapshot.class);
+        when(mockUserSnap.get("selectedEvents.events")).thenReturn(
+                selected != null ? Arrays.asList(selected) : new ArrayList<>());
+        when(mockUserSnap.get("enrolledEvents.events")).thenReturn(
+                enrolled != null ? Arrays.asList(enrolled) : new ArrayList<>());
+        when(mockTransaction.get(mockUserDocRef)).thenReturn(mockUserSnap);
+    }
+
     @Test
-    public void acceptInvite_Success_PerformsCorrectUpdates() {
+    public void acceptInvite_Success_PerformsCorrectUpdates() throws FirebaseFirestoreException {
         Task<Void> mockTransactionTask = mock(Task.class);
         setupTransactionMocks(mockTransactionTask);
+        givenUserLists("testEvent", null);
         eventDetailsManager.acceptInvite("testEvent", "testUser", mockOnSuccessRunnable, mockRepoOnError);
 
         verify(mockTransaction).update(eq(mockEventDocRef), eq("enrolledList.users"), any(FieldValue.class));
         verify(mockTransaction).update(eq(mockUserDocRef), eq("selectedEvents.events"), any(FieldValue.class));
         verify(mockTransaction).update(eq(mockUserDocRef), eq("enrolledEvents.events"), any(FieldValue.class));
+        verify(mockTransaction).set(eq(mockDirectoryDocRef), any(Map.class), any(SetOptions.class));
         verify(mockOnSuccessRunnable).run();
         verify(mockRepoOnError, never()).run(any());
     }
@@ -158,10 +187,72 @@ public class EventDetailsManagerTest {
         setupTransactionMocks(mockTransactionTask);
         eventDetailsManager.declineInvite("testEvent", "testUser", mockOnSuccessRunnable, mockRepoOnError);
 
-        verify(mockTransaction).update(eq(mockEventDocRef), eq("cancelledList.users"), any(FieldValue.class));
         verify(mockTransaction).update(eq(mockUserDocRef), eq("selectedEvents.events"), any(FieldValue.class));
         verify(mockTransaction).update(eq(mockUserDocRef), eq("declinedEvents.events"), any(FieldValue.class));
+        verify(mockTransaction).set(eq(mockPendingDeclineRef), any(Map.class));
+        // The event document is left to the decline queue, so bursts of declines do not contend on it.
+        verify(mockTransaction, never()).update(eq(mockEventDocRef), anyString(), any());
+        verify(mockDeclineQueue).schedule("testEvent");
         verify(mockOnSuccessRunnable).run();
         verify(mockRepoOnError, never()).run(any());
     }
+
+    @Test
+    public void leaveWaitlist_withCachedView_shouldPatchItAndKeepIt() {
+        EventDetailsCache cache = new EventDetailsCache(() -> 0L);
+        eventDetailsManager = new EventDetailsManager(mockDb, mockRepo, mockDeclineQueue, cache);
+        cache.put("testEvent", "testUser", new HashMap<>(), new ArrayList<>(Arrays.asList("testUser")), new HashMap<>());
+        setupTransactionMocks(mock(Task.class));
+
+        boolean shown = eventDetailsManager.leaveWaitlist("testEvent", "testUser", mockOnSuccessRunnable, mockRepoOnError);
+
+        assertTrue(shown);
+        assertTrue(cache.get("testEvent", "testUser").waitlistUsers.isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void leaveWaitlist_withoutCachedView_shouldDropViewLoadedDuringWrite() {
+        EventDetailsCache cache = new EventDetailsCache(() -> 0L);
+        eventDetailsManager = new EventDetailsManager(mockDb, mockRepo, mockDeclineQueue, cache);
+        Task<Void> mockTransactionTask = mock(Task.class);
+        doAnswer(invocation -> {
+            Transaction.Function<Void> function = invocation.getArgument(0);
+            function.apply(mockTransaction);
+            // A load that raced the transaction caches the documents from before the write.
+            cache.put("testEvent", "testUser", new HashMap<>(), new ArrayList<>(Arrays.asList("testUser")), new HashMap<>());
+            simulateSuccess(mockTransactionTask);
+            return mockTransactionTask;
+        }).when(mockDb).runTransaction(any(Transaction.Function.class));
+
+        boolean shown = eventDetailsManager.leaveWaitlist("testEvent", "testUser", mockOnSuccessRunnable, mockRepoOnError);
+
+        assertFalse(shown);
+        assertNull("The view from before the write should be read again", cache.get("testEvent", "testUser"));
+        verify(mockOnSuccessRunnable).run();
+    }
+
+    @Test
+    public void acceptInvite_alreadyEnrolled_shouldNotCountEventAgain() throws FirebaseFirestoreException {
+        setupTransactionMocks(mock(Task.class));
+        givenUserLists(null, "testEvent");
+
+        eventDetailsManager.acceptInvite("testEvent", "testUser", mockOnSuccessRunnable, mockRepoOnError);
+
+        verify(mockTransaction, never()).set(eq(mockDirectoryDocRef), any(Map.class), any(SetOptions.class));
+        verify(mockOnSuccessRunnable).run();
+    }
+
+    @Test
+    public void acceptInvite_notSelected_shouldFailWithoutWrites() throws FirebaseFirestoreException {
+        setupTransactionMocks(mock(Task.class));
+        givenUserLists(null, null);
+
+        eventDetailsManager.acceptInvite("testEvent", "testUser", mockOnSuccessRunnable, mockRepoOnError);
+
+        verify(mockTransaction, never()).update(any(DocumentReference.class), anyString(), any());
+        verify(mockTransaction, never()).set(any(DocumentReference.class), any(Map.class), any(SetOptions.class));
+        verify(mockRepoOnError).run(any());
+        verify(mockOnSuccessRunnable, never()).run();
+    }
 }
@@ -0,0 +1,71 @@
+package com.example.lottos.events;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.common.BitMatrix;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the QRCodeGenerator class.
+ * Verifies the pixel buffer layout and that generated codes are served from the cache.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class QRCodeGeneratorTest {
+
+    @Before
+    public void setUp() {
+        QRCodeGenerator.clearCache();
+    }
+
+    @Test
+    public void toPixels_shouldMapModulesRowMajor() {
+        BitMatrix matrix = new BitMatrix(3, 2);
+        matrix.set(0, 0);
+        matrix.set(2, 1);
+
+        int[] pixels = QRCodeGenerator.toPixels(matrix);
+
+        assertArrayEquals(new int[] {
+                Color.BLACK, Color.WHITE, Color.WHITE,
+                Color.WHITE, Color.WHITE, Color.BLACK
+        }, pixels);
+    }
+
+    @Test
+    public void generate_shouldMatchEncodedMatrix() throws Exception {
+        Bitmap bmp = QRCodeGenerator.generate("alice_Event", 128);
+        BitMatrix matrix = new MultiFormatWriter().encode("alice_Event", BarcodeFormat.QR_CODE, 128, 128);
+
+        assertNotNull(bmp);
+        assertEquals(128, bmp.getWidth());
+        assertEquals(128, bmp.getHeight());
+        assertArrayEquals("Bitmap pixels should match the pixel buffer", QRCodeGenerator.toPixels(matrix), pixelsOf(bmp));
+    }
+
+    @Test
+    public void generate_shouldReturnCachedBitmapForSameContentAndSize() {
+        Bitmap first = QRCodeGenerator.generate("alice_Event", 128);
+        Bitmap second = QRCodeGenerator.generate("alice_Event", 128);
+        Bitmap otherSize = QRCodeGenerator.generate("alice_Event", 256);
+
+        assertSame("Same content and size should hit the cache", first, second);
+        assertNotSame("A different size should be generated separately", first, otherSize);
+    }
+
+    private static int[] pixelsOf(Bitmap bmp) {
+        int[] pixels = new int[bmp.getWidth() * bmp.getHeight()];
+        bmp.getPixels(pixels, 0, bmp.getWidth(), 0, 0, bmp.getWidth(), bmp.getHeight());
+        return pixels;
+    }
+}
@@ -93,6 +93,7 @@ public class EventStatusUpdaterTest {
         when(docToClose.getTimestamp("registerEndTime")).thenReturn(new Timestamp(nowSeconds - 1000, 0)); // Expired
         when(docToClose.getBoolean("IsOpen")).thenReturn(true);
         when(refToClose.update(anyString(), anyBoolean())).thenReturn(mock(Task.class));
+        when(docToClose.getId()).thenReturn("closing");
 
         QueryDocumentSnapshot docToOpen = mock(QueryDocumentSnapshot.class);
         DocumentReference refToOpen = mock(DocumentReference.class);
@@ -100,6 +101,7 @@ public class EventStatusUpdaterTest {
         when(docToOpen.getTimestamp("registerEndTime")).thenReturn(new Timestamp(nowSeconds + 1000, 0)); // In the future
         when(docToOpen.getBoolean("IsOpen")).thenReturn(false);
         when(refToOpen.update(anyString(), anyBoolean())).thenReturn(mock(Task.class));
+        when(docToOpen.getId()).thenReturn("opening");
 
         QueryDocumentSnapshot docCorrect = mock(QueryDocumentSnapshot.class);
         when(docCorrect.getTimestamp("registerEndTime")).thenReturn(new Timestamp(nowSeconds + 1000, 0)); // In the future
@@ -114,6 +116,8 @@ public class EventStatusUpdaterTest {
 
         verify(docCorrect, never()).getReference();
 
+        verify(mockListener).onStatusChanged("closing", false);
+        verify(mockListener).onStatusChanged("opening", true);
         verify(mockListener).onUpdateSuccess(countCaptor.capture());
         assertEquals(2, (int) countCaptor.getValue());
         verify(mockListener, never()).onUpdateFailure(anyString());
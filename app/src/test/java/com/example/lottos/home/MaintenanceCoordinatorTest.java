@@ -0,0 +1,164 @@
+package com.example.lottos.home;
+
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the MaintenanceCoordinator class.
+ * Verifies when a lease may be taken, that only the lease holder runs a job, and that run metrics are recorded.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class MaintenanceCoordinatorTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long INTERVAL = 60_000L;
+
+    @Mock private FirebaseFirestore mockDb;
+    @Mock private CollectionReference mockCollection;
+    @Mock private DocumentReference mockLease;
+    @Mock private Transaction mockTransaction;
+    @Mock private DocumentSnapshot mockLeaseSnap;
+    @Mock private MaintenanceCoordinator.Job mockJob;
+    @Mock private MaintenanceCoordinator.RunListener mockListener;
+
+    private MaintenanceCoordinator coordinator;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        coordinator = new MaintenanceCoordinator(mockDb, () -> NOW);
+
+        when(mockDb.collection(MaintenanceCoordinator.COLLECTION)).thenReturn(mockCollection);
+        when(mockCollection.document(MaintenanceCoordinator.SELECTION_SWEEP_JOB)).thenReturn(mockLease);
+        when(mockTransaction.get(mockLease)).thenReturn(mockLeaseSnap);
+
+        doAnswer(invocation -> {
+            Transaction.Function<Object> function = invocation.getArgument(0);
+            Object result = function.apply(mockTransaction);
+            Task<Object> task = mock(Task.class);
+            when(task.addOnSuccessListener(any())).thenAnswer(inner -> {
+                OnSuccessListener<Object> listener = inner.getArgument(0);
+                listener.onSuccess(result);
+                return task;
+            });
+            when(task.addOnFailureListener(any())).thenReturn(task);
+            return task;
+        }).when(mockDb).runTransaction(any(Transaction.Function.class));
+    }
+
+    private static Timestamp at(long millis) {
+        return new Timestamp(new Date(millis));
+    }
+
+    @Test
+    public void canAcquire_shouldRespectLeaseAndInterval() {
+        assertTrue("A job that never ran is due", MaintenanceCoordinator.canAcquire(null, null, NOW, INTERVAL));
+        assertFalse("A valid lease blocks other runners",
+                MaintenanceCoordinator.canAcquire(at(NOW + 1000), at(NOW - 2 * INTERVAL), NOW, INTERVAL));
+        assertFalse("A job that ran recently is skipped",
+                MaintenanceCoordinator.canAcquire(at(NOW - 1000), at(NOW - INTERVAL / 2), NOW, INTERVAL));
+        assertTrue("An expired lease can be taken over",
+                MaintenanceCoordinator.canAcquire(at(NOW - 1000), at(NOW - INTERVAL), NOW, INTERVAL));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void runIfDue_shouldTakeLeaseRunJobAndRecordMetrics() {
+        when(mockLeaseSnap.exists()).thenReturn(false);
+        doAnswer(invocation -> {
+            MaintenanceCoordinator.Reporter reporter = invocation.getArgument(0);
+            // The release transaction reads the lease back as still held by this client.
+            ArgumentCaptor<Map<String, Object>> taken = ArgumentCaptor.forClass(Map.class);
+            verify(mockTransaction).set(eq(mockLease), taken.capture(), any(SetOptions.class));
+            when(mockLeaseSnap.getString("holder")).thenReturn((String) taken.getValue().get("holder"));
+            reporter.onComplete(120, 7);
+            return null;
+        }).when(mockJob).run(any());
+
+        coordinator.runIfDue(MaintenanceCoordinator.SELECTION_SWEEP_JOB, INTERVAL, mockJob, mockListener);
+
+        ArgumentCaptor<Map<String, Object>> writes = ArgumentCaptor.forClass(Map.class);
+        verify(mockTransaction, times(2)).set(eq(mockLease), writes.capture(), any(SetOptions.class));
+        List<Map<String, Object>> values = writes.getAllValues();
+
+        Map<String, Object> taken = values.get(0);
+        assertEquals(at(NOW + MaintenanceCoordinator.LEASE_MS), taken.get("leaseUntil"));
+        assertEquals(at(NOW), taken.get("lastRunAt"));
+
+        Map<String, Object> released = values.get(1);
+        assertEquals(120, released.get("lastScanned"));
+        assertEquals(7, released.get("lastWritten"));
+        assertEquals(0L, released.get("lastDurationMs"));
+        assertNull(released.get("lastError"));
+        assertEquals("The lease should end when the job does", at(NOW), released.get("leaseUntil"));
+
+        verify(mockListener).onRan(120, 7);
+    }
+
+    @Test
+    public void runIfDue_shouldSkipWhileAnotherClientHoldsLease() {
+        when(mockLeaseSnap.exists()).thenReturn(true);
+        when(mockLeaseSnap.getTimestamp("leaseUntil")).thenReturn(at(NOW + 30_000));
+        when(mockLeaseSnap.getTimestamp("lastRunAt")).thenReturn(at(NOW - 30_000));
+
+        coordinator.runIfDue(MaintenanceCoordinator.SELECTION_SWEEP_JOB, INTERVAL, mockJob, mockListener);
+
+        verify(mockJob, never()).run(any());
+        verify(mockTransaction, never()).set(any(DocumentReference.class), any(Map.class), any(SetOptions.class));
+        verify(mockListener).onSkipped();
+        verify(mockListener, never()).onRan(anyInt(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void runIfDue_jobFailure_shouldRecordErrorAndReleaseLease() {
+        when(mockLeaseSnap.exists()).thenReturn(false);
+        doAnswer(invocation -> {
+            MaintenanceCoordinator.Reporter reporter = invocation.getArgument(0);
+            reporter.onFailure("Query failed");
+            return null;
+        }).when(mockJob).run(any());
+
+        coordinator.runIfDue(MaintenanceCoordinator.SELECTION_SWEEP_JOB, INTERVAL, mockJob, mockListener);
+
+        ArgumentCaptor<Map<String, Object>> writes = ArgumentCaptor.forClass(Map.class);
+        verify(mockTransaction, times(2)).set(eq(mockLease), writes.capture(), any(SetOptions.class));
+        assertEquals("Query failed", writes.getAllValues().get(1).get("lastError"));
+        verify(mockListener).onFailure("Query failed");
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.lottos.organizer;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the CsvWriter class.
+ * Verifies RFC 4180 field escaping and row formatting.
+ */
+public class CsvWriterTest {
+
+    @Test
+    public void escape_shouldLeavePlainFieldsUnchanged() {
+        assertEquals("alice", CsvWriter.escape("alice"));
+        assertEquals("alice@example.com", CsvWriter.escape("alice@example.com"));
+    }
+
+    @Test
+    public void escape_shouldQuoteFieldsWithDelimiters() {
+        assertEquals("\"Doe, Jane\"", CsvWriter.escape("Doe, Jane"));
+        assertEquals("\"line1\nline2\"", CsvWriter.escape("line1\nline2"));
+        assertEquals("\" padded \"", CsvWriter.escape(" padded "));
+    }
+
+    @Test
+    public void escape_shouldDoubleEmbeddedQuotes() {
+        assertEquals("\"say \"\"hi\"\"\"", CsvWriter.escape("say \"hi\""));
+    }
+
+    @Test
+    public void escape_shouldReturnEmptyForNull() {
+        assertEquals("", CsvWriter.escape(null));
+        assertEquals("", CsvWriter.escape(""));
+    }
+
+    @Test
+    public void writeRow_shouldJoinFieldsAndTerminateWithCrlf() throws Exception {
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out);
+
+        csv.writeRow("User Name", "Email");
+        csv.writeRow("bob", null);
+        csv.writeRow("Doe, Jane", "jane@example.com");
+        csv.flush();
+
+        assertEquals("User Name,Email\r\nbob,\r\n\"Doe, Jane\",jane@example.com\r\n", out.toString());
+    }
+}
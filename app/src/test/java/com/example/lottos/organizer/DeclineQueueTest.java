@@ -0,0 +1,246 @@
+package com.example.lottos.organizer;
+
+import com.example.lottos.EventRepository;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Transaction;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the DeclineQueue class.
+ * Verifies that declines are collected per event and promoted together in one transaction.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class DeclineQueueTest {
+
+    @Mock private FirebaseFirestore mockDb;
+    @Mock private EventRepository mockRepo;
+    @Mock private DocumentReference mockEventRef;
+    @Mock private CollectionReference mockPendingCollection;
+    @Mock private Query mockQuery;
+    @Mock private Task<QuerySnapshot> mockQueryTask;
+    @Mock private QuerySnapshot mockPending;
+    @Mock private Transaction mockTransaction;
+    @Mock private Task<Integer> mockTransactionTask;
+    @Mock private CollectionReference mockUsersCollection;
+    @Mock private DocumentReference mockUserRef;
+    @Mock private CollectionReference mockNotificationsCollection;
+    @Mock private CollectionReference mockDirectoryCollection;
+
+    private final List<Runnable> scheduledTasks = new ArrayList<>();
+    private final List<Long> scheduledDelays = new ArrayList<>();
+    private DeclineQueue queue;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        queue = new DeclineQueue(mockDb, mockRepo, (task, delayMs) -> {
+            scheduledTasks.add(task);
+            scheduledDelays.add(delayMs);
+        });
+
+        when(mockRepo.getEvent(anyString())).thenReturn(mockEventRef);
+        when(mockEventRef.collection(DeclineQueue.PENDING_COLLECTION)).thenReturn(mockPendingCollection);
+        when(mockPendingCollection.orderBy("declinedAt")).thenReturn(mockQuery);
+        when(mockQuery.limit(anyLong())).thenReturn(mockQuery);
+        when(mockQuery.get()).thenReturn(mockQueryTask);
+        when(mockQueryTask.addOnSuccessListener(any())).thenAnswer(invocation -> {
+            OnSuccessListener<QuerySnapshot> listener = invocation.getArgument(0);
+            listener.onSuccess(mockPending);
+            return mockQueryTask;
+        });
+
+        when(mockDb.collection("users")).thenReturn(mockUsersCollection);
+        when(mockUsersCollection.document(anyString())).thenReturn(mockUserRef);
+        when(mockDb.collection("notification")).thenReturn(mockNotificationsCollection);
+        when(mockNotificationsCollection.document()).thenReturn(mock(DocumentReference.class));
+        when(mockDb.collection("user_directory")).thenReturn(mockDirectoryCollection);
+        when(mockDirectoryCollection.document(anyString())).thenReturn(mock(DocumentReference.class));
+
+        doAnswer(invocation -> {
+            Transaction.Function<Integer> function = invocation.getArgument(0);
+            Integer handled = function.apply(mockTransaction);
+            when(mockTransactionTask.addOnSuccessListener(any())).thenAnswer(inner -> {
+                OnSuccessListener<Integer> listener = inner.getArgument(0);
+                listener.onSuccess(handled);
+                return mockTransactionTask;
+            });
+            return mockTransactionTask;
+        }).when(mockDb).runTransaction(any(Transaction.Function.class));
+    }
+
+    private static Map<String, Object> userList(String... users) {
+        Map<String, Object> list = new HashMap<>();
+        list.put("users", Arrays.asList(users));
+        return list;
+    }
+
+    private void givenEvent() throws Exception {
+        DocumentSnapshot event = mock(DocumentSnapshot.class);
+        when(event.exists()).thenReturn(true);
+        when(event.get("selectedList")).thenReturn(userList("alice", "bob", "carol"));
+        when(event.get("notSelectedList")).thenReturn(userList("dave", "erin", "frank"));
+        when(event.get(OrganizerEventDetailsManager.CURRENT_POINTER)).thenReturn(0L);
+        when(mockTransaction.get(mockEventRef)).thenReturn(event);
+    }
+
+    /**
+     * Adds pending declines, listed by the query and read again in the transaction.
+     * @param stillPending For each user, whether the decline is still there when the transaction reads it.
+     */
+    private List<DocumentReference> givenPending(String[] users, boolean[] stillPending) throws Exception {
+        List<DocumentSnapshot> listed = new ArrayList<>();
+        List<DocumentReference> refs = new ArrayList<>();
+        for (int i = 0; i < users.length; i++) {
+            DocumentReference ref = mock(DocumentReference.class);
+            DocumentSnapshot listedDoc = mock(DocumentSnapshot.class);
+            when(listedDoc.getReference()).thenReturn(ref);
+            listed.add(listedDoc);
+            refs.add(ref);
+
+            DocumentSnapshot current = mock(DocumentSnapshot.class);
+            when(current.exists()).thenReturn(stillPending[i]);
+            when(current.getString("userName")).thenReturn(users[i]);
+            when(mockTransaction.get(ref)).thenReturn(current);
+        }
+        when(mockPending.isEmpty()).thenReturn(listed.isEmpty());
+        when(mockPending.getDocuments()).thenReturn(listed);
+        return refs;
+    }
+
+    @Test
+    public void schedule_shouldFlushEachEventOnceAfterWindow() {
+        when(mockPending.isEmpty()).thenReturn(true);
+
+        queue.schedule("event1");
+        queue.schedule("event1");
+        queue.schedule("event2");
+
+        assertEquals("Repeated declines of one event should share a flush", 2, scheduledTasks.size());
+        assertEquals(Long.valueOf(DeclineQueue.WINDOW_MS), scheduledDelays.get(0));
+
+        scheduledTasks.get(0).run();
+        queue.schedule("event1");
+        assertEquals("A new window opens once the flush has started", 3, scheduledTasks.size());
+    }
+
+    @Test
+    public void flush_shouldPromoteAllPendingDeclinesInOneTransaction() throws Exception {
+        givenEvent();
+        List<DocumentReference> refs = givenPending(new String[]{"alice", "bob"}, new boolean[]{true, true});
+        Runnable onPromoted = mock(Runnable.class);
+
+        queue.flush("event1", onPromoted);
+
+        verify(mockDb, times(1)).runTransaction(any(Transaction.Function.class));
+        verify(mockTransaction).update(eq(mockEventRef), eq("selectedList.users"), any(FieldValue.class),
+                eq(OrganizerEventDetailsManager.CURRENT_POINTER), eq(2));
+        verify(mockUsersCollection).document("dave");
+        verify(mockUsersCollection).document("erin");
+        verify(mockTransaction, times(2)).set(any(DocumentReference.class), any(Map.class));
+        verify(mockTransaction).delete(refs.get(0));
+        verify(mockTransaction).delete(refs.get(1));
+        verify(mockRepo).invalidateEvent("event1");
+        verify(onPromoted).run();
+    }
+
+    @Test
+    public void flush_shouldSkipDeclinesAlreadyHandledByAnotherFlush() throws Exception {
+        givenEvent();
+        List<DocumentReference> refs = givenPending(new String[]{"alice", "bob"}, new boolean[]{false, true});
+
+        queue.flush("event1", null);
+
+        verify(mockTransaction).update(eq(mockEventRef), eq("selectedList.users"), any(FieldValue.class),
+                eq(OrganizerEventDetailsManager.CURRENT_POINTER), eq(1));
+        verify(mockUsersCollection).document("dave");
+        verify(mockUsersCollection, never()).document("erin");
+        verify(mockTransaction, never()).delete(refs.get(0));
+        verify(mockTransaction).delete(refs.get(1));
+    }
+
+    @Test
+    public void flush_withNothingPending_shouldNotStartTransaction() throws Exception {
+        givenPending(new String[0], new boolean[0]);
+        Runnable onPromoted = mock(Runnable.class);
+
+        queue.flush("event1", onPromoted);
+
+        verify(mockDb, never()).runTransaction(any(Transaction.Function.class));
+        verify(onPromoted, never()).run();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushStale_shouldFlushEveryEventWithPendingDeclinesOnce() throws Exception {
+        givenEvent();
+        List<DocumentReference> refs = givenPending(new String[]{"alice", "bob"}, new boolean[]{true, true});
+
+        // Both declines belong to event1, as found by the collection group scan.
+        List<DocumentSnapshot> scanned = new ArrayList<>();
+        for (DocumentReference ref : refs) {
+            CollectionReference parent = mock(CollectionReference.class);
+            DocumentReference event = mock(DocumentReference.class);
+            when(event.getId()).thenReturn("event1");
+            when(parent.getParent()).thenReturn(event);
+            when(ref.getParent()).thenReturn(parent);
+            DocumentSnapshot doc = mock(DocumentSnapshot.class);
+            when(doc.getReference()).thenReturn(ref);
+            scanned.add(doc);
+        }
+        QuerySnapshot scan = mock(QuerySnapshot.class);
+        when(scan.getDocuments()).thenReturn(scanned);
+        Query groupQuery = mock(Query.class);
+        Task<QuerySnapshot> scanTask = mock(Task.class);
+        when(mockDb.collectionGroup(DeclineQueue.PENDING_COLLECTION)).thenReturn(groupQuery);
+        when(groupQuery.limit(anyLong())).thenReturn(groupQuery);
+        when(groupQuery.get()).thenReturn(scanTask);
+        when(scanTask.addOnSuccessListener(any())).thenAnswer(invocation -> {
+            OnSuccessListener<QuerySnapshot> listener = invocation.getArgument(0);
+            listener.onSuccess(scan);
+            return scanTask;
+        });
+        Runnable onDone = mock(Runnable.class);
+
+        queue.flushStale(onDone);
+
+        verify(mockRepo, times(1)).getEvent("event1");
+        verify(mockDb, times(1)).runTransaction(any(Transaction.Function.class));
+        verify(mockTransaction).delete(refs.get(0));
+        verify(mockTransaction).delete(refs.get(1));
+        verify(onDone, times(1)).run();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.lottos.organizer;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Unit tests for the ExportJobRunner class.
+ * Verifies temp-file promotion, cleanup on failure and cancellation, and deduplication by key.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class ExportJobRunnerTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExportJobRunner runner;
+
+    /**
+     * Records every callback delivered to a listener.
+     */
+    private static class RecordingListener implements ExportJobRunner.JobListener {
+        final List<String> events = new ArrayList<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        @Override public void onProgress(int done, int total) { events.add("progress " + done + "/" + total); }
+        @Override public void onComplete(File file) { events.add("complete"); finished.countDown(); }
+        @Override public void onFailure(String errorMessage) { events.add("failure " + errorMessage); finished.countDown(); }
+        @Override public void onCancelled() { events.add("cancelled"); finished.countDown(); }
+    }
+
+    @Before
+    public void setUp() {
+        runner = new ExportJobRunner();
+    }
+
+    private void awaitFinished(RecordingListener listener) throws InterruptedException {
+        for (int i = 0; i < 200 && listener.finished.getCount() > 0; i++) {
+            shadowOf(Looper.getMainLooper()).idle();
+            listener.finished.await(10, TimeUnit.MILLISECONDS);
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals("Job should have finished", 0, listener.finished.getCount());
+    }
+
+    @Test
+    public void submit_shouldRenameTempFileOnCompletion() throws Exception {
+        File target = new File(folder.getRoot(), "out.csv");
+        RecordingListener listener = new RecordingListener();
+
+        runner.submit("job", target, (temp, progress) -> {
+            assertNotEquals("Job should write to a temp file", target, temp);
+            try (FileWriter w = new FileWriter(temp)) {
+                w.write("data");
+            }
+            progress.update(1, 1);
+        }, listener);
+
+        awaitFinished(listener);
+
+        assertTrue(target.exists());
+        assertFalse(new File(folder.getRoot(), "out.csv.part").exists());
+        assertTrue(listener.events.contains("progress 1/1"));
+        assertEquals("complete", listener.events.get(listener.events.size() - 1));
+    }
+
+    @Test
+    public void submit_shouldDeleteTempFileAndKeepTargetOnFailure() throws Exception {
+        File target = new File(folder.getRoot(), "out.csv");
+        try (FileWriter w = new FileWriter(target)) {
+            w.write("previous");
+        }
+        RecordingListener listener = new RecordingListener();
+
+        runner.submit("job", target, (temp, progress) -> {
+            try (FileWriter w = new FileWriter(temp)) {
+                w.write("partial");
+            }
+            throw new IllegalStateException("boom");
+        }, listener);
+
+        awaitFinished(listener);
+
+        assertEquals("failure boom", listener.events.get(listener.events.size() - 1));
+        assertFalse(new File(folder.getRoot(), "out.csv.part").exists());
+        assertEquals("Previous export should be untouched", 8, target.length());
+    }
+
+    @Test
+    public void submit_shouldDeduplicateRunningJobsWithSameKey() throws Exception {
+        File target = new File(folder.getRoot(), "out.csv");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+
+        ExportJobRunner.ExportJob work = (temp, progress) -> {
+            runs.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            temp.createNewFile();
+        };
+
+        runner.submit("job", target, work, first);
+        runner.submit("job", target, work, second);
+        assertTrue(runner.isRunning("job"));
+        release.countDown();
+
+        awaitFinished(first);
+        awaitFinished(second);
+
+        assertEquals("Work should only run once", 1, runs.get());
+        assertTrue(second.events.contains("complete"));
+        assertFalse(runner.isRunning("job"));
+    }
+
+    @Test
+    public void cancel_shouldStopRunningJobAndRemoveTempFile() throws Exception {
+        File target = new File(folder.getRoot(), "out.csv");
+        CountDownLatch started = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener();
+
+        ExportJobRunner.JobHandle handle = runner.submit("job", target, (temp, progress) -> {
+            temp.createNewFile();
+            started.countDown();
+            while (true) {
+                progress.update(0, 10);
+                Thread.sleep(5);
+            }
+        }, listener);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        handle.cancel();
+        awaitFinished(listener);
+
+        assertEquals("cancelled", listener.events.get(listener.events.size() - 1));
+        assertFalse(target.exists());
+        assertFalse(new File(folder.getRoot(), "out.csv.part").exists());
+    }
+}
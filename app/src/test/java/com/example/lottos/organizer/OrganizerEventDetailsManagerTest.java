@@ -7,6 +7,8 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
 import com.google.firebase.firestore.WriteBatch;
 
 import org.junit.Before;
@@ -27,13 +29,16 @@ import java.util.Map;
 import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
@@ -51,9 +56,13 @@ public class OrganizerEventDetailsManagerTest {
     @Mock private DocumentReference mockUserRef;
     @Mock private CollectionReference mockUsersCollection;
     @Mock private CollectionReference mockNotificationsCollection;
+    @Mock private CollectionReference mockDirectoryCollection;
+    @Mock private DocumentReference mockDirectoryRef;
     @Mock private Task<DocumentSnapshot> mockGetTask;
     @Mock private Task<Void> mockCommitTask;
     @Mock private WriteBatch mockWriteBatch;
+    @Mock private Transaction mockTransaction;
+    @Mock private Task<Object> mockTransactionTask;
 
     @Captor private ArgumentCaptor<Exception> exceptionCaptor;
 
@@ -64,12 +73,44 @@ public class OrganizerEventDetailsManagerTest {
 
         when(mockRepo.getEvent(anyString())).thenReturn(mockEventRef);
         when(mockEventRef.get()).thenReturn(mockGetTask);
+        when(mockRepo.readEvent(anyString())).thenReturn(mockGetTask);
         when(mockDb.batch()).thenReturn(mockWriteBatch);
         when(mockWriteBatch.commit()).thenReturn(mockCommitTask);
         when(mockDb.collection("users")).thenReturn(mockUsersCollection);
         when(mockUsersCollection.document(anyString())).thenReturn(mockUserRef);
         when(mockDb.collection("notification")).thenReturn(mockNotificationsCollection);
         when(mockNotificationsCollection.document()).thenReturn(mock(DocumentReference.class));
+        when(mockDb.collection("user_directory")).thenReturn(mockDirectoryCollection);
+        when(mockDirectoryCollection.document(anyString())).thenReturn(mockDirectoryRef);
+
+        doAnswer(invocation -> {
+            Transaction.Function<Object> function = invocation.getArgument(0);
+            Object result = function.apply(mockTransaction);
+            when(mockTransactionTask.addOnSuccessListener(any())).thenAnswer(inner -> {
+                OnSuccessListener<Object> listener = inner.getArgument(0);
+                listener.onSuccess(result);
+                return mockTransactionTask;
+            });
+            return mockTransactionTask;
+        }).when(mockDb).runTransaction(any(Transaction.Function.class));
+        simulateCommitSuccess(mockCommitTask);
+        when(mockCommitTask.addOnFailureListener(any())).thenReturn(mockCommitTask);
+    }
+
+    private static Map<String, Object> userList(String... users) {
+        Map<String, Object> list = new HashMap<>();
+        list.put("users", Arrays.asList(users));
+        return list;
+    }
+
+    private DocumentSnapshot drawnEvent(Long pointer) throws Exception {
+        DocumentSnapshot snap = mock(DocumentSnapshot.class);
+        when(snap.exists()).thenReturn(true);
+        when(snap.get("selectedList")).thenReturn(userList("userA", "userB"));
+        when(snap.get("notSelectedList")).thenReturn(userList("userC", "userD", "userE"));
+        when(snap.get(OrganizerEventDetailsManager.CURRENT_POINTER)).thenReturn(pointer);
+        when(mockTransaction.get(mockEventRef)).thenReturn(snap);
+        return snap;
     }
 
     private void simulateGetSuccess(Task<DocumentSnapshot> task, DocumentSnapshot result) {
@@ -125,29 +166,87 @@ public class OrganizerEventDetailsManagerTest {
     }
 
     @Test
-    public void runLottery_Success_buildsBatchAndCommits() {
+    public void runLottery_Success_recordsDrawThenUpdatesUsersInBatches() throws Exception {
 
         DocumentSnapshot mockSnap = mock(DocumentSnapshot.class);
         when(mockSnap.exists()).thenReturn(true);
         when(mockSnap.getLong("selectionCap")).thenReturn(1L); // Select 1 user
-        simulateGetSuccess(mockGetTask, mockSnap);
-        simulateCommitSuccess(mockCommitTask);
+        when(mockSnap.get("waitList")).thenReturn(userList("userA", "userB"));
+        when(mockTransaction.get(mockEventRef)).thenReturn(mockSnap);
 
         List<String> waitlistUsers = Arrays.asList("userA", "userB");
 
         manager.runLottery("testEvent", waitlistUsers, mockOnSuccess, mockOnError);
 
-        verify(mockWriteBatch).update(eq(mockEventRef), any(Map.class));
+        // The transaction only records the draw on the event.
+        verify(mockTransaction).update(eq(mockEventRef), any(Map.class));
+        verifyNoMoreInteractions(mockTransaction);
 
         verify(mockWriteBatch, times(2)).update(eq(mockUserRef), anyString(), any(FieldValue.class), anyString(), any(FieldValue.class));
-
         verify(mockWriteBatch, times(2)).set(any(DocumentReference.class), any(Map.class));
-
+        // Only the user who was not selected has joined an event so far.
+        verify(mockWriteBatch).set(eq(mockDirectoryRef), any(Map.class), any(SetOptions.class));
         verify(mockWriteBatch).commit();
+
+        verify(mockRepo).invalidateEvent("testEvent");
         verify(mockOnSuccess).run();
         verify(mockOnError, never()).accept(any());
     }
 
+    @Test
+    public void runLottery_largeWaitlist_splitsUserWritesAcrossBatches() throws Exception {
+        List<String> waitlist = new ArrayList<>();
+        for (int i = 0; i < 300; i++) waitlist.add("user" + i);
+
+        DocumentSnapshot mockSnap = mock(DocumentSnapshot.class);
+        when(mockSnap.exists()).thenReturn(true);
+        when(mockSnap.getLong("selectionCap")).thenReturn(10L);
+        when(mockSnap.get("waitList")).thenReturn(userList(waitlist.toArray(new String[0])));
+        when(mockTransaction.get(mockEventRef)).thenReturn(mockSnap);
+
+        manager.runLottery("testEvent", waitlist, mockOnSuccess, mockOnError);
+
+        // 10 selected users need 2 writes each and 290 others need 3: 890 writes in all.
+        verify(mockDb, times(2)).batch();
+        verify(mockWriteBatch, times(2)).commit();
+        verify(mockWriteBatch, times(300)).update(eq(mockUserRef), anyString(), any(FieldValue.class), anyString(), any(FieldValue.class));
+        verify(mockWriteBatch, times(290)).set(eq(mockDirectoryRef), any(Map.class), any(SetOptions.class));
+        verify(mockOnSuccess).run();
+        verify(mockOnError, never()).accept(any());
+    }
+
+    @Test
+    public void runLottery_waitlistAlreadyDrawn_changesNothing() throws Exception {
+        DocumentSnapshot mockSnap = mock(DocumentSnapshot.class);
+        when(mockSnap.exists()).thenReturn(true);
+        when(mockSnap.get("waitList")).thenReturn(userList());
+        when(mockTransaction.get(mockEventRef)).thenReturn(mockSnap);
+        doAnswer(invocation -> {
+            Transaction.Function<Void> function = invocation.getArgument(0);
+            Task<Void> failed = mock(Task.class);
+            when(failed.addOnSuccessListener(any())).thenReturn(failed);
+            try {
+                function.apply(mockTransaction);
+            } catch (Exception e) {
+                when(failed.addOnFailureListener(any())).thenAnswer(inner -> {
+                    OnFailureListener listener = inner.getArgument(0);
+                    listener.onFailure(e);
+                    return failed;
+                });
+            }
+            return failed;
+        }).when(mockDb).runTransaction(any(Transaction.Function.class));
+
+        // The screen still shows the users that an earlier run has already drawn.
+        manager.runLottery("testEvent", Arrays.asList("userA", "userB"), mockOnSuccess, mockOnError);
+
+        verify(mockTransaction, never()).update(any(DocumentReference.class), any(Map.class));
+        verify(mockDb, never()).batch();
+        verify(mockOnError).accept(any());
+        verify(mockOnSuccess, never()).run();
+        verify(mockRepo, never()).invalidateEvent(anyString());
+    }
+
     @Test
     public void runLottery_NoWaitlistUsers_callsOnError() {
         List<String> emptyWaitlist = new ArrayList<>();
@@ -157,8 +256,79 @@ public class OrganizerEventDetailsManagerTest {
         verify(mockOnError).accept(exceptionCaptor.capture());
         assertEquals("No users on waitlist to run lottery.", exceptionCaptor.getValue().getMessage());
 
-        verify(mockEventRef, never()).get();
-        verify(mockDb, never()).batch();
+        verify(mockDb, never()).runTransaction(any(Transaction.Function.class));
         verify(mockOnSuccess, never()).run();
     }
+
+    @Test
+    public void loadEvent_shouldLeaveOutPromotedUsers() {
+        DocumentSnapshot mockSnap = mock(DocumentSnapshot.class);
+        when(mockSnap.exists()).thenReturn(true);
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("notSelectedList", userList("userC", "userD", "userE"));
+        eventData.put(OrganizerEventDetailsManager.CURRENT_POINTER, 1L);
+        when(mockSnap.getData()).thenReturn(eventData);
+        simulateGetSuccess(mockGetTask, mockSnap);
+
+        manager.loadEvent("testEvent", mockLoadCallback);
+
+        ArgumentCaptor<List<String>> notSelectedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockLoadCallback).onSuccess(any(), any(), any(), notSelectedCaptor.capture(), any(), any());
+        assertEquals(Arrays.asList("userD", "userE"), notSelectedCaptor.getValue());
+    }
+
+    @Test
+    public void promoteReplacements_shouldPromoteUserAtPointerAndAdvanceIt() throws Exception {
+        DocumentSnapshot snap = drawnEvent(1L);
+
+        List<String> promoted = manager.promoteReplacements(mockTransaction, mockEventRef, snap,
+                "testEvent", Arrays.asList("userA"));
+
+        assertEquals(Arrays.asList("userD"), promoted);
+        verify(mockTransaction).update(eq(mockEventRef), eq("selectedList.users"), any(FieldValue.class),
+                eq(OrganizerEventDetailsManager.CURRENT_POINTER), eq(2));
+        verify(mockUsersCollection).document("userD");
+        verify(mockTransaction).update(eq(mockUserRef), eq("notSelectedEvents.events"), any(FieldValue.class),
+                eq("selectedEvents.events"), any(FieldValue.class));
+        verify(mockTransaction).set(any(DocumentReference.class), any(Map.class));
+        // The event is no longer 'not selected' for the promoted user.
+        verify(mockDirectoryCollection).document("userD");
+        verify(mockTransaction).set(eq(mockDirectoryRef), any(Map.class), any(SetOptions.class));
+        // The draw itself is never rewritten.
+        verify(mockTransaction, never()).update(eq(mockEventRef), eq("notSelectedList"), any());
+        verify(mockTransaction, never()).update(eq(mockEventRef), eq("notSelectedList.users"), any());
+    }
+
+    @Test
+    public void promoteReplacements_legacyEventWithoutPointer_promotesFirstUser() throws Exception {
+        DocumentSnapshot snap = drawnEvent(null);
+
+        manager.promoteReplacements(mockTransaction, mockEventRef, snap, "testEvent", Arrays.asList("userB"));
+
+        verify(mockUsersCollection).document("userC");
+        verify(mockTransaction).update(eq(mockEventRef), eq("selectedList.users"), any(FieldValue.class),
+                eq(OrganizerEventDetailsManager.CURRENT_POINTER), eq(1));
+    }
+
+    @Test
+    public void promoteReplacements_drawExhausted_onlyCancelsDeclinedUser() throws Exception {
+        DocumentSnapshot snap = drawnEvent(3L);
+
+        List<String> promoted = manager.promoteReplacements(mockTransaction, mockEventRef, snap,
+                "testEvent", Arrays.asList("userA"));
+
+        assertTrue(promoted.isEmpty());
+        verify(mockTransaction).update(eq(mockEventRef), eq("selectedList.users"), any(FieldValue.class));
+        verify(mockTransaction).update(eq(mockEventRef), eq("cancelledList.users"), any(FieldValue.class));
+        verify(mockTransaction, never()).set(any(DocumentReference.class), any(Map.class));
+    }
+
+    @Test
+    public void promoteReplacements_userNotSelected_changesNothing() throws Exception {
+        DocumentSnapshot snap = drawnEvent(0L);
+
+        manager.promoteReplacements(mockTransaction, mockEventRef, snap, "testEvent", Arrays.asList("userZ"));
+
+        verifyNoMoreInteractions(mockTransaction);
+    }
 }
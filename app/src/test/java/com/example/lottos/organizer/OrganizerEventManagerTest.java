@@ -8,6 +8,7 @@ import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -46,6 +47,9 @@ public class OrganizerEventManagerTest {
     @Mock private CollectionReference mockUsersCollection;
     @Mock private DocumentReference mockUserDocRef;
     @Mock private Task<Void> mockUpdateTask;
+    @Mock private CollectionReference mockDirectoryCollection;
+    @Mock private DocumentReference mockDirectoryDocRef;
+    @Mock private Task<Void> mockDirectoryTask;
 
     @Mock private Event mockEvent;
 
@@ -61,6 +65,9 @@ public class OrganizerEventManagerTest {
         when(mockDb.collection("users")).thenReturn(mockUsersCollection);
         when(mockUsersCollection.document(anyString())).thenReturn(mockUserDocRef);
         when(mockUserDocRef.update(anyString(), any())).thenReturn(mockUpdateTask);
+        when(mockDb.collection("user_directory")).thenReturn(mockDirectoryCollection);
+        when(mockDirectoryCollection.document(anyString())).thenReturn(mockDirectoryDocRef);
+        when(mockDirectoryDocRef.set(any(Map.class), any(SetOptions.class))).thenReturn(mockDirectoryTask);
     }
 
     private void simulateTaskSuccess() {
@@ -103,6 +110,8 @@ public class OrganizerEventManagerTest {
         assertTrue(capturedData.containsKey("waitList"));
 
         verify(mockUserDocRef).update(eq("organizedEvents.events"), any(FieldValue.class));
+        verify(mockDirectoryCollection).document("organizer1");
+        verify(mockDirectoryDocRef).set(any(Map.class), any(SetOptions.class));
         verify(mockOnSuccess).run();
         verify(mockOnError, never()).run(any());
     }
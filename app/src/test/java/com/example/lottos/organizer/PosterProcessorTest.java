@@ -0,0 +1,35 @@
+package com.example.lottos.organizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the PosterProcessor class.
+ * Verifies the decode sample size and the dimensions of each scaled variant.
+ */
+public class PosterProcessorTest {
+
+    @Test
+    public void scaledSize_shouldFitLongerEdgeAndKeepAspectRatio() {
+        assertArrayEquals(new int[] {1600, 1200}, PosterProcessor.scaledSize(4000, 3000, 1600));
+        assertArrayEquals(new int[] {240, 320}, PosterProcessor.scaledSize(3000, 4000, 320));
+    }
+
+    @Test
+    public void scaledSize_shouldNeverScaleUp() {
+        assertArrayEquals(new int[] {500, 300}, PosterProcessor.scaledSize(500, 300, 720));
+    }
+
+    @Test
+    public void scaledSize_shouldKeepThinImagesAtLeastOnePixel() {
+        assertArrayEquals(new int[] {720, 1}, PosterProcessor.scaledSize(10000, 2, 720));
+    }
+
+    @Test
+    public void sampleSize_shouldKeepEnoughPixelsForLargestVariant() {
+        assertEquals(1, PosterProcessor.sampleSize(1600, 1600));
+        assertEquals(2, PosterProcessor.sampleSize(4000, 1600));
+        assertEquals(4, PosterProcessor.sampleSize(6400, 1600));
+    }
+}
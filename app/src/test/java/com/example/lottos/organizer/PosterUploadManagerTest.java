@@ -0,0 +1,210 @@
+package com.example.lottos.organizer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the PosterUploadManager class, run against a local fake storage backend.
+ * Verifies resuming from saved sessions, exponential backoff, and recovery from expired sessions.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class PosterUploadManagerTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A storage service that keeps sessions in memory and can drop the connection at chosen offsets.
+     */
+    private static class FakeStorage implements PosterUploadManager.UploadBackend {
+        static final int CHUNK = 256;
+
+        final Map<String, Long> sessions = new HashMap<>();
+        final Map<String, Long> stored = new HashMap<>();
+        final Deque<Long> failurePoints = new ArrayDeque<>();
+        final List<Long> startOffsets = new ArrayList<>();
+        int nextSession = 0;
+
+        @Override
+        public void upload(String path, File file, String sessionUri, PosterUploadManager.TransferListener listener) {
+            if (sessionUri != null && !sessions.containsKey(sessionUri)) {
+                listener.onFailure(new IOException("Session expired"), false);
+                return;
+            }
+            if (sessionUri == null) {
+                sessionUri = "fake-session-" + (nextSession++);
+                sessions.put(sessionUri, 0L);
+                listener.onSessionStarted(sessionUri);
+            }
+
+            long size = file.length();
+            long offset = sessions.get(sessionUri);
+            Long failAt = failurePoints.poll();
+            startOffsets.add(offset);
+
+            while (offset < size) {
+                offset = Math.min(offset + CHUNK, size);
+                sessions.put(sessionUri, offset);
+                listener.onProgress(offset, size);
+                if (failAt != null && offset >= failAt) {
+                    listener.onFailure(new IOException("Connection reset"), true);
+                    return;
+                }
+            }
+            sessions.remove(sessionUri);
+            stored.put(path, size);
+            listener.onSuccess("fake://" + path);
+        }
+    }
+
+    /**
+     * A session store that outlives any one manager, standing in for SharedPreferences.
+     */
+    private static class MemoryStore implements PosterUploadManager.SessionStore {
+        final Map<String, String> values = new HashMap<>();
+
+        @Override public String get(String key) { return values.get(key); }
+        @Override public void put(String key, String sessionUri) { values.put(key, sessionUri); }
+        @Override public void remove(String key) { values.remove(key); }
+    }
+
+    /**
+     * Records every callback of an upload.
+     */
+    private static class RecordingListener implements PosterUploadManager.UploadListener {
+        final List<Long> progress = new ArrayList<>();
+        String url;
+        String error;
+
+        @Override public void onProgress(long bytesTransferred, long totalBytes) { progress.add(bytesTransferred); }
+        @Override public void onSuccess(String downloadUrl) { url = downloadUrl; }
+        @Override public void onFailure(String errorMessage) { error = errorMessage; }
+    }
+
+    private FakeStorage storage;
+    private MemoryStore store;
+    private List<Long> delays;
+    private PosterUploadManager manager;
+    private File poster;
+
+    @Before
+    public void setUp() throws IOException {
+        storage = new FakeStorage();
+        store = new MemoryStore();
+        delays = new ArrayList<>();
+        manager = newManager();
+
+        poster = folder.newFile("poster.jpg");
+        try (FileOutputStream out = new FileOutputStream(poster)) {
+            byte[] data = new byte[4096];
+            for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+            out.write(data);
+        }
+    }
+
+    private PosterUploadManager newManager() {
+        return new PosterUploadManager(storage, store, (task, delayMs) -> {
+            delays.add(delayMs);
+            task.run();
+        });
+    }
+
+    @Test
+    public void upload_shouldResumeFromSessionAfterRetryableFailure() {
+        storage.failurePoints.add(512L);
+        RecordingListener listener = new RecordingListener();
+
+        manager.upload("event_posters/e1.jpg", poster, listener);
+
+        assertEquals("fake://event_posters/e1.jpg", listener.url);
+        assertNull(listener.error);
+        assertEquals("Second attempt should continue where the first stopped",
+                Arrays.asList(0L, 512L), storage.startOffsets);
+        assertEquals(Arrays.asList(PosterUploadManager.BASE_DELAY_MS), delays);
+        assertEquals(Long.valueOf(4096), listener.progress.get(listener.progress.size() - 1));
+        assertTrue("Session should be forgotten once the upload completes", store.values.isEmpty());
+    }
+
+    @Test
+    public void upload_shouldResumeSavedSessionInNewManager() {
+        // Every attempt is cut off after one chunk.
+        for (int i = 0; i < PosterUploadManager.MAX_ATTEMPTS; i++) {
+            storage.failurePoints.add(0L);
+        }
+        RecordingListener first = new RecordingListener();
+        manager.upload("event_posters/e1.jpg", poster, first);
+
+        assertNotNull("Upload should give up after the last attempt", first.error);
+        assertEquals(1, store.values.size());
+
+        // Simulates the app being restarted with the same persisted sessions.
+        PosterUploadManager restarted = newManager();
+        RecordingListener second = new RecordingListener();
+        restarted.upload("event_posters/e1.jpg", poster, second);
+
+        assertEquals("fake://event_posters/e1.jpg", second.url);
+        long resumedAt = storage.startOffsets.get(storage.startOffsets.size() - 1);
+        assertEquals(FakeStorage.CHUNK * PosterUploadManager.MAX_ATTEMPTS, resumedAt);
+    }
+
+    @Test
+    public void upload_shouldRestartWhenSavedSessionIsRejected() throws IOException {
+        store.put(PosterUploadManager.sessionKey("event_posters/e1.jpg", poster), "expired-session");
+        RecordingListener listener = new RecordingListener();
+
+        manager.upload("event_posters/e1.jpg", poster, listener);
+
+        assertEquals("fake://event_posters/e1.jpg", listener.url);
+        assertEquals(Arrays.asList(0L), storage.startOffsets);
+    }
+
+    @Test
+    public void upload_shouldNotResumeSessionOfDifferentFile() throws IOException {
+        File other = folder.newFile("other.jpg");
+        try (FileOutputStream out = new FileOutputStream(other)) {
+            out.write(new byte[1000]);
+        }
+
+        assertNotEquals(PosterUploadManager.sessionKey("event_posters/e1.jpg", poster),
+                PosterUploadManager.sessionKey("event_posters/e1.jpg", other));
+    }
+
+    @Test
+    public void upload_shouldBackOffExponentiallyAndGiveUp() {
+        for (int i = 0; i < PosterUploadManager.MAX_ATTEMPTS; i++) {
+            storage.failurePoints.add(0L);
+        }
+        RecordingListener listener = new RecordingListener();
+
+        manager.upload("event_posters/e1.jpg", poster, listener);
+
+        assertEquals("Connection reset", listener.error);
+        assertNull(listener.url);
+        assertEquals(PosterUploadManager.MAX_ATTEMPTS, storage.startOffsets.size());
+        assertEquals(Arrays.asList(1000L, 2000L, 4000L, 8000L), delays);
+    }
+
+    @Test
+    public void backoffDelay_shouldBeCapped() {
+        assertEquals(PosterUploadManager.MAX_DELAY_MS, PosterUploadManager.backoffDelay(10));
+        assertEquals(PosterUploadManager.MAX_DELAY_MS, PosterUploadManager.backoffDelay(60));
+    }
+}
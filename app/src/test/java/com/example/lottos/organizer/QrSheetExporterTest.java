@@ -0,0 +1,72 @@
+package com.example.lottos.organizer;
+
+import com.example.lottos.EventRepository;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the QrSheetExporter class.
+ * Verifies that an export whose query returns after shutdown fails instead of throwing.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {28})
+public class QrSheetExporterTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shutdown_whileQueryRuns_shouldReportFailure() {
+        EventRepository repo = mock(EventRepository.class);
+        Task<QuerySnapshot> task = mock(Task.class);
+        when(repo.readEventsByOrganizer("org")).thenReturn(task);
+        when(task.addOnSuccessListener(any(OnSuccessListener.class))).thenReturn(task);
+        when(task.addOnFailureListener(any(OnFailureListener.class))).thenReturn(task);
+
+        List<String> failures = new ArrayList<>();
+        QrSheetExporter exporter = new QrSheetExporter(RuntimeEnvironment.getApplication(), repo);
+        exporter.exportOrganizerEvents("org", new QrSheetExporter.QrSheetCallback() {
+            @Override
+            public void onSuccess(String path, int pageCount) {
+                fail("A shut down exporter should not write a sheet");
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                failures.add(errorMessage);
+            }
+        });
+
+        ArgumentCaptor<OnSuccessListener<QuerySnapshot>> captor = ArgumentCaptor.forClass(OnSuccessListener.class);
+        verify(task).addOnSuccessListener(captor.capture());
+
+        QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+        when(doc.getId()).thenReturn("event1");
+        when(doc.getString("eventName")).thenReturn("Event 1");
+        QuerySnapshot query = mock(QuerySnapshot.class);
+        when(query.iterator()).thenReturn(Arrays.asList(doc).iterator());
+
+        exporter.shutdown();
+        captor.getValue().onSuccess(query);
+
+        assertEquals(Arrays.asList("Export cancelled."), failures);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.lottos.organizer;
+
+import com.google.zxing.common.BitMatrix;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the QrSheetPdfWriter class.
+ * Verifies the 1-bit image packing, string escaping, and that the cross-reference
+ * table points at the objects that were actually written.
+ */
+public class QrSheetPdfWriterTest {
+
+    @Test
+    public void packRows_shouldUseZeroForDarkModulesAndPadRows() {
+        BitMatrix matrix = new BitMatrix(10, 2);
+        matrix.set(0, 0);
+        matrix.set(9, 1);
+
+        byte[] data = QrSheetPdfWriter.packRows(matrix);
+
+        assertEquals("Each 10-pixel row should take two bytes", 4, data.length);
+        assertEquals((byte) 0x7F, data[0]);
+        assertEquals((byte) 0xC0, data[1]);
+        assertEquals((byte) 0xFF, data[2]);
+        assertEquals((byte) 0x80, data[3]);
+    }
+
+    @Test
+    public void escape_shouldEscapeDelimitersAndReplaceUnsupportedCharacters() {
+        assertEquals("a\\(b\\)c\\\\", QrSheetPdfWriter.escape("a(b)c\\"));
+        assertEquals("café ?", QrSheetPdfWriter.escape("café 中"));
+        assertEquals("", QrSheetPdfWriter.escape(null));
+    }
+
+    @Test
+    public void close_shouldWriteValidCrossReferenceTable() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BitMatrix matrix = new BitMatrix(21, 21);
+        matrix.setRegion(0, 0, 7, 7);
+
+        QrSheetPdfWriter writer = new QrSheetPdfWriter(out);
+        writer.addPage("Event A", "Event ID: a", matrix);
+        writer.addPage("Event B", "Event ID: b", matrix);
+        assertEquals(2, writer.getPageCount());
+        writer.close();
+
+        String pdf = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.startsWith("%PDF-1.4"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+        assertTrue(pdf.contains("/Count 2"));
+
+        Matcher startXref = Pattern.compile("startxref\n(\\d+)\n").matcher(pdf);
+        assertTrue(startXref.find());
+        int xrefOffset = Integer.parseInt(startXref.group(1));
+        assertTrue("startxref should point at the xref keyword", pdf.startsWith("xref", xrefOffset));
+
+        Matcher entry = Pattern.compile("(\\d{10}) 00000 n \n").matcher(pdf.substring(xrefOffset));
+        int objectNumber = 1;
+        while (entry.find()) {
+            int offset = Integer.parseInt(entry.group(1));
+            assertTrue("Object " + objectNumber + " should start at its xref offset",
+                    pdf.startsWith(objectNumber + " 0 obj", offset));
+            objectNumber++;
+        }
+        assertEquals("Catalog, pages, font, and three objects per page", 10, objectNumber);
+    }
+}